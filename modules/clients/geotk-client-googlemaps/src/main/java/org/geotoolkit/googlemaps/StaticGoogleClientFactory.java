@@ -59,7 +59,7 @@ public class StaticGoogleClientFactory extends AbstractClientFactory implements
 
 
     public static final ParameterDescriptorGroup PARAMETERS =
-            new ParameterBuilder().addName("GSParameters").createGroup(IDENTIFIER,URL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT);
+            new ParameterBuilder().addName("GSParameters").createGroup(IDENTIFIER,URL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT,DISK_CACHE,DISK_CACHE_SIZE);
 
     @Override
     public Identification getIdentification() {
@@ -92,6 +92,7 @@ public class StaticGoogleClientFactory extends AbstractClientFactory implements
             server.setUserProperty(CachedPyramidSet.PROPERTY_NIO, useNIO);
         }catch(ParameterNotFoundException ex){}
 
+        setupDiskCache(server, params);
         return server;
     }
 
@@ -69,7 +69,7 @@ public class OSMTMSClientFactory extends AbstractClientFactory implements Covera
 
     public static final ParameterDescriptorGroup PARAMETERS =
             new ParameterBuilder().addName("OSMTMSParameters").createGroup(
-                IDENTIFIER,URL,MAX_ZOOM_LEVEL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT);
+                IDENTIFIER,URL,MAX_ZOOM_LEVEL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT,DISK_CACHE,DISK_CACHE_SIZE);
 
     @Override
     public Identification getIdentification() {
@@ -103,6 +103,7 @@ public class OSMTMSClientFactory extends AbstractClientFactory implements Covera
             server.setUserProperty(CachedPyramidSet.PROPERTY_NIO, useNIO);
         }catch(ParameterNotFoundException ex){}
 
+        setupDiskCache(server, params);
         return server;
     }
 
@@ -17,6 +17,8 @@
  */
 package org.geotoolkit.client;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.HashMap;
@@ -25,12 +27,15 @@ import org.geotoolkit.factory.Factory;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.apache.sis.metadata.iso.quality.DefaultConformanceResult;
 import org.apache.sis.parameter.ParameterBuilder;
+import org.geotoolkit.client.map.CachedPyramidSet;
+import org.geotoolkit.client.map.DiskTileCache;
 import org.geotoolkit.parameter.Parameters;
 import org.geotoolkit.security.ClientSecurity;
 import org.apache.sis.storage.DataStoreException;
 import org.opengis.metadata.quality.ConformanceResult;
 import org.opengis.parameter.GeneralParameterValue;
 import org.opengis.parameter.InvalidParameterValueException;
+import org.opengis.parameter.ParameterNotFoundException;
 import org.opengis.parameter.ParameterDescriptor;
 import org.opengis.parameter.ParameterDescriptorGroup;
 import org.opengis.parameter.ParameterValue;
@@ -153,6 +158,50 @@ public abstract class AbstractClientFactory extends Factory implements ClientFac
             .setRequired(false)
             .create(Boolean.class, Boolean.FALSE);
 
+    /**
+     * Folder where tiles are stored, Optional.
+     * Clients using the same folder share the same cache.
+     * The folder must be empty or a folder previously used as a tile cache.
+     */
+    public static final ParameterDescriptor<File> DISK_CACHE = new ParameterBuilder()
+            .addName("diskcache")
+            .setRemarks("Folder where downloaded tiles are kept between sessions, empty or used only by the cache.")
+            .setRequired(false)
+            .create(File.class, null);
+
+    /**
+     * Size of the tile folder in megabytes, Optional.
+     * Default value is 512.
+     */
+    public static final ParameterDescriptor<Integer> DISK_CACHE_SIZE = new ParameterBuilder()
+            .addName("diskcachesize")
+            .setRemarks("Maximum size of the tile folder in megabytes.")
+            .setRequired(false)
+            .create(Integer.class, 512);
+
+    /**
+     * Set the disk tile cache user property of the client if a folder is defined in the parameters.
+     *
+     * @param server client to configure
+     * @param params parameters, may contain {@link #DISK_CACHE} and {@link #DISK_CACHE_SIZE}
+     */
+    protected static void setupDiskCache(final Client server, final ParameterValueGroup params) throws DataStoreException {
+        try{
+            final File folder = (File) params.parameter(DISK_CACHE.getName().getCode()).getValue();
+            if(folder == null) return;
+            Integer size = null;
+            try{
+                size = (Integer) params.parameter(DISK_CACHE_SIZE.getName().getCode()).getValue();
+            }catch(ParameterNotFoundException ex){}
+            if(size == null) size = DISK_CACHE_SIZE.getDefaultValue();
+            server.setUserProperty(CachedPyramidSet.PROPERTY_TILE_CACHE,
+                    DiskTileCache.open(folder.toPath(), size * 1024L * 1024L));
+        }catch(ParameterNotFoundException ex){
+        }catch(IOException ex){
+            throw new DataStoreException(ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Default Implementation abuses the naming convention.
      * <p>
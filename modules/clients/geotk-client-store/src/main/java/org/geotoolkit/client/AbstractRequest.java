@@ -245,40 +245,55 @@ public abstract class AbstractRequest implements Request {
      * @return 
      */
     protected InputStream followLink(URLConnection cnx) throws IOException{
+        return openRichException(followRedirections(cnx, headerMap, security, timeout));
+    }
+
+    /**
+     * Follow the redirections of an http connection, including the ones changing of protocol
+     * which are not followed by Java. Redirected connections are given the request headers,
+     * the cookies of the redirection response and are secured.
+     *
+     * @param cnx connection with the request headers, secured
+     * @param headers request headers to set on redirected connections
+     * @param security security applied on redirected connections
+     * @param timeout connection timeout in milliseconds
+     * @return last connection, the response code has been read if it is an http connection
+     */
+    public static URLConnection followRedirections(URLConnection cnx, final Map<String,String> headers,
+            final ClientSecurity security, final int timeout) throws IOException{
 
         while(cnx instanceof HttpURLConnection) {
-            HttpURLConnection httpCnx = (HttpURLConnection) cnx;
+            final HttpURLConnection httpCnx = (HttpURLConnection) cnx;
+            httpCnx.setConnectTimeout(timeout);
+            httpCnx.setReadTimeout(timeout*2);
 
-            final InputStream is = openRichException(httpCnx);
             final int status = httpCnx.getResponseCode();
             final boolean redirect = status == HttpURLConnection.HTTP_MOVED_TEMP
                                   || status == HttpURLConnection.HTTP_MOVED_PERM
                                   || status == HttpURLConnection.HTTP_SEE_OTHER;
+            if (!redirect) {
+                return cnx;
+            }
 
-            if (redirect) {
-                // get redirection url
-                final String newUrl = httpCnx.getHeaderField("Location");
-                // get new cookies
-                final String cookies = httpCnx.getHeaderField("Set-Cookie");
-                is.close();
-                
-                // open redirection
-                httpCnx = (HttpURLConnection) new URL(newUrl).openConnection();
-                cnx = httpCnx;
-                httpCnx.setRequestProperty("Cookie", cookies);
-
-                //Set all fields from the headerMap to the properties of this URLConnection.
-                for(final Entry<String,String> entry : headerMap.entrySet()){
-                    httpCnx.setRequestProperty(entry.getKey(),entry.getValue());
-                }
-                //security
-                httpCnx = (HttpURLConnection)security.secure(httpCnx);
-            }else{
-                return is;
+            // get redirection url
+            final URL newUrl = new URL(httpCnx.getURL(), httpCnx.getHeaderField("Location"));
+            // get new cookies
+            final String cookies = httpCnx.getHeaderField("Set-Cookie");
+            httpCnx.disconnect();
+
+            // open redirection
+            cnx = newUrl.openConnection();
+            cnx.setRequestProperty("Cookie", cookies);
+
+            //Set all fields from the headerMap to the properties of this URLConnection.
+            for(final Entry<String,String> entry : headers.entrySet()){
+                cnx.setRequestProperty(entry.getKey(),entry.getValue());
             }
+            //security
+            cnx = security.secure(cnx);
         }
 
-        return openRichException(cnx);
+        return cnx;
     }
 
     protected InputStream openRichException(final URLConnection cnx) throws IOException {
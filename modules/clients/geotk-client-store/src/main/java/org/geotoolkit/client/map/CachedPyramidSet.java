@@ -73,6 +73,12 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
      */
     public static final String PROPERTY_NIO = "nio_query";
 
+    /**
+     * {@link TileCache} property used on tiled servers to store downloaded tiles.
+     * Tiles are cached only for servers using url queries.
+     */
+    public static final String PROPERTY_TILE_CACHE = "tile_cache";
+
     protected static final Logger LOGGER = Logging.getLogger("org.geotoolkit.client.map");
 
     //NIO netty bootstrap.
@@ -118,6 +124,37 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
 
     public abstract Request getTileRequest(GridMosaic mosaic, int col, int row, Map hints) throws DataStoreException;
 
+    /**
+     * @return tile cache of the server, or null if tiles are not cached
+     */
+    protected TileCache getTileCache() {
+        final Client server = getServer();
+        if (server == null || !useURLQueries) {
+            return null;
+        }
+        final Object cache = server.getUserProperty(PROPERTY_TILE_CACHE);
+        return (cache instanceof TileCache) ? (TileCache) cache : null;
+    }
+
+    /**
+     * Create the tile request, answered by the tile cache if there is one.
+     */
+    private Request createTileRequest(GridMosaic mosaic, int col, int row, Map hints) throws DataStoreException {
+        final Request request = getTileRequest(mosaic, col, row, hints);
+        final TileCache cache = getTileCache();
+        if (cache == null) {
+            return request;
+        }
+        final String formatmime = (hints==null) ? null : (String) hints.get(PyramidSet.HINT_FORMAT);
+        try {
+            return new CachedTileRequest(request, CachedTileRequest.toKey(request, formatmime), cache,
+                    server.getClientSecurity(), server.getTimeOutValue());
+        } catch (MalformedURLException ex) {
+            LOGGER.log(Level.FINE, ex.getMessage(), ex);
+            return request;
+        }
+    }
+
     public TileReference getTile(GridMosaic mosaic, int col, int row, Map hints) throws DataStoreException {
         final String formatmime = (hints==null) ? null : (String) hints.get(PyramidSet.HINT_FORMAT);
         ImageReaderSpi spi = null;
@@ -132,7 +169,7 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
         if (cacheImages) {
             return new DefaultTileReference(spi, getTileImage(mosaic, col, row, hints), 0, new Point(col, row));
         } else {
-            return new RequestTileReference(spi, getTileRequest(mosaic, col, row, hints), 0, new Point(col, row));
+            return new RequestTileReference(spi, createTileRequest(mosaic, col, row, hints), 0, new Point(col, row));
         }
     }
 
@@ -156,7 +193,7 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
             try {
                 value = handler.peek();
                 if (value == null) {
-                    final Request request = getTileRequest(mosaic, col, row, hints);
+                    final Request request = createTileRequest(mosaic, col, row, hints);
                     InputStream stream = null;
                     ImageInputStream iis = null;
                     try {
@@ -222,6 +259,8 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
 
 
         final CancellableQueue<Object> queue = new CancellableQueue<Object>(1000);
+        final TileCache diskCache = getTileCache();
+        final String formatmime = (hints==null) ? null : (String) hints.get(PyramidSet.HINT_FORMAT);
 
         //compose the requiered queries
         final List<ImagePack> downloadList = new ArrayList<ImagePack>();
@@ -242,14 +281,30 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
                 queue.offer(pack.getTile());
             } else {
                 //we will have to download this image
-                String str;
                 try {
-                    str = getTileRequest(mosaic, p.x, p.y, hints).getURL().toString();
+                    final Request request = getTileRequest(mosaic, p.x, p.y, hints);
+                    String cacheKey = null;
+                    if (diskCache != null) {
+                        cacheKey = CachedTileRequest.toKey(request, formatmime);
+                        final TileCache.Entry entry = diskCache.get(cacheKey);
+                        if (entry != null && !entry.isExpired()) {
+                            //image was on disk, decode it
+                            final ImagePack pack = new ImagePack(tid, mosaic, p, hints);
+                            pack.buffer.writeBytes(entry.getData());
+                            queue.offer(pack.getTile());
+                            continue;
+                        }
+                    }
+                    String str = request.getURL().toString();
                     str = str.replaceFirst("http://", "");
                     str = str.substring(str.indexOf('/'));
-                    downloadList.add(new ImagePack(str, mosaic, p, hints));
+                    final ImagePack pack = new ImagePack(str, mosaic, p, hints);
+                    pack.cacheKey = cacheKey;
+                    downloadList.add(pack);
                 } catch (MalformedURLException ex) {
                     Logging.getLogger("org.geotoolkit.client.map").log(Level.SEVERE, null, ex);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, ex.getMessage(), ex);
                 }
             }
         }
@@ -444,6 +499,9 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
         private final ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
         private final Map hints;
         private RenderedImage img;
+        //disk cache key and entity tag of downloaded tile
+        private String cacheKey;
+        private String etag;
 
         public ImagePack(String requestPath, GridMosaic mosaic, Point pt, Map hints) {
             this.requestPath = requestPath;
@@ -483,7 +541,13 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
         public TileReference getTile() {
             if(img == null){
                 try {
-                    img = ImageIO.read(new ByteArrayInputStream(buffer.array()));
+                    final byte[] data = new byte[buffer.readableBytes()];
+                    buffer.getBytes(buffer.readerIndex(), data);
+                    img = ImageIO.read(new ByteArrayInputStream(data));
+                    final TileCache diskCache = getTileCache();
+                    if(img != null && cacheKey != null && diskCache != null){
+                        diskCache.put(cacheKey, data, etag, System.currentTimeMillis() + diskCache.getTimeToLive());
+                    }
                     if(tileCache != null){
                         final String tid = toId(mosaic, pt.x, pt.y, null);
                         //store it in the cache
@@ -546,6 +610,12 @@ public abstract class CachedPyramidSet extends DefaultPyramidSet {
 
             if (!chunks) {
                 final HttpResponse response = (HttpResponse) e.getMessage();
+                if (HttpResponseStatus.OK.equals(response.getStatus())) {
+                    pack.etag = response.getHeader(HttpHeaders.Names.ETAG);
+                } else {
+                    //do not cache errors
+                    pack.cacheKey = null;
+                }
 
                 if (response.isChunked()) {
                     chunks = true;
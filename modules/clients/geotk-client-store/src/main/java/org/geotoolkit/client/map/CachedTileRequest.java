@@ -0,0 +1,177 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.client.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.geotoolkit.client.AbstractRequest;
+import org.geotoolkit.client.Request;
+import org.geotoolkit.nio.IOUtilities;
+import org.geotoolkit.security.ClientSecurity;
+
+/**
+ * Tile request answered from a {@link TileCache}.
+ * Missing tiles are downloaded and stored in the cache, expired tiles are
+ * revalidated with their ETag when the server gave one. An expired tile is
+ * still used if the server can not be reached.
+ *
+ * @module pending
+ */
+final class CachedTileRequest implements Request {
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+
+    private final Request request;
+    private final TileCache cache;
+    private final String key;
+    private final ClientSecurity security;
+    private final int timeout;
+
+    /**
+     * @param request tile request, used to query the server on cache misses
+     * @param key tile key in the cache
+     */
+    CachedTileRequest(final Request request, final String key, final TileCache cache,
+            final ClientSecurity security, final int timeout) {
+        this.request = request;
+        this.key = key;
+        this.cache = cache;
+        this.security = security;
+        this.timeout = timeout;
+    }
+
+    /**
+     * The request URL contains the service, layer, matrix, column and row of the tile.
+     *
+     * @param format tile mime type, can be null
+     * @return tile key
+     */
+    static String toKey(final Request request, final String format) throws MalformedURLException {
+        final StringBuilder sb = new StringBuilder(request.getURL().toString());
+        if (format != null) sb.append('|').append(format);
+        return sb.toString();
+    }
+
+    @Override
+    public Map<String, String> getHeaderMap() {
+        return request.getHeaderMap();
+    }
+
+    @Override
+    public URL getURL() throws MalformedURLException {
+        return request.getURL();
+    }
+
+    @Override
+    public InputStream getResponseStream() throws IOException {
+        return new ByteArrayInputStream(getData());
+    }
+
+    /**
+     * @return encoded tile, from the cache or downloaded.
+     */
+    byte[] getData() throws IOException {
+        final TileCache.Entry entry = cache.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return entry.getData();
+        }
+
+        final Map<String,String> headers = new HashMap<>(request.getHeaderMap());
+        if (entry != null && entry.getETag() != null) {
+            headers.put("If-None-Match", entry.getETag());
+        }
+
+        final URLConnection cnx;
+        final byte[] data;
+        try {
+            URLConnection c = request.getURL().openConnection();
+            for (Map.Entry<String,String> header : headers.entrySet()) {
+                c.setRequestProperty(header.getKey(), header.getValue());
+            }
+            cnx = AbstractRequest.followRedirections(security.secure(c), headers, security, timeout);
+
+            if (entry != null && cnx instanceof HttpURLConnection
+                    && ((HttpURLConnection) cnx).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                ((HttpURLConnection) cnx).disconnect();
+                cache.revalidate(key, expires(cnx));
+                return entry.getData();
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream in = AbstractRequest.openRichException(cnx, security, timeout)) {
+                IOUtilities.copy(in, out);
+            }
+            data = out.toByteArray();
+        } catch (IOException ex) {
+            if (entry == null) throw ex;
+            //server can not be reached, the expired tile is better than nothing
+            CachedPyramidSet.LOGGER.log(Level.FINE, ex.getMessage(), ex);
+            return entry.getData();
+        }
+
+        if (isCacheable(cnx)) {
+            cache.put(key, data, cnx.getHeaderField("ETag"), expires(cnx));
+        }
+        return data;
+    }
+
+    /**
+     * Service exceptions are returned as text or xml documents, they must not be cached.
+     */
+    private static boolean isCacheable(final URLConnection cnx) {
+        final String type = cnx.getContentType();
+        if (type != null && (type.startsWith("text") || type.contains("xml"))) {
+            return false;
+        }
+        final String control = cnx.getHeaderField("Cache-Control");
+        return control == null || !control.contains("no-store");
+    }
+
+    /**
+     * @return expiration time from the Cache-Control max-age or Expires headers,
+     *         or the cache time to live if the server did not give any.
+     */
+    private long expires(final URLConnection cnx) {
+        final long now = System.currentTimeMillis();
+        final String control = cnx.getHeaderField("Cache-Control");
+        if (control != null) {
+            if (control.contains("no-cache")) return now;
+            final Matcher matcher = MAX_AGE.matcher(control);
+            if (matcher.find()) {
+                try {
+                    return now + Long.parseLong(matcher.group(1)) * 1000;
+                } catch (NumberFormatException ex) {
+                    //too large, use other headers
+                }
+            }
+        }
+        final long expiration = cnx.getExpiration();
+        return (expiration > 0) ? expiration : now + cache.getTimeToLive();
+    }
+
+}
@@ -0,0 +1,573 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.client.map;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.geotoolkit.nio.IOUtilities;
+
+/**
+ * Persistent tile cache, tiles are stored in a folder and shared between runs.
+ * <p>
+ * Tile contents are stored in files named by the SHA-1 of their bytes, so identical
+ * tiles (empty sea or land tiles for example) are stored once. A memory mapped index
+ * file maps the SHA-1 of each tile key to its content, ETag, expiration and last access
+ * time. When the size budget or the index capacity is exceeded, the least recently used
+ * tiles are removed.
+ * <p>
+ * The index file is locked while the cache is open, a folder can not be used by two
+ * processes. Content files which are not referenced by the index, left by a crash,
+ * are deleted when the cache is opened.
+ * <p>
+ * The cache folder must be empty or contain a cache index, other folders are refused
+ * so that files not written by the cache are never deleted.
+ * <p>
+ * Use {@link #open(Path, long)} to share a cache between clients.
+ *
+ * @module pending
+ */
+public final class DiskTileCache implements TileCache, Closeable {
+
+    /**
+     * Time to live of tiles without expiration from the server, 7 days.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.DAYS.toMillis(7);
+
+    private static final Map<Path,DiskTileCache> CACHES = new HashMap<>();
+
+    private static final String INDEX_FILE = "tiles.idx";
+    private static final String DATA_FOLDER = "data";
+
+    //index file layout : header followed by fixed size records
+    private static final int MAGIC = 0x47544331;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 128;
+    private static final int DIGEST_SIZE = 20;
+    private static final int OFF_STATE   = 0;
+    private static final int OFF_KEY     = 4;
+    private static final int OFF_CONTENT = OFF_KEY + DIGEST_SIZE;
+    private static final int OFF_LENGTH  = OFF_CONTENT + DIGEST_SIZE;
+    private static final int OFF_ACCESS  = 48;
+    private static final int OFF_EXPIRES = 56;
+    private static final int OFF_ETAG    = 64;
+    private static final int MAX_ETAG    = RECORD_SIZE - OFF_ETAG - 2;
+    private static final byte EMPTY = 0;
+    private static final byte USED  = 1;
+
+    /**
+     * Eviction removes tiles until the cache is below this ratio of its budget.
+     */
+    private static final double LOW_WATERMARK = 0.9;
+
+    private final Path folder;
+    private final Path dataFolder;
+    private final long maxBytes;
+    private final long timeToLive;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer index;
+    private final int capacity;
+
+    //in memory view of the index, rebuilt when opening
+    private final Map<Digest,Integer> slots = new HashMap<>();
+    private final Map<Digest,Integer> references = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long totalBytes;
+
+    /**
+     * Create a cache in given folder, existing tiles are preserved.
+     *
+     * @param folder cache folder, created if it does not exist, must be empty if it is not a cache folder
+     * @param maxBytes size budget of the tile contents
+     * @param timeToLive time to live in milliseconds of tiles without expiration from the server
+     * @throws IOException if the folder is used by another cache, in this or another process,
+     *         or if it is not empty and does not contain a cache index
+     */
+    public DiskTileCache(final Path folder, final long maxBytes, final long timeToLive) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive : " + maxBytes);
+        this.folder = folder.toAbsolutePath().normalize();
+        this.dataFolder = this.folder.resolve(DATA_FOLDER);
+        this.maxBytes = maxBytes;
+        this.timeToLive = timeToLive;
+
+        final Path indexFile = this.folder.resolve(INDEX_FILE);
+        if (!Files.exists(indexFile)) {
+            Files.createDirectories(this.folder);
+            checkEmpty(this.folder);
+        }
+        channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock fileLock = null;
+        try {
+            fileLock = channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            //locked by another cache of this process
+        }
+        if (fileLock == null) {
+            channel.close();
+            throw new IOException("Tile cache folder is used by another cache : " + this.folder);
+        }
+        lock = fileLock;
+
+        //reuse the existing index if valid
+        int cap = -1;
+        try {
+            if (channel.size() >= HEADER_SIZE) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC) {
+                    throw new IOException("Folder is not a tile cache : " + this.folder);
+                }
+                if (header.getInt() == VERSION) {
+                    cap = header.getInt();
+                    if (cap <= 0 || channel.size() < HEADER_SIZE + (long) cap * RECORD_SIZE) cap = -1;
+                }
+            } else if (Files.isDirectory(dataFolder)) {
+                //index creation did not complete, contents were not written by a cache
+                checkEmpty(dataFolder);
+            }
+        } catch (IOException ex) {
+            lock.release();
+            channel.close();
+            throw ex;
+        }
+
+        final boolean reset = (cap < 0);
+        if (reset) {
+            //older or incomplete cache index, start from an empty cache
+            cap = (int) Math.min(1 << 22, Math.max(1024, maxBytes / 8192));
+            channel.truncate(0);
+            IOUtilities.deleteRecursively(dataFolder);
+        }
+        Files.createDirectories(dataFolder);
+        capacity = cap;
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+
+        if (reset) {
+            index.putInt(0, MAGIC);
+            index.putInt(4, VERSION);
+            index.putInt(8, capacity);
+            for (int i = 0; i < capacity; i++) freeSlots.add(i);
+        } else {
+            load();
+            deleteOrphans();
+        }
+    }
+
+    /**
+     * Refuse a folder which contains files, they were not written by a cache.
+     */
+    private static void checkEmpty(final Path folder) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            if (stream.iterator().hasNext()) {
+                throw new IOException("Folder is not empty and is not a tile cache : " + folder);
+            }
+        }
+    }
+
+    /**
+     * Get the cache of given folder, the same instance is returned for a folder
+     * until it is closed.
+     *
+     * @param folder cache folder
+     * @param maxBytes size budget, used only when the cache is created
+     * @return shared cache
+     */
+    public static DiskTileCache open(Path folder, final long maxBytes) throws IOException {
+        folder = folder.toAbsolutePath().normalize();
+        synchronized (CACHES) {
+            DiskTileCache cache = CACHES.get(folder);
+            if (cache == null) {
+                cache = new DiskTileCache(folder, maxBytes, DEFAULT_TIME_TO_LIVE);
+                CACHES.put(folder, cache);
+            }
+            return cache;
+        }
+    }
+
+    private void load() {
+        for (int slot = 0; slot < capacity; slot++) {
+            final int offset = offset(slot);
+            if (index.get(offset + OFF_STATE) != USED) {
+                freeSlots.add(slot);
+                continue;
+            }
+            slots.put(readDigest(offset + OFF_KEY), slot);
+            acquire(readDigest(offset + OFF_CONTENT), index.getInt(offset + OFF_LENGTH));
+        }
+    }
+
+    /**
+     * Delete content files which are not referenced by the index,
+     * and temporary files of writes which did not complete.
+     * Only files named as the cache names them are deleted.
+     */
+    private void deleteOrphans() throws IOException {
+        final Set<String> names = new HashSet<>();
+        for (Digest content : references.keySet()) {
+            names.add(content.toString());
+        }
+        try (DirectoryStream<Path> folders = Files.newDirectoryStream(dataFolder)) {
+            for (Path sub : folders) {
+                if (!Files.isDirectory(sub) || !sub.getFileName().toString().matches("[0-9a-f]{2}")) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(sub)) {
+                    for (Path file : files) {
+                        final String name = file.getFileName().toString();
+                        if (Files.isRegularFile(file) && !names.contains(name)
+                                && (name.matches("[0-9a-f]{40}") || name.matches("tile.*\\.tmp"))) {
+                            Files.delete(file);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return cache folder.
+     */
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * @return size of the cached tile contents, in bytes.
+     */
+    public synchronized long getSize() {
+        return totalBytes;
+    }
+
+    /**
+     * @return number of cached tiles.
+     */
+    public synchronized int getTileCount() {
+        return slots.size();
+    }
+
+    @Override
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    @Override
+    public Entry get(final String key) throws IOException {
+        final Digest content;
+        final String etag;
+        final long expires;
+        synchronized (this) {
+            final Integer slot = slots.get(digest(key));
+            if (slot == null) return null;
+            final int offset = offset(slot);
+            index.putLong(offset + OFF_ACCESS, System.currentTimeMillis());
+            content = readDigest(offset + OFF_CONTENT);
+            expires = index.getLong(offset + OFF_EXPIRES);
+            etag = readETag(offset);
+        }
+
+        //read outside of the lock, the file may have been evicted meanwhile
+        final byte[] data;
+        try {
+            data = Files.readAllBytes(contentPath(content));
+        } catch (NoSuchFileException ex) {
+            remove(key);
+            return null;
+        }
+        return new Entry(data, etag, expires);
+    }
+
+    @Override
+    public void put(final String key, final byte[] data, final String etag, final long expires) throws IOException {
+        final Digest keyDigest = digest(key);
+        final Digest content = digest(data);
+
+        //write the content first, outside of the lock, an index record must not reference a missing file
+        final Path path = contentPath(content);
+        if (!Files.exists(path)) {
+            writeContent(path, data);
+        }
+
+        synchronized (this) {
+            if (!references.containsKey(content) && !Files.exists(path)) {
+                //released by an other thread since we wrote it
+                writeContent(path, data);
+            }
+            updateIndex(keyDigest, content, data.length, etag, expires);
+        }
+    }
+
+    private static void writeContent(final Path path, final byte[] data) throws IOException {
+        Files.createDirectories(path.getParent());
+        final Path tmp = Files.createTempFile(path.getParent(), "tile", ".tmp");
+        Files.write(tmp, data);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void updateIndex(final Digest keyDigest, final Digest content, final int length,
+            final String etag, final long expires) {
+        //reference the new content before releasing anything, it may be shared with evicted tiles
+        acquire(content, length);
+        Integer slot = slots.get(keyDigest);
+        if (slot != null) {
+            final int offset = offset(slot);
+            release(readDigest(offset + OFF_CONTENT), index.getInt(offset + OFF_LENGTH));
+        } else {
+            //free a batch of slots to avoid sorting the index on each put
+            if (freeSlots.isEmpty()) evict(Math.max(1, capacity / 16), -1);
+            slot = freeSlots.poll();
+            slots.put(keyDigest, slot);
+        }
+
+        final int offset = offset(slot);
+        index.put(offset + OFF_STATE, USED);
+        writeDigest(offset + OFF_KEY, keyDigest);
+        writeDigest(offset + OFF_CONTENT, content);
+        index.putInt(offset + OFF_LENGTH, length);
+        index.putLong(offset + OFF_ACCESS, System.currentTimeMillis());
+        index.putLong(offset + OFF_EXPIRES, expires);
+        writeETag(offset, etag);
+
+        if (totalBytes > maxBytes) evict(0, slot);
+    }
+
+    @Override
+    public synchronized void revalidate(final String key, final long expires) {
+        final Integer slot = slots.get(digest(key));
+        if (slot != null) {
+            final int offset = offset(slot);
+            index.putLong(offset + OFF_EXPIRES, expires);
+            index.putLong(offset + OFF_ACCESS, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public synchronized void remove(final String key) {
+        final Digest keyDigest = digest(key);
+        final Integer slot = slots.get(keyDigest);
+        if (slot != null) removeSlot(keyDigest, slot);
+    }
+
+    /**
+     * Remove all tiles.
+     */
+    public synchronized void clear() {
+        final List<Map.Entry<Digest,Integer>> entries = new ArrayList<>(slots.entrySet());
+        for (Map.Entry<Digest,Integer> entry : entries) {
+            removeSlot(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write the index on disk and release the cache, it must not be used anymore.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (CACHES) {
+            if (CACHES.get(folder) == this) {
+                CACHES.remove(folder);
+            }
+        }
+        synchronized (this) {
+            index.force();
+            lock.release();
+            channel.close();
+        }
+    }
+
+    /**
+     * Remove least recently used tiles until the size is below the low watermark
+     * and at least the given number of slots is free.
+     *
+     * @param minFreeSlots number of slots which must be free after eviction
+     * @param keep slot which must not be evicted, -1 for none
+     */
+    private void evict(final int minFreeSlots, final int keep) {
+        final List<long[]> candidates = new ArrayList<>(slots.size());
+        for (Integer slot : slots.values()) {
+            if (slot != keep) {
+                candidates.add(new long[]{index.getLong(offset(slot) + OFF_ACCESS), slot});
+            }
+        }
+        Collections.sort(candidates, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return Long.compare(a[0], b[0]);
+            }
+        });
+
+        final long target = (long) (maxBytes * LOW_WATERMARK);
+        for (long[] candidate : candidates) {
+            if (totalBytes <= target && freeSlots.size() >= minFreeSlots) break;
+            final int slot = (int) candidate[1];
+            removeSlot(readDigest(offset(slot) + OFF_KEY), slot);
+        }
+    }
+
+    private void removeSlot(final Digest keyDigest, final int slot) {
+        final int offset = offset(slot);
+        final Digest content = readDigest(offset + OFF_CONTENT);
+        final int length = index.getInt(offset + OFF_LENGTH);
+        index.put(offset + OFF_STATE, EMPTY);
+        slots.remove(keyDigest);
+        freeSlots.add(slot);
+        release(content, length);
+    }
+
+    private void acquire(final Digest content, final int length) {
+        final Integer count = references.get(content);
+        if (count == null) {
+            references.put(content, 1);
+            totalBytes += length;
+        } else {
+            references.put(content, count + 1);
+        }
+    }
+
+    private void release(final Digest content, final int length) {
+        final Integer count = references.get(content);
+        if (count == null) return;
+        if (count > 1) {
+            references.put(content, count - 1);
+            return;
+        }
+        references.remove(content);
+        totalBytes -= length;
+        try {
+            Files.deleteIfExists(contentPath(content));
+        } catch (IOException ex) {
+            CachedPyramidSet.LOGGER.log(Level.FINE, ex.getMessage(), ex);
+        }
+    }
+
+    private Path contentPath(final Digest content) {
+        final String name = content.toString();
+        return dataFolder.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private static int offset(final int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private Digest readDigest(final int offset) {
+        final byte[] bytes = new byte[DIGEST_SIZE];
+        for (int i = 0; i < DIGEST_SIZE; i++) bytes[i] = index.get(offset + i);
+        return new Digest(bytes);
+    }
+
+    private void writeDigest(final int offset, final Digest digest) {
+        for (int i = 0; i < DIGEST_SIZE; i++) index.put(offset + i, digest.bytes[i]);
+    }
+
+    private String readETag(final int offset) {
+        final int length = index.getShort(offset + OFF_ETAG);
+        if (length <= 0) return null;
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = index.get(offset + OFF_ETAG + 2 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Store the entity tag, tags too long for the record are dropped
+     * and the tile will be downloaded again when expired.
+     */
+    private void writeETag(final int offset, final String etag) {
+        final byte[] bytes = (etag == null) ? null : etag.getBytes(StandardCharsets.UTF_8);
+        if (bytes == null || bytes.length > MAX_ETAG) {
+            index.putShort(offset + OFF_ETAG, (short) 0);
+            return;
+        }
+        index.putShort(offset + OFF_ETAG, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) index.put(offset + OFF_ETAG + 2 + i, bytes[i]);
+    }
+
+    private static Digest digest(final String key) {
+        return digest(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Digest digest(final byte[] data) {
+        try {
+            return new Digest(MessageDigest.getInstance("SHA-1").digest(data));
+        } catch (NoSuchAlgorithmException ex) {
+            //SHA-1 is required on all java platforms
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * SHA-1 digest, used as map key.
+     */
+    private static final class Digest {
+
+        private final byte[] bytes;
+        private final int hash;
+
+        private Digest(final byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Digest && Arrays.equals(bytes, ((Digest) obj).bytes);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(DIGEST_SIZE * 2);
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        }
+    }
+
+}
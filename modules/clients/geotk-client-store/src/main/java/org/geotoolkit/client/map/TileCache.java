@@ -0,0 +1,109 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.client.map;
+
+import java.io.IOException;
+
+/**
+ * Cache of encoded tiles used by {@link CachedPyramidSet}.
+ * Tiles are stored as returned by the server, decoding is left to the caller.
+ * <p>
+ * Implementations must be thread safe, a cache can be shared by several clients.
+ *
+ * @module pending
+ */
+public interface TileCache {
+
+    /**
+     * @param key tile key, unique for the service, layer, matrix, column, row and format
+     * @return cached tile, may be expired, or null if not in the cache
+     */
+    Entry get(String key) throws IOException;
+
+    /**
+     * Store or replace a tile.
+     *
+     * @param key tile key
+     * @param data encoded tile
+     * @param etag entity tag returned by the server, can be null
+     * @param expires expiration time in milliseconds since epoch
+     */
+    void put(String key, byte[] data, String etag, long expires) throws IOException;
+
+    /**
+     * Update the expiration time of a tile after the server confirmed it has not changed.
+     *
+     * @param key tile key
+     * @param expires new expiration time in milliseconds since epoch
+     */
+    void revalidate(String key, long expires) throws IOException;
+
+    /**
+     * @param key tile key
+     */
+    void remove(String key) throws IOException;
+
+    /**
+     * @return time to live in milliseconds of tiles for which the server did not give any expiration.
+     */
+    long getTimeToLive();
+
+    /**
+     * Cached tile.
+     */
+    public static final class Entry {
+
+        private final byte[] data;
+        private final String etag;
+        private final long expires;
+
+        public Entry(final byte[] data, final String etag, final long expires) {
+            this.data = data;
+            this.etag = etag;
+            this.expires = expires;
+        }
+
+        /**
+         * @return encoded tile.
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return entity tag returned by the server, can be null.
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return expiration time in milliseconds since epoch.
+         */
+        public long getExpires() {
+            return expires;
+        }
+
+        /**
+         * @return true if the tile must be revalidated before use.
+         */
+        public boolean isExpired() {
+            return expires <= System.currentTimeMillis();
+        }
+    }
+
+}
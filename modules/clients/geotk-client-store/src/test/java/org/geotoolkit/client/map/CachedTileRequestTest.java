@@ -0,0 +1,195 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.client.map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotoolkit.client.Request;
+import org.geotoolkit.nio.IOUtilities;
+import org.geotoolkit.security.DefaultClientSecurity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Cached tile requests against a local http server.
+ *
+ * @module pending
+ */
+public class CachedTileRequestTest extends org.geotoolkit.test.TestBase {
+
+    private static final byte[] TILE = {1, 2, 3, 4};
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+    private Path folder;
+    private DiskTileCache cache;
+
+    /**
+     * Number of requests received by the server.
+     */
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Status returned by the server instead of the tile, 0 to return the tile.
+     */
+    private volatile int failure;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/tile", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                if (failure != 0) {
+                    send(exchange, failure, null, "text/plain", "unavailable".getBytes("UTF-8"));
+                } else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    send(exchange, 304, "max-age=3600", null, null);
+                } else {
+                    exchange.getResponseHeaders().add("ETag", ETAG);
+                    send(exchange, 200, "max-age=0", "image/png", TILE);
+                }
+            }
+        });
+        server.createContext("/nostore", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                send(exchange, 200, "no-store", "image/png", TILE);
+            }
+        });
+        server.createContext("/exception", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                send(exchange, 200, null, "application/vnd.ogc.se_xml", "<ServiceExceptionReport/>".getBytes("UTF-8"));
+            }
+        });
+        server.start();
+        folder = Files.createTempDirectory("tilecache");
+        cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        cache.close();
+        IOUtilities.deleteRecursively(folder);
+    }
+
+    private static void send(final HttpExchange exchange, final int status, final String control,
+            final String type, final byte[] body) throws IOException {
+        if (control != null) exchange.getResponseHeaders().add("Cache-Control", control);
+        if (type != null) exchange.getResponseHeaders().add("Content-Type", type);
+        exchange.sendResponseHeaders(status, (body == null) ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (body != null) out.write(body);
+        }
+    }
+
+    private CachedTileRequest request(final String path) throws MalformedURLException {
+        final URL url = new URL("http://localhost:" + server.getAddress().getPort() + path);
+        final Request request = new Request() {
+            @Override
+            public Map<String, String> getHeaderMap() {
+                return Collections.emptyMap();
+            }
+            @Override
+            public URL getURL() {
+                return url;
+            }
+            @Override
+            public InputStream getResponseStream() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        return new CachedTileRequest(request, CachedTileRequest.toKey(request, null), cache,
+                DefaultClientSecurity.NO_SECURITY, 5000);
+    }
+
+    /**
+     * Expired tiles are revalidated with their ETag, then read from the cache.
+     */
+    @Test
+    public void testRevalidation() throws IOException {
+        final CachedTileRequest request = request("/tile");
+        assertArrayEquals(TILE, request.getData());
+        assertEquals(1, requests.get());
+        final TileCache.Entry entry = cache.get(CachedTileRequest.toKey(request, null));
+        assertEquals(ETAG, entry.getETag());
+        assertTrue(entry.isExpired());
+
+        //not modified, the max-age of the 304 response applies
+        assertArrayEquals(TILE, request.getData());
+        assertEquals(2, requests.get());
+        assertFalse(cache.get(CachedTileRequest.toKey(request, null)).isExpired());
+
+        assertArrayEquals(TILE, request.getData());
+        assertEquals(2, requests.get());
+    }
+
+    /**
+     * Expired tiles are used when the server fails.
+     */
+    @Test
+    public void testStaleOnError() throws IOException {
+        final CachedTileRequest request = request("/tile");
+        assertArrayEquals(TILE, request.getData());
+        failure = 503;
+        assertArrayEquals(TILE, request.getData());
+        assertEquals(2, requests.get());
+
+        //nothing to fall back on
+        cache.remove(CachedTileRequest.toKey(request, null));
+        try {
+            request.getData();
+            fail("Server error should be thrown without a cached tile.");
+        } catch (IOException ex) {
+            //ok
+        }
+    }
+
+    /**
+     * Service exceptions and no-store responses are not cached.
+     */
+    @Test
+    public void testNotCached() throws IOException {
+        CachedTileRequest request = request("/exception");
+        assertArrayEquals("<ServiceExceptionReport/>".getBytes("UTF-8"), request.getData());
+        assertNull(cache.get(CachedTileRequest.toKey(request, null)));
+
+        request = request("/nostore");
+        assertArrayEquals(TILE, request.getData());
+        assertNull(cache.get(CachedTileRequest.toKey(request, null)));
+        assertEquals(2, requests.get());
+    }
+
+}
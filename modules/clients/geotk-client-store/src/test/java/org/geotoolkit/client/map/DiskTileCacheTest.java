@@ -0,0 +1,183 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.client.map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.geotoolkit.nio.IOUtilities;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Disk tile cache tests.
+ *
+ * @module pending
+ */
+public class DiskTileCacheTest extends org.geotoolkit.test.TestBase {
+
+    private static byte[] tile(final int value, final int length) {
+        final byte[] data = new byte[length];
+        data[0] = (byte) value;
+        return data;
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        final Path folder = Files.createTempDirectory("tilecache");
+        try {
+            final long expires = System.currentTimeMillis() + 60000;
+            DiskTileCache cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            cache.put("a", tile(1, 100), "\"etag-a\"", expires);
+            //same content as a, stored once
+            cache.put("b", tile(1, 100), null, expires);
+            cache.put("c", tile(2, 50), null, 0);
+            assertEquals(3, cache.getTileCount());
+            assertEquals(150, cache.getSize());
+            cache.close();
+
+            cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            assertEquals(3, cache.getTileCount());
+            assertEquals(150, cache.getSize());
+
+            final TileCache.Entry a = cache.get("a");
+            assertArrayEquals(tile(1, 100), a.getData());
+            assertEquals("\"etag-a\"", a.getETag());
+            assertEquals(expires, a.getExpires());
+            assertFalse(a.isExpired());
+            assertNull(cache.get("b").getETag());
+            assertTrue(cache.get("c").isExpired());
+            assertNull(cache.get("d"));
+
+            cache.revalidate("c", expires);
+            assertFalse(cache.get("c").isExpired());
+
+            //shared content is kept until the last reference is removed
+            cache.remove("a");
+            assertEquals(150, cache.getSize());
+            assertArrayEquals(tile(1, 100), cache.get("b").getData());
+            cache.remove("b");
+            assertEquals(50, cache.getSize());
+            cache.close();
+        } finally {
+            IOUtilities.deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final Path folder = Files.createTempDirectory("tilecache");
+        try {
+            final long expires = System.currentTimeMillis() + 60000;
+            final DiskTileCache cache = new DiskTileCache(folder, 1000, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            for (int i = 0; i < 10; i++) {
+                cache.put("t" + i, tile(i, 100), null, expires);
+                Thread.sleep(2);
+            }
+            assertEquals(1000, cache.getSize());
+
+            //access the oldest tile, it must not be evicted
+            assertNotNull(cache.get("t0"));
+            Thread.sleep(2);
+            cache.put("t10", tile(10, 100), null, expires);
+            assertTrue(cache.getSize() <= 900);
+            assertNotNull(cache.get("t0"));
+            assertNotNull(cache.get("t10"));
+            assertNull(cache.get("t1"));
+            assertNull(cache.get("t2"));
+            cache.close();
+        } finally {
+            IOUtilities.deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void testLock() throws Exception {
+        final Path folder = Files.createTempDirectory("tilecache");
+        try {
+            final DiskTileCache cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            try {
+                new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+                fail("Folder is used by another cache.");
+            } catch (IOException ex) {
+                //ok
+            }
+            cache.close();
+            //lock is released on close
+            new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE).close();
+        } finally {
+            IOUtilities.deleteRecursively(folder);
+        }
+    }
+
+    @Test
+    public void testOrphans() throws Exception {
+        final Path folder = Files.createTempDirectory("tilecache");
+        try {
+            final long expires = System.currentTimeMillis() + 60000;
+            DiskTileCache cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            cache.put("a", tile(1, 100), null, expires);
+            cache.close();
+
+            //files left by a crash between a content write and the index update
+            final Path sub = Files.createDirectories(folder.resolve("data").resolve("00"));
+            final Path orphan = Files.write(sub.resolve("0000000000000000000000000000000000000000"), tile(2, 10));
+            final Path tmp = Files.write(sub.resolve("tile123.tmp"), tile(3, 10));
+
+            cache = new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+            assertFalse(Files.exists(orphan));
+            assertFalse(Files.exists(tmp));
+            assertArrayEquals(tile(1, 100), cache.get("a").getData());
+            cache.close();
+        } finally {
+            IOUtilities.deleteRecursively(folder);
+        }
+    }
+
+    /**
+     * Folders which are not empty and not a cache must be refused, their files must be kept.
+     */
+    @Test
+    public void testForeignFolder() throws Exception {
+        final Path folder = Files.createTempDirectory("tilecache");
+        try {
+            final Path file = Files.write(Files.createDirectories(folder.resolve("data")).resolve("notes.txt"), tile(1, 10));
+            try {
+                new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+                fail("Folder is not a cache.");
+            } catch (IOException ex) {
+                //ok
+            }
+            assertTrue(Files.exists(file));
+            assertFalse(Files.exists(folder.resolve("tiles.idx")));
+
+            //index file not written by a cache
+            final Path index = Files.write(folder.resolve("tiles.idx"), new byte[64]);
+            try {
+                new DiskTileCache(folder, 1024*1024, DiskTileCache.DEFAULT_TIME_TO_LIVE);
+                fail("Folder is not a cache.");
+            } catch (IOException ex) {
+                //ok
+            }
+            assertTrue(Files.exists(file));
+            assertArrayEquals(new byte[64], Files.readAllBytes(index));
+        } finally {
+            IOUtilities.deleteRecursively(folder);
+        }
+    }
+
+}
@@ -64,7 +64,7 @@ public class WMSCClientFactory extends AbstractClientFactory implements Coverage
     public static final ParameterDescriptor<String> IDENTIFIER = createFixedIdentifier(NAME);
 
     public static final ParameterDescriptorGroup PARAMETERS =
-            new ParameterBuilder().addName("WMSCParameters").createGroup(IDENTIFIER,URL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT);
+            new ParameterBuilder().addName("WMSCParameters").createGroup(IDENTIFIER,URL,SECURITY,IMAGE_CACHE,NIO_QUERIES,TIMEOUT,DISK_CACHE,DISK_CACHE_SIZE);
 
     @Override
     public Identification getIdentification() {
@@ -110,6 +110,7 @@ public class WMSCClientFactory extends AbstractClientFactory implements Coverage
             server.setUserProperty(CachedPyramidSet.PROPERTY_NIO, useNIO);
         }catch(ParameterNotFoundException ex){}
 
+        setupDiskCache(server, params);
         return server;
     }
 
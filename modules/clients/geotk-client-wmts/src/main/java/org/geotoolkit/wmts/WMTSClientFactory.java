@@ -74,7 +74,7 @@ public class WMTSClientFactory extends AbstractClientFactory implements Coverage
 
     public static final ParameterDescriptorGroup PARAMETERS =
             new ParameterBuilder().addName("WMTSParameters").createGroup(
-                IDENTIFIER,URL,VERSION, SECURITY, IMAGE_CACHE,NIO_QUERIES,TIMEOUT);
+                IDENTIFIER,URL,VERSION, SECURITY, IMAGE_CACHE,NIO_QUERIES,TIMEOUT,DISK_CACHE,DISK_CACHE_SIZE);
 
     @Override
     public Identification getIdentification() {
@@ -107,6 +107,7 @@ public class WMTSClientFactory extends AbstractClientFactory implements Coverage
             server.setUserProperty(CachedPyramidSet.PROPERTY_NIO, useNIO);
         }catch(ParameterNotFoundException ex){}
 
+        setupDiskCache(server, params);
         return server;
     }
 
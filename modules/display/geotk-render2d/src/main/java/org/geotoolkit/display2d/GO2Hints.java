@@ -143,6 +143,27 @@ public final class GO2Hints extends Static {
      */
     public static final Key KEY_PARALLAL_BUFFER = new NamedKey(Boolean.class, "GO2 - Parallal Buffer");
 
+    /**
+     * Ask the portrayal service to split images larger then the given size, in pixels,
+     * in square tiles rendered in parallel. Labels are placed once for the whole image.
+     * This is used only when the portrayal service creates a buffered image.
+     *
+     * Default value is null, image is rendered in a single thread.
+     */
+    public static final Key KEY_RENDERING_TILE_SIZE = new NamedKey(Integer.class, "GO2 - Rendering tile size");
+
+    /**
+     * Configure the memory size, in bytes, of the feature and geometry cache attached
+     * to each feature layer. Features read for a view and their geometries reprojected
+     * in objective CRS are kept and reused when rendering the same area at a close
+     * resolution, this avoids reading and reprojecting features when panning or when
+     * the same tiles are requested several times.
+     * The cache is cleared when the layer features are modified.
+     *
+     * Default value is null, no cache.
+     */
+    public static final Key KEY_GEOMETRY_CACHE = new NamedKey(Number.class, "GO2 - Geometry cache");
+
     /**
      * When the raster symbolizer requieres an elevation model and the MapLayer
      * does not define any then a rendering engine search for a default one in the
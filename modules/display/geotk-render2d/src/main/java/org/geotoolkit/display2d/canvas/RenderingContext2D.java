@@ -667,6 +667,19 @@ public class RenderingContext2D implements RenderingContext{
         return labelRenderer;
     }
 
+    /**
+     * Set the label renderer of this rendering context, replacing the one defined
+     * by hint {@link GO2Hints#KEY_LABEL_RENDERER_CLASS}.
+     * The label renderer is reset when the context parameters are initialized.
+     * @param renderer : label renderer, can be null
+     */
+    public void setLabelRenderer(final LabelRenderer renderer) {
+        this.labelRenderer = renderer;
+        if(renderer != null){
+            renderer.setRenderingContext(this);
+        }
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -0,0 +1,424 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.container.stateless;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreContentEvent;
+import org.geotoolkit.data.FeatureStoreListener;
+import org.geotoolkit.data.FeatureStoreManagementEvent;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.memory.WrapFeatureCollection;
+import org.geotoolkit.data.query.Query;
+import org.geotoolkit.data.session.Session;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.display2d.canvas.RenderingContext2D;
+import org.geotoolkit.display2d.primitive.ProjectedFeature;
+import org.geotoolkit.display2d.primitive.ProjectedGeometry;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.factory.HintsPending;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.Property;
+import org.geotoolkit.geometry.jts.transform.GeometryScaleTransformer;
+import org.geotoolkit.map.FeatureMapLayer;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+
+/**
+ * Feature and geometry cache attached to a feature map layer.
+ * <br/>
+ * The cache holds two kinds of entries sharing the same memory budget :
+ * <ul>
+ *   <li>the features read for a query, the queried area is aligned on a grid
+ *       so close views produce the same query and do not read the data again.</li>
+ *   <li>the feature geometries reprojected and decimated in objective CRS, stored
+ *       in packed coordinate sequences and identified by feature id, objective CRS,
+ *       resolution bucket and decimation state.</li>
+ * </ul>
+ * Resolutions in the same bucket differ by less then a factor 2, features are
+ * queried and decimated at the finest resolution of the bucket.
+ * <br/>
+ * The cache is cleared each time the layer session content changes.
+ *
+ * @module pending
+ * @see GO2Hints#KEY_GEOMETRY_CACHE
+ */
+final class StatelessFeatureCache implements FeatureStoreListener {
+
+    /**
+     * Layer user property where the cache is stored.
+     */
+    private static final String USERKEY_CACHE = "GO2 - Geometry cache";
+
+    /**
+     * Size of the grid cells, in pixels, used to align the queried area.
+     */
+    private static final int CELL_SIZE = 512;
+
+    /**
+     * Features of a query are not cached if they use more then this
+     * fraction of the memory budget.
+     */
+    private static final int QUERY_FRACTION = 4;
+
+    private static final GeometryFactory PACKED_FACTORY = new GeometryFactory(
+            new PackedCoordinateSequenceFactory(PackedCoordinateSequenceFactory.DOUBLE, 2));
+
+    private static final String QUERY_ENTRY = "query";
+    private static final String GEOMETRY_ENTRY = "geometry";
+
+    private final FeatureStoreListener.Weak weakSessionListener = new FeatureStoreListener.Weak(this);
+    private final LinkedHashMap<Key,Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<CoordinateReferenceSystem> crss = new ArrayList<>();
+    private volatile long budget;
+    private long used = 0;
+    private long generation = 0;
+
+    private StatelessFeatureCache(final Session session, final long budget) {
+        this.budget = budget;
+        weakSessionListener.registerSource(session);
+    }
+
+    /**
+     * Get the cache of the given layer, the cache is created if needed.
+     *
+     * @return cache or null if the cache is not activated in the rendering hints
+     */
+    static StatelessFeatureCache get(final FeatureMapLayer layer, final RenderingContext2D context){
+        final RenderingHints hints = context.getRenderingHints();
+        final Object value = (hints == null) ? null : hints.get(GO2Hints.KEY_GEOMETRY_CACHE);
+        if(!(value instanceof Number)) return null;
+        final long budget = ((Number)value).longValue();
+        if(budget <= 0) return null;
+
+        synchronized(layer){
+            Object cache = layer.getUserProperty(USERKEY_CACHE);
+            if(!(cache instanceof StatelessFeatureCache)){
+                cache = new StatelessFeatureCache(layer.getCollection().getSession(), budget);
+                layer.setUserProperty(USERKEY_CACHE, cache);
+            }
+            ((StatelessFeatureCache)cache).setBudget(budget);
+            return (StatelessFeatureCache) cache;
+        }
+    }
+
+    /**
+     * Prepare a view of the cache for a rendering.
+     *
+     * @param objectiveCRS rendering objective CRS
+     * @param resolution rendering resolution, in objective units by pixel
+     * @param generalize true to decimate geometries
+     * @return cache view, null if the resolution can not be used
+     */
+    synchronized View view(final CoordinateReferenceSystem objectiveCRS, final double resolution, final boolean generalize){
+        if(!(resolution > 0) || Double.isInfinite(resolution)) return null;
+
+        int crsIndex = crss.indexOf(objectiveCRS);
+        if(crsIndex < 0){
+            crsIndex = crss.size();
+            crss.add(objectiveCRS);
+        }
+        return new View(crsIndex, Math.getExponent(resolution), resolution, generalize, generation);
+    }
+
+    private synchronized void setBudget(final long budget){
+        this.budget = budget;
+        evict();
+    }
+
+    private synchronized Object get(final Key key){
+        final Entry entry = entries.get(key);
+        return (entry == null) ? null : entry.value;
+    }
+
+    private synchronized void put(final Key key, final Object value, final long size, final long generation){
+        if(generation != this.generation){
+            //content has changed while we were computing the value
+            return;
+        }
+        final Entry old = entries.put(key, new Entry(value, size));
+        if(old != null) used -= old.size;
+        used += size;
+        evict();
+    }
+
+    private void evict(){
+        final Iterator<Entry> ite = entries.values().iterator();
+        while(used > budget && ite.hasNext()){
+            used -= ite.next().size;
+            ite.remove();
+        }
+    }
+
+    synchronized void clear(){
+        entries.clear();
+        used = 0;
+        generation++;
+    }
+
+    @Override
+    public void structureChanged(final FeatureStoreManagementEvent event) {
+        clear();
+    }
+
+    @Override
+    public void contentChanged(final FeatureStoreContentEvent event) {
+        clear();
+    }
+
+    /**
+     * Estimate the memory used by a feature.
+     */
+    private static long sizeOf(final Feature feature){
+        long size = 64;
+        for(Property property : feature.getProperties()){
+            final Object value = property.getValue();
+            size += 32;
+            if(value instanceof Geometry){
+                size += ((Geometry)value).getNumPoints() * 40L;
+            }else if(value instanceof CharSequence){
+                size += ((CharSequence)value).length() * 2L;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Cache state for a rendering.
+     */
+    final class View {
+
+        private final int crsIndex;
+        private final int bucket;
+        private final boolean generalize;
+        private final long generation;
+
+        /**
+         * Size of the grid cells in objective CRS units.
+         */
+        final double cellSize;
+
+        /**
+         * Ratio between the bucket resolution and the rendering resolution.
+         */
+        final double resolutionRatio;
+
+        private View(final int crsIndex, final int bucket, final double resolution,
+                final boolean generalize, final long generation) {
+            this.crsIndex = crsIndex;
+            this.bucket = bucket;
+            this.generalize = generalize;
+            this.generation = generation;
+            final double bucketResolution = Math.scalb(1.0, bucket);
+            this.cellSize = bucketResolution * CELL_SIZE;
+            this.resolutionRatio = bucketResolution / resolution;
+        }
+
+        /**
+         * Get the cached features of the given query, or read and cache them.
+         *
+         * @param col collection of the query
+         * @return cached collection or null if the features could not be cached
+         */
+        FeatureCollection load(final FeatureCollection col, final Query query) throws FeatureStoreRuntimeException {
+            final Key key = new Key(QUERY_ENTRY, query, crsIndex, bucket);
+            Feature[] features = (Feature[]) get(key);
+            if(features == null){
+                final long limit = budget / QUERY_FRACTION;
+                final List<Feature> list = new ArrayList<>();
+                long size = 0;
+                try(FeatureIterator ite = col.iterator(new Hints(HintsPending.FEATURE_DETACHED, Boolean.TRUE))){
+                    while(ite.hasNext()){
+                        final Feature feature = ite.next();
+                        size += sizeOf(feature);
+                        if(size > limit){
+                            //too many features, they will be rendered directly from the data
+                            return null;
+                        }
+                        list.add(feature);
+                    }
+                }
+                features = list.toArray(new Feature[list.size()]);
+                put(key, features, size, generation);
+            }
+            return new CachedFeatureCollection(col, features);
+        }
+
+        /**
+         * Create a projected feature using the cached geometries.
+         */
+        ProjectedFeature createProjectedFeature(final StatelessContextParams<FeatureMapLayer> params){
+            return new CachedProjectedFeature(params, this);
+        }
+
+        private Geometry getGeometry(final String fid, final Expression exp){
+            return (Geometry) get(new Key(GEOMETRY_ENTRY, fid, exp, crsIndex, bucket, generalize));
+        }
+
+        private Geometry putGeometry(final String fid, final Expression exp, Geometry geom) throws TransformException{
+            if(generalize){
+                final double res = Math.scalb(1.0, bucket);
+                geom = new GeometryScaleTransformer(res, res).transform(geom);
+            }
+            final Object userData = geom.getUserData();
+            geom = PACKED_FACTORY.createGeometry(geom);
+            geom.setUserData(userData);
+            final long size = 64 + geom.getNumGeometries() * 48L + geom.getNumPoints() * 16L;
+            put(new Key(GEOMETRY_ENTRY, fid, exp, crsIndex, bucket, generalize), geom, size, generation);
+            return geom;
+        }
+    }
+
+    /**
+     * Projected feature which reuse objective geometries from the cache.
+     */
+    private static final class CachedProjectedFeature extends ProjectedFeature {
+
+        private final View view;
+        private final Set<Expression> resolved = new HashSet<>();
+
+        private CachedProjectedFeature(final StatelessContextParams<FeatureMapLayer> params, final View view) {
+            super(params);
+            this.view = view;
+        }
+
+        @Override
+        public void setCandidate(final Feature candidate) {
+            resolved.clear();
+            super.setCandidate(candidate);
+        }
+
+        @Override
+        public ProjectedGeometry getGeometry(final Expression geomExp) {
+            final ProjectedGeometry proj = super.getGeometry(geomExp);
+            if(proj.isSet() && resolved.add(geomExp)){
+                final FeatureId id = getFeatureId();
+                final String fid = (id == null) ? null : id.getID();
+                if(fid != null && !fid.isEmpty()){
+                    try{
+                        Geometry geom = view.getGeometry(fid, geomExp);
+                        if(geom == null){
+                            geom = view.putGeometry(fid, geomExp, proj.getObjectiveBaseGeometryJTS());
+                        }
+                        proj.setObjectiveBaseGeometryJTS(geom);
+                    }catch(TransformException ex){
+                        //the symbolizer renderers will raise the same error when
+                        //reprojecting the geometry and report it.
+                    }
+                }
+            }
+            return proj;
+        }
+    }
+
+    /**
+     * Collection of features read from the cache.
+     */
+    private static final class CachedFeatureCollection extends WrapFeatureCollection {
+
+        private final Feature[] features;
+
+        private CachedFeatureCollection(final FeatureCollection original, final Feature[] features) {
+            super(original);
+            this.features = features;
+        }
+
+        @Override
+        public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
+            return new FeatureIterator() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < features.length;
+                }
+
+                @Override
+                public Feature next() {
+                    if(index >= features.length){
+                        throw new NoSuchElementException("No more features.");
+                    }
+                    return features[index++];
+                }
+
+                @Override
+                public void remove() {
+                    throw new FeatureStoreRuntimeException("Cached features can not be removed.");
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return features.length == 0;
+        }
+
+        @Override
+        protected Feature modify(final Feature original) throws FeatureStoreRuntimeException {
+            throw new UnsupportedOperationException("should not have been called.");
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long size;
+
+        private Entry(final Object value, final long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+
+    private static final class Key {
+
+        private final Object[] parts;
+
+        private Key(final Object ... parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && Arrays.equals(parts, ((Key)obj).parts);
+        }
+    }
+
+}
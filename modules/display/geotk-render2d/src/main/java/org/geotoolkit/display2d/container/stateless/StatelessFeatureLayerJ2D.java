@@ -109,6 +109,8 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
     protected Query currentQuery = null;
     // symbols margins, in objective CRS units, used to expand query and intersection enveloppes.
     private double symbolsMargin = 0.0;
+    // layer cache for the current rendering, null if not activated.
+    private StatelessFeatureCache.View cacheView = null;
 
 
     public StatelessFeatureLayerJ2D(final J2DCanvas canvas, final FeatureMapLayer layer){
@@ -149,6 +151,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
      */
     @Override
     public void paintLayer(final RenderingContext2D renderingContext) {
+        cacheView = null;
 
         //search for a special graphic renderer
         final GraphicBuilder<GraphicJ2D> builder = (GraphicBuilder<GraphicJ2D>) item.getGraphicBuilder(GraphicJ2D.class);
@@ -196,7 +199,15 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
             final double scale = XAffineTransform.getScale(renderingContext.getDisplayToObjective());
             symbolsMargin = scale * symbolsMargin;
         }
-        
+
+        //use the layer cache if activated
+        final StatelessFeatureCache cache = StatelessFeatureCache.get(item, renderingContext);
+        if(cache != null){
+            final RenderingHints hints = renderingContext.getRenderingHints();
+            final boolean generalize = !Boolean.FALSE.equals(hints.get(GO2Hints.KEY_GENERALIZE));
+            final double resolution = XAffineTransform.getScale(renderingContext.getDisplayToObjective());
+            cacheView = cache.view(renderingContext.getObjectiveCRS2D(), resolution, generalize);
+        }
         
         final FeatureCollection candidates;
         try {
@@ -267,11 +278,22 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
     @Override
     protected Collection<?> optimizeCollection(final RenderingContext2D context,
             final Set<String> requieredAtts, final List<Rule> rules) throws Exception {
-        currentQuery = prepareQuery(context, item, requieredAtts, rules, symbolsMargin);
+        if(cacheView != null){
+            currentQuery = prepareQuery(context, item, requieredAtts, rules, symbolsMargin,
+                    cacheView.cellSize, cacheView.resolutionRatio);
+        }else{
+            currentQuery = prepareQuery(context, item, requieredAtts, rules, symbolsMargin);
+        }
         //we detach feature since we are going to use a cache.
         currentQuery.getHints().put(HintsPending.FEATURE_DETACHED,Boolean.TRUE);
         final Query query = currentQuery;
         FeatureCollection col = ((FeatureCollection)item.getCollection()).subCollection(query);
+        if(cacheView != null){
+            final FeatureCollection cached = cacheView.load(col, query);
+            if(cached != null){
+                return cached;
+            }
+        }
         col = GenericCachedFeatureIterator.wrap(col, 1000);
         return col;
     }
@@ -297,7 +319,8 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
             final RenderingContext2D renderingContext, final StatelessContextParams params) {
         final Hints iteHints = new Hints(HintsPending.FEATURE_DETACHED, Boolean.FALSE);
         final FeatureIterator iterator = ((FeatureCollection)features).iterator(iteHints);
-        final ProjectedFeature projectedFeature = new ProjectedFeature(params);
+        final ProjectedFeature projectedFeature = (cacheView != null) ?
+                cacheView.createProjectedFeature(params) : new ProjectedFeature(params);
         return new GraphicIterator(iterator, projectedFeature);
     }
 
@@ -426,11 +449,24 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
      */
     protected static Query prepareQuery(final RenderingContext2D renderingContext, final FeatureMapLayer layer,
             final Set<String> styleRequieredAtts, final List<Rule> rules, double symbolsMargin) throws PortrayalException{
+        return prepareQuery(renderingContext, layer, styleRequieredAtts, rules, symbolsMargin, 0.0, 1.0);
+    }
+
+    /**
+     * Creates an optimal query to send to the datastore.
+     *
+     * @param cellSize if positive, the queried area is expanded to a grid of cells of this size,
+     *        in objective CRS units. Close views will then produce the same query.
+     * @param resolutionRatio factor applied on the query resolution
+     */
+    private static Query prepareQuery(final RenderingContext2D renderingContext, final FeatureMapLayer layer,
+            final Set<String> styleRequieredAtts, final List<Rule> rules, double symbolsMargin,
+            final double cellSize, final double resolutionRatio) throws PortrayalException{
 
         final FeatureCollection fs            = layer.getCollection();
         final FeatureType schema                                 = fs.getFeatureType();
         final GeometryDescriptor geomDesc                        = schema.getGeometryDescriptor();
-        final BoundingBox bbox                                   = optimizeBBox(renderingContext, layer, symbolsMargin);
+        final BoundingBox bbox                                   = optimizeBBox(renderingContext, layer, symbolsMargin, cellSize);
         final CoordinateReferenceSystem layerCRS                 = schema.getCoordinateReferenceSystem();
         final RenderingHints hints                               = renderingContext.getRenderingHints();
 
@@ -653,8 +689,8 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
                 }else{
                     factor = GO2Hints.GENERALIZE_FACTOR_DEFAULT.doubleValue();
                 }
-                res[0] *= factor;
-                res[1] *= factor;
+                res[0] *= factor * resolutionRatio;
+                res[1] *= factor * resolutionRatio;
                 qb.setResolution(res);
             }
 
@@ -689,7 +725,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         final FeatureCollection fs            = layer.getCollection();
         final FeatureType schema                                 = fs.getFeatureType();
         final GeometryDescriptor geomDesc                        = schema.getGeometryDescriptor();
-        final BoundingBox bbox                                   = optimizeBBox(renderingContext,layer,symbolsMargin);
+        final BoundingBox bbox                                   = optimizeBBox(renderingContext,layer,symbolsMargin,0.0);
         final CoordinateReferenceSystem layerCRS                 = schema.getCoordinateReferenceSystem();
         final String geomAttName                                 = (geomDesc!=null)? geomDesc.getLocalName() : null;
         final RenderingHints hints                               = renderingContext.getRenderingHints();
@@ -789,7 +825,7 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
         return qb.buildQuery();
     }
 
-    private static BoundingBox optimizeBBox(RenderingContext2D renderingContext, FeatureMapLayer layer, double symbolsMargin){
+    private static BoundingBox optimizeBBox(RenderingContext2D renderingContext, FeatureMapLayer layer, double symbolsMargin, double cellSize){
         BoundingBox bbox                                         = renderingContext.getPaintingObjectiveBounds2D();
         final CoordinateReferenceSystem bboxCRS                  = bbox.getCoordinateReferenceSystem();
         final CanvasMonitor monitor                              = renderingContext.getMonitor();
@@ -802,6 +838,16 @@ public class StatelessFeatureLayerJ2D extends StatelessCollectionLayerJ2D<Featur
             env.setRange(1, env.getMinimum(1)-symbolsMargin, env.getMaximum(1)+symbolsMargin);
             bbox = new DefaultBoundingBox(env);
         }
+
+        //align the search area on the grid
+        if(cellSize>0){
+            final GeneralEnvelope env = new GeneralEnvelope(bbox);
+            for(int i=0;i<2;i++){
+                env.setRange(i, Math.floor(env.getMinimum(i)/cellSize)*cellSize,
+                                Math.ceil(env.getMaximum(i)/cellSize)*cellSize);
+            }
+            bbox = new DefaultBoundingBox(env);
+        }
         
         //layer crs may be null if it define an abstract collection
         //or if the crs is defined only on the feature geometry
@@ -58,6 +58,7 @@ public class ProjectedGeometry  {
     private Shape                                   dataShape = null;
 
     //Geometry in objective CRS
+    private com.vividsolutions.jts.geom.Geometry      objectiveBaseJTS = null;
     private com.vividsolutions.jts.geom.Geometry[]    objectiveGeometryJTS = null;
     private Geometry[]                                objectiveGeometryISO = null;
     private Shape[]                                   objectiveShape = null;
@@ -82,6 +83,7 @@ public class ProjectedGeometry  {
         this.dataGeometryJTS        = copy.dataGeometryJTS;
         this.dataGeometryISO        = copy.dataGeometryISO;
         this.dataShape              = copy.dataShape;
+        this.objectiveBaseJTS       = copy.objectiveBaseJTS;
         this.objectiveGeometryJTS   = copy.objectiveGeometryJTS;
         this.objectiveGeometryISO   = copy.objectiveGeometryISO;
         this.objectiveShape         = copy.objectiveShape;
@@ -137,6 +139,7 @@ public class ProjectedGeometry  {
 
     public void clearObjectiveCache(){
         clearDisplayCache();
+        objectiveBaseJTS = null;
         objectiveGeometryISO = null;
         objectiveGeometryJTS = null;
         objectiveShape = null;
@@ -165,16 +168,15 @@ public class ProjectedGeometry  {
     }
 
     /**
-     * Get a JTS representation of the geometry in objective CRS.
+     * Get a JTS representation of the geometry in objective CRS, before any
+     * wrap around repetition. Unlike the geometries returned by {@link #getObjectiveGeometryJTS() },
+     * this geometry does not depend on the visible area, only on the objective CRS.
      *
      * @return JTS Geometry
      * @throws TransformException if geometry could not be reprojected.
      */
-    public com.vividsolutions.jts.geom.Geometry[] getObjectiveGeometryJTS() throws TransformException {
-        if(objectiveGeometryJTS == null && geomSet){
-
-            objectiveGeometryJTS = new com.vividsolutions.jts.geom.Geometry[1];
-
+    public com.vividsolutions.jts.geom.Geometry getObjectiveBaseGeometryJTS() throws TransformException {
+        if(objectiveBaseJTS == null && geomSet){
             com.vividsolutions.jts.geom.Geometry objBase;
             if(dataToObjective == null){
                 //we assume data and objective are in the same crs
@@ -184,10 +186,8 @@ public class ProjectedGeometry  {
                 objBase = transformer.transform(getDataGeometryJTS());
             }
 
-
             if(params.context.wraps != null){
-
-                com.vividsolutions.jts.geom.Envelope objBounds = objBase.getEnvelopeInternal();
+                final com.vividsolutions.jts.geom.Envelope objBounds = objBase.getEnvelopeInternal();
                 final double dx = params.context.wraps.wrapPoints[1].getOrdinate(0) - params.context.wraps.wrapPoints[0].getOrdinate(0);
                 final double dy = params.context.wraps.wrapPoints[1].getOrdinate(1) - params.context.wraps.wrapPoints[0].getOrdinate(1);
 
@@ -204,8 +204,41 @@ public class ProjectedGeometry  {
                     final CoordinateSequenceWrapTransformer cstrs = new CoordinateSequenceWrapTransformer(wrapTranslate);
                     final GeometryCSTransformer transformer = new GeometryCSTransformer(cstrs);
                     objBase = transformer.transform(objBase);
-                    objBounds = objBase.getEnvelopeInternal();
                 }
+            }
+            objectiveBaseJTS = objBase;
+        }
+        return objectiveBaseJTS;
+    }
+
+    /**
+     * Set the geometry in objective CRS, before any wrap around repetition.
+     * This is used to reuse a geometry already reprojected in a previous rendering,
+     * the data geometry must be set before.
+     *
+     * @param geom JTS Geometry in objective CRS
+     */
+    public void setObjectiveBaseGeometryJTS(final com.vividsolutions.jts.geom.Geometry geom){
+        clearObjectiveCache();
+        objectiveBaseJTS = geom;
+    }
+
+    /**
+     * Get a JTS representation of the geometry in objective CRS.
+     *
+     * @return JTS Geometry
+     * @throws TransformException if geometry could not be reprojected.
+     */
+    public com.vividsolutions.jts.geom.Geometry[] getObjectiveGeometryJTS() throws TransformException {
+        if(objectiveGeometryJTS == null && geomSet){
+
+            objectiveGeometryJTS = new com.vividsolutions.jts.geom.Geometry[1];
+
+            final com.vividsolutions.jts.geom.Geometry objBase = getObjectiveBaseGeometryJTS();
+
+            if(params.context.wraps != null){
+
+                final com.vividsolutions.jts.geom.Envelope objBounds = objBase.getEnvelopeInternal();
 
                 //check if the geometry overlaps the meridian
                 int nbIncRep = params.context.wraps.wrapIncNb;
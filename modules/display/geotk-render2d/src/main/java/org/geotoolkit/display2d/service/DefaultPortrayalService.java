@@ -228,8 +228,23 @@ public final class DefaultPortrayalService implements PortrayalService{
                 );
     }
 
+    /**
+     * Portray the scene in a buffered image.
+     * If hint {@link GO2Hints#KEY_RENDERING_TILE_SIZE} is defined and the image is larger
+     * than a tile, the image is rendered by tiles in parallel.
+     */
     public static BufferedImage portray(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef) throws PortrayalException{
 
+        final Hints hints = sceneDef.getHints();
+        final Object tileSize = (hints!=null)?hints.get(GO2Hints.KEY_RENDERING_TILE_SIZE):null;
+        if(tileSize instanceof Integer){
+            final int size = (Integer) tileSize;
+            final Dimension dim = canvasDef.getDimension();
+            if(size > 0 && (dim.width > size || dim.height > size)){
+                return TiledPortrayal.portray(canvasDef, sceneDef, viewDef, size);
+            }
+        }
+
         final Envelope contextEnv = viewDef.getEnvelope();
         final CoordinateReferenceSystem crs = contextEnv.getCoordinateReferenceSystem();
 
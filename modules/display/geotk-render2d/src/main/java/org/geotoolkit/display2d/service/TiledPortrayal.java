@@ -0,0 +1,431 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.display2d.service;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import org.geotoolkit.display.PortrayalException;
+import org.geotoolkit.display.canvas.control.AbstractCanvasMonitor;
+import org.geotoolkit.display.canvas.control.CanvasMonitor;
+import org.geotoolkit.display.canvas.control.FailOnErrorMonitor;
+import org.geotoolkit.display.primitive.SceneNode;
+import org.geotoolkit.display2d.GO2Hints;
+import org.geotoolkit.display2d.canvas.J2DCanvasBuffered;
+import org.geotoolkit.display2d.canvas.RenderingContext2D;
+import org.geotoolkit.display2d.container.stateless.StatelessContextParams;
+import org.geotoolkit.display2d.primitive.ProjectedGeometry;
+import org.geotoolkit.display2d.primitive.jts.JTSGeometryJ2D;
+import org.geotoolkit.display2d.style.labeling.DefaultLabelLayer;
+import org.geotoolkit.display2d.style.labeling.DefaultLabelRenderer;
+import org.geotoolkit.display2d.style.labeling.DefaultLinearLabelDescriptor;
+import org.geotoolkit.display2d.style.labeling.DefaultPointLabelDescriptor;
+import org.geotoolkit.display2d.style.labeling.LabelDescriptor;
+import org.geotoolkit.display2d.style.labeling.LabelLayer;
+import org.geotoolkit.display2d.style.labeling.LabelRenderer;
+import org.geotoolkit.display2d.style.labeling.LinearLabelDescriptor;
+import org.geotoolkit.display2d.style.labeling.PointLabelDescriptor;
+import org.geotoolkit.factory.Hints;
+import org.geotoolkit.internal.Threads;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+
+/**
+ * Render an image by tiles, in parallel.<br/><br/>
+ *
+ * Each tile is rendered by its own canvas, using the objective to display transform of the
+ * whole image translated to the tile origin, so tiles join exactly. Labels are not painted
+ * by the tiles : they are collected, moved in the image display space and placed once
+ * by the label renderer of the whole image, so labels do not depend on the tile seams.
+ * A label found in several tiles is placed only once.
+ *
+ * @module pending
+ */
+final class TiledPortrayal {
+
+    private TiledPortrayal(){}
+
+    /**
+     * Render the scene in square tiles of given size.
+     *
+     * @param tileSize tile width and height in pixels.
+     * @return rendered image
+     */
+    static BufferedImage portray(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef viewDef,
+            final int tileSize) throws PortrayalException{
+
+        final Dimension dim = canvasDef.getDimension();
+        final CoordinateReferenceSystem crs = viewDef.getEnvelope().getCoordinateReferenceSystem();
+        final CanvasMonitor monitor = (viewDef.getMonitor() != null) ? viewDef.getMonitor() : new FailOnErrorMonitor();
+
+        //canvas of the whole image, never painted, defines the transform and places the labels
+        final J2DCanvasBuffered master = new J2DCanvasBuffered(crs, dim, sceneDef.getHints());
+        DefaultPortrayalService.prepareCanvas(master, canvasDef, sceneDef,
+                new ViewDef(viewDef.getEnvelope(), viewDef.getAzimuth(), monitor));
+        final AffineTransform objToDisp = master.getObjectiveToDisplay();
+        final BufferedImage image = createImage(master, canvasDef, dim);
+
+        //tiles have their own monitor, a canvas stops its monitor when it starts painting
+        final ViewDef tileView = new ViewDef(viewDef.getEnvelope(), viewDef.getAzimuth());
+
+        monitor.renderingStarted();
+        try{
+            final List<Callable<Tile>> tasks = new ArrayList<>();
+            for(int y=0; y<dim.height; y+=tileSize){
+                for(int x=0; x<dim.width; x+=tileSize){
+                    final Rectangle area = new Rectangle(x, y,
+                            Math.min(tileSize, dim.width-x), Math.min(tileSize, dim.height-y));
+                    tasks.add(new Callable<Tile>() {
+                        @Override
+                        public Tile call() throws Exception {
+                            return renderTile(canvasDef, sceneDef, tileView, monitor,
+                                    objToDisp, area, image.getColorModel());
+                        }
+                    });
+                }
+            }
+
+            //copy tiles in the image, in this thread to avoid concurrent writes in the raster
+            final List<LabelLayer> labels = new ArrayList<>();
+            for(Tile tile : renderTiles(tasks)){
+                if(tile.image != null){
+                    image.getRaster().setRect(tile.area.x, tile.area.y, tile.image.getRaster());
+                }
+                labels.addAll(tile.labels);
+            }
+
+            if(!monitor.stopRequested()){
+                portrayLabels(master, image, labels, monitor);
+            }
+        }finally{
+            monitor.renderingFinished();
+            master.dispose();
+        }
+
+        return image;
+    }
+
+    private static Tile renderTile(final CanvasDef canvasDef, final SceneDef sceneDef, final ViewDef tileView,
+            final CanvasMonitor monitor, final AffineTransform objToDisp, final Rectangle area,
+            final ColorModel colorModel) throws PortrayalException {
+        final Tile tile = new Tile(area);
+        if(monitor.stopRequested()){
+            return tile;
+        }
+
+        final TileCanvas canvas = new TileCanvas(tileView.getEnvelope().getCoordinateReferenceSystem(),
+                area, sceneDef.getHints());
+        try{
+            DefaultPortrayalService.prepareCanvas(canvas, canvasDef, sceneDef, tileView);
+            canvas.setRenderingHint(GO2Hints.KEY_COLOR_MODEL, colorModel);
+            canvas.setMonitor(new TileMonitor(monitor));
+
+            //whole image transform, translated to the tile origin
+            final AffineTransform trs = AffineTransform.getTranslateInstance(
+                    -area.width/2.0 - area.x, -area.height/2.0 - area.y);
+            trs.concatenate(objToDisp);
+            canvas.setCenterTransform(trs);
+
+            canvas.repaint();
+            tile.image = canvas.getSnapShot();
+            if(canvas.labels != null){
+                tile.labels.addAll(canvas.labels.layers);
+            }
+        }finally{
+            canvas.dispose();
+        }
+        return tile;
+    }
+
+    /**
+     * Place the labels collected by the tiles on the whole image.
+     */
+    private static void portrayLabels(final J2DCanvasBuffered master, final BufferedImage image,
+            final List<LabelLayer> layers, final CanvasMonitor monitor){
+        if(layers.isEmpty()) return;
+
+        final Graphics2D g2d = image.createGraphics();
+        try{
+            final RenderingContext2D context = master.prepareContext(new RenderingContext2D(master), g2d, null);
+            if(context == null) return;
+            final LabelRenderer renderer = context.getLabelRenderer(true);
+
+            //same feature label may have been collected by several tiles
+            final Set<String> placed = new HashSet<>();
+            for(LabelLayer layer : layers){
+                final LabelLayer global = renderer.createLabelLayer();
+                for(LabelDescriptor label : layer.labels()){
+                    if(placed.add(key(label))){
+                        global.labels().add(label);
+                    }
+                }
+                renderer.append(global);
+            }
+            renderer.portrayLabels();
+        }catch(TransformException ex){
+            monitor.exceptionOccured(ex, Level.WARNING);
+        }finally{
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Identify a label by its type, text and position, rounded to the pixel.
+     */
+    private static String key(final LabelDescriptor label) throws TransformException{
+        final StringBuilder sb = new StringBuilder(label.getClass().getName());
+        sb.append('|').append(label.getText());
+        for(Geometry geom : label.getGeometry().getDisplayGeometryJTS()){
+            final Envelope env = geom.getEnvelopeInternal();
+            sb.append('|').append(Math.round(env.getMinX())).append(',').append(Math.round(env.getMinY()))
+              .append(',').append(Math.round(env.getMaxX())).append(',').append(Math.round(env.getMaxY()));
+        }
+        return sb.toString();
+    }
+
+    private static BufferedImage createImage(final J2DCanvasBuffered master, final CanvasDef canvasDef, final Dimension dim){
+        final ColorModel cm = (ColorModel) master.getRenderingHint(GO2Hints.KEY_COLOR_MODEL);
+        if(cm != null){
+            return new BufferedImage(cm, cm.createCompatibleWritableRaster(dim.width, dim.height),
+                    cm.isAlphaPremultiplied(), null);
+        }
+        //tiles may not use the same colors, an index color model can not be predicted
+        final Color bgColor = canvasDef.getBackground();
+        if(bgColor != null && bgColor.getAlpha() == 255){
+            return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_RGB);
+        }else{
+            return new BufferedImage(dim.width, dim.height, BufferedImage.TYPE_INT_ARGB);
+        }
+    }
+
+    /**
+     * Render the tiles in parallel and wait for their results.
+     */
+    private static List<Tile> renderTiles(final List<Callable<Tile>> tasks) throws PortrayalException {
+        try {
+            return Threads.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PortrayalException("Interrupted while rendering tile.", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof PortrayalException) throw (PortrayalException) cause;
+            if (cause instanceof RuntimeException)   throw (RuntimeException) cause;
+            if (cause instanceof Error)              throw (Error) cause;
+            throw new PortrayalException(cause.getMessage(), cause);
+        }
+    }
+
+    private static final class Tile {
+        private final Rectangle area;
+        private final List<LabelLayer> labels = new ArrayList<>();
+        private BufferedImage image;
+
+        private Tile(final Rectangle area) {
+            this.area = area;
+        }
+    }
+
+    /**
+     * Canvas of a tile, collects labels instead of painting them.
+     */
+    private static final class TileCanvas extends J2DCanvasBuffered {
+
+        private final Rectangle area;
+        private TileLabelRenderer labels;
+
+        private TileCanvas(final CoordinateReferenceSystem crs, final Rectangle area, final Hints hints) {
+            super(crs, area.getSize(), hints);
+            this.area = area;
+        }
+
+        @Override
+        protected void render(final RenderingContext2D context, final List<SceneNode> graphics) {
+            labels = new TileLabelRenderer(area.x, area.y);
+            context.setLabelRenderer(labels);
+            super.render(context, graphics);
+        }
+    }
+
+    /**
+     * Tile monitor, stops when the monitor of the whole image is stopped.
+     */
+    private static final class TileMonitor extends AbstractCanvasMonitor {
+
+        private final CanvasMonitor parent;
+
+        private TileMonitor(final CanvasMonitor parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public boolean stopRequested() {
+            return stopRequest || parent.stopRequested();
+        }
+
+        @Override
+        public void exceptionOccured(final Exception ex, final Level level) {
+            synchronized (parent) {
+                parent.exceptionOccured(ex, level);
+            }
+        }
+    }
+
+    /**
+     * Collect labels of a tile, moved in the display space of the whole image.
+     * Labels which must be painted immediately are painted in the tile.
+     */
+    private static final class TileLabelRenderer implements LabelRenderer {
+
+        private final int offsetX;
+        private final int offsetY;
+        private final List<LabelLayer> appended = new ArrayList<>();
+        private final List<LabelLayer> layers = new ArrayList<>();
+        private RenderingContext2D context;
+
+        private TileLabelRenderer(final int offsetX, final int offsetY) {
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+        }
+
+        @Override
+        public void setRenderingContext(final RenderingContext2D context) {
+            this.context = context;
+        }
+
+        @Override
+        public RenderingContext2D getRenderingContext() {
+            return context;
+        }
+
+        @Override
+        public LabelLayer createLabelLayer() {
+            return new DefaultLabelLayer(false, true);
+        }
+
+        @Override
+        public void append(final LabelLayer layer) {
+            appended.add(layer);
+        }
+
+        /**
+         * Move the appended labels in the whole image display space.
+         * Tile display geometries must be read before the tile context is released.
+         */
+        @Override
+        public void portrayLabels() throws TransformException {
+            for(LabelLayer layer : appended){
+                final LabelLayer global = new DefaultLabelLayer(layer.isObstacle(), layer.isLabelled());
+                for(LabelDescriptor label : layer.labels()){
+                    final LabelDescriptor moved = move(label);
+                    if(moved != null) global.labels().add(moved);
+                }
+                layers.add(global);
+            }
+            appended.clear();
+        }
+
+        @Override
+        public void portrayImmidiately(final LabelLayer layer) {
+            final DefaultLabelRenderer renderer = new DefaultLabelRenderer();
+            renderer.setRenderingContext(context);
+            renderer.portrayImmidiately(layer);
+        }
+
+        private LabelDescriptor move(final LabelDescriptor label) throws TransformException {
+            final ProjectedGeometry geom = new TranslatedGeometry(label.getGeometry(), offsetX, offsetY);
+            if(label instanceof PointLabelDescriptor){
+                final PointLabelDescriptor pl = (PointLabelDescriptor) label;
+                return new DefaultPointLabelDescriptor(pl.getText(), pl.getTextFont(), pl.getTextPaint(),
+                        pl.getHaloWidth(), pl.getHaloPaint(),
+                        pl.getAnchorX(), pl.getAnchorY(),
+                        pl.getDisplacementX(), pl.getDisplacementY(),
+                        pl.getRotation(), null, geom);
+            }else if(label instanceof LinearLabelDescriptor){
+                final LinearLabelDescriptor ll = (LinearLabelDescriptor) label;
+                return new DefaultLinearLabelDescriptor(ll.getText(), ll.getTextFont(), ll.getTextPaint(),
+                        ll.getHaloWidth(), ll.getHaloPaint(),
+                        ll.getGap(), ll.getInitialGap(), ll.getOffSet(),
+                        ll.isRepeated(), ll.isAligned(), ll.isGeneralized(), geom);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Display geometry of a tile translated in the whole image display space.
+     * Geometries are not clipped to the tile, so the same feature produces the same
+     * geometry in all tiles. Only display geometries are available.
+     */
+    private static final class TranslatedGeometry extends ProjectedGeometry {
+
+        private final Geometry[] geometries;
+        private Shape[] shapes;
+
+        private TranslatedGeometry(final ProjectedGeometry source, final int offsetX, final int offsetY)
+                throws TransformException {
+            super((StatelessContextParams) null);
+            final Geometry[] tileGeometries = source.getDisplayGeometryJTS();
+            if(tileGeometries == null){
+                geometries = new Geometry[0];
+            }else{
+                final AffineTransformation trs = AffineTransformation.translationInstance(offsetX, offsetY);
+                geometries = new Geometry[tileGeometries.length];
+                for(int i=0;i<geometries.length;i++){
+                    geometries[i] = trs.transform(tileGeometries[i]);
+                }
+            }
+        }
+
+        @Override
+        public boolean isSet() {
+            return true;
+        }
+
+        @Override
+        public Geometry[] getDisplayGeometryJTS() {
+            return geometries;
+        }
+
+        @Override
+        public Shape[] getDisplayShape() {
+            if(shapes == null){
+                shapes = new Shape[geometries.length];
+                for(int i=0;i<shapes.length;i++){
+                    shapes[i] = new JTSGeometryJ2D(geometries[i]);
+                }
+            }
+            return shapes;
+        }
+    }
+
+}
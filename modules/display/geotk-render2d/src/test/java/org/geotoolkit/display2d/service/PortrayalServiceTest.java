@@ -66,12 +66,16 @@ import org.geotoolkit.coverage.grid.GridCoverageBuilder;
 import org.geotoolkit.coverage.io.GridCoverageReader;
 import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.memory.WrapFeatureCollection;
 import org.geotoolkit.display.canvas.control.StopOnErrorMonitor;
 import org.geotoolkit.display.PortrayalException;
 import org.geotoolkit.display2d.GO2Hints;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.FactoryFinder;
+import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.feature.Feature;
@@ -544,6 +548,142 @@ public class PortrayalServiceTest extends org.geotoolkit.test.TestBase {
     }
 
 
+    /**
+     * Test that an image rendered by tiles is the same as the image rendered at once,
+     * graphics cross the tile seams.
+     */
+    @Test
+    public void testTiledRendering() throws Exception{
+        final FeatureType ft = createPointType();
+        final FeatureCollection col = FeatureStoreUtilities.collection(
+                createPoint(ft, "0", 3.2, 6.8), createPoint(ft, "1", 5, 5), createPoint(ft, "2", 9.6, 0.4));
+        final MapContext context = createPointContext(col);
+        final GeneralEnvelope env = createPointEnvelope();
+
+        final BufferedImage expected = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context), new ViewDef(env));
+
+        final Hints hints = new Hints(GO2Hints.KEY_RENDERING_TILE_SIZE, 32);
+        final BufferedImage tiled = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context, hints), new ViewDef(env));
+
+        assertEquals(100, tiled.getWidth());
+        assertEquals(100, tiled.getHeight());
+        assertEquals(Color.BLACK.getRGB(), tiled.getRGB(32, 32));
+        assertEquals(Color.BLACK.getRGB(), tiled.getRGB(31, 31));
+        for(int y=0;y<100;y++){
+            for(int x=0;x<100;x++){
+                assertEquals(expected.getRGB(x, y), tiled.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testGeometryCache() throws Exception{
+        final FeatureType ft = createPointType();
+        final FeatureCollection col = FeatureStoreUtilities.collection(createPoint(ft, "0", 3, 5));
+        final CountingFeatureCollection counting = new CountingFeatureCollection(col);
+        final MapContext context = createPointContext(counting);
+        final GeneralEnvelope env = createPointEnvelope();
+
+        final Hints hints = new Hints(GO2Hints.KEY_GEOMETRY_CACHE, 1000000l);
+        final BufferedImage expected = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context), new ViewDef(env));
+        int reads = counting.reads;
+
+        //cache miss, features are read
+        final BufferedImage first = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context, hints), new ViewDef(env));
+        assertTrue(counting.reads > reads);
+        reads = counting.reads;
+
+        //cache hit, features are not read again
+        final BufferedImage second = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context, hints), new ViewDef(env));
+        assertEquals(reads, counting.reads);
+        for(int y=0;y<100;y++){
+            for(int x=0;x<100;x++){
+                assertEquals(expected.getRGB(x, y), first.getRGB(x, y));
+                assertEquals(expected.getRGB(x, y), second.getRGB(x, y));
+            }
+        }
+        assertEquals(Color.WHITE.getRGB(), second.getRGB(70, 80));
+
+        //modifying the features sends a FeatureStoreContentEvent which must clear the cache
+        col.add(createPoint(ft, "1", 7, 2));
+
+        final BufferedImage modified = DefaultPortrayalService.portray(
+                new CanvasDef(new Dimension(100, 100), Color.WHITE), new SceneDef(context, hints), new ViewDef(env));
+        assertTrue(counting.reads > reads);
+        assertEquals(Color.BLACK.getRGB(), modified.getRGB(30, 50));
+        assertEquals(Color.BLACK.getRGB(), modified.getRGB(70, 80));
+    }
+
+    private static FeatureType createPointType(){
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("test");
+        ftb.add("geom", Point.class, CommonCRS.WGS84.normalizedGeographic());
+        return ftb.buildFeatureType();
+    }
+
+    private static Feature createPoint(final FeatureType ft, final String id, final double x, final double y){
+        final Feature feature = FeatureUtilities.defaultFeature(ft, id);
+        final Point pt = GF.createPoint(new Coordinate(x, y));
+        JTS.setCRS(pt, CommonCRS.WGS84.normalizedGeographic());
+        feature.setPropertyValue("geom", pt);
+        return feature;
+    }
+
+    /**
+     * @return context with a single layer rendering points as black circles of 8 pixels.
+     */
+    private static MapContext createPointContext(final FeatureCollection col){
+        final List<GraphicalSymbol> symbols = new ArrayList<>();
+        final Stroke stroke = SF.stroke(Color.BLACK, 0);
+        final Fill fill = SF.fill(Color.BLACK);
+        final Mark mark = SF.mark(MARK_CIRCLE, fill, stroke);
+        symbols.add(mark);
+        final Graphic graphic = SF.graphic(symbols, LITERAL_ONE_FLOAT, FF.literal(8), LITERAL_ONE_FLOAT, DEFAULT_ANCHOR_POINT, DEFAULT_DISPLACEMENT);
+        final PointSymbolizer symbolizer = SF.pointSymbolizer("mySymbol",(String)null,DEFAULT_DESCRIPTION, NonSI.PIXEL, graphic);
+
+        final FeatureMapLayer layer = MapBuilder.createFeatureLayer(col,SF.style(symbolizer));
+        final MapContext context = MapBuilder.createContext();
+        context.layers().add(layer);
+        return context;
+    }
+
+    private static GeneralEnvelope createPointEnvelope(){
+        final GeneralEnvelope env = new GeneralEnvelope(CommonCRS.WGS84.normalizedGeographic());
+        env.setRange(0, 0, 10);
+        env.setRange(1, 0, 10);
+        return env;
+    }
+
+    /**
+     * Count the detached feature reads, used by the geometry cache to load features.
+     */
+    private static final class CountingFeatureCollection extends WrapFeatureCollection {
+
+        private int reads = 0;
+
+        private CountingFeatureCollection(final FeatureCollection original) {
+            super(original);
+        }
+
+        @Override
+        public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
+            if(hints != null && Boolean.TRUE.equals(hints.get(HintsPending.FEATURE_DETACHED))){
+                reads++;
+            }
+            return getOriginalFeatureCollection().iterator(hints);
+        }
+
+        @Override
+        protected Feature modify(final Feature original) throws FeatureStoreRuntimeException {
+            return original;
+        }
+    }
+
     private void testRendering(final MapLayer layer) throws TransformException, PortrayalException{
         final StopOnErrorMonitor monitor = new StopOnErrorMonitor();
 
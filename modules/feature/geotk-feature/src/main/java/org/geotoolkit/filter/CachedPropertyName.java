@@ -18,6 +18,8 @@
 package org.geotoolkit.filter;
 
 import org.geotoolkit.feature.type.ComplexType;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
 import org.opengis.filter.expression.ExpressionVisitor;
 import org.opengis.filter.expression.PropertyName;
 
@@ -26,6 +28,9 @@ import org.geotoolkit.filter.binding.Binding;
 import org.geotoolkit.filter.binding.Bindings;
 
 /**
+ * Property name with a resolved accessor.
+ * When the expected type is a simple feature type, the property is bound to
+ * its attribute index and read directly on features of this exact type.
  *
  * @author Johann Sorel (Geomatys)
  */
@@ -35,43 +40,41 @@ class CachedPropertyName extends AbstractExpression implements PropertyName{
 
     private final Binding accessor;
 
+    private final SimpleFeatureType indexedType;
+    private final int index;
+
     CachedPropertyName(final String property, final Class clazz, final ComplexType expectedType) {
         ensureNonNull("property name", property);
         this.property = property;
-                
-        final Binding fallacc = Bindings.getBinding(clazz,property);
-        
-        //try to create a faster accessor
-//        if(Property.class.isAssignableFrom(clazz) && expectedType instanceof SimpleFeatureType ){
-//            final SimpleFeatureType sft = (SimpleFeatureType) expectedType;
-//            final int index = sft.indexOf(property);
-//            this.accessor = new PropertyAccessor() {
-//                @Override
-//                public boolean canHandle(Class object, String xpath, Class target) {
-//                    return true;
-//                }
-//                @Override
-//                public Object get(Object object, String xpath, Class target) throws IllegalArgumentException {
-//                    if(object instanceof SimpleFeature){
-//                        return ((SimpleFeature)object).getAttribute(index);
-//                    }else{
-//                        return fallacc.get(object, xpath, target);
-//                    }
-//                }
-//                @Override
-//                public void set(Object object, String xpath, Object value, Class target) throws IllegalArgumentException {
-//                    if(object instanceof SimpleFeature){
-//                        ((SimpleFeature)object).setAttribute(index,value);
-//                    }else{
-//                        fallacc.set(object,xpath,value,target);
-//                    }
-//                    
-//                }
-//            };
-//        }else{
-            this.accessor = fallacc;
-//        }
-        
+        this.accessor = Bindings.getBinding(clazz,property);
+
+        //try to bind the property to an attribute index
+        final int idx = (expectedType instanceof SimpleFeatureType && isSimpleName(property)) ?
+                ((SimpleFeatureType) expectedType).indexOf(property) : -1;
+        if(idx >= 0){
+            this.indexedType = (SimpleFeatureType) expectedType;
+            this.index = idx;
+        }else{
+            this.indexedType = null;
+            this.index = -1;
+        }
+    }
+
+    /**
+     * @return true if the path is a plain attribute name, without prefix, xpath or id syntax.
+     */
+    private static boolean isSimpleName(final String property){
+        for(int i=0,n=property.length(); i<n; i++){
+            switch(property.charAt(i)){
+                case ':' :
+                case '/' :
+                case '@' :
+                case '[' :
+                case '*' :
+                case '{' : return false;
+            }
+        }
+        return !property.isEmpty();
     }
 
     /**
@@ -87,6 +90,10 @@ class CachedPropertyName extends AbstractExpression implements PropertyName{
      */
     @Override
     public Object evaluate(final Object candidate) {
+        if(indexedType != null && candidate instanceof SimpleFeature
+                && ((SimpleFeature)candidate).getType() == indexedType){
+            return ((SimpleFeature)candidate).getAttribute(index);
+        }
         return accessor.get(candidate, property, null);
     }
 
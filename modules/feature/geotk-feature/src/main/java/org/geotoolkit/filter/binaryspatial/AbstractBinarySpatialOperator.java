@@ -19,6 +19,8 @@ package org.geotoolkit.filter.binaryspatial;
 
 import org.geotoolkit.feature.Feature;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 
 import java.io.Serializable;
 import java.util.logging.Level;
@@ -33,6 +35,7 @@ import org.geotoolkit.referencing.CRS;
 import org.apache.sis.util.logging.Logging;
 
 import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.spatial.BinarySpatialOperator;
 import org.opengis.util.FactoryException;
@@ -73,9 +76,17 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
     }
 
 
+    private static final PreparedGeometryFactory PREPARED_FACTORY = new PreparedGeometryFactory();
+
     protected final E left;
     protected final F right;
 
+    /**
+     * Literal operand geometry, prepared for the crs of the last evaluated object.
+     * Instances are immutable, the reference is replaced when the crs changes.
+     */
+    private transient volatile PreparedLiteral preparedLiteral;
+
     protected AbstractBinarySpatialOperator(final E left, final F right){
         ensureNonNull("left", left);
         ensureNonNull("right", right);
@@ -161,6 +172,84 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
         return new Geometry[]{leftGeom, JTS.transform(rightGeom, trs)};
     }
 
+    /**
+     * Evaluate both operands on the given object, in the same crs.
+     * The right operand is reprojected in the crs of the left operand, as in
+     * {@link #toSameCRS(Geometry, Geometry) }.
+     * When an operand is a literal, its geometry is reprojected and prepared only once
+     * for each crs of the other operand, then reused for all evaluated objects.
+     *
+     * @param object evaluated object
+     * @return operands, null if a geometry is missing or can not be reprojected
+     */
+    protected final Operands toOperands(final Object object) {
+        final boolean literalLeft = left instanceof Literal;
+        final boolean literalRight = !literalLeft && right instanceof Literal;
+
+        try {
+            if (literalLeft) {
+                final PreparedLiteral literal = getPreparedLiteral(null);
+                Geometry rightGeom = toGeometry(object, right);
+                if (literal.geometry == null || rightGeom == null) return null;
+
+                //reproject the right operand in the literal crs
+                final CoordinateReferenceSystem rightCRS = JTS.findCoordinateReferenceSystem(rightGeom);
+                if (literal.crs != null && rightCRS != null && rightCRS != literal.crs
+                        && !CRS.equalsIgnoreMetadata(literal.crs, rightCRS)) {
+                    rightGeom = JTS.transform(rightGeom, CRS.findMathTransform(rightCRS, literal.crs));
+                }
+                return new Operands(literal.geometry, rightGeom, literal.prepared, true);
+
+            } else if (literalRight) {
+                final Geometry leftGeom = toGeometry(object, left);
+                if (leftGeom == null) return null;
+
+                //literal is reprojected in the left operand crs
+                final PreparedLiteral literal = getPreparedLiteral(JTS.findCoordinateReferenceSystem(leftGeom));
+                if (literal.geometry == null) return null;
+                return new Operands(leftGeom, literal.geometry, literal.prepared, false);
+
+            } else {
+                final Geometry leftGeom = toGeometry(object, left);
+                final Geometry rightGeom = toGeometry(object, right);
+                if (leftGeom == null || rightGeom == null) return null;
+
+                final Geometry[] values = toSameCRS(leftGeom, rightGeom);
+                return new Operands(values[0], values[1], null, false);
+            }
+        } catch (FactoryException | TransformException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Get the literal operand geometry, reprojected in the given crs and prepared.
+     * The result is cached until another crs is requested.
+     *
+     * @param targetCRS crs of the other operand, null to keep the literal crs
+     */
+    private PreparedLiteral getPreparedLiteral(final CoordinateReferenceSystem targetCRS)
+            throws FactoryException, TransformException {
+        PreparedLiteral literal = preparedLiteral;
+        if (literal != null && (literal.targetCRS == targetCRS
+                || (literal.targetCRS != null && targetCRS != null && CRS.equalsIgnoreMetadata(literal.targetCRS, targetCRS)))) {
+            return literal;
+        }
+
+        final Expression exp = (left instanceof Literal) ? left : right;
+        Geometry geom = toGeometry(null, exp);
+        CoordinateReferenceSystem crs = (geom == null) ? null : JTS.findCoordinateReferenceSystem(geom);
+        if (geom != null && crs != null && targetCRS != null && !CRS.equalsIgnoreMetadata(crs, targetCRS)) {
+            geom = JTS.transform(geom, CRS.findMathTransform(crs, targetCRS));
+            crs = targetCRS;
+        }
+
+        literal = new PreparedLiteral(targetCRS, crs, geom);
+        preparedLiteral = literal;
+        return literal;
+    }
+
     /**
      * Reproject one or both geometries to the same crs, the matching crs
      * will be compatible with the requested unit.
@@ -240,6 +329,62 @@ public abstract class AbstractBinarySpatialOperator<E extends Expression,F exten
 
     }
 
+    /**
+     * Literal geometry reprojected for a crs, with its JTS prepared form.
+     * JTS prepared geometries are thread safe.
+     */
+    private static final class PreparedLiteral {
+
+        /** crs the literal has been prepared for, can be null */
+        private final CoordinateReferenceSystem targetCRS;
+        /** crs of the prepared geometry, can be null */
+        private final CoordinateReferenceSystem crs;
+        private final Geometry geometry;
+        private final PreparedGeometry prepared;
+
+        private PreparedLiteral(final CoordinateReferenceSystem targetCRS,
+                final CoordinateReferenceSystem crs, final Geometry geometry) {
+            this.targetCRS = targetCRS;
+            this.crs = crs;
+            this.geometry = geometry;
+            if (geometry != null) {
+                //compute the envelope once, it is cached by the geometry
+                geometry.getEnvelopeInternal();
+                this.prepared = PREPARED_FACTORY.create(geometry);
+            } else {
+                this.prepared = null;
+            }
+        }
+    }
+
+    /**
+     * Operand geometries of an evaluation, in the same crs.
+     */
+    protected static final class Operands {
+
+        public final Geometry left;
+        public final Geometry right;
+        /** prepared geometry of the literal operand, null if no operand is a literal */
+        public final PreparedGeometry prepared;
+        /** true if the prepared geometry is the left operand */
+        public final boolean preparedLeft;
+
+        private Operands(final Geometry left, final Geometry right,
+                final PreparedGeometry prepared, final boolean preparedLeft) {
+            this.left = left;
+            this.right = right;
+            this.prepared = prepared;
+            this.preparedLeft = preparedLeft;
+        }
+
+        /**
+         * @return the operand which is not prepared
+         */
+        public Geometry other() {
+            return preparedLeft ? right : left;
+        }
+    }
+
     private static Object findFirstGeometry(ComplexAttribute ca){
         //search for a default geometry
         if(ca instanceof Feature){
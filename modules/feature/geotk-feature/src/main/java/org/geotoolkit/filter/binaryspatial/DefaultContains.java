@@ -20,14 +20,10 @@ package org.geotoolkit.filter.binaryspatial;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
-import java.util.logging.Level;
 import org.geotoolkit.util.StringUtilities;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Contains;
-import org.opengis.util.FactoryException;
-import org.opengis.referencing.operation.TransformException;
-import org.apache.sis.util.logging.Logging;
 
 /**
  * Immutable "contains" filter.
@@ -46,27 +42,22 @@ public class DefaultContains extends AbstractBinarySpatialOperator<Expression,Ex
      */
     @Override
     public boolean evaluate(final Object object) {
-        Geometry leftGeom = toGeometry(object, left);
-        Geometry rightGeom = toGeometry(object, right);
-
-        if(leftGeom == null || rightGeom == null){
-            return false;
-        }
-
-        final Geometry[] values;
-        try {
-            values = toSameCRS(leftGeom, rightGeom);
-        } catch (FactoryException | TransformException ex) {
-            Logging.getLogger("org.geotoolkit.filter.binaryspatial").log(Level.WARNING, null, ex);
+        final Operands operands = toOperands(object);
+        if(operands == null){
             return false;
         }
-        leftGeom = values[0];
-        rightGeom = values[1];
+        final Geometry leftGeom = operands.left;
+        final Geometry rightGeom = operands.right;
 
         final Envelope envLeft = leftGeom.getEnvelopeInternal();
         final Envelope envRight = rightGeom.getEnvelopeInternal();
 
         if (envLeft.contains(envRight)) {
+            if (operands.prepared != null) {
+                //a contains b is equivalent to b within a
+                return operands.preparedLeft ? operands.prepared.contains(rightGeom)
+                                             : operands.prepared.within(leftGeom);
+            }
             return leftGeom.contains(rightGeom);
         }
 
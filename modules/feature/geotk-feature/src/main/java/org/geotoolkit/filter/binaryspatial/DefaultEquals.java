@@ -19,14 +19,10 @@ package org.geotoolkit.filter.binaryspatial;
 
 import com.vividsolutions.jts.geom.Geometry;
 
-import java.util.logging.Level;
 import org.geotoolkit.util.StringUtilities;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Equals;
-import org.opengis.util.FactoryException;
-import org.opengis.referencing.operation.TransformException;
-import org.apache.sis.util.logging.Logging;
 
 /**
  * Immutable "equals" filter.
@@ -45,22 +41,12 @@ public class DefaultEquals extends AbstractBinarySpatialOperator<Expression,Expr
      */
     @Override
     public boolean evaluate(final Object object) {
-        Geometry leftGeom = toGeometry(object, left);
-        Geometry rightGeom = toGeometry(object, right);
-
-        if(leftGeom == null || rightGeom == null){
-            return false;
-        }
-
-        final Geometry[] values;
-        try {
-            values = toSameCRS(leftGeom, rightGeom);
-        } catch (FactoryException | TransformException ex) {
-            Logging.getLogger("org.geotoolkit.filter.binaryspatial").log(Level.WARNING, null, ex);
+        final Operands operands = toOperands(object);
+        if(operands == null){
             return false;
         }
-        leftGeom = values[0];
-        rightGeom = values[1];
+        final Geometry leftGeom = operands.left;
+        final Geometry rightGeom = operands.right;
 
         return leftGeom.equals(rightGeom);
     }
@@ -20,14 +20,10 @@ package org.geotoolkit.filter.binaryspatial;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 
-import java.util.logging.Level;
 import org.geotoolkit.util.StringUtilities;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Intersects;
-import org.opengis.util.FactoryException;
-import org.opengis.referencing.operation.TransformException;
-import org.apache.sis.util.logging.Logging;
 
 /**
  * Immutable "intersect" filter.
@@ -46,27 +42,20 @@ public class DefaultIntersect extends AbstractBinarySpatialOperator<Expression,E
      */
     @Override
     public boolean evaluate(final Object object) {
-        Geometry leftGeom = toGeometry(object, left);
-        Geometry rightGeom = toGeometry(object, right);
-
-        if(leftGeom == null || rightGeom == null){
-            return false;
-        }
-
-        final Geometry[] values;
-        try {
-            values = toSameCRS(leftGeom, rightGeom);
-        } catch (FactoryException | TransformException ex) {
-            Logging.getLogger("org.geotoolkit.filter.binaryspatial").log(Level.WARNING, null, ex);
+        final Operands operands = toOperands(object);
+        if(operands == null){
             return false;
         }
-        leftGeom = values[0];
-        rightGeom = values[1];
+        final Geometry leftGeom = operands.left;
+        final Geometry rightGeom = operands.right;
 
         final Envelope envLeft = leftGeom.getEnvelopeInternal();
         final Envelope envRight = rightGeom.getEnvelopeInternal();
 
         if (envLeft.intersects(envRight)) {
+            if (operands.prepared != null) {
+                return operands.prepared.intersects(operands.other());
+            }
             return leftGeom.intersects(rightGeom);
         }
 
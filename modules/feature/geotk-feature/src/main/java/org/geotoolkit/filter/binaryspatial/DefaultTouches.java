@@ -19,14 +19,10 @@ package org.geotoolkit.filter.binaryspatial;
 
 import com.vividsolutions.jts.geom.Geometry;
 
-import java.util.logging.Level;
 import org.geotoolkit.util.StringUtilities;
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.spatial.Touches;
-import org.opengis.util.FactoryException;
-import org.opengis.referencing.operation.TransformException;
-import org.apache.sis.util.logging.Logging;
 
 /**
  * Immutable "touches" filter.
@@ -45,23 +41,16 @@ public class DefaultTouches extends AbstractBinarySpatialOperator<Expression,Exp
      */
     @Override
     public boolean evaluate(final Object object) {
-        Geometry leftGeom = toGeometry(object, left);
-        Geometry rightGeom = toGeometry(object, right);
-
-        if(leftGeom == null || rightGeom == null){
+        final Operands operands = toOperands(object);
+        if(operands == null){
             return false;
         }
+        final Geometry leftGeom = operands.left;
+        final Geometry rightGeom = operands.right;
 
-        final Geometry[] values;
-        try {
-            values = toSameCRS(leftGeom, rightGeom);
-        } catch (FactoryException | TransformException ex) {
-            Logging.getLogger("org.geotoolkit.filter.binaryspatial").log(Level.WARNING, null, ex);
-            return false;
+        if (operands.prepared != null) {
+            return operands.prepared.touches(operands.other());
         }
-        leftGeom = values[0];
-        rightGeom = values[1];
-
         return leftGeom.touches(rightGeom);
     }
 
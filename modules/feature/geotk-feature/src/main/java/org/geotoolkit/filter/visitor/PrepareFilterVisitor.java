@@ -17,18 +17,59 @@
 
 package org.geotoolkit.filter.visitor;
 
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import org.apache.sis.util.ObjectConverters;
+import org.apache.sis.util.UnconvertibleObjectException;
 import org.geotoolkit.filter.FilterUtilities;
 import org.geotoolkit.feature.type.ComplexType;
+import org.geotoolkit.feature.type.PropertyDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.BinaryLogicOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.Id;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.SpatialOperator;
 
 /**
  * Simplify and prepare the filter against a given target class.
  * All propertyName expression will be prepared against it.
+ * <p>
+ * When the expected type is known, literals compared to a property are converted
+ * once to the property binding, and the children of logic operators are ordered
+ * to evaluate the cheapest filters first.
  *
  * @author Johann Sorel (Geomatys)
  */
 public class PrepareFilterVisitor extends SimplifyingFilterVisitor{
-    
+
+    private static final Comparator<Filter> COST_ORDER = new Comparator<Filter>() {
+        @Override
+        public int compare(Filter f1, Filter f2) {
+            return cost(f1) - cost(f2);
+        }
+    };
+
     private final Class clazz;
     private final ComplexType expectedType;
 
@@ -42,4 +83,166 @@ public class PrepareFilterVisitor extends SimplifyingFilterVisitor{
         return FilterUtilities.prepare(expression, clazz, expectedType);
     }
 
+    @Override
+    public Object visit(final And filter, final Object extraData) {
+        final Object result = super.visit(filter, extraData);
+        if(result instanceof And){
+            final List<Filter> children = sortByCost(((And)result).getChildren());
+            if(children != null) return getFactory(extraData).and(children);
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(final Or filter, final Object extraData) {
+        final Object result = super.visit(filter, extraData);
+        if(result instanceof Or){
+            final List<Filter> children = sortByCost(((Or)result).getChildren());
+            if(children != null) return getFactory(extraData).or(children);
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(final PropertyIsEqualTo filter, final Object extraData) {
+        final Object result = super.visit(filter, extraData);
+        if(result instanceof PropertyIsEqualTo){
+            final PropertyIsEqualTo eq = (PropertyIsEqualTo) result;
+            final Expression expr1 = toBinding(filter.getExpression2(), eq.getExpression1(), extraData);
+            final Expression expr2 = toBinding(filter.getExpression1(), eq.getExpression2(), extraData);
+            return getFactory(extraData).equal(expr1, expr2, eq.isMatchingCase(), eq.getMatchAction());
+        }
+        return result;
+    }
+
+    @Override
+    public Object visit(final PropertyIsNotEqualTo filter, final Object extraData) {
+        final Expression expr1 = toBinding(filter.getExpression2(), visit(filter.getExpression1(), extraData), extraData);
+        final Expression expr2 = toBinding(filter.getExpression1(), visit(filter.getExpression2(), extraData), extraData);
+        return getFactory(extraData).notEqual(expr1, expr2, filter.isMatchingCase(), filter.getMatchAction());
+    }
+
+    /**
+     * Ordering comparisons convert the right value to the class of the left value,
+     * so only a literal on the right side can be converted in advance.
+     */
+    @Override
+    public Object visit(final PropertyIsGreaterThan filter, final Object extraData) {
+        final Expression expr1 = visit(filter.getExpression1(), extraData);
+        final Expression expr2 = toBinding(filter.getExpression1(), visit(filter.getExpression2(), extraData), extraData);
+        return getFactory(extraData).greater(expr1, expr2, filter.isMatchingCase(), filter.getMatchAction());
+    }
+
+    @Override
+    public Object visit(final PropertyIsGreaterThanOrEqualTo filter, final Object extraData) {
+        final Expression expr1 = visit(filter.getExpression1(), extraData);
+        final Expression expr2 = toBinding(filter.getExpression1(), visit(filter.getExpression2(), extraData), extraData);
+        return getFactory(extraData).greaterOrEqual(expr1, expr2, filter.isMatchingCase(), filter.getMatchAction());
+    }
+
+    @Override
+    public Object visit(final PropertyIsLessThan filter, final Object extraData) {
+        final Expression expr1 = visit(filter.getExpression1(), extraData);
+        final Expression expr2 = toBinding(filter.getExpression1(), visit(filter.getExpression2(), extraData), extraData);
+        return getFactory(extraData).less(expr1, expr2, filter.isMatchingCase(), filter.getMatchAction());
+    }
+
+    @Override
+    public Object visit(final PropertyIsLessThanOrEqualTo filter, final Object extraData) {
+        final Expression expr1 = visit(filter.getExpression1(), extraData);
+        final Expression expr2 = toBinding(filter.getExpression1(), visit(filter.getExpression2(), extraData), extraData);
+        return getFactory(extraData).lessOrEqual(expr1, expr2, filter.isMatchingCase(), filter.getMatchAction());
+    }
+
+    /**
+     * Convert a literal compared to a property of the expected type to the property binding.
+     *
+     * @param other original expression the literal is compared to
+     * @param exp prepared expression, only literals are converted
+     * @return converted literal or the given expression if it can not be converted
+     */
+    private Expression toBinding(final Expression other, final Expression exp, final Object extraData){
+        if(expectedType == null || !(other instanceof PropertyName) || !(exp instanceof Literal)){
+            return exp;
+        }
+        final Object value = ((Literal)exp).getValue();
+        if(value == null) return exp;
+
+        final PropertyDescriptor desc = expectedType.getDescriptor(((PropertyName)other).getPropertyName());
+        if(desc == null) return exp;
+        final Class binding = desc.getType().getBinding();
+        if(binding == null || binding.isInstance(value) || !isPreconvertible(binding)){
+            return exp;
+        }
+
+        final Object converted;
+        try{
+            converted = ObjectConverters.convert(value, binding);
+            if(converted == null || !isLossless(value, converted)) return exp;
+        }catch(UnconvertibleObjectException ex){
+            return exp;
+        }
+        return getFactory(extraData).literal(converted);
+    }
+
+    /**
+     * Numbers are compared by value at evaluation time, a narrowing conversion
+     * like 3.4 to an integer would change the filter result.
+     *
+     * @return true if the converted value converts back to the original value
+     */
+    private static boolean isLossless(final Object value, final Object converted){
+        if(!(value instanceof Number)) return true;
+        return value.equals(ObjectConverters.convert(converted, value.getClass()));
+    }
+
+    /**
+     * Only numbers, dates and booleans are converted, text comparison has different
+     * semantics and interfaces or abstract classes would not avoid the conversion
+     * at evaluation time.
+     */
+    private static boolean isPreconvertible(final Class binding){
+        if(binding.isInterface() || Modifier.isAbstract(binding.getModifiers())){
+            return false;
+        }
+        return Number.class.isAssignableFrom(binding)
+            || Date.class.isAssignableFrom(binding)
+            || Boolean.class.equals(binding);
+    }
+
+    /**
+     * @return children sorted by estimated cost, or null if the order is unchanged
+     */
+    private static List<Filter> sortByCost(final List<Filter> children){
+        final List<Filter> sorted = new ArrayList<>(children);
+        Collections.sort(sorted, COST_ORDER);
+        return sorted.equals(children) ? null : sorted;
+    }
+
+    /**
+     * Estimated relative cost of a filter evaluation.
+     */
+    static int cost(final Filter filter){
+        if(filter instanceof Id || filter instanceof PropertyIsNull || filter instanceof PropertyIsNil){
+            return 1;
+        }else if(filter instanceof BinaryComparisonOperator || filter instanceof PropertyIsBetween){
+            return 2;
+        }else if(filter instanceof PropertyIsLike){
+            return 4;
+        }else if(filter instanceof BBOX){
+            return 5;
+        }else if(filter instanceof SpatialOperator){
+            return 8;
+        }else if(filter instanceof Not){
+            return cost(((Not)filter).getFilter());
+        }else if(filter instanceof BinaryLogicOperator){
+            int cost = 0;
+            for(Filter child : ((BinaryLogicOperator)filter).getChildren()){
+                cost += cost(child);
+            }
+            return cost;
+        }
+        return 3;
+    }
+
 }
@@ -18,8 +18,13 @@
 package org.geotoolkit.filter.binaryspatial;
 
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.LinearRing;
+import java.util.Collections;
+import org.apache.sis.referencing.CommonCRS;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.referencing.CRS;
 
 import org.junit.Test;
 
@@ -35,6 +40,8 @@ import org.opengis.filter.spatial.Intersects;
 import org.opengis.filter.spatial.Overlaps;
 import org.opengis.filter.spatial.Touches;
 import org.opengis.filter.spatial.Within;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
 import static org.junit.Assert.*;
 import static org.geotoolkit.filter.FilterTestConstants.*;
 
@@ -262,4 +269,35 @@ public class BinarySpatialTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    /**
+     * Literal is reprojected in the crs of each evaluated geometry,
+     * the prepared literal must follow crs changes.
+     */
+    @Test
+    public void testLiteralReprojection() throws Exception {
+        final CoordinateReferenceSystem wgs84 = CommonCRS.WGS84.normalizedGeographic();
+        final CoordinateReferenceSystem mercator = CRS.decode("EPSG:3395");
+        final Geometry square = GF.toGeometry(new Envelope(0, 10, 0, 10));
+        JTS.setCRS(square, wgs84);
+
+        final MathTransform trs = CRS.findMathTransform(wgs84, mercator);
+        final Geometry insideMercator = JTS.transform(GF.createPoint(new Coordinate(5, 5)), trs);
+        JTS.setCRS(insideMercator, mercator);
+        final Geometry outsideMercator = JTS.transform(GF.createPoint(new Coordinate(15, 5)), trs);
+        JTS.setCRS(outsideMercator, mercator);
+        final Geometry insideWgs84 = GF.createPoint(new Coordinate(2, 3));
+        JTS.setCRS(insideWgs84, wgs84);
+
+        final Within within = FF.within(FF.property("testGeometry"), FF.literal(square));
+        final Intersects intersects = FF.intersects(FF.literal(square), FF.property("testGeometry"));
+        for (int i=0; i<2; i++) {
+            assertTrue(within.evaluate(Collections.singletonMap("testGeometry", insideMercator)));
+            assertFalse(within.evaluate(Collections.singletonMap("testGeometry", outsideMercator)));
+            assertTrue(within.evaluate(Collections.singletonMap("testGeometry", insideWgs84)));
+            assertTrue(intersects.evaluate(Collections.singletonMap("testGeometry", insideMercator)));
+            assertFalse(intersects.evaluate(Collections.singletonMap("testGeometry", outsideMercator)));
+            assertTrue(intersects.evaluate(Collections.singletonMap("testGeometry", insideWgs84)));
+        }
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.filter.visitor;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Point;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.FeatureTypeBuilder;
+import org.geotoolkit.feature.FeatureUtilities;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.geotoolkit.filter.FilterUtilities;
+import org.junit.Test;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import static org.geotoolkit.test.Assert.*;
+import static org.geotoolkit.filter.FilterTestConstants.*;
+
+/**
+ * Test filter preparation against a known feature type.
+ *
+ * @module pending
+ */
+public class PrepareFilterVisitorTest extends org.geotoolkit.test.TestBase {
+
+    private static SimpleFeatureType createType(final boolean reversed) {
+        final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
+        ftb.setName("test");
+        if (reversed) {
+            ftb.add("name", String.class);
+            ftb.add("id", Integer.class);
+        } else {
+            ftb.add("id", Integer.class);
+            ftb.add("name", String.class);
+        }
+        ftb.add("geom", Point.class);
+        return ftb.buildSimpleFeatureType();
+    }
+
+    private static Feature createFeature(final SimpleFeatureType type, final int id, final String name) {
+        final Feature feature = FeatureUtilities.defaultFeature(type, "test." + id);
+        feature.setPropertyValue("id", id);
+        feature.setPropertyValue("name", name);
+        feature.setPropertyValue("geom", GF.createPoint(new Coordinate(id, id)));
+        return feature;
+    }
+
+    @Test
+    public void testIndexedProperty() {
+        final SimpleFeatureType type = createType(false);
+        final PropertyName property = FilterUtilities.prepare(FF.property("name"), Feature.class, type);
+
+        assertEquals("a", property.evaluate(createFeature(type, 1, "a")));
+        //features of another type must be resolved by name
+        assertEquals("b", property.evaluate(createFeature(createType(true), 2, "b")));
+    }
+
+    @Test
+    public void testLiteralConversion() {
+        final SimpleFeatureType type = createType(false);
+        final Filter filter = FilterUtilities.prepare(
+                FF.greater(FF.property("id"), FF.literal("10")), Feature.class, type);
+
+        assertTrue(filter instanceof PropertyIsGreaterThan);
+        assertEquals(10, ((Literal) ((PropertyIsGreaterThan) filter).getExpression2()).getValue());
+        assertTrue(filter.evaluate(createFeature(type, 12, "a")));
+        assertFalse(filter.evaluate(createFeature(type, 9, "a")));
+
+        //text attributes are left untouched
+        final Filter text = FilterUtilities.prepare(
+                FF.equals(FF.property("name"), FF.literal(12)), Feature.class, type);
+        assertEquals(12, ((Literal) ((PropertyIsEqualTo) text).getExpression2()).getValue());
+        assertTrue(text.evaluate(createFeature(type, 1, "12")));
+    }
+
+    @Test
+    public void testLossyLiteralConversion() {
+        final SimpleFeatureType type = createType(false);
+
+        //3.0 is an integer value, it can be converted
+        Filter filter = FilterUtilities.prepare(
+                FF.equals(FF.property("id"), FF.literal(3d)), Feature.class, type);
+        assertEquals(3, ((Literal) ((PropertyIsEqualTo) filter).getExpression2()).getValue());
+        assertTrue(filter.evaluate(createFeature(type, 3, "a")));
+
+        //3.4 must not be truncated to 3
+        filter = FilterUtilities.prepare(
+                FF.equals(FF.property("id"), FF.literal(3.4d)), Feature.class, type);
+        assertEquals(3.4d, ((Literal) ((PropertyIsEqualTo) filter).getExpression2()).getValue());
+        assertFalse(filter.evaluate(createFeature(type, 3, "a")));
+
+        filter = FilterUtilities.prepare(
+                FF.greater(FF.property("id"), FF.literal(3.4d)), Feature.class, type);
+        assertEquals(3.4d, ((Literal) ((PropertyIsGreaterThan) filter).getExpression2()).getValue());
+        assertFalse(filter.evaluate(createFeature(type, 3, "a")));
+        assertTrue(filter.evaluate(createFeature(type, 4, "a")));
+    }
+
+    @Test
+    public void testCostOrder() {
+        final SimpleFeatureType type = createType(false);
+        final Filter spatial = FF.intersects(FF.property("geom"), FF.literal(GF.createPoint(new Coordinate(3, 3))));
+        final Filter compare = FF.equals(FF.property("name"), FF.literal("a"));
+        final Filter filter = FilterUtilities.prepare(FF.and(spatial, compare), Feature.class, type);
+
+        assertTrue(filter instanceof And);
+        assertTrue(((And) filter).getChildren().get(0) instanceof PropertyIsEqualTo);
+        assertTrue(filter.evaluate(createFeature(type, 3, "a")));
+        assertFalse(filter.evaluate(createFeature(type, 3, "b")));
+        assertFalse(filter.evaluate(createFeature(type, 4, "a")));
+    }
+
+}
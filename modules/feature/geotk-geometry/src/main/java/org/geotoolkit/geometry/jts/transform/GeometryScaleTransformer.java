@@ -26,6 +26,7 @@ import org.opengis.referencing.operation.TransformException;
 
 /**
  * Decimate points at the given resolution.
+ * This transformer has no state, it can be used by several threads.
  *
  * @author Johann Sorel (Geomatys)
  * @module pending
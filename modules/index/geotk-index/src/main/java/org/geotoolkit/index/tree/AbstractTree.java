@@ -18,7 +18,9 @@ package org.geotoolkit.index.tree;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.PriorityQueue;
 import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.Classes;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
@@ -127,6 +129,113 @@ public abstract class AbstractTree<E> implements Tree<E> {
         return new TreeIntegerIdentifierIterator(treeAccess, regSearch);
     }
 
+    /**
+     * {@inheritDoc }.
+     */
+    @Override
+    public int[] searchNearest(final Envelope target, final int k, final double maxDistance) throws StoreIndexException {
+        ArgumentChecks.ensureNonNull("Envelope target", target);
+        return searchNearest(TreeUtilities.getCoords(target), k, maxDistance);
+    }
+
+    /**
+     * {@inheritDoc }.<br/><br/>
+     *
+     * Note : search is a best-first travel of the tree, Nodes and datas are visited
+     * in increasing order of their minimum distance from target,
+     * thereby only Nodes which may contain one of the k nearest datas are read.
+     */
+    @Override
+    public int[] searchNearest(final double[] target, final int k, final double maxDistance) throws StoreIndexException {
+        ArgumentChecks.ensureNonNull("searchNearest : target", target);
+        ArgumentChecks.ensureStrictlyPositive("searchNearest : k", k);
+        if (Double.isNaN(maxDistance) || maxDistance < 0)
+            throw new IllegalArgumentException("searchNearest : maxDistance should be positive. Found : "+maxDistance);
+        final int dim = crs.getCoordinateSystem().getDimension();
+        final double[] targetBound;
+        if (target.length == dim) {
+            targetBound = new double[dim << 1];
+            System.arraycopy(target, 0, targetBound, 0, dim);
+            System.arraycopy(target, 0, targetBound, dim, dim);
+        } else if (target.length == dim << 1) {
+            targetBound = target;
+        } else {
+            throw new IllegalArgumentException("searchNearest : target should have "+dim+" or "+(dim << 1)+" coordinates. Found : "+target.length);
+        }
+        if (ArraysExt.hasNaN(targetBound))
+            throw new IllegalArgumentException("searchNearest : target should not contain NaN value. target : "+Arrays.toString(target));
+
+        final Node root = getRoot();
+        if (root == null || root.isEmpty()) return new int[0];
+        final int[] result = new int[k];
+        int resultLength = 0;
+        final PriorityQueue<NearestCandidate> queue = new PriorityQueue<NearestCandidate>();
+        try {
+            queue.add(new NearestCandidate(calculator.getMinDistanceEnvelope(root.getBoundary(), targetBound), root.getNodeId(), false));
+            while (resultLength < k && !queue.isEmpty()) {
+                final NearestCandidate candidate = queue.poll();
+                if (candidate.distance > maxDistance) break;
+                if (candidate.isData) {
+                    result[resultLength++] = candidate.identifier;
+                    continue;
+                }
+                int sibl = treeAccess.readNode(candidate.identifier).getChildId();
+                while (sibl > 0) {
+                    final Node child     = treeAccess.readNode(sibl);
+                    final double[] bound = child.getBoundary();
+                    //-- empty Node or empty Hilbert cell.
+                    if (!child.isEmpty() && bound != null && !ArraysExt.hasNaN(bound)) {
+                        final double distance = calculator.getMinDistanceEnvelope(bound, targetBound);
+                        if (distance <= maxDistance) {
+                            queue.add(child.isData()
+                                    ? new NearestCandidate(distance, -child.getChildId(), true)
+                                    : new NearestCandidate(distance, child.getNodeId(), false));
+                        }
+                    }
+                    sibl = child.getSiblingId();
+                }
+            }
+        } catch (IOException ex) {
+            throw new StoreIndexException(this.getClass().getName()+" impossible to find nearest stored elements from "
+                    +Arrays.toString(target)+".", ex);
+        }
+        return Arrays.copyOf(result, resultLength);
+    }
+
+    /**
+     * Node or data waiting in nearest search queue.
+     */
+    private static final class NearestCandidate implements Comparable<NearestCandidate> {
+
+        /**
+         * Minimum distance between Node or data boundary and search target.
+         */
+        private final double distance;
+
+        /**
+         * Node identifier or tree identifier if candidate is a data.
+         */
+        private final int identifier;
+
+        private final boolean isData;
+
+        private NearestCandidate(final double distance, final int identifier, final boolean isData) {
+            this.distance   = distance;
+            this.identifier = identifier;
+            this.isData     = isData;
+        }
+
+        /**
+         * Nearest first, and data before Node at equal distance.
+         */
+        @Override
+        public int compareTo(final NearestCandidate other) {
+            final int c = Double.compare(distance, other.distance);
+            if (c != 0 || isData == other.isData) return c;
+            return isData ? -1 : 1;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,6 +54,30 @@ public interface Tree<E> extends Closeable {
      */
     TreeIdentifierIterator search(final Envelope regionSearch) throws StoreIndexException;
 
+    /**
+     * Find the {@code k} stored datas nearest to {@code target}, ordered by increasing distance.<br/>
+     * Distance is the minimum Euclidean distance between data boundary and target, 0 if they intersect.
+     *
+     * @param target point coordinates, or envelope coordinates (all lower corner coordinates then all upper corner coordinates).
+     * @param k maximum number of returned tree identifiers.
+     * @param maxDistance datas farther than this distance are ignored, {@link Double#POSITIVE_INFINITY} for no limit.
+     * @return tree identifiers of nearest datas, nearest first.
+     * @throws StoreIndexException if problem during Node reading.
+     */
+    int[] searchNearest(final double[] target, final int k, final double maxDistance) throws StoreIndexException;
+
+    /**
+     * Find the {@code k} stored datas nearest to {@code target} envelope, ordered by increasing distance.
+     *
+     * @param target target area.
+     * @param k maximum number of returned tree identifiers.
+     * @param maxDistance datas farther than this distance are ignored, {@link Double#POSITIVE_INFINITY} for no limit.
+     * @return tree identifiers of nearest datas, nearest first.
+     * @throws StoreIndexException if problem during Node reading.
+     * @see #searchNearest(double[], int, double)
+     */
+    int[] searchNearest(final Envelope target, final int k, final double maxDistance) throws StoreIndexException;
+
     /**
      * Insert an Object into Rtree.
      *
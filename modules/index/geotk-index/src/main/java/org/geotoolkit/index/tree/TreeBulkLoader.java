@@ -0,0 +1,270 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.index.tree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.internal.tree.HilbertExternalSorter;
+import org.geotoolkit.internal.tree.TreeUtilities;
+import org.geotoolkit.referencing.CRS;
+import org.opengis.geometry.Envelope;
+import static org.geotoolkit.internal.tree.TreeUtilities.*;
+
+/**
+ * Build a packed {@link Tree} from a large set of elements in a single pass.<br/><br/>
+ *
+ * Instead of inserting elements one by one (which split Nodes repeatedly), all elements are
+ * first collected then externally sorted following the Hilbert curve order of their centroid.
+ * Sorted elements are finally grouped in leaf Nodes filled to the maximum element number
+ * permit by the tree, and leaves are grouped the same way level by level up to the tree root.<br/><br/>
+ *
+ * Produced Node architecture is written through the tree {@link org.geotoolkit.internal.tree.TreeAccess},
+ * thereby a file tree built by this way may be re-opened and searched like any other file tree.<br/><br/>
+ *
+ * Example :
+ * <pre>
+ * final FileStarRTree tree = new FileStarRTree(path, 50, crs, mapper);
+ * try (final TreeBulkLoader loader = new TreeBulkLoader(tree)) {
+ *     for (... each element ...) loader.add(element);
+ *     loader.build();
+ * }
+ * tree.close();
+ * </pre>
+ *
+ * Note : tree should be empty when loader is created.
+ *
+ * @see HilbertExternalSorter
+ */
+public final class TreeBulkLoader<E> implements Closeable {
+
+    /**
+     * Default maximum element number sorted in memory at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY = 1 << 20;
+
+    /**
+     * Filled tree.
+     */
+    private final AbstractTree<E> tree;
+
+    /**
+     * Object which sort all added elements.
+     */
+    private final HilbertExternalSorter sorter;
+
+    /**
+     * Boundary table length of each element.
+     */
+    private final int boundLength;
+
+    /**
+     * Next tree identifier given to an element added through {@link #add(java.lang.Object) }.
+     */
+    private int nextIdentifier = 1;
+
+    /**
+     * Higher tree identifier added.
+     */
+    private int maxIdentifier;
+
+    /**
+     * {@code true} when tree has already been built.
+     */
+    private boolean built;
+
+    /**
+     * Create a loader which store its temporary files into the default temporary directory
+     * and sort at most {@link #DEFAULT_MAX_IN_MEMORY} elements in memory.
+     *
+     * @param tree empty tree which will be filled.
+     * @throws StoreIndexException if tree is not empty or problem during temporary file creation.
+     */
+    public TreeBulkLoader(final Tree<E> tree) throws StoreIndexException {
+        this(tree, DEFAULT_MAX_IN_MEMORY, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Create a loader.
+     *
+     * @param tree empty tree which will be filled.
+     * @param maxInMemory maximum element number sorted in memory at the same time.
+     * @param tempDirectory directory where temporary sort files will be created.
+     * @throws StoreIndexException if tree is not empty or problem during temporary file creation.
+     */
+    public TreeBulkLoader(final Tree<E> tree, final int maxInMemory, final Path tempDirectory) throws StoreIndexException {
+        ArgumentChecks.ensureNonNull("tree", tree);
+        ArgumentChecks.ensureStrictlyPositive("maxInMemory", maxInMemory);
+        if (!(tree instanceof AbstractTree))
+            throw new IllegalArgumentException("Bulk loading is only supported by AbstractTree implementations.");
+        final Node root = tree.getRoot();
+        if (root != null && !root.isEmpty())
+            throw new StoreIndexException("Bulk loading is only possible on an empty tree.");
+        this.tree = (AbstractTree<E>) tree;
+        //-- rewind tree access, root will be the first created Node.
+        this.tree.setRoot(null);
+        this.boundLength = tree.getCrs().getCoordinateSystem().getDimension() << 1;
+        try {
+            sorter = new HilbertExternalSorter(tempDirectory, boundLength, maxInMemory);
+        } catch (IOException ex) {
+            throw new StoreIndexException("Impossible to create bulk loading temporary files.", ex);
+        }
+    }
+
+    /**
+     * Add an element, its tree identifier is affected through tree {@link TreeElementMapper}.
+     *
+     * @param object element to add.
+     * @return tree identifier affected to element.
+     * @throws StoreIndexException if problem during temporary file writing or tree identifier affectation.
+     */
+    public int add(final E object) throws StoreIndexException {
+        ArgumentChecks.ensureNonNull("add : object", object);
+        final TreeElementMapper<E> treeEltMap = tree.getTreeElementMapper();
+        try {
+            final Envelope env = treeEltMap.getEnvelope(object);
+            if (!CRS.equalsIgnoreMetadata(tree.getCrs(), env.getCoordinateReferenceSystem()))
+                throw new IllegalArgumentException("During insertion element should have same CoordinateReferenceSystem as Tree.");
+            final int identifier = nextIdentifier;
+            add(identifier, TreeUtilities.getCoords(env));
+            treeEltMap.setTreeIdentifier(object, identifier);
+            return identifier;
+        } catch (IOException ex) {
+            throw new StoreIndexException(ex);
+        }
+    }
+
+    /**
+     * Add an element from its tree identifier and its boundary.<br/>
+     * Caller is responsible of the link between identifier and element within {@link TreeElementMapper}.
+     *
+     * @param identifier strictly positive tree identifier.
+     * @param coordinates element boundary.
+     * @throws StoreIndexException if problem during temporary file writing.
+     */
+    public void add(final int identifier, final double... coordinates) throws StoreIndexException {
+        ArgumentChecks.ensureStrictlyPositive("identifier", identifier);
+        ArgumentChecks.ensureNonNull("coordinates", coordinates);
+        if (built)
+            throw new IllegalStateException("Tree has already been built.");
+        if (coordinates.length != boundLength)
+            throw new IllegalArgumentException("coordinates length should be "+boundLength+". Found : "+coordinates.length);
+        for (double d : coordinates)
+            if (Double.isNaN(d))
+                throw new IllegalArgumentException("coordinates contain at least one NAN value");
+        try {
+            sorter.add(identifier, coordinates);
+        } catch (IOException ex) {
+            throw new StoreIndexException("Impossible to add element "+identifier+" into bulk loading temporary file.", ex);
+        }
+        maxIdentifier  = Math.max(maxIdentifier, identifier);
+        nextIdentifier = maxIdentifier + 1;
+    }
+
+    /**
+     * Sort all added elements and write packed Node architecture into tree.
+     *
+     * @throws StoreIndexException if problem during sort or Node writing.
+     */
+    public void build() throws StoreIndexException {
+        if (built)
+            throw new IllegalStateException("Tree has already been built.");
+        built = true;
+        final int count = sorter.getCount();
+        if (count == 0) return;
+        final int maxElements = tree.getMaxElements();
+        try {
+            final HilbertExternalSorter.Cursor cursor = sorter.sort();
+            //-- root should be the first created Node (identifier 1).
+            final Node root = tree.createNode(null, (count <= maxElements) ? IS_LEAF : IS_OTHER, 0, 0, 0);
+            if (count <= maxElements) {
+                fillLeaf(root, cursor, count);
+            } else {
+                //-- leaves
+                final int leafNumber = (count + maxElements - 1) / maxElements;
+                List<Node> level = new ArrayList<Node>(leafNumber);
+                for (int l = 0; l < leafNumber; l++) {
+                    final Node leaf = tree.createNode(null, IS_LEAF, 0, 0, 0);
+                    fillLeaf(leaf, cursor, groupSize(count, leafNumber, l));
+                    level.add(leaf);
+                }
+                assert !cursor.next() : "all sorted elements should have been inserted.";
+                //-- branches
+                while (level.size() > maxElements) {
+                    final int size        = level.size();
+                    final int groupNumber = (size + maxElements - 1) / maxElements;
+                    final List<Node> upper = new ArrayList<Node>(groupNumber);
+                    int index = 0;
+                    for (int g = 0; g < groupNumber; g++) {
+                        final int groupSize = groupSize(size, groupNumber, g);
+                        final Node branch   = tree.createNode(null, IS_OTHER, 0, 0, 0);
+                        branch.addChildren(level.subList(index, index + groupSize).toArray(new Node[groupSize]));
+                        index += groupSize;
+                        upper.add(branch);
+                    }
+                    level = upper;
+                }
+                root.addChildren(level.toArray(new Node[level.size()]));
+            }
+            tree.setRoot(root);
+            tree.treeIdentifier = maxIdentifier + 1;
+            tree.setElementsNumber(count);
+        } catch (IOException ex) {
+            throw new StoreIndexException(this.getClass().getName()+" : impossible to build packed tree.", ex);
+        }
+    }
+
+    /**
+     * Return number of elements which should be stored in group at {@code index} position,
+     * to distribute evenly {@code total} elements into {@code groupNumber} groups.
+     */
+    private static int groupSize(final int total, final int groupNumber, final int index) {
+        final int base = total / groupNumber;
+        return (index < total % groupNumber) ? base + 1 : base;
+    }
+
+    /**
+     * Add {@code number} next sorted elements into leaf.
+     *
+     * @param leaf filled leaf.
+     * @param cursor sorted elements.
+     * @param number element number to add.
+     * @throws IOException if problem during Node writing.
+     */
+    private void fillLeaf(final Node leaf, final HilbertExternalSorter.Cursor cursor, final int number) throws IOException {
+        for (int i = 0; i < number; i++) {
+            if (!cursor.next())
+                throw new IllegalStateException("Sorted elements number does not match with added elements number.");
+            leaf.addChild(tree.createNode(cursor.getCoordinates(), IS_DATA, leaf.getNodeId(), 0, -cursor.getIdentifier()));
+        }
+    }
+
+    /**
+     * Delete all temporary files.<br/>
+     * Built tree is not closed by this method.
+     *
+     * @throws IOException if problem during temporary files deleting.
+     */
+    @Override
+    public void close() throws IOException {
+        sorter.close();
+    }
+}
@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import org.geotoolkit.internal.tree.TreeAccessFile;
+import org.geotoolkit.internal.tree.TreeAccessMappedFile;
 import org.geotoolkit.index.tree.StoreIndexException;
 import org.geotoolkit.index.tree.TreeElementMapper;
 import org.geotoolkit.internal.tree.TreeUtilities;
@@ -119,4 +120,25 @@ public final class FileBasicRTree<E> extends BasicRTree<E> {
             final int byteBufferLength) throws IOException, StoreIndexException, ClassNotFoundException {
         super(new TreeAccessFile(input, TreeUtilities.BASIC_NUMBER, TreeUtilities.VERSION_NUMBER, byteBufferLength), treeEltMap);
     }
+
+    /**
+     * Open a {@link BasicRTree} implementation from an already filled file from {@link Path} location
+     * which contain {@link BasicRTree} architecture.<br/><br/>
+     *
+     * Note : if {@code memoryMapped} is {@code true} tree file is read through memory mapped segments,
+     * thereby many threads may search in tree at the same time without locking.
+     *
+     * @param input File already filled by old {@link BasicRTree} implementation.
+     * @param treeEltMap object which store tree identifier and data.
+     * @param memoryMapped {@code true} to read tree file through memory mapped segments, else read through a single buffer.
+     * @throws IOException if problem during head reading from already filled file.
+     * @throws StoreIndexException if file isn't already filled by {@link BasicRTree} implementation.
+     * @throws ClassNotFoundException if there is a problem during {@link CoordinateReferenceSystem} invert serialization.
+     * @see BasicRTree
+     * @see TreeElementMapper
+     */
+    public FileBasicRTree(final Path input, final TreeElementMapper<E> treeEltMap, final boolean memoryMapped) throws IOException, StoreIndexException, ClassNotFoundException {
+        super((memoryMapped) ? new TreeAccessMappedFile(input, TreeUtilities.BASIC_NUMBER, TreeUtilities.VERSION_NUMBER)
+                             : new TreeAccessFile(input, TreeUtilities.BASIC_NUMBER, TreeUtilities.VERSION_NUMBER), treeEltMap);
+    }
 }
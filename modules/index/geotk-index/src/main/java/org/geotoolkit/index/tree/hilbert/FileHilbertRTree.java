@@ -110,4 +110,25 @@ public final class FileHilbertRTree<E> extends HilbertRTree<E> {
     public FileHilbertRTree(final Path input, final TreeElementMapper<E> treeEltMap, final int bytebufferLength) throws StoreIndexException, IOException, ClassNotFoundException {
         super(new HilbertTreeAccessFile(input, TreeUtilities.HILBERT_NUMBER, TreeUtilities.VERSION_NUMBER, bytebufferLength), treeEltMap);
     }
+
+    /**
+     * Open a {@link HilbertRTree} implementation from an already filled file from {@link Path} location
+     * which contain {@link HilbertRTree} architecture.<br/><br/>
+     *
+     * Note : if {@code memoryMapped} is {@code true} tree file is read through memory mapped segments,
+     * thereby many threads may search in tree at the same time without locking.
+     *
+     * @param input File already filled by old {@link HilbertRTree} implementation.
+     * @param treeEltMap object which store tree identifier and data.
+     * @param memoryMapped {@code true} to read tree file through memory mapped segments, else read through a single buffer.
+     * @throws IOException if problem during head reading from already filled file.
+     * @throws StoreIndexException if file isn't already filled by {@link HilbertRTree} implementation.
+     * @throws ClassNotFoundException if there is a problem during {@link CoordinateReferenceSystem} invert serialization.
+     * @see HilbertRTree
+     * @see TreeElementMapper
+     */
+    public FileHilbertRTree(final Path input, final TreeElementMapper<E> treeEltMap, final boolean memoryMapped) throws IOException, StoreIndexException, ClassNotFoundException {
+        super((memoryMapped) ? new HilbertTreeAccessMappedFile(input, TreeUtilities.HILBERT_NUMBER, TreeUtilities.VERSION_NUMBER)
+                             : new HilbertTreeAccessFile(input, TreeUtilities.HILBERT_NUMBER, TreeUtilities.VERSION_NUMBER), treeEltMap);
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.index.tree.hilbert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.geotoolkit.index.tree.Node;
+import org.geotoolkit.internal.tree.TreeAccessMappedFile;
+
+/**
+ * {@link TreeAccessMappedFile} implementation adapted for {@link HilbertRTree}.<br/>
+ * Read and write an already filled Hilbert tree file through memory mapped segments.
+ *
+ * @see HilbertChannelTreeAccess
+ */
+final strictfp class HilbertTreeAccessMappedFile extends TreeAccessMappedFile {
+
+    /**
+     * Hilbert Node attributs Number.<br/>
+     * parent ID<br/>
+     * sibling ID <br/>
+     * child ID<br/>
+     * current Hilbert Order<br/>
+     * children number<br/>
+     * data number.
+     */
+    private static final int HILBERT_INT_NUMBER = 6;
+
+    /**
+     * Open an already filled Hilbert tree file at {@link Path} location.
+     *
+     * @param input file which already contains {@link Node} architecture.
+     * @param magicNumber {@code Integer} single {@link Tree} code.
+     * @param versionNumber tree version.
+     * @throws IOException if problem during file head reading or file mapping.
+     */
+    HilbertTreeAccessMappedFile(final Path input, final int magicNumber, final double versionNumber) throws IOException {
+        super(input, magicNumber, versionNumber, DEFAULT_SEGMENT_LENGTH, HILBERT_INT_NUMBER);
+    }
+
+    /**
+     * {@inheritDoc }.
+     */
+    @Override
+    public Node readNode(final int indexNode) throws IOException {
+        final ByteBuffer segment = readSegment(indexNode);
+        int position = offset(indexNode);
+        final double[] boundary = new double[boundLength];
+        for (int i = 0; i < boundLength; i++, position += 8) {
+            boundary[i] = segment.getDouble(position);
+        }
+        final byte properties         = segment.get(position);
+        final int parentId            = segment.getInt(position + 1);
+        final int siblingId           = segment.getInt(position + 5);
+        final int childId             = segment.getInt(position + 9);
+        final int currentHilbertOrder = segment.getInt(position + 13);
+        final int childCount          = segment.getInt(position + 17);
+        final int dataCount           = segment.getInt(position + 21);
+        final HilbertNode redNode = new HilbertNode(this, indexNode, boundary, properties, parentId, siblingId, childId);
+        redNode.setCurrentHilbertOrder(currentHilbertOrder);
+        redNode.setChildCount(childCount);
+        redNode.setDataCount(dataCount);
+        return redNode;
+    }
+
+    /**
+     * {@inheritDoc }.
+     */
+    @Override
+    public synchronized void writeNode(final Node candidate) throws IOException {
+        final int indexNode      = candidate.getNodeId();
+        final ByteBuffer segment = writeSegment(indexNode);
+        final int position       = writeNodeHead(segment, offset(indexNode), candidate);
+        segment.putInt(position,     ((HilbertNode) candidate).getCurrentHilbertOrder());
+        segment.putInt(position + 4, candidate.getChildCount());
+        segment.putInt(position + 8, ((HilbertNode) candidate).getDataCount());
+    }
+
+    /**
+     * {@inheritDoc }.
+     */
+    @Override
+    public synchronized Node createNode(double[] boundary, byte properties, int parentId, int siblingId, int childId) {
+        final int currentID = (!recycleID.isEmpty()) ? recycleID.remove(0) : nodeId++;
+        return new HilbertNode(this, currentID, (boundary == null) ? nanBound : boundary, properties, parentId, siblingId, childId);
+    }
+}
@@ -68,6 +68,18 @@ public class PGTreeWrapper implements Tree {
         return rTree.search(regionSearch);
     }
 
+    @Override
+    public int[] searchNearest(double[] target, int k, double maxDistance) throws StoreIndexException {
+        updateTree();
+        return rTree.searchNearest(target, k, maxDistance);
+    }
+
+    @Override
+    public int[] searchNearest(Envelope target, int k, double maxDistance) throws StoreIndexException {
+        updateTree();
+        return rTree.searchNearest(target, k, maxDistance);
+    }
+
     @Override
     public int insert(Object object) throws StoreIndexException {
         return rTree.insert(object);
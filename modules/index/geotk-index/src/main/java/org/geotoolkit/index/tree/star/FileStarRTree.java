@@ -19,6 +19,7 @@ package org.geotoolkit.index.tree.star;
 import java.io.IOException;
 import java.nio.file.Path;
 import org.geotoolkit.internal.tree.TreeAccessFile;
+import org.geotoolkit.internal.tree.TreeAccessMappedFile;
 import org.geotoolkit.index.tree.StoreIndexException;
 import org.geotoolkit.index.tree.TreeElementMapper;
 import org.geotoolkit.internal.tree.TreeUtilities;
@@ -106,4 +107,25 @@ public class FileStarRTree<E> extends StarRTree<E> {
     public FileStarRTree(final Path input, final TreeElementMapper<E> treeEltMap, final int byteBufferLength) throws IOException, StoreIndexException, ClassNotFoundException {
         super(new TreeAccessFile(input, TreeUtilities.STAR_NUMBER, TreeUtilities.VERSION_NUMBER), treeEltMap);
     }
+
+    /**
+     * Open a {@link StarRTree} implementation from an already filled file from {@link Path} location
+     * which contain {@link StarRTree} architecture.<br/><br/>
+     *
+     * Note : if {@code memoryMapped} is {@code true} tree file is read through memory mapped segments,
+     * thereby many threads may search in tree at the same time without locking.
+     *
+     * @param input File already filled by old {@link StarRTree} implementation.
+     * @param treeEltMap object which store tree identifier and data.
+     * @param memoryMapped {@code true} to read tree file through memory mapped segments, else read through a single buffer.
+     * @throws IOException if problem during head reading from already filled file.
+     * @throws StoreIndexException if file isn't already filled by {@link StarRTree} implementation.
+     * @throws ClassNotFoundException if there is a problem during {@link CoordinateReferenceSystem} invert serialization.
+     * @see StarRTree
+     * @see TreeElementMapper
+     */
+    public FileStarRTree(final Path input, final TreeElementMapper<E> treeEltMap, final boolean memoryMapped) throws IOException, StoreIndexException, ClassNotFoundException {
+        super((memoryMapped) ? new TreeAccessMappedFile(input, TreeUtilities.STAR_NUMBER, TreeUtilities.VERSION_NUMBER)
+                             : new TreeAccessFile(input, TreeUtilities.STAR_NUMBER, TreeUtilities.VERSION_NUMBER), treeEltMap);
+    }
 }
@@ -56,6 +56,13 @@ public abstract class Calculator {
      */
     public abstract double getDistancePoint(final double[] positionA, final double[] positionB);
 
+    /**
+     * @param envelopA
+     * @param envelopB
+     * @return minimum distance between envelopA and envelopB borders, 0 if they intersect.
+     */
+    public abstract double getMinDistanceEnvelope(final double[] envelopeA, final double[] envelopeB);
+
     /**
      * @param envelopA
      * @param envelopB
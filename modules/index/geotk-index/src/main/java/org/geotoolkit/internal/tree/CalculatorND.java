@@ -58,6 +58,14 @@ public class CalculatorND extends Calculator {
         return getDistanceBetween2Positions(positionA, positionB);
     }
 
+    /**
+     * {@inheritDoc }.
+     */
+    @Override
+    public double getMinDistanceEnvelope(double[] envelopeA, double[] envelopeB) {
+        return getMinDistanceBetween2Envelopes(envelopeA, envelopeB);
+    }
+
     /**
      * {@inheritDoc }.
      */
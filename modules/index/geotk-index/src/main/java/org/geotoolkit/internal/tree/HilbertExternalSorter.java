@@ -0,0 +1,423 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.internal.tree;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.apache.sis.util.ArgumentChecks;
+
+/**
+ * External sort of (tree identifier, boundary) entries following Hilbert curve order.<br/><br/>
+ *
+ * Entries are first spilled unsorted on hard drive while data set extent is computed.<br/>
+ * Then they are read back by chunk of at most {@code maxInMemory} entries, each chunk is sorted
+ * on the Hilbert value of entry centroid and written as a sorted run.<br/>
+ * Finally all runs are merged in k-way order through {@link #sort()}.<br/><br/>
+ *
+ * Heap consumption is bounded by {@code maxInMemory} entries during run creation
+ * and by one entry per run during merge.
+ *
+ * @see org.geotoolkit.index.tree.TreeBulkLoader
+ */
+public final strictfp class HilbertExternalSorter implements Closeable {
+
+    /**
+     * Default size of the buffers use to read and write temporary files.
+     */
+    private static final int BUFFER_LENGTH = 65536;
+
+    /**
+     * Directory where all temporary files are created.
+     */
+    private final Path tempDirectory;
+
+    /**
+     * Boundary table length of each entry.
+     */
+    private final int boundLength;
+
+    /**
+     * Space dimension.
+     */
+    private final int dimension;
+
+    /**
+     * Maximum entry number sorted in memory at the same time.
+     */
+    private final int maxInMemory;
+
+    /**
+     * Bit number of each Hilbert curve ordinate.
+     */
+    private final int bitsPerDimension;
+
+    /**
+     * File which contains all unsorted entries.
+     */
+    private final Path rawFile;
+
+    /**
+     * Stream to write unsorted entries.
+     */
+    private DataOutputStream rawOutput;
+
+    /**
+     * Sorted runs files.
+     */
+    private final List<Path> runs = new ArrayList<Path>();
+
+    /**
+     * Readers opened during merge.
+     */
+    private final List<Run> readers = new ArrayList<Run>();
+
+    /**
+     * Union of all entry boundaries.
+     */
+    private final double[] extent;
+
+    /**
+     * Entry number added.
+     */
+    private int count;
+
+    /**
+     * Create a sorter which store its temporary files into {@code tempDirectory}.
+     *
+     * @param tempDirectory directory where temporary files will be created.
+     * @param boundLength boundary table length of each entry (2 * dimension).
+     * @param maxInMemory maximum entry number sorted in memory at the same time.
+     * @throws IOException if problem during temporary file creation.
+     */
+    public HilbertExternalSorter(final Path tempDirectory, final int boundLength, final int maxInMemory) throws IOException {
+        ArgumentChecks.ensureNonNull("tempDirectory", tempDirectory);
+        ArgumentChecks.ensureStrictlyPositive("boundLength", boundLength);
+        ArgumentChecks.ensureStrictlyPositive("maxInMemory", maxInMemory);
+        this.tempDirectory    = tempDirectory;
+        this.boundLength      = boundLength;
+        this.dimension        = boundLength >> 1;
+        this.maxInMemory      = maxInMemory;
+        this.bitsPerDimension = Math.max(1, Math.min(31, 63 / dimension));
+        this.extent           = new double[boundLength];
+        for (int i = 0; i < dimension; i++) {
+            extent[i]             = Double.POSITIVE_INFINITY;
+            extent[i + dimension] = Double.NEGATIVE_INFINITY;
+        }
+        this.rawFile   = Files.createTempFile(tempDirectory, "bulk", ".raw");
+        this.rawOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(rawFile), BUFFER_LENGTH));
+    }
+
+    /**
+     * Add an entry to sort.
+     *
+     * @param identifier tree identifier of the entry.
+     * @param coordinates entry boundary.
+     * @throws IOException if problem during temporary file writing.
+     */
+    public void add(final int identifier, final double[] coordinates) throws IOException {
+        if (rawOutput == null)
+            throw new IllegalStateException("Entries can not be added after sort() method call.");
+        assert coordinates.length == boundLength;
+        rawOutput.writeInt(identifier);
+        for (int i = 0; i < boundLength; i++) {
+            rawOutput.writeDouble(coordinates[i]);
+        }
+        for (int i = 0; i < dimension; i++) {
+            if (coordinates[i] < extent[i])                         extent[i]             = coordinates[i];
+            if (coordinates[i + dimension] > extent[i + dimension]) extent[i + dimension] = coordinates[i + dimension];
+        }
+        count++;
+    }
+
+    /**
+     * Return number of added entries.
+     *
+     * @return number of added entries.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Sort all added entries and return a cursor which travel them following Hilbert curve order.<br/>
+     * The returned cursor is closed with this sorter.
+     *
+     * @return a cursor on sorted entries.
+     * @throws IOException if problem during temporary files reading or writing.
+     */
+    public Cursor sort() throws IOException {
+        if (rawOutput == null)
+            throw new IllegalStateException("sort() method should be called only one time.");
+        rawOutput.close();
+        rawOutput = null;
+        createRuns();
+        Files.deleteIfExists(rawFile);
+        final PriorityQueue<Run> queue = new PriorityQueue<Run>(Math.max(1, runs.size()));
+        for (final Path run : runs) {
+            final Run reader = new Run(run);
+            readers.add(reader);
+            if (reader.next()) queue.add(reader);
+        }
+        return new Cursor(queue);
+    }
+
+    /**
+     * Read unsorted entries by chunk, sort each chunk in memory and write it as a sorted run.
+     *
+     * @throws IOException if problem during temporary files reading or writing.
+     */
+    private void createRuns() throws IOException {
+        final int chunkLength    = Math.min(maxInMemory, Math.max(1, count));
+        final long[] keys        = new long[chunkLength];
+        final int[] identifiers  = new int[chunkLength];
+        final double[] coords    = new double[chunkLength * boundLength];
+        final int[] order        = new int[chunkLength];
+        try (final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(rawFile), BUFFER_LENGTH))) {
+            int remaining = count;
+            while (remaining > 0) {
+                final int length = Math.min(chunkLength, remaining);
+                for (int e = 0; e < length; e++) {
+                    identifiers[e] = input.readInt();
+                    final int offset = e * boundLength;
+                    for (int i = 0; i < boundLength; i++) {
+                        coords[offset + i] = input.readDouble();
+                    }
+                    keys[e]  = hilbertValue(coords, offset);
+                    order[e] = e;
+                }
+                sort(keys, order, 0, length - 1);
+                final Path run = Files.createTempFile(tempDirectory, "bulk", ".run");
+                runs.add(run);
+                try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_LENGTH))) {
+                    for (int e = 0; e < length; e++) {
+                        final int id = order[e];
+                        output.writeLong(keys[id]);
+                        output.writeInt(identifiers[id]);
+                        final int offset = id * boundLength;
+                        for (int i = 0; i < boundLength; i++) {
+                            output.writeDouble(coords[offset + i]);
+                        }
+                    }
+                }
+                remaining -= length;
+            }
+        }
+    }
+
+    /**
+     * Compute Hilbert value of the centroid of entry stored at {@code offset} into {@code coords} table.
+     *
+     * @param coords table which contains entries boundaries.
+     * @param offset position of the first entry coordinate.
+     * @return Hilbert value of entry centroid.
+     */
+    private long hilbertValue(final double[] coords, final int offset) {
+        final long[] axes  = new long[dimension];
+        final long maxCell = (1L << bitsPerDimension) - 1;
+        for (int i = 0; i < dimension; i++) {
+            final double span = extent[i + dimension] - extent[i];
+            if (span > 0) {
+                final double center = (coords[offset + i] + coords[offset + i + dimension]) / 2;
+                axes[i] = Math.min(maxCell, Math.max(0, (long) ((center - extent[i]) / span * maxCell)));
+            }
+        }
+        return hilbertIndex(axes, bitsPerDimension);
+    }
+
+    /**
+     * Compute Hilbert curve index from integer coordinates in n dimensions.<br/>
+     * Implementation follow J. Skilling "Programming the Hilbert curve" transposition algorithm.
+     *
+     * @param axes integer coordinates, table is modified by this method.
+     * @param bits bit number of each coordinate.
+     * @return Hilbert curve index.
+     */
+    static long hilbertIndex(final long[] axes, final int bits) {
+        final int n = axes.length;
+        final long m = 1L << (bits - 1);
+        //-- inverse undo
+        for (long q = m; q > 1; q >>= 1) {
+            final long p = q - 1;
+            for (int i = 0; i < n; i++) {
+                if ((axes[i] & q) != 0) {
+                    axes[0] ^= p;
+                } else {
+                    final long t = (axes[0] ^ axes[i]) & p;
+                    axes[0] ^= t;
+                    axes[i] ^= t;
+                }
+            }
+        }
+        //-- gray encode
+        for (int i = 1; i < n; i++) axes[i] ^= axes[i - 1];
+        long t = 0;
+        for (long q = m; q > 1; q >>= 1) {
+            if ((axes[n - 1] & q) != 0) t ^= q - 1;
+        }
+        for (int i = 0; i < n; i++) axes[i] ^= t;
+        //-- interleave transposed bits
+        long index = 0;
+        for (int b = bits - 1; b >= 0; b--) {
+            for (int i = 0; i < n; i++) {
+                index = (index << 1) | ((axes[i] >>> b) & 1);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sort {@code order} table in function of {@code keys} values (quick sort).
+     */
+    private static void sort(final long[] keys, final int[] order, int low, int high) {
+        while (low < high) {
+            final long pivot = keys[order[(low + high) >>> 1]];
+            int i = low, j = high;
+            while (i <= j) {
+                while (keys[order[i]] < pivot) i++;
+                while (keys[order[j]] > pivot) j--;
+                if (i <= j) {
+                    final int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            //-- recurse on smallest part to bound stack depth.
+            if (j - low < high - i) {
+                sort(keys, order, low, j);
+                low = i;
+            } else {
+                sort(keys, order, i, high);
+                high = j;
+            }
+        }
+    }
+
+    /**
+     * Close all opened streams and delete all temporary files.
+     *
+     * @throws IOException if problem during stream closing or file deleting.
+     */
+    @Override
+    public void close() throws IOException {
+        if (rawOutput != null) {
+            rawOutput.close();
+            rawOutput = null;
+        }
+        for (final Run reader : readers) {
+            reader.input.close();
+        }
+        readers.clear();
+        for (final Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        Files.deleteIfExists(rawFile);
+    }
+
+    /**
+     * A sorted run read during merge.
+     */
+    private final class Run implements Comparable<Run> {
+        private final DataInputStream input;
+        private final double[] coordinates = new double[boundLength];
+        private long key;
+        private int identifier;
+
+        private Run(final Path file) throws IOException {
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_LENGTH));
+        }
+
+        /**
+         * Read next entry, return {@code false} if run is exhausted.
+         */
+        private boolean next() throws IOException {
+            try {
+                key = input.readLong();
+            } catch (EOFException ex) {
+                return false;
+            }
+            identifier = input.readInt();
+            for (int i = 0; i < boundLength; i++) {
+                coordinates[i] = input.readDouble();
+            }
+            return true;
+        }
+
+        @Override
+        public int compareTo(final Run other) {
+            return (key < other.key) ? -1 : (key == other.key) ? 0 : 1;
+        }
+    }
+
+    /**
+     * Travel all sorted entries one by one.
+     */
+    public final class Cursor {
+        private final PriorityQueue<Run> queue;
+        private Run current;
+
+        private Cursor(final PriorityQueue<Run> queue) {
+            this.queue = queue;
+        }
+
+        /**
+         * Move to next entry.
+         *
+         * @return {@code false} if all entries have already been travelled.
+         * @throws IOException if problem during temporary files reading.
+         */
+        public boolean next() throws IOException {
+            if (current != null && current.next()) {
+                queue.add(current);
+            }
+            current = queue.poll();
+            return current != null;
+        }
+
+        /**
+         * @return tree identifier of current entry.
+         */
+        public int getIdentifier() {
+            return current.identifier;
+        }
+
+        /**
+         * @return a copy of current entry boundary.
+         */
+        public double[] getCoordinates() {
+            return current.coordinates.clone();
+        }
+
+        /**
+         * @return union of all entries boundaries.
+         */
+        public double[] getExtent() {
+            return Arrays.copyOf(extent, boundLength);
+        }
+    }
+}
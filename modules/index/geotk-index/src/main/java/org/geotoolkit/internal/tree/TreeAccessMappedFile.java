@@ -0,0 +1,443 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.internal.tree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.util.ArgumentChecks;
+import org.geotoolkit.index.tree.Node;
+import org.geotoolkit.index.tree.basic.SplitCase;
+import org.opengis.util.FactoryException;
+
+/**
+ * {@link TreeAccess} implementation.<br/>
+ * Read and write an already filled tree file through {@link MappedByteBuffer} segments.<br/><br/>
+ *
+ * Contrary to {@link TreeAccessFile} which read all Nodes through a single channel and buffer,
+ * Nodes are read with absolute positioning from mapped segments. Thereby many threads may invoke
+ * {@link #search(int, double[]) } and {@link #readNode(int) } at the same time without any locking.<br/>
+ * A single writer may update or append Nodes, new segments are mapped when tree grows.
+ * Readers running during an insertion see appended Nodes as soon as their parent Node is written.<br/><br/>
+ *
+ * File format is the same as {@link TreeAccessFile} one, file is truncated to its used length when closed.
+ *
+ * @see ChannelTreeAccess
+ */
+public strictfp class TreeAccessMappedFile extends TreeAccess {
+
+    /**
+     * Default length in Byte unit of each mapped segment.
+     */
+    public static final int DEFAULT_SEGMENT_LENGTH = 1 << 24;
+
+    /**
+     * File position of nodeId, treeIdentifier and element number in file head.
+     */
+    private static final int NODE_ID_POSITION = 22;
+
+    /**
+     * Length of the file head before CRS description.
+     */
+    private static final int HEAD_LENGTH = 38;
+
+    /**
+     * Number of Integer per Node.<br/><br/>
+     * parent ID<br/>
+     * sibling ID<br/>
+     * child ID<br/>
+     * children number.
+     */
+    private static final int INT_NUMBER = 4;
+
+    /**
+     * boundary table value length of each Node.
+     */
+    protected final int boundLength;
+
+    /**
+     * Length in Byte unit of a Node in file on hard disk.
+     */
+    protected final int nodeSize;
+
+    /**
+     * File position of first Node.
+     */
+    protected final long beginPosition;
+
+    /**
+     * Node number stored in each segment.
+     */
+    private final int nodesPerSegment;
+
+    /**
+     * Channel use to map segments and write file head.
+     */
+    private final FileChannel channel;
+
+    /**
+     * All mapped segments.<br/>
+     * Table is replaced (never modified) when a new segment is mapped, so readers never need lock.
+     */
+    private volatile MappedByteBuffer[] segments;
+
+    /**
+     * Open an already filled tree file at {@link Path} location with default segment length.
+     *
+     * @param input file which already contains {@link Node} architecture.
+     * @param magicNumber {@code Integer} single {@link Tree} code.
+     * @param versionNumber tree version.
+     * @throws IOException if problem during file head reading or file mapping.
+     */
+    public TreeAccessMappedFile(final Path input, final int magicNumber, final double versionNumber) throws IOException {
+        this(input, magicNumber, versionNumber, DEFAULT_SEGMENT_LENGTH, INT_NUMBER);
+    }
+
+    /**
+     * Open an already filled tree file at {@link Path} location.
+     *
+     * @param input file which already contains {@link Node} architecture.
+     * @param magicNumber {@code Integer} single {@link Tree} code.
+     * @param versionNumber tree version.
+     * @param segmentLength length in Byte unit of each mapped segment.
+     * @param integerNumberPerNode integer number per Node which will be red/written during Node reading/writing process.
+     * @throws IOException if problem during file head reading or file mapping.
+     */
+    protected TreeAccessMappedFile(final Path input, final int magicNumber, final double versionNumber,
+            final int segmentLength, final int integerNumberPerNode) throws IOException {
+        ArgumentChecks.ensureNonNull("input", input);
+        ArgumentChecks.ensureStrictlyPositive("segmentLength", segmentLength);
+        channel = FileChannel.open(input, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        /*****************************  read head ******************************/
+        final ByteBuffer headBuffer = ByteBuffer.allocate(HEAD_LENGTH);
+        readFully(headBuffer, 0);
+        headBuffer.flip();
+        final int mgNumber = headBuffer.getInt();
+        if (mgNumber != magicNumber) {
+            channel.close();
+            throw new IllegalArgumentException("Tree file has been filled by another RTree implementation. Expected magic number : "
+                    +magicNumber+". Found : "+mgNumber);
+        }
+        headBuffer.get();//-- byte order, stand by byte order comportement
+        final double vN = headBuffer.getDouble();
+        if (vN != versionNumber) {
+            channel.close();
+            throw new IllegalArgumentException("Wrong version number. Expected : "+versionNumber+". Version found in tree file : "+vN);
+        }
+        maxElement   = headBuffer.getInt();
+        hilbertOrder = headBuffer.getInt();
+        splitMade    = ((headBuffer.get() & ((byte)1)) != 0) ? SplitCase.QUADRATIC : SplitCase.LINEAR;
+        nodeId       = headBuffer.getInt();
+        if (nodeId == 0) {
+            channel.close();
+            throw new IllegalStateException("User has not been invoked tree.close() method after insertions. You should build again RTree.");
+        }
+        treeIdentifier = headBuffer.getInt();
+        eltNumber      = headBuffer.getInt();
+        final byte[] crsByteArray = new byte[headBuffer.getInt()];
+        readFully(ByteBuffer.wrap(crsByteArray), HEAD_LENGTH);
+        try {
+            crs = CRS.fromWKT(new String(crsByteArray));
+        } catch (FactoryException ex) {
+            channel.close();
+            throw new IOException(ex);
+        }
+        /*****************************  end head ******************************/
+
+        boundLength = crs.getCoordinateSystem().getDimension() << 1;
+        nanBound    = new double[boundLength];
+        Arrays.fill(nanBound, Double.NaN);
+
+        nodeSize        = (boundLength * Double.SIZE + Integer.SIZE * integerNumberPerNode) / 8 + 1;
+        nodesPerSegment = Math.max(1, segmentLength / nodeSize);
+        beginPosition   = HEAD_LENGTH + crsByteArray.length;
+
+        //-- map all already written Nodes
+        final int segmentNumber = Math.max(1, (nodeId - 2) / nodesPerSegment + 1);
+        final MappedByteBuffer[] segs = new MappedByteBuffer[segmentNumber];
+        for (int s = 0; s < segmentNumber; s++) {
+            segs[s] = map(s);
+        }
+        segments = segs;
+
+        root = readNode(1);
+        if (root.isEmpty()) root = null;
+    }
+
+    /**
+     * Read bytes from channel until buffer is full.
+     */
+    private void readFully(final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Unexpected end of tree file.");
+            position += n;
+        }
+    }
+
+    /**
+     * Map segment at {@code index} position.
+     */
+    private MappedByteBuffer map(final int index) throws IOException {
+        final long length = (long) nodesPerSegment * nodeSize;
+        return channel.map(FileChannel.MapMode.READ_WRITE, beginPosition + index * length, length);
+    }
+
+    /**
+     * Return segment which contains Node at specified identifier, mapping new segments if needed.
+     *
+     * @param nodeID Node identifier.
+     * @param grow {@code true} to map missing segments (writing mode).
+     * @return segment which contains Node.
+     * @throws IOException if Node is not stored or problem during file mapping.
+     */
+    private MappedByteBuffer segment(final int nodeID, final boolean grow) throws IOException {
+        final int index = (nodeID - 1) / nodesPerSegment;
+        MappedByteBuffer[] segs = segments;
+        if (index >= segs.length) {
+            if (!grow) throw new IOException("Node "+nodeID+" is not stored in tree file.");
+            synchronized (this) {
+                segs = segments;
+                if (index >= segs.length) {
+                    final MappedByteBuffer[] newSegs = Arrays.copyOf(segs, index + 1);
+                    for (int s = segs.length; s <= index; s++) {
+                        newSegs[s] = map(s);
+                    }
+                    segments = segs = newSegs;
+                }
+            }
+        }
+        return segs[index];
+    }
+
+    /**
+     * Return position of Node within its segment.
+     */
+    protected final int offset(final int nodeID) {
+        return ((nodeID - 1) % nodesPerSegment) * nodeSize;
+    }
+
+    /**
+     * Return segment which contains Node at specified identifier, to read it with absolute positioning.
+     *
+     * @param nodeID Node identifier.
+     * @return segment which contains Node.
+     * @throws IOException if Node is not stored.
+     */
+    protected final ByteBuffer readSegment(final int nodeID) throws IOException {
+        return segment(nodeID, false);
+    }
+
+    /**
+     * Return segment which contains Node at specified identifier, to write it with absolute positioning.
+     *
+     * @param nodeID Node identifier.
+     * @return segment which contains Node.
+     * @throws IOException if problem during file mapping.
+     */
+    protected final ByteBuffer writeSegment(final int nodeID) throws IOException {
+        return segment(nodeID, true);
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br>
+     * Contrary to other implementations, this method is not synchronized and may be invoked by many threads at the same time.
+     */
+    @Override
+    public int[] search(final int nodeID, final double[] regionSearch) throws IOException {
+        final Results results = new Results();
+        search(nodeID, regionSearch, results);
+        return Arrays.copyOf(results.identifiers, results.length);
+    }
+
+    /**
+     * Travel Node chained list from Node at {@code nodeID} and add all data which intersect region search into results.
+     */
+    private void search(int nodeID, final double[] regionSearch, final Results results) throws IOException {
+        final int dim = boundLength >> 1;
+        while (nodeID != 0) {
+            final ByteBuffer segment = readSegment(nodeID);
+            final int offset = offset(nodeID);
+            boolean intersects = true;
+            for (int i = 0; i < dim; i++) {
+                final double low = segment.getDouble(offset + (i << 3));
+                final double upp = segment.getDouble(offset + ((i + dim) << 3));
+                if (Double.isNaN(low) || Double.isNaN(upp) || low > regionSearch[i + dim] || upp < regionSearch[i]) {
+                    intersects = false;
+                    break;
+                }
+            }
+            final int intOffset = offset + (boundLength << 3) + 1;
+            if (intersects) {
+                final int child = segment.getInt(intOffset + 8);
+                if (child > 0) {
+                    search(child, regionSearch, results);
+                } else {
+                    if (child == 0)
+                        throw new IllegalStateException("child index should never be 0.");
+                    results.add(-child);
+                }
+            }
+            nodeID = segment.getInt(intOffset + 4);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void internalSearch(final int nodeID) throws IOException {
+        final Results results = new Results();
+        search(nodeID, regionSearch, results);
+        for (int i = 0; i < results.length; i++) {
+            if (currentPosition == currentLength) {
+                currentLength = currentLength << 1;
+                tabSearch = Arrays.copyOf(tabSearch, currentLength);
+            }
+            tabSearch[currentPosition++] = results.identifiers[i];
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Node readNode(final int indexNode) throws IOException {
+        final ByteBuffer segment = readSegment(indexNode);
+        int position = offset(indexNode);
+        final double[] boundary = new double[boundLength];
+        for (int i = 0; i < boundLength; i++, position += 8) {
+            boundary[i] = segment.getDouble(position);
+        }
+        final byte properties  = segment.get(position);
+        final int parentId     = segment.getInt(position + 1);
+        final int siblingId    = segment.getInt(position + 5);
+        final int childId      = segment.getInt(position + 9);
+        final int childCount   = segment.getInt(position + 13);
+        final Node redNode = new Node(this, indexNode, boundary, properties, parentId, siblingId, childId);
+        redNode.setChildCount(childCount);
+        return redNode;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void writeNode(final Node candidate) throws IOException {
+        final int indexNode     = candidate.getNodeId();
+        final ByteBuffer segment = writeSegment(indexNode);
+        final int position       = writeNodeHead(segment, offset(indexNode), candidate);
+        segment.putInt(position, candidate.getChildCount());
+    }
+
+    /**
+     * Write boundary, properties, parent, sibling and child identifiers of candidate,
+     * and return position just after written values.
+     *
+     * @param segment segment which contains Node.
+     * @param position Node position within segment.
+     * @param candidate written Node.
+     * @return position just after child identifier.
+     */
+    protected final int writeNodeHead(final ByteBuffer segment, int position, final Node candidate) {
+        double[] candidateBound = candidate.getBoundary();
+        if (candidateBound == null) candidateBound = nanBound;
+        for (int i = 0; i < boundLength; i++, position += 8) {
+            segment.putDouble(position, candidateBound[i]);
+        }
+        segment.put(position, candidate.getProperties());
+        segment.putInt(position + 1, candidate.getParentId());
+        segment.putInt(position + 5, candidate.getSiblingId());
+        segment.putInt(position + 9, candidate.getChildId());
+        return position + 13;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void removeNode(final Node candidate) {
+        recycleID.add(candidate.getNodeId());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        for (final MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putInt(nodeId);
+        buffer.putInt(treeIdentifier);
+        buffer.putInt(eltNumber);
+        buffer.flip();
+        long position = NODE_ID_POSITION;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     * <br>
+     * When you call this method the {@link #flush() } method is internaly invoked,
+     * then file is truncated to its used length.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        segments = new MappedByteBuffer[0];
+        try {
+            channel.truncate(beginPosition + (long) (nodeId - 1) * nodeSize);
+        } catch (IOException ex) {
+            //-- some platforms do not allow truncation of a mapped file, unused tail is harmless.
+        }
+        channel.close();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isClose() {
+        return !channel.isOpen();
+    }
+
+    /**
+     * Growing table of search results, one instance per search.
+     */
+    private static final class Results {
+        private int[] identifiers = new int[100];
+        private int length;
+
+        private void add(final int identifier) {
+            if (length == identifiers.length) {
+                identifiers = Arrays.copyOf(identifiers, length << 1);
+            }
+            identifiers[length++] = identifier;
+        }
+    }
+}
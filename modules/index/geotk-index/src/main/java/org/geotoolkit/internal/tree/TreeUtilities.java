@@ -158,6 +158,28 @@ public class TreeUtilities {
         return getDistanceBetween2Positions(getMedian(envelopA), getMedian(envelopB));
     }
     
+    /**
+     * Compute minimum Euclidean distance between two {@code Envelope} borders in dimension n.<br/>
+     * Distance is 0 if envelopes intersect.
+     *
+     * @param envelopA coordinates of envelope A.
+     * @param envelopB coordinates of envelope B.
+     * @throws IllegalArgumentException if envelopA or envelopB are not in same dimension.
+     * @return minimum distance between envelopA and envelopB.
+     */
+    public static double getMinDistanceBetween2Envelopes(final double[] envelopA, final double[] envelopB) {
+        if (envelopA.length != envelopB.length)
+            throw new IllegalArgumentException("getMinDistanceBetween2Envelopes : envelopA and envelopB are not in same dimension");
+        final int dim = envelopA.length >> 1;
+        double sum = 0;
+        for (int i = 0, d = dim; i < dim; i++, d++) {
+            double gap = envelopB[i] - envelopA[d];
+            if (gap <= 0) gap = envelopA[i] - envelopB[d];
+            if (gap > 0) sum += gap * gap;
+        }
+        return Math.sqrt(sum);
+    }
+
     /**
      * Compute general boundary of all {@code Envelope} passed in parameter.
      *
@@ -28,6 +28,7 @@ import org.junit.Test;
 import static org.geotoolkit.internal.tree.TreeUtilities.*;
 import static org.geotoolkit.index.tree.TreeTest.createEntry;
 import org.geotoolkit.internal.tree.TreeAccess;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.cs.CoordinateSystem;
@@ -329,6 +330,45 @@ public abstract class AbstractTreeTest extends TreeTest {
         assertTrue(tabResult.length == 0);
     }
 
+    /**
+     * Test nearest search, results should be ordered by distance and match with brute force results.
+     */
+    @Test
+    public void searchNearestTest() throws StoreIndexException, IOException {
+        if (tree.getRoot() == null) insert();
+        final double[] target = new double[dimension];
+        for (int d = 0; d < dimension; d++) {
+            target[d] = (minMax[d] + minMax[d + dimension]) / 2;
+        }
+        final double[] targetBound = new double[dimension << 1];
+        System.arraycopy(target, 0, targetBound, 0, dimension);
+        System.arraycopy(target, 0, targetBound, dimension, dimension);
+        final double[] distances = new double[lSize];
+        for (int i = 0; i < lSize; i++) {
+            distances[i] = getMinDistanceBetween2Envelopes(lData.get(i), targetBound);
+        }
+        final double[] sortedDistances = distances.clone();
+        Arrays.sort(sortedDistances);
+
+        final int k = 10;
+        final int[] nearest = tree.searchNearest(target, k, Double.POSITIVE_INFINITY);
+        assertTrue(nearest.length == k);
+        final double[][] results = getResult(nearest);
+        for (int i = 0; i < k; i++) {
+            assertEquals(sortedDistances[i], getMinDistanceBetween2Envelopes(results[i], targetBound), 1E-9);
+        }
+
+        //-- max distance
+        final double maxDistance = sortedDistances[k / 2];
+        final int[] limited = tree.searchNearest(target, lSize, maxDistance);
+        int expected = 0;
+        for (double d : distances) if (d <= maxDistance) expected++;
+        assertTrue(limited.length == expected);
+
+        //-- all elements
+        assertTrue(tree.searchNearest(targetBound, lSize + 10, Double.POSITIVE_INFINITY).length == lSize);
+    }
+
     /**
      * Test insertion and deletion in tree.
      *
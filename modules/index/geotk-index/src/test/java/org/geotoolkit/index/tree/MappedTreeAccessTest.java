@@ -0,0 +1,139 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.index.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.geotoolkit.index.tree.hilbert.FileHilbertRTree;
+import org.geotoolkit.index.tree.star.FileStarRTree;
+import org.geotoolkit.referencing.crs.PredefinedCRS;
+import org.junit.Test;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import static org.geotoolkit.internal.tree.TreeUtilities.intersects;
+import static org.junit.Assert.*;
+
+/**
+ * Test trees opened with {@link org.geotoolkit.internal.tree.TreeAccessMappedFile}, searched by many threads.
+ */
+public final class MappedTreeAccessTest extends TreeTest {
+
+    private static final CoordinateReferenceSystem CRS = PredefinedCRS.CARTESIAN_2D;
+
+    private static final int SIZE = 500;
+
+    private final List<double[]> data = new ArrayList<double[]>();
+
+    public MappedTreeAccessTest() throws IOException {
+        final Random random = new Random(7);
+        for (int i = 0; i < SIZE; i++) {
+            final double x = random.nextDouble() * 1000 - 500;
+            final double y = random.nextDouble() * 1000 - 500;
+            data.add(new double[]{x, y, x + random.nextDouble() * 20, y + random.nextDouble() * 20});
+        }
+    }
+
+    /**
+     * Run random searches from many threads at the same time and compare with brute force results.
+     */
+    private void concurrentSearch(final Tree<double[]> tree) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 64; t++) {
+                final long seed = t;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        final Random random = new Random(seed);
+                        for (int q = 0; q < 20; q++) {
+                            final double x = random.nextDouble() * 1000 - 500;
+                            final double y = random.nextDouble() * 1000 - 500;
+                            final double[] region = {x, y, x + 100, y + 100};
+                            final GeneralEnvelope env = new GeneralEnvelope(CRS);
+                            env.setEnvelope(region);
+                            final int[] result = tree.searchID(env);
+                            Arrays.sort(result);
+                            int expected = 0;
+                            for (int i = 0; i < SIZE; i++) {
+                                if (intersects(data.get(i), region, true)) {
+                                    if (Arrays.binarySearch(result, i + 1) < 0) return false;
+                                    expected++;
+                                }
+                            }
+                            if (expected != result.length) return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void starTreeTest() throws Exception {
+        final File treeFile   = File.createTempFile("test", "tree", tempDir);
+        final File mapperFile = File.createTempFile("test", "mapper", tempDir);
+        FileTreeElementMapperTest tEM = new FileTreeElementMapperTest(CRS, mapperFile);
+        Tree<double[]> tree = new FileStarRTree<double[]>(treeFile.toPath(), 4, CRS, tEM);
+        for (double[] d : data) tree.insert(d);
+        tree.close();
+
+        tEM  = new FileTreeElementMapperTest(CRS, mapperFile);
+        tree = new FileStarRTree<double[]>(treeFile.toPath(), tEM, true);
+        assertEquals(SIZE, tree.getElementsNumber());
+        concurrentSearch(tree);
+
+        //-- single writer append
+        assertEquals(SIZE + 1, tree.insert(new double[]{0, 0, 1, 1}));
+        tree.close();
+
+        tEM  = new FileTreeElementMapperTest(CRS, mapperFile);
+        tree = new FileStarRTree<double[]>(treeFile.toPath(), tEM);
+        assertEquals(SIZE + 1, tree.getElementsNumber());
+        assertTrue(tree.getRoot().checkInternal());
+        tree.close();
+    }
+
+    @Test
+    public void hilbertTreeTest() throws Exception {
+        final File treeFile   = File.createTempFile("test", "tree", tempDir);
+        final File mapperFile = File.createTempFile("test", "mapper", tempDir);
+        FileTreeElementMapperTest tEM = new FileTreeElementMapperTest(CRS, mapperFile);
+        Tree<double[]> tree = new FileHilbertRTree<double[]>(treeFile.toPath(), 4, 2, CRS, tEM);
+        for (double[] d : data) tree.insert(d);
+        tree.close();
+
+        tEM  = new FileTreeElementMapperTest(CRS, mapperFile);
+        tree = new FileHilbertRTree<double[]>(treeFile.toPath(), tEM, true);
+        concurrentSearch(tree);
+        tree.close();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.index.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.geotoolkit.index.tree.hilbert.FileHilbertRTree;
+import org.geotoolkit.index.tree.star.FileStarRTree;
+import org.geotoolkit.referencing.crs.PredefinedCRS;
+import org.junit.Test;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import static org.geotoolkit.internal.tree.TreeUtilities.intersects;
+import static org.junit.Assert.*;
+
+/**
+ * Test {@link TreeBulkLoader} with file trees re-opened after building.
+ */
+public final class TreeBulkLoaderTest extends TreeTest {
+
+    private static final CoordinateReferenceSystem CRS = PredefinedCRS.CARTESIAN_2D;
+
+    /**
+     * Data number inserted in Tree.
+     */
+    private static final int SIZE = 2000;
+
+    private final List<double[]> data = new ArrayList<double[]>();
+
+    public TreeBulkLoaderTest() throws IOException {
+        final Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            final double x = random.nextDouble() * 1000 - 500;
+            final double y = random.nextDouble() * 1000 - 500;
+            data.add(new double[]{x, y, x + random.nextDouble() * 10, y + random.nextDouble() * 10});
+        }
+    }
+
+    /**
+     * Fill tree with loader, sorting only 128 elements in memory to force external merge.
+     */
+    private void load(final Tree<double[]> tree, final int number) throws StoreIndexException, IOException {
+        try (final TreeBulkLoader<double[]> loader = new TreeBulkLoader<double[]>(tree, 128, tempDir.toPath())) {
+            for (int i = 0; i < number; i++) {
+                assertEquals(i + 1, loader.add(data.get(i)));
+            }
+            loader.build();
+        }
+        assertEquals(number, tree.getElementsNumber());
+        assertTrue(tree.getRoot().checkInternal());
+    }
+
+    /**
+     * Compare tree search results with brute force results.
+     */
+    private void checkSearch(final Tree<double[]> tree, final int number) throws StoreIndexException {
+        final double[][] regions = new double[][]{
+            {-500, -500, 510, 510},
+            {-100, -50, 20, 130},
+            {250, 250, 260, 255},
+            {600, 600, 700, 700}};
+        for (double[] region : regions) {
+            final GeneralEnvelope env = new GeneralEnvelope(CRS);
+            env.setEnvelope(region);
+            final int[] result = tree.searchID(env);
+            Arrays.sort(result);
+            final List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < number; i++) {
+                if (intersects(data.get(i), region, true)) expected.add(i + 1);
+            }
+            assertEquals(expected.size(), result.length);
+            for (int i = 0; i < result.length; i++) {
+                assertEquals(expected.get(i).intValue(), result[i]);
+            }
+        }
+    }
+
+    @Test
+    public void starTreeTest() throws Exception {
+        final File treeFile   = File.createTempFile("test", "tree", tempDir);
+        final File mapperFile = File.createTempFile("test", "mapper", tempDir);
+        FileTreeElementMapperTest tEM = new FileTreeElementMapperTest(CRS, mapperFile);
+        Tree<double[]> tree = new FileStarRTree<double[]>(treeFile.toPath(), 8, CRS, tEM);
+        load(tree, SIZE);
+        checkSearch(tree, SIZE);
+        tree.close();
+
+        tEM  = new FileTreeElementMapperTest(CRS, mapperFile);
+        tree = new FileStarRTree<double[]>(treeFile.toPath(), tEM);
+        assertEquals(SIZE, tree.getElementsNumber());
+        checkSearch(tree, SIZE);
+
+        //-- tree built by bulk loading should still accept insertion.
+        assertEquals(SIZE + 1, tree.insert(new double[]{0, 0, 1, 1}));
+        tree.close();
+    }
+
+    @Test
+    public void hilbertTreeTest() throws Exception {
+        final File treeFile   = File.createTempFile("test", "tree", tempDir);
+        final File mapperFile = File.createTempFile("test", "mapper", tempDir);
+        FileTreeElementMapperTest tEM = new FileTreeElementMapperTest(CRS, mapperFile);
+        Tree<double[]> tree = new FileHilbertRTree<double[]>(treeFile.toPath(), 8, 2, CRS, tEM);
+        load(tree, SIZE);
+        checkSearch(tree, SIZE);
+        tree.close();
+
+        tEM  = new FileTreeElementMapperTest(CRS, mapperFile);
+        tree = new FileHilbertRTree<double[]>(treeFile.toPath(), tEM);
+        checkSearch(tree, SIZE);
+        tree.close();
+    }
+
+    /**
+     * Less elements than maximum element number per Node, root should be a single leaf.
+     */
+    @Test
+    public void singleLeafTest() throws Exception {
+        final File treeFile   = File.createTempFile("test", "tree", tempDir);
+        final File mapperFile = File.createTempFile("test", "mapper", tempDir);
+        final FileTreeElementMapperTest tEM = new FileTreeElementMapperTest(CRS, mapperFile);
+        final Tree<double[]> tree = new FileStarRTree<double[]>(treeFile.toPath(), 8, CRS, tEM);
+        load(tree, 5);
+        assertTrue(tree.getRoot().isLeaf());
+        assertEquals(1, tree.getRoot().getNodeId());
+        checkSearch(tree, 5);
+        tree.close();
+    }
+}
@@ -16,18 +16,30 @@
  */
 package org.geotoolkit.processing.chain;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotoolkit.cql.CQL;
 import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.filter.function.groovy.GroovyFunctionFactory;
 import org.geotoolkit.filter.function.javascript.JavaScriptFunctionFactory;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.processing.AbstractProcess;
-import org.geotoolkit.processing.AbstractProcessDescriptor;
 import org.geotoolkit.process.Process;
 import org.geotoolkit.process.ProcessDescriptor;
 import org.geotoolkit.process.ProcessException;
@@ -58,8 +70,27 @@ public class ChainProcess extends AbstractProcess {
 
     protected static final Logger LOGGER = Logging.getLogger("org.geotoolkit.processing.chain");
 
-    private Process currentProcess;
+    /**
+     * Executor running sub processes in the parallel threads shared by the library.
+     */
+    private static final Executor PARALLEL = new Executor() {
+        @Override
+        public void execute(final Runnable task) {
+            Threads.executeParallel(task);
+        }
+    };
+
+    /**
+     * Sub processes currently running, canceled with this process.
+     */
+    private final Set<Process> currentProcesses = Collections.newSetFromMap(new ConcurrentHashMap<Process,Boolean>());
+
+    /**
+     * Lock notified when this process is resumed or canceled.
+     */
+    private final Object pauseLock = new Object();
 
+    private Executor executor = PARALLEL;
 
     public ChainProcess(final ChainProcessDescriptor desc, final ParameterValueGroup input) {
         super(desc, input);
@@ -73,8 +104,22 @@ public class ChainProcess extends AbstractProcess {
         return (ChainProcessDescriptor)super.getDescriptor();
     }
 
+    /**
+     * Set the executor running sub processes which do not depend on each other.
+     * By default the parallel threads shared by the library are used.
+     *
+     * @param executor executor, or {@code null} to run all sub processes in the calling thread.
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
     /**
      * {@inheritDoc}
+     *
+     * <p>A sub process is started as soon as all its parents in the chain flow are completed,
+     * independent branches run in parallel. Chains with conditional elements are executed
+     * rank by rank in the calling thread, since conditions change the flow.</p>
      */
     @Override
     protected void execute() throws ProcessException {
@@ -83,13 +128,13 @@ public class ChainProcess extends AbstractProcess {
 
         // processing progress
         final float part = 100 / model.getElements().size();
-        int i = 1;
 
         final Collection<FlowNode> nodes = Flow.createFlow(model);
-        List<List<FlowNode>> ranked = Flow.sortByRank(nodes);
+        final List<List<FlowNode>> ranked = Flow.sortByRank(nodes);
 
         //prepare all parameters for each process step
         final Map<Integer, ParameterValueGroup> configs = new HashMap<Integer, ParameterValueGroup>();
+        boolean hasCondition = false;
 
         for (FlowNode node : nodes) {
             final Object obj = node.getObject();
@@ -113,7 +158,7 @@ public class ChainProcess extends AbstractProcess {
                 if (element.getFailed().isEmpty() || element.getSuccess().isEmpty()) {
                     throw new ProcessException("A conditional element should have at least one success AND one failed execution link.", this, null);
                 }
-
+                hasCondition = true;
                 configs.put(element.getId(), ChainProcessDescriptor.createParams(element.getInputs(), "conditionInput", true).createValue());
             }
         }
@@ -127,70 +172,45 @@ public class ChainProcess extends AbstractProcess {
             }
         }
 
-        // Will contain all the versions of processes used
-        final StringBuilder processVersion = new StringBuilder();
+        if (hasCondition || executor == null) {
+            executeByRank(model, ranked, configs, part);
+        } else {
+            executeByFlow(model, ranked, configs, part);
+        }
+    }
 
-        //run processes in order
+    /**
+     * Run processes rank by rank in the calling thread.
+     */
+    private void executeByRank(final Chain model, List<List<FlowNode>> ranked,
+            final Map<Integer, ParameterValueGroup> configs, final float part) throws ProcessException {
+        int i = 1;
         for (int j = 0; j < ranked.size(); j++) {
             final List<FlowNode> rank = ranked.get(j);
 
             for(FlowNode node : rank){
                 final Object obj = node.getObject();
                 if (obj == ElementProcess.BEGIN) {
-                    //copy input params in children nodes
-                    for(DataLink link : model.getInputLinks(Integer.MIN_VALUE)){
-                        final Object value = inputParameters.parameter(link.getSourceCode()).getValue();
-                        setValue(value, configs.get(link.getTargetId()).parameter(link.getTargetCode()));
-                    }
+                    copyInputs(model, configs);
                 } else if (obj == ElementProcess.END) {
                     // do nothing
 
                 } else if(obj instanceof ElementProcess) {
-                    // handle process cancel
-                    if (isCanceled()) {
-                       throw new ProcessException("Process Canceled by user", this, null);
-                    }
-                    // handle process pause
-                    if (isPaused()) {
-                        fireProcessPaused(descriptor.getIdentifier().getCode() + " paused", i * part);
-                        while (isPaused()) {
-                            try {
-                                Thread.sleep(1000);
-                            } catch (InterruptedException ex) {
-                                LOGGER.log(Level.WARNING, "Interruption while process is in pause", ex);
-                            }
-                        }
-                        fireProcessResumed(descriptor.getIdentifier().getCode() + " resumed", i * part);
-                    }
+                    checkCanceledOrPaused(i * part);
 
                     //execute process
                     final ElementProcess element = (ElementProcess) obj;
-                    final ParameterValueGroup config = configs.get(element.getId());
-                    final ProcessDescriptor pdesc;
+                    final Process process = createProcess(element, configs);
+                    final ParameterValueGroup result;
                     try {
-                        pdesc = getProcessDescriptor(element);
-                    } catch (NoSuchIdentifierException ex) {
-                        throw new ProcessException("Sub process not found", this, ex);
+                        result = process.call();
+                    } finally {
+                        currentProcesses.remove(process);
                     }
-                    currentProcess = pdesc.createProcess(config);
-
-                    final String processId = pdesc.getIdentifier().getCode();
-                    // Fill process version with values coming from the current process.
-                    if (processVersion.length() > 0) {
-                        processVersion.append(", ");
-                    }
-                    processVersion.append(processId).append(" ")
-                            .append(((AbstractProcessDescriptor)currentProcess.getDescriptor()).getVersion());
-
-                    final ParameterValueGroup result = currentProcess.call();
-                    fireProgressing(pdesc.getIdentifier().getCode() + " completed", i * part, false);
+                    fireProgressing(process.getDescriptor().getIdentifier().getCode() + " completed", i * part, false);
                     i++;
+                    copyResults(model, element, result, configs);
 
-                    //set result in children
-                    for(DataLink link : model.getInputLinks(element.getId())){
-                        final Object value = result.parameter(link.getSourceCode()).getValue();
-                        setValue(value, configs.get(link.getTargetId()).parameter(link.getTargetCode()));
-                    }
                 } else if (obj instanceof ElementCondition) {
                     final ElementCondition condition = (ElementCondition) obj;
                     final Boolean result = executeConditionalElement(condition, configs.get(condition.getId()));
@@ -205,7 +225,229 @@ public class ChainProcess extends AbstractProcess {
                 }
             }
         }
+    }
+
+    /**
+     * Run each process as soon as all its parents are completed, processes are
+     * given to the executor. Results are copied in children configurations by
+     * the calling thread, values are passed as is when their class match.
+     */
+    private void executeByFlow(final Chain model, final List<List<FlowNode>> ranked,
+            final Map<Integer, ParameterValueGroup> configs, final float part) throws ProcessException {
+
+        //count parents of each node, children are released when their count reach zero
+        final Map<FlowNode,Integer> waiting = new HashMap<FlowNode,Integer>();
+        final Deque<FlowNode> ready = new ArrayDeque<FlowNode>();
+        for (List<FlowNode> rank : ranked) {
+            for (FlowNode node : rank) {
+                if (!waiting.containsKey(node)) waiting.put(node, 0);
+                for (FlowNode child : node.getChildren()) {
+                    final Integer count = waiting.get(child);
+                    waiting.put(child, (count == null) ? 1 : count + 1);
+                }
+            }
+        }
+        for (List<FlowNode> rank : ranked) {
+            for (FlowNode node : rank) {
+                if (waiting.get(node) == 0) ready.add(node);
+            }
+        }
+
+        final BlockingQueue<NodeTask> completed = new LinkedBlockingQueue<NodeTask>();
+        final List<NodeTask> running = new ArrayList<NodeTask>();
+        int i = 1;
+        try {
+            while (!ready.isEmpty() || !running.isEmpty()) {
+
+                //start all nodes which do not wait for a parent
+                while (!ready.isEmpty()) {
+                    final FlowNode node = ready.poll();
+                    final Object obj = node.getObject();
+                    if (obj instanceof ElementProcess && obj != ElementProcess.BEGIN && obj != ElementProcess.END) {
+                        checkCanceledOrPaused(i * part);
+                        final NodeTask task = new NodeTask(node, createProcess((ElementProcess) obj, configs), completed);
+                        running.add(task);
+                        executor.execute(task);
+                    } else {
+                        if (obj == ElementProcess.BEGIN) {
+                            copyInputs(model, configs);
+                        }
+                        release(node, waiting, ready);
+                    }
+                }
+                if (running.isEmpty()) break;
+
+                //wait for a process, running ourself the ones not started yet
+                NodeTask done = completed.poll();
+                while (done == null) {
+                    NodeTask idle = null;
+                    for (NodeTask task : running) {
+                        if (!task.claimed.get()) {
+                            idle = task;
+                            break;
+                        }
+                    }
+                    if (idle != null) {
+                        //-- does nothing if task is already started by an executor thread.
+                        idle.run();
+                        done = completed.poll();
+                    } else {
+                        try {
+                            done = completed.take();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            throw new ProcessException("Interrupted while waiting for sub processes.", this, ex);
+                        }
+                    }
+                }
+                running.remove(done);
+
+                final ParameterValueGroup result;
+                try {
+                    result = done.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new ProcessException("Interrupted while waiting for sub processes.", this, ex);
+                } catch (ExecutionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof ProcessException) throw (ProcessException) cause;
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new ProcessException(cause.getMessage(), this, cause);
+                }
+                fireProgressing(done.process.getDescriptor().getIdentifier().getCode() + " completed", i * part, false);
+                i++;
+                copyResults(model, (ElementProcess) done.node.getObject(), result, configs);
+                release(done.node, waiting, ready);
+            }
+        } finally {
+            //do not start remaining processes and cancel running ones if the chain failed
+            for (NodeTask task : running) {
+                task.abort();
+            }
+        }
+    }
+
+    /**
+     * Decrease parent count of the node children, children without waited parents are ready.
+     */
+    private static void release(final FlowNode node, final Map<FlowNode,Integer> waiting, final Deque<FlowNode> ready) {
+        for (FlowNode child : node.getChildren()) {
+            final int count = waiting.get(child) - 1;
+            waiting.put(child, count);
+            if (count == 0) ready.add(child);
+        }
+    }
+
+    /**
+     * Sub process of a flow node, notifies its completion in a queue.
+     * A task is run once, by the executor or by the chain thread.
+     */
+    private final class NodeTask extends FutureTask<ParameterValueGroup> {
+
+        private final FlowNode node;
+        private final Process process;
+        private final BlockingQueue<NodeTask> completed;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private NodeTask(final FlowNode node, final Process process, final BlockingQueue<NodeTask> completed) {
+            super(process);
+            this.node = node;
+            this.process = process;
+            this.completed = completed;
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                try {
+                    super.run();
+                } finally {
+                    //the process is still running when the task is canceled, keep it until it returns
+                    currentProcesses.remove(process);
+                }
+            }
+        }
+
+        /**
+         * Cancel the task, the process is canceled if it is already running.
+         */
+        private void abort() {
+            cancel(false);
+            if (claimed.compareAndSet(false, true)) {
+                currentProcesses.remove(process);
+            } else if (process instanceof AbstractProcess) {
+                ((AbstractProcess) process).cancelProcess();
+            }
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+    }
+
+    /**
+     * Copy chain input parameters in children nodes.
+     */
+    private void copyInputs(final Chain model, final Map<Integer, ParameterValueGroup> configs) {
+        for(DataLink link : model.getInputLinks(Integer.MIN_VALUE)){
+            final Object value = inputParameters.parameter(link.getSourceCode()).getValue();
+            setValue(value, configs.get(link.getTargetId()).parameter(link.getTargetCode()));
+        }
+    }
 
+    /**
+     * Copy sub process results in children nodes.
+     */
+    private void copyResults(final Chain model, final ElementProcess element, final ParameterValueGroup result,
+            final Map<Integer, ParameterValueGroup> configs) {
+        for(DataLink link : model.getInputLinks(element.getId())){
+            final Object value = result.parameter(link.getSourceCode()).getValue();
+            setValue(value, configs.get(link.getTargetId()).parameter(link.getTargetCode()));
+        }
+    }
+
+    /**
+     * Create the sub process of an element, the process is registered to be canceled with the chain.
+     */
+    private Process createProcess(final ElementProcess element, final Map<Integer, ParameterValueGroup> configs) throws ProcessException {
+        final ProcessDescriptor pdesc;
+        try {
+            pdesc = getProcessDescriptor(element);
+        } catch (NoSuchIdentifierException ex) {
+            throw new ProcessException("Sub process not found", this, ex);
+        }
+        final Process process = pdesc.createProcess(configs.get(element.getId()));
+        currentProcesses.add(process);
+        return process;
+    }
+
+    /**
+     * Throw an exception if the chain is canceled, wait if it is paused.
+     */
+    private void checkCanceledOrPaused(final float progress) throws ProcessException {
+        // handle process cancel
+        if (isCanceled()) {
+           throw new ProcessException("Process Canceled by user", this, null);
+        }
+        // handle process pause
+        if (isPaused()) {
+            fireProcessPaused(descriptor.getIdentifier().getCode() + " paused", progress);
+            synchronized (pauseLock) {
+                while (isPaused() && !isCanceled()) {
+                    try {
+                        pauseLock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new ProcessException("Interruption while process is in pause", this, ex);
+                    }
+                }
+            }
+            if (isCanceled()) {
+               throw new ProcessException("Process Canceled by user", this, null);
+            }
+            fireProcessResumed(descriptor.getIdentifier().getCode() + " resumed", progress);
+        }
     }
 
     private boolean executeConditionalElement(final ElementCondition condition, final ParameterValueGroup inputs) throws ProcessException {
@@ -283,8 +525,21 @@ public class ChainProcess extends AbstractProcess {
     @Override
     public void cancelProcess() {
         super.cancelProcess();
-        if (currentProcess instanceof AbstractProcess) {
-            ((AbstractProcess)currentProcess).cancelProcess();
+        for (Process process : currentProcesses) {
+            if (process instanceof AbstractProcess) {
+                ((AbstractProcess)process).cancelProcess();
+            }
+        }
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+    }
+
+    @Override
+    public void resumeProcess() {
+        super.resumeProcess();
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
         }
     }
 
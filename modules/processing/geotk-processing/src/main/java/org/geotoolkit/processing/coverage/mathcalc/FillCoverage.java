@@ -144,19 +144,35 @@ public class FillCoverage {
 
 
             //loop on all pixels
-            final double[] sampleData = new double[1];
-            try{
-                for(int x=hcubeLower[0],xn=hcubeUpper[0];x<xn;x++){
-                    for(int y=hcubeLower[1],yn=hcubeUpper[1];y<yn;y++){
-                        positionGrid.setOrdinate(0, x);
-                        positionGrid.setOrdinate(1, y);
-                        gridToCrs.transform(positionGrid, positionGeo);
-                        evaluator.evaluate(positionGeo, sampleData);
-                        raster.setSample(x-hcubeLower[0], y-hcubeLower[1], 0, sampleData[0]);
+            if(evaluator instanceof RowEvaluator){
+                //evaluate rows at once
+                final int width = hcubeUpper[0]-hcubeLower[0];
+                final double[] gridCoord = new double[nbDim];
+                for(int i=0;i<nbDim;i++){
+                    gridCoord[i] = hcubeLower[i];
+                }
+                final double[] rowData = new double[width];
+                for(int y=hcubeLower[1],yn=hcubeUpper[1];y<yn;y++){
+                    gridCoord[0] = hcubeLower[0];
+                    gridCoord[1] = y;
+                    ((RowEvaluator)evaluator).evaluate(gridToCrs, gridCoord, width, rowData);
+                    raster.setSamples(0, y-hcubeLower[1], width, 1, 0, rowData);
+                }
+            }else{
+                final double[] sampleData = new double[1];
+                try{
+                    for(int x=hcubeLower[0],xn=hcubeUpper[0];x<xn;x++){
+                        for(int y=hcubeLower[1],yn=hcubeUpper[1];y<yn;y++){
+                            positionGrid.setOrdinate(0, x);
+                            positionGrid.setOrdinate(1, y);
+                            gridToCrs.transform(positionGrid, positionGeo);
+                            evaluator.evaluate(positionGeo, sampleData);
+                            raster.setSample(x-hcubeLower[0], y-hcubeLower[1], 0, sampleData[0]);
+                        }
                     }
+                }catch(TransformException ex){
+                    throw new CoverageStoreException(ex.getMessage(), ex);
                 }
-            }catch(TransformException ex){
-                throw new CoverageStoreException(ex.getMessage(), ex);
             }
 
             //Calculate grid to crs of this zone
@@ -235,4 +251,22 @@ public class FillCoverage {
 
     }
 
+    /**
+     * Sample evaluator able to compute a whole row of the grid at once.
+     */
+    public static interface RowEvaluator extends SampleEvaluator {
+
+        /**
+         * Evaluate the new sample values of a grid row.
+         *
+         * @param gridToCrs , grid to crs transform of the evaluated grid.
+         * @param gridCoord , grid coordinate of the first pixel of the row.
+         * @param width , number of pixels in the row.
+         * @param sampleBuffer , new samples must be set in this buffer,
+         *        pixel interleaved, its length is a multiple of width.
+         */
+        void evaluate(MathTransform gridToCrs, double[] gridCoord, int width, double[] sampleBuffer);
+
+    }
+
 }
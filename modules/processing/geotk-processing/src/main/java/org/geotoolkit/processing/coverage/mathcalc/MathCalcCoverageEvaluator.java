@@ -17,34 +17,64 @@
 
 package org.geotoolkit.processing.coverage.mathcalc;
 
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.logging.Level;
 
 import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.geotoolkit.coverage.grid.GridCoverage2D;
 import org.geotoolkit.referencing.CRS;
 import org.opengis.coverage.Coverage;
 import org.opengis.filter.expression.Expression;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.opengis.referencing.operation.TransformException;
 import org.opengis.util.FactoryException;
 import org.apache.sis.util.logging.Logging;
 
 /**
+ * Evaluate the math calc expression on input coverages.
+ * <br/>
+ * Rows are evaluated with a compiled {@link MathCalcKernel}. When an input is
+ * a {@link GridCoverage2D} on the same grid as the evaluated row, its samples
+ * are copied from the image tiles instead of evaluating the coverage at each
+ * position.
  *
  * @author Johann Sorel (Geomatys)
  */
-public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
+public class MathCalcCoverageEvaluator implements FillCoverage.RowEvaluator {
 
     private final GeneralDirectPosition positionGeo;
     private final DynamicPick pick;
     private final Expression exp;
+    private final MathCalcKernel kernel;
+
+    //rows buffers
+    private final double[][] rows;
+    private final boolean[] aligned;
+    private double[] gridCoords = new double[0];
+    private double[] crsCoords = new double[0];
+    private double[] coverageCoords = new double[0];
+
+    //grid alignment of the inputs, cached for the last grid to crs transform
+    private MathTransform alignedGridToCrs;
+    private int[][] alignedOffsets;
 
     public MathCalcCoverageEvaluator(MathCalcCoverageEvaluator eval) throws FactoryException {
         this.exp = eval.exp;
         this.positionGeo = eval.positionGeo.clone();
         this.pick = new DynamicPick(eval.pick.coverages, eval.pick.mapping, positionGeo);
+        this.kernel = new MathCalcKernel(exp, pick.mapping);
+        this.rows = new double[pick.coverages.length][];
+        this.aligned = new boolean[rows.length];
     }
 
     public MathCalcCoverageEvaluator(Coverage[] coverages, String[] mapping,
@@ -53,6 +83,9 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
         this.exp = exp;
         positionGeo = new GeneralDirectPosition(crs);
         pick = new DynamicPick(coverages, mapping, positionGeo);
+        kernel = new MathCalcKernel(exp, mapping);
+        rows = new double[coverages.length][];
+        aligned = new boolean[rows.length];
     }
 
     @Override
@@ -62,11 +95,170 @@ public class MathCalcCoverageEvaluator implements FillCoverage.SampleEvaluator {
         sampleBuffer[0] = exp.evaluate(pick, Double.class);
     }
 
+    @Override
+    public void evaluate(MathTransform gridToCrs, double[] gridCoord, int width, double[] sampleBuffer) {
+        final int[][] offsets = getAlignedOffsets(gridToCrs, gridCoord.length);
+
+        boolean needCrsCoords = false;
+        for (int i = 0; i < rows.length; i++) {
+            if (!kernel.isUsed(i)) continue;
+            if (rows[i] == null || rows[i].length < width) {
+                rows[i] = new double[width];
+            }
+            aligned[i] = offsets[i] != null && readAligned(i, offsets[i], gridCoord, width);
+            needCrsCoords |= !aligned[i];
+        }
+
+        if (needCrsCoords) {
+            if (!toCrs(gridToCrs, gridCoord, width)) {
+                //we should use NoData value
+                Arrays.fill(sampleBuffer, Double.NaN);
+                return;
+            }
+            for (int i = 0; i < rows.length; i++) {
+                if (kernel.isUsed(i) && !aligned[i]) {
+                    readTransformed(i, width);
+                }
+            }
+        }
+
+        final double[] result = kernel.evaluate(rows, width);
+        final int nbBand = sampleBuffer.length / width;
+        if (nbBand == 1) {
+            System.arraycopy(result, 0, sampleBuffer, 0, width);
+        } else {
+            for (int p = 0; p < width; p++) {
+                sampleBuffer[p * nbBand] = result[p];
+            }
+        }
+    }
+
+    /**
+     * Find the inputs aligned on the given grid.
+     *
+     * @return for each input, the pixel offset between the grid and the input image,
+     *         or null if the input is not aligned.
+     */
+    private int[][] getAlignedOffsets(final MathTransform gridToCrs, final int dimension) {
+        if (gridToCrs == alignedGridToCrs) {
+            return alignedOffsets;
+        }
+        final int[][] offsets = new int[rows.length][];
+        if (dimension == 2 && gridToCrs.getTargetDimensions() == 2) {
+            for (int i = 0; i < rows.length; i++) {
+                if (!(pick.coverages[i] instanceof GridCoverage2D)) continue;
+                final GridCoverage2D coverage = (GridCoverage2D) pick.coverages[i];
+                if (!CRS.equalsIgnoreMetadata(positionGeo.getCoordinateReferenceSystem(), coverage.getCoordinateReferenceSystem2D())) {
+                    continue;
+                }
+                final Matrix matrix;
+                try {
+                    final MathTransform gridToGrid = MathTransforms.concatenate(
+                            gridToCrs, coverage.getGridGeometry().getGridToCRS2D().inverse());
+                    matrix = MathTransforms.getMatrix(gridToGrid);
+                } catch (NoninvertibleTransformException ex) {
+                    continue;
+                }
+                if (matrix == null
+                        || Math.abs(matrix.getElement(0, 0) - 1) > 1e-9 || Math.abs(matrix.getElement(0, 1)) > 1e-9
+                        || Math.abs(matrix.getElement(1, 1) - 1) > 1e-9 || Math.abs(matrix.getElement(1, 0)) > 1e-9) {
+                    continue;
+                }
+                //coverage rounds the pixel coordinate, offset must not be ambiguous
+                final double tx = matrix.getElement(0, 2) + 0.5;
+                final double ty = matrix.getElement(1, 2) + 0.5;
+                if (Math.abs(tx - Math.rint(tx)) < 1e-6 || Math.abs(ty - Math.rint(ty)) < 1e-6) {
+                    continue;
+                }
+                offsets[i] = new int[]{(int) Math.floor(tx), (int) Math.floor(ty)};
+            }
+        }
+        alignedGridToCrs = gridToCrs;
+        alignedOffsets = offsets;
+        return offsets;
+    }
+
+    /**
+     * Copy a row of samples from an aligned input image.
+     *
+     * @return false if the row is not entirely in the image
+     */
+    private boolean readAligned(final int index, final int[] offset, final double[] gridCoord, final int width) {
+        final RenderedImage image = ((GridCoverage2D) pick.coverages[index]).getRenderedImage();
+        final int x = (int) gridCoord[0] + offset[0];
+        final int y = (int) gridCoord[1] + offset[1];
+        final Rectangle bounds = new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+        if (!bounds.contains(x, y, width, 1)) {
+            return false;
+        }
+        final double[] row = rows[index];
+        final int tileY = (int) Math.floor((double) (y - image.getTileGridYOffset()) / image.getTileHeight());
+        int i = 0;
+        while (i < width) {
+            final int tileX = (int) Math.floor((double) (x + i - image.getTileGridXOffset()) / image.getTileWidth());
+            final Raster tile = image.getTile(tileX, tileY);
+            final int end = Math.min(width, tile.getMinX() + tile.getWidth() - x);
+            final double[] samples = tile.getSamples(x + i, y, end - i, 1, 0, (double[]) null);
+            System.arraycopy(samples, 0, row, i, end - i);
+            i = end;
+        }
+        return true;
+    }
+
+    /**
+     * Transform the row grid coordinates in evaluation CRS.
+     *
+     * @return false if transformation failed
+     */
+    private boolean toCrs(final MathTransform gridToCrs, final double[] gridCoord, final int width) {
+        final int gridDim = gridCoord.length;
+        final int crsDim = gridToCrs.getTargetDimensions();
+        if (gridCoords.length < width * gridDim) gridCoords = new double[width * gridDim];
+        if (crsCoords.length < width * crsDim) crsCoords = new double[width * crsDim];
+        final double x = gridCoord[0];
+        for (int p = 0; p < width; p++) {
+            System.arraycopy(gridCoord, 0, gridCoords, p * gridDim, gridDim);
+            gridCoords[p * gridDim] = x + p;
+        }
+        try {
+            gridToCrs.transform(gridCoords, 0, crsCoords, 0, width);
+        } catch (TransformException ex) {
+            Logging.getLogger("org.geotoolkit.processing.coverage.mathcalc").log(Level.WARNING, ex.getMessage(), ex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evaluate an input at each position of the row, positions must have been
+     * computed by {@link #toCrs(MathTransform, double[], int) }.
+     */
+    private void readTransformed(final int index, final int width) {
+        final double[] row = rows[index];
+        final MathTransform trs = pick.baseToCoverage[index];
+        final GeneralDirectPosition coord = pick.coverageCoord[index];
+        final int dim = coord.getDimension();
+        if (coverageCoords.length < width * dim) coverageCoords = new double[width * dim];
+        try {
+            trs.transform(crsCoords, 0, coverageCoords, 0, width);
+        } catch (TransformException ex) {
+            Logging.getLogger("org.geotoolkit.processing.coverage.mathcalc").log(Level.WARNING, ex.getMessage(), ex);
+            Arrays.fill(row, 0, width, Double.NaN);
+            return;
+        }
+        for (int p = 0; p < width; p++) {
+            for (int d = 0; d < dim; d++) {
+                coord.setOrdinate(d, coverageCoords[p * dim + d]);
+            }
+            pick.coverages[index].evaluate(coord, pick.sampleBuffer);
+            row[p] = pick.sampleBuffer[0];
+        }
+    }
+
     @Override
     public FillCoverage.SampleEvaluator copy() throws FactoryException {
         return new MathCalcCoverageEvaluator(this);
     }
-
     private static class DynamicPick extends AbstractMap{
 
         private final Coverage[] coverages;
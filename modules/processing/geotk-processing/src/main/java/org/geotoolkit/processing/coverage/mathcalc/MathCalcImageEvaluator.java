@@ -30,7 +30,7 @@ import org.apache.sis.util.logging.Logging;
  *
  * @author Johann Sorel (Geomatys)
  */
-public class MathCalcImageEvaluator implements ProcessedRenderedImage.Evaluator {
+public class MathCalcImageEvaluator implements ProcessedRenderedImage.RowEvaluator {
 
     private final MathTransform gridToCrs;
     private final SampleEvaluator coverageEvaluator;
@@ -67,4 +67,20 @@ public class MathCalcImageEvaluator implements ProcessedRenderedImage.Evaluator
         coverageEvaluator.evaluate(geoPos, sampleBuffer);
     }
 
+    @Override
+    public void evaluate(int x, int y, int width, double[] sampleBuffer) {
+        if (coverageEvaluator instanceof FillCoverage.RowEvaluator) {
+            gridCoord[0] = x;
+            gridCoord[1] = y;
+            ((FillCoverage.RowEvaluator) coverageEvaluator).evaluate(gridToCrs, gridCoord, width, sampleBuffer);
+        } else {
+            final int nbBand = sampleBuffer.length / width;
+            final double[] pixel = new double[nbBand];
+            for (int i = 0; i < width; i++) {
+                evaluate(x + i, y, pixel);
+                System.arraycopy(pixel, 0, sampleBuffer, i * nbBand, nbBand);
+            }
+        }
+    }
+
 }
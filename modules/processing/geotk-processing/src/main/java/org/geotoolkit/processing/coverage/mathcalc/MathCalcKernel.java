@@ -0,0 +1,255 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.coverage.mathcalc;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.geotoolkit.filter.visitor.ListingPropertyVisitor;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+
+/**
+ * Math calc expression compiled in a tree of operators working on rows of samples.
+ * <br/>
+ * Additions, subtractions, multiplications, divisions, numeric literals and
+ * coverage names are evaluated on whole {@code double[]} rows in tight loops.
+ * Other expressions, like functions, are evaluated sample by sample with
+ * the values of the rows.
+ * <br/>
+ * A kernel holds its rows buffers, it must be used by a single thread.
+ *
+ * @module pending
+ */
+final class MathCalcKernel {
+
+    private final Node root;
+    private final boolean[] used;
+
+    /**
+     * @param exp expression to compile
+     * @param mapping coverage name for each input index
+     */
+    MathCalcKernel(final Expression exp, final String[] mapping) {
+        this.used = new boolean[mapping.length];
+        this.root = compile(exp, mapping);
+    }
+
+    /**
+     * @param index input index
+     * @return true if the input values are used by the expression
+     */
+    boolean isUsed(final int index) {
+        return used[index];
+    }
+
+    /**
+     * Evaluate the expression on a row.
+     *
+     * @param rows samples of each input, rows of unused inputs can be null
+     * @param width number of samples in the row
+     * @return result samples, this array is reused by the next evaluation
+     *         and can be longer than width
+     */
+    double[] evaluate(final double[][] rows, final int width) {
+        return root.evaluate(rows, width);
+    }
+
+    private Node compile(final Expression exp, final String[] mapping) {
+        if (exp instanceof Literal) {
+            final Object value = ((Literal) exp).getValue();
+            if (value instanceof Number) {
+                return new Constant(((Number) value).doubleValue());
+            }
+        } else if (exp instanceof PropertyName) {
+            final int index = indexOf(mapping, ((PropertyName) exp).getPropertyName());
+            if (index < 0) {
+                // no coverage for this name
+                return new Constant(Double.NaN);
+            }
+            used[index] = true;
+            return new Input(index);
+        } else if (exp instanceof BinaryExpression) {
+            final BinaryExpression bin = (BinaryExpression) exp;
+            final char operator;
+            if (exp instanceof Add)           operator = '+';
+            else if (exp instanceof Subtract) operator = '-';
+            else if (exp instanceof Multiply) operator = '*';
+            else if (exp instanceof Divide)   operator = '/';
+            else operator = 0;
+            if (operator != 0) {
+                return new Operator(operator,
+                        compile(bin.getExpression1(), mapping),
+                        compile(bin.getExpression2(), mapping));
+            }
+        }
+
+        //fallback on the expression evaluation, sample by sample
+        final Collection<String> names = (Collection<String>) exp.accept(ListingPropertyVisitor.VISITOR, new HashSet<String>());
+        for (String name : names) {
+            final int index = indexOf(mapping, name);
+            if (index >= 0) used[index] = true;
+        }
+        return new Interpreted(exp, mapping);
+    }
+
+    private static int indexOf(final String[] mapping, final String name) {
+        for (int i = 0; i < mapping.length; i++) {
+            if (mapping[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static abstract class Node {
+
+        protected double[] buffer = new double[0];
+
+        /**
+         * @return array of at least width values.
+         */
+        abstract double[] evaluate(double[][] rows, int width);
+
+        protected final double[] buffer(final int width) {
+            if (buffer.length < width) {
+                buffer = new double[width];
+            }
+            return buffer;
+        }
+    }
+
+    private static final class Constant extends Node {
+
+        private final double value;
+
+        private Constant(final double value) {
+            this.value = value;
+        }
+
+        @Override
+        double[] evaluate(final double[][] rows, final int width) {
+            if (buffer.length < width) {
+                buffer = new double[width];
+                Arrays.fill(buffer, value);
+            }
+            return buffer;
+        }
+    }
+
+    private static final class Input extends Node {
+
+        private final int index;
+
+        private Input(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        double[] evaluate(final double[][] rows, final int width) {
+            return rows[index];
+        }
+    }
+
+    private static final class Operator extends Node {
+
+        private final char operator;
+        private final Node left;
+        private final Node right;
+
+        private Operator(final char operator, final Node left, final Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double[] evaluate(final double[][] rows, final int width) {
+            final double[] a = left.evaluate(rows, width);
+            final double[] b = right.evaluate(rows, width);
+            final double[] r = buffer(width);
+            switch (operator) {
+                case '+': for (int i = 0; i < width; i++) r[i] = a[i] + b[i]; break;
+                case '-': for (int i = 0; i < width; i++) r[i] = a[i] - b[i]; break;
+                case '*': for (int i = 0; i < width; i++) r[i] = a[i] * b[i]; break;
+                default : for (int i = 0; i < width; i++) r[i] = a[i] / b[i]; break;
+            }
+            return r;
+        }
+    }
+
+    private static final class Interpreted extends Node {
+
+        private final Expression exp;
+        private final RowPick pick;
+
+        private Interpreted(final Expression exp, final String[] mapping) {
+            this.exp = exp;
+            this.pick = new RowPick(mapping);
+        }
+
+        @Override
+        double[] evaluate(final double[][] rows, final int width) {
+            final double[] r = buffer(width);
+            pick.rows = rows;
+            for (int i = 0; i < width; i++) {
+                pick.position = i;
+                final Double value = exp.evaluate(pick, Double.class);
+                r[i] = (value == null) ? Double.NaN : value;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Map view of the rows values at a position.
+     */
+    private static final class RowPick extends AbstractMap {
+
+        private final String[] mapping;
+        private double[][] rows;
+        private int position;
+
+        private RowPick(final String[] mapping) {
+            this.mapping = mapping;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            final int index = indexOf(mapping, String.valueOf(key));
+            if (index < 0) {
+                // no coverage for this name
+                return Double.NaN;
+            }
+            return rows[index][position];
+        }
+
+        @Override
+        public Set entrySet() {
+            throw new UnsupportedOperationException("Not supported.");
+        }
+    }
+
+}
@@ -536,7 +536,7 @@ public class ResampleProcess extends AbstractProcess {
 //                PixelIteratorFactory.createDefaultIterator(sourceImage,sourceBB), interpolationType, 2);
          final Resample resample = new Resample(targetToSource, targetImage, sourceImage,
                 interpolationType, borderComportement, fillValue);
-        resample.fillImage();
+        resample.fillImage(true);
 
         return create(sourceCoverage, targetImage, targetGG, finalView, hints);
     }
@@ -40,6 +40,23 @@ public class NumericHistogram {
         }
     }
 
+    /**
+     * Add the occurrences of another histogram.
+     * Both histograms must have the same bins, the result is then exactly the
+     * histogram of all values added in both of them.
+     *
+     * @param other histogram with same number of bins, min and max
+     * @throws IllegalArgumentException if histograms bins differ
+     */
+    public void add(NumericHistogram other) {
+        if (other.nbBins != nbBins || Double.compare(other.min, min) != 0 || Double.compare(other.max, max) != 0) {
+            throw new IllegalArgumentException("Histograms do not have the same bins.");
+        }
+        for (int i = 0; i < nbBins; i++) {
+            hist[i] += other.hist[i];
+        }
+    }
+
     public long[] getHist() {
         return hist;
     }
@@ -27,6 +27,7 @@ import org.geotoolkit.coverage.io.GridCoverageReader;
 import org.geotoolkit.image.internal.SampleType;
 import org.geotoolkit.image.iterator.PixelIterator;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.utility.parameter.ParametersExt;
 import org.geotoolkit.processing.AbstractProcess;
 import org.geotoolkit.process.ProcessException;
@@ -47,7 +48,12 @@ import java.awt.Rectangle;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.geotoolkit.coverage.grid.ViewType;
 
 import static org.geotoolkit.parameter.Parameters.getOrCreate;
@@ -64,12 +70,23 @@ import org.opengis.geometry.Envelope;
  * <code>GridCoverage2D myCoverage = ...;</code><br/>
  * <code>ImageStatistics stats = Statistics.analyse(myCoverage, true);</code><br/>
  * <code>Long[] distribution = stats.getBand(0).tightenHistogram(50);</code><br/>s
+ * <br/>
+ * Image tiles are analysed in parallel, each thread accumulates statistics and
+ * histograms of the tiles it reads, results are merged at the end.
+ * Coverages read from a {@link CoverageReference} or a {@link GridCoverageReader}
+ * are read in deferred mode : tiles are loaded when analysed and the whole image
+ * is never held in memory.
  *
  * @author bgarcia
  * @author Quentin Boileau (Geomatys)
  */
 public class Statistics extends AbstractProcess {
 
+    /**
+     * Maximum number of rows analysed at once, large tiles are split in strips.
+     */
+    private static final int STRIP_HEIGHT = 256;
+
     public Statistics(final RenderedImage image, boolean excludeNoData){
         this(toParameters(image, null, null, null, 0, excludeNoData));
     }
@@ -276,78 +293,169 @@ public class Statistics extends AbstractProcess {
         }
 
         final ImageStatistics.Band[] bands = sc.getBands();
-        final org.apache.sis.math.Statistics[] stats = new org.apache.sis.math.Statistics[bands.length];
-        for(int i=0;i<bands.length;i++) stats[i] = new org.apache.sis.math.Statistics("stats");
-        int nbBands = bands.length;
+        final Integer histogramBins = value(HISTOGRAM_BINS, inputParameters);
+        final List<Rectangle> areas = listAreas(image);
+
+        //first pass to compute min/max, each thread analyse tiles in it's own statistics.
+        final org.apache.sis.math.Statistics[] stats = analyseTiles(image, areas, new TileAnalyser<org.apache.sis.math.Statistics[]>() {
+            @Override
+            public org.apache.sis.math.Statistics[] create() {
+                final org.apache.sis.math.Statistics[] result = new org.apache.sis.math.Statistics[bands.length];
+                for (int i = 0; i < bands.length; i++) result[i] = new org.apache.sis.math.Statistics("stats");
+                return result;
+            }
+            @Override
+            public void analyse(PixelIterator pix, org.apache.sis.math.Statistics[] result) {
+                analyseRange(pix, result, bands, excludeNoData);
+            }
+            @Override
+            public void merge(org.apache.sis.math.Statistics[] result, org.apache.sis.math.Statistics[] other) {
+                for (int i = 0; i < result.length; i++) result[i].combine(other[i]);
+            }
+        }, 10f, 55f);
+
+        //second pass to compute histograms, all histograms share the same bins and are summed.
+        final NumericHistogram[] histo = analyseTiles(image, areas, new TileAnalyser<NumericHistogram[]>() {
+            @Override
+            public NumericHistogram[] create() {
+                final NumericHistogram[] histograms = new NumericHistogram[bands.length];
+                for (int i = 0; i < bands.length; i++) {
+                    final int nbBins = (histogramBins != null) ? histogramBins : getNbBins(bands[i].getDataType());
+                    histograms[i] = new NumericHistogram(nbBins, stats[i].minimum(), stats[i].maximum());
+                }
+                return histograms;
+            }
+            @Override
+            public void analyse(PixelIterator pix, NumericHistogram[] histograms) {
+                analyseHistogram(pix, bands, histograms, excludeNoData);
+            }
+            @Override
+            public void merge(NumericHistogram[] histograms, NumericHistogram[] other) {
+                for (int i = 0; i < histograms.length; i++) histograms[i].add(other[i]);
+            }
+        }, 55f, 100f);
+        updateBands(bands, histo);
 
-        //optimization for GridMosaicRenderedImage impl
-        NumericHistogram[] histo = new NumericHistogram[nbBands];
-        if (image instanceof GridMosaicRenderedImage) {
-            final GridMosaicRenderedImage mosaicImage = (GridMosaicRenderedImage) image;
-            final GridMosaic gridMosaic = mosaicImage.getGridMosaic();
-            final Dimension gridSize = gridMosaic.getGridSize();
+        //copy statistics in band container
+        for(int i=0;i<bands.length;i++){
+            bands[i].setMin(stats[i].minimum());
+            bands[i].setMax(stats[i].maximum());
+            bands[i].setMean(stats[i].mean());
+            bands[i].setStd(stats[i].standardDeviation(true));
+        }
 
-            int startX = 0;
-            int startY = 0;
-            int endX = gridSize.width;
-            int endY = gridSize.height;
-            int totalTiles = gridSize.width * gridSize.height;
+    }
 
+    /**
+     * List the image areas to analyse, one for each tile, or several rows strips
+     * for large tiles. Missing tiles of a {@link GridMosaicRenderedImage} are skipped.
+     */
+    private static List<Rectangle> listAreas(final RenderedImage image) {
+        final List<Rectangle> areas = new ArrayList<>();
+        final int tileWidth = image.getTileWidth();
+        final int tileHeight = image.getTileHeight();
+        final Rectangle bounds = new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+
+        int startX = image.getMinTileX();
+        int startY = image.getMinTileY();
+        int endX = startX + image.getNumXTiles();
+        int endY = startY + image.getNumYTiles();
+        GridMosaic gridMosaic = null;
+        if (image instanceof GridMosaicRenderedImage) {
+            //optimization for GridMosaicRenderedImage impl
+            gridMosaic = ((GridMosaicRenderedImage) image).getGridMosaic();
+            final Dimension gridSize = gridMosaic.getGridSize();
+            startX = 0;
+            startY = 0;
+            endX = gridSize.width;
+            endY = gridSize.height;
             final Rectangle dataArea = gridMosaic.getDataArea();
             if (dataArea != null) {
                 startX = dataArea.x;
                 startY = dataArea.y;
                 endX = dataArea.x + dataArea.width;
                 endY = dataArea.y + dataArea.height;
-                totalTiles = dataArea.width * dataArea.height;
             }
+        }
 
-            //analyse each tiles of GridMosaicRenderedImage
-            Raster tile;
-            PixelIterator pix;
-            int step = 1;
-            for (int y = startY; y < endY; y++) {
-                for (int x = startX; x < endX; x++) {
-                    if (!gridMosaic.isMissing(x,y)) {
-                        tile = mosaicImage.getTile(x, y);
-                        pix = PixelIteratorFactory.createDefaultIterator(tile);
-
-                        analyseRange(pix, stats, bands, excludeNoData);
-                        pix.rewind();
-
-                        mergeHistograms(histo, analyseHistogram(pix, bands, stats, excludeNoData));
-
-                        updateBands(bands, histo);
-                        fireProgressing("Histogram progressing", (step/totalTiles)*0.9f, true);
+        for (int y = startY; y < endY; y++) {
+            for (int x = startX; x < endX; x++) {
+                if (gridMosaic != null && gridMosaic.isMissing(x, y)) continue;
+                final int minX = image.getTileGridXOffset() + x * tileWidth;
+                final int minY = image.getTileGridYOffset() + y * tileHeight;
+                for (int r = 0; r < tileHeight; r += STRIP_HEIGHT) {
+                    Rectangle area = new Rectangle(minX, minY + r, tileWidth, Math.min(STRIP_HEIGHT, tileHeight - r));
+                    if (gridMosaic == null) {
+                        area = area.intersection(bounds);
+                        if (area.isEmpty()) continue;
                     }
-                    step++;
+                    areas.add(area);
                 }
             }
-
-        } else {
-            //standard image
-            final PixelIterator pix = PixelIteratorFactory.createDefaultIterator(image);
-
-            //get min/max
-            analyseRange(pix, stats, bands, excludeNoData);
-            fireProgressing("Start histogram computing", 55f, true);
-
-            //reset iterator
-            pix.rewind();
-
-            //compute histogram
-            histo = analyseHistogram(pix, bands, stats, excludeNoData);
-            updateBands(bands, histo);
         }
+        return areas;
+    }
 
-        //copy statistics in band container
-        for(int i=0;i<bands.length;i++){
-            bands[i].setMin(stats[i].minimum());
-            bands[i].setMax(stats[i].maximum());
-            bands[i].setMean(stats[i].mean());
-            bands[i].setStd(stats[i].standardDeviation(true));
+    /**
+     * Analyse the image areas in parallel.
+     * Each thread takes the next area to analyse until all of them are done and
+     * accumulates the result in its own container, containers are merged at the end.
+     */
+    private <T> T analyseTiles(final RenderedImage image, final List<Rectangle> areas, final TileAnalyser<T> analyser,
+            final float progressStart, final float progressEnd) throws ProcessException {
+        final int tileWidth = image.getTileWidth();
+        final int tileHeight = image.getTileHeight();
+        final int offsetX = image.getTileGridXOffset();
+        final int offsetY = image.getTileGridYOffset();
+        final int nbArea = areas.size();
+        final AtomicInteger next = new AtomicInteger();
+        final Thread caller = Thread.currentThread();
+
+        final int nbPart = Math.max(1, Math.min(Threads.getParallelism(), nbArea));
+        final List<Callable<T>> tasks = new ArrayList<>(nbPart);
+        for (int p = 0; p < nbPart; p++) {
+            tasks.add(new Callable<T>() {
+                @Override
+                public T call() {
+                    final T result = analyser.create();
+                    for (int i = next.getAndIncrement(); i < nbArea; i = next.getAndIncrement()) {
+                        final Rectangle area = areas.get(i);
+                        final int tileX = (int) Math.floor((double) (area.x - offsetX) / tileWidth);
+                        final int tileY = (int) Math.floor((double) (area.y - offsetY) / tileHeight);
+                        final Raster tile = image.getTile(tileX, tileY);
+                        if (tile == null) continue;
+                        final Rectangle readArea = area.intersection(tile.getBounds());
+                        if (readArea.isEmpty()) continue;
+                        analyser.analyse(PixelIteratorFactory.createDefaultIterator(tile, readArea), result);
+
+                        if (Thread.currentThread() == caller) {
+                            fireProgressing("Statistics progressing",
+                                    progressStart + (progressEnd - progressStart) * Math.min(i, nbArea) / nbArea, true);
+                        }
+                    }
+                    return result;
+                }
+            });
         }
 
+        final List<T> parts;
+        try {
+            parts = Threads.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessException("Interrupted while computing statistics.", this, ex);
+        } catch (ExecutionException ex) {
+            throw new ProcessException(ex.getCause().getMessage(), this, ex.getCause());
+        }
+        T result = null;
+        for (T part : parts) {
+            if (result == null) {
+                result = part;
+            } else {
+                analyser.merge(result, part);
+            }
+        }
+        return result;
     }
 
     private void updateBands(ImageStatistics.Band[] bands, NumericHistogram[] histo) {
@@ -356,15 +464,6 @@ public class Statistics extends AbstractProcess {
         }
     }
 
-    private void mergeHistograms(NumericHistogram[] histo, NumericHistogram[] tileHisto) {
-
-        for (int i = 0; i < histo.length; i++) {
-            NumericHistogram histo1 = histo[i];
-            NumericHistogram histo2 = tileHisto[i];
-            histo[i] = mergeHistograms(histo1, histo2);
-        }
-    }
-
     static NumericHistogram mergeHistograms(NumericHistogram histo1, NumericHistogram histo2) {
 
         if (histo1 == null) {
@@ -398,7 +497,7 @@ public class Statistics extends AbstractProcess {
         return resultHisto;
     }
 
-    private void analyseRange(final PixelIterator pix, final org.apache.sis.math.Statistics[] stats,
+    private static void analyseRange(final PixelIterator pix, final org.apache.sis.math.Statistics[] stats,
                               final ImageStatistics.Band[] bands, final boolean excludeNoData) {
         //first pass to compute min/max values
         double [][] noDatas = null;
@@ -412,17 +511,12 @@ public class Statistics extends AbstractProcess {
         int b = 0;
         while (pix.next()) {
             final double d = pix.getSampleDouble();
-            if (Double.isNaN(d) || Double.isInfinite(d)) {
-                continue;
+            //ignore NaN and infinite values and remove noData from stats
+            if (!Double.isNaN(d) && !Double.isInfinite(d)
+                    && (noDatas == null || noDatas[b] == null || Arrays.binarySearch(noDatas[b], d) < 0)) {
+                stats[b].accept(d);
             }
 
-            //remove noData from stats
-            if (noDatas != null && noDatas[b] != null && Arrays.binarySearch(noDatas[b], d) >= 0) {
-                continue;
-            }
-
-            stats[b].accept(d);
-
             //reset b to loop on first band
             if (++b == stats.length) b = 0;
         }
@@ -432,20 +526,13 @@ public class Statistics extends AbstractProcess {
      * Analyse each pixels using a PixelIterator
      * @param pix PixelIterator
      * @param bands
+     * @param histograms histograms to fill, one for each band
      * @param excludeNoData
      */
-    private NumericHistogram[] analyseHistogram(final PixelIterator pix, final ImageStatistics.Band[] bands,
-                                                org.apache.sis.math.Statistics[] stats, final boolean excludeNoData) {
+    private static void analyseHistogram(final PixelIterator pix, final ImageStatistics.Band[] bands,
+                                         final NumericHistogram[] histograms, final boolean excludeNoData) {
 
         int nbBands = bands.length;
-        final NumericHistogram[] histograms = new NumericHistogram[nbBands];
-        for (int i = 0; i < nbBands; i++) {
-            int nbBins = getNbBins(bands[i].getDataType());
-            histograms[i] = new NumericHistogram(nbBins, stats[i].minimum(), stats[i].maximum());
-        }
-
-        //reset iterator
-        pix.rewind();
 
         //second pass to compute histogram
         // this int permit to loop on images band.
@@ -473,10 +560,9 @@ public class Statistics extends AbstractProcess {
                 if (++b == nbBands) b = 0;
             }
         }
-        return histograms;
     }
 
-    private int getNbBins(SampleType dataType) {
+    private static int getNbBins(SampleType dataType) {
         if (dataType != null && dataType.equals(SampleType.BYTE)) {
             return 255;
         }
@@ -540,4 +626,17 @@ public class Statistics extends AbstractProcess {
             throw new ProcessException(e.getMessage(), this, e);
         }
     }
+
+    /**
+     * Analyse image areas and accumulate the result in a container of type T.
+     * A container is used by a single thread.
+     */
+    private interface TileAnalyser<T> {
+
+        T create();
+
+        void analyse(PixelIterator pix, T result);
+
+        void merge(T result, T other);
+    }
 }
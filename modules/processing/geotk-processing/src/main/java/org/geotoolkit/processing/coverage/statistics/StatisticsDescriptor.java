@@ -108,11 +108,21 @@ public class StatisticsDescriptor extends AbstractProcessDescriptor {
             .setRequired(true)
             .create(Boolean.class, true);
 
+    /*
+     * Number of histogram bins, default is 255 for byte images and 1000 otherwise.
+     * More bins give more precise quantiles.
+     */
+    public static final String IN_HISTOGRAM_BINS_PARAM_NAME = "inHistogramBins";
+    public static final ParameterDescriptor<Integer> HISTOGRAM_BINS = new ParameterBuilder()
+            .addName(IN_HISTOGRAM_BINS_PARAM_NAME)
+            .setRemarks("Number of histogram bins, more bins give more precise quantiles.")
+            .setRequired(false)
+            .createBounded(Integer.class, 1, null, null);
 
     /**Input parameters */
     public static final ParameterDescriptorGroup INPUT_DESC =
             new ParameterBuilder().addName("InputParameters").createGroup(
-                    IMAGE, COVERAGE, REF, READER, IMAGE_IDX, EXCLUDE_NO_DATA);
+                    IMAGE, COVERAGE, REF, READER, IMAGE_IDX, EXCLUDE_NO_DATA, HISTOGRAM_BINS);
 
     /*
      * Coverage result
@@ -16,21 +16,38 @@
  */
 package org.geotoolkit.processing.vector.spatialjoin;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.memory.WrapFeatureCollection;
 
+import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.internal.Threads;
 
 /**
- * FeatureCollection for SpatialJoin process
+ * FeatureCollection for SpatialJoin process.
+ * Source features are indexed in memory, target features are joined by batches
+ * split between several threads.
+ *
  * @author Quentin Boileau
  * @module pending
  */
 public class SpatialJoinFeatureCollection extends WrapFeatureCollection {
 
+    /**
+     * Number of target features joined at the same time.
+     */
+    private static final int BATCH_SIZE = 1024;
+
     private final FeatureType newFeatureType;
-    private final FeatureCollection sourceFC;
+    private final SpatialJoinIndex sourceIndex;
     private final boolean method;
 
     /**
@@ -43,7 +60,7 @@ public class SpatialJoinFeatureCollection extends WrapFeatureCollection {
             final FeatureCollection targetFC, final boolean method) {
 
         super(targetFC);
-        this.sourceFC = sourceFC;
+        this.sourceIndex = new SpatialJoinIndex(sourceFC);
         this.method = method;
         this.newFeatureType = SpatialJoinProcess.concatType(targetFC.getFeatureType(), sourceFC.getFeatureType());
     }
@@ -57,11 +74,103 @@ public class SpatialJoinFeatureCollection extends WrapFeatureCollection {
         return newFeatureType;
     }
 
+    /**
+     *  {@inheritDoc }
+     */
+    @Override
+    public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
+        return new JoinIterator(getOriginalFeatureCollection().iterator());
+    }
+
     /**
      *  {@inheritDoc }
      */
     @Override
     protected Feature modify(final Feature original) {
-        return SpatialJoinProcess.join(original, newFeatureType, sourceFC, method);
+        return SpatialJoinProcess.join(original, newFeatureType, sourceIndex, method);
+    }
+
+    /**
+     * Iterator reading target features by batches and joining each batch in parallel.
+     * Features are returned in the target collection order.
+     */
+    private final class JoinIterator implements FeatureIterator {
+
+        private final FeatureIterator targets;
+        private final Feature[] batch = new Feature[BATCH_SIZE];
+        private int count = 0;
+        private int index = 0;
+
+        private JoinIterator(final FeatureIterator targets) {
+            this.targets = targets;
+        }
+
+        @Override
+        public boolean hasNext() throws FeatureStoreRuntimeException {
+            if (index < count) {
+                return true;
+            }
+            count = 0;
+            index = 0;
+            while (count < BATCH_SIZE && targets.hasNext()) {
+                batch[count++] = targets.next();
+            }
+            if (count > 0) {
+                joinBatch();
+            }
+            return count > 0;
+        }
+
+        @Override
+        public Feature next() throws FeatureStoreRuntimeException {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more features.");
+            }
+            final Feature feature = batch[index];
+            batch[index++] = null;
+            return feature;
+        }
+
+        /**
+         * Replace the target features of the batch by the joined features.
+         */
+        private void joinBatch() throws FeatureStoreRuntimeException {
+            final int nbPart = Math.min(Threads.getParallelism(), count);
+            final List<Callable<Object>> tasks = new ArrayList<>(nbPart);
+            for (int p = 0; p < nbPart; p++) {
+                final int start = (int) ((long) count * p / nbPart);
+                final int end = (int) ((long) count * (p + 1) / nbPart);
+                tasks.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        for (int i = start; i < end; i++) {
+                            batch[i] = modify(batch[i]);
+                        }
+                        return null;
+                    }
+                });
+            }
+
+            try {
+                Threads.invokeAll(tasks);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new FeatureStoreRuntimeException("Interrupted while joining features.", ex);
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                if (cause instanceof FeatureStoreRuntimeException) throw (FeatureStoreRuntimeException) cause;
+                throw new FeatureStoreRuntimeException(cause);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new FeatureStoreRuntimeException("Unmodifiable collection.");
+        }
+
+        @Override
+        public void close() throws FeatureStoreRuntimeException {
+            targets.close();
+        }
     }
 }
@@ -0,0 +1,202 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.vector.spatialjoin;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.Property;
+import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.referencing.CRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+/**
+ * In memory STR-tree of the source features geometries, used to find the
+ * feature to join with a target geometry without iterating the whole
+ * source collection.
+ * <br/>
+ * Source geometries are reprojected in the target geometry CRS, one tree is
+ * built for each target CRS the first time it is needed.
+ * Once built, trees are only read and can be queried by several threads.
+ *
+ * @module pending
+ */
+final class SpatialJoinIndex {
+
+    private static final PreparedGeometryFactory PREPARED_FACTORY = new PreparedGeometryFactory();
+
+    private final FeatureCollection sourceFC;
+    private final Map<CoordinateReferenceSystem,Tree> trees = new HashMap<>();
+
+    SpatialJoinIndex(final FeatureCollection sourceFC) {
+        this.sourceFC = sourceFC;
+    }
+
+    /**
+     * Find the source feature with the biggest intersection area with the geometry.
+     * If there is many features with the same area, the first one in the source
+     * collection is returned.
+     *
+     * @param geom target geometry
+     * @param crs target geometry CRS, can be null
+     * @return source feature or null if no feature intersects the geometry
+     */
+    Feature intersect(final Geometry geom, final CoordinateReferenceSystem crs) throws FeatureStoreRuntimeException {
+        final Tree tree = getTree(crs);
+        final List candidates = tree.index.query(geom.getEnvelopeInternal());
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        final PreparedGeometry prepared = PREPARED_FACTORY.create(geom);
+        Item best = null;
+        double bestArea = 0.0;
+        for (Object candidate : candidates) {
+            final Item item = (Item) candidate;
+            if (!prepared.intersects(item.geometry)) {
+                continue;
+            }
+            final double area = geom.intersection(item.geometry).getArea();
+            if (best == null || area > bestArea || (area == bestArea && item.order < best.order)) {
+                best = item;
+                bestArea = area;
+            }
+        }
+        return (best == null) ? null : best.feature;
+    }
+
+    /**
+     * Find the source feature nearest to the geometry.
+     * If there is many features at the same distance, the first one in the source
+     * collection is returned.
+     *
+     * @param geom target geometry
+     * @param crs target geometry CRS, can be null
+     * @return source feature or null if the source collection has no geometry
+     */
+    Feature nearest(final Geometry geom, final CoordinateReferenceSystem crs) throws FeatureStoreRuntimeException {
+        final Tree tree = getTree(crs);
+        if (tree.index.size() == 0) {
+            return null;
+        }
+        final Envelope env = geom.getEnvelopeInternal();
+
+        //search an area large enough to contain at least one geometry
+        List candidates;
+        double radius = Math.max(tree.extent.getWidth(), tree.extent.getHeight()) / Math.sqrt(tree.index.size());
+        if (!(radius > 0)) {
+            candidates = tree.index.query(tree.extent);
+        } else {
+            while (true) {
+                final Envelope search = new Envelope(env);
+                search.expandBy(radius);
+                candidates = tree.index.query(search);
+                if (!candidates.isEmpty() || search.contains(tree.extent)) break;
+                radius *= 2;
+            }
+        }
+
+        //the distance to those geometries is an upper bound of the nearest distance
+        double dist = Double.POSITIVE_INFINITY;
+        for (Object candidate : candidates) {
+            dist = Math.min(dist, geom.distance(((Item) candidate).geometry));
+        }
+
+        final Envelope search = new Envelope(env);
+        search.expandBy(dist);
+        Item best = null;
+        for (Object candidate : tree.index.query(search)) {
+            final Item item = (Item) candidate;
+            final double d = geom.distance(item.geometry);
+            if (d < dist || (d == dist && (best == null || item.order < best.order))) {
+                best = item;
+                dist = d;
+            }
+        }
+        return (best == null) ? null : best.feature;
+    }
+
+    private synchronized Tree getTree(final CoordinateReferenceSystem crs) throws FeatureStoreRuntimeException {
+        Tree tree = trees.get(crs);
+        if (tree == null) {
+            tree = new Tree();
+            int order = 0;
+            final FeatureIterator ite = sourceFC.iterator(null);
+            try {
+                while (ite.hasNext()) {
+                    final Feature feature = ite.next();
+                    for (final Property property : feature.getProperties()) {
+                        if (property.getDescriptor() instanceof GeometryDescriptor) {
+                            Geometry geom = (Geometry) property.getValue();
+                            if (geom == null) continue;
+                            final CoordinateReferenceSystem geomCRS =
+                                    ((GeometryDescriptor) property.getDescriptor()).getCoordinateReferenceSystem();
+                            if (crs != null && geomCRS != null && !CRS.equalsIgnoreMetadata(crs, geomCRS)) {
+                                final MathTransform trs = CRS.findMathTransform(geomCRS, crs);
+                                geom = JTS.transform(geom, trs);
+                            }
+                            final Envelope env = geom.getEnvelopeInternal();
+                            if (env.isNull()) continue;
+                            tree.extent.expandToInclude(env);
+                            tree.index.insert(env, new Item(feature, order, geom));
+                        }
+                    }
+                    order++;
+                }
+            } catch (FactoryException | TransformException ex) {
+                throw new FeatureStoreRuntimeException(ex.getMessage(), ex);
+            } finally {
+                ite.close();
+            }
+            //build now, the tree is not thread safe while building
+            tree.index.build();
+            trees.put(crs, tree);
+        }
+        return tree;
+    }
+
+    private static final class Tree {
+        private final STRtree index = new STRtree();
+        private final Envelope extent = new Envelope();
+    }
+
+    private static final class Item {
+        private final Feature feature;
+        private final int order;
+        private final Geometry geometry;
+
+        private Item(final Feature feature, final int order, final Geometry geometry) {
+            this.feature = feature;
+            this.order = order;
+            this.geometry = geometry;
+        }
+    }
+
+}
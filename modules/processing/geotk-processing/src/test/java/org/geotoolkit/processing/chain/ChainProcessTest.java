@@ -20,6 +20,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import javax.xml.bind.JAXBException;
 import org.geotoolkit.process.ProcessDescriptor;
 import org.geotoolkit.process.Process;
@@ -112,6 +115,59 @@ public class ChainProcessTest extends org.geotoolkit.test.TestBase {
         return chain;
     }
 
+    private Chain createFanOutChain(){
+        //produce a chain equivalent to :  ($a + 10) / ($a * 2), add and multiply are independent
+        final Chain chain = new Chain("fanOutChain");
+        int id = 1;
+
+        //input/out/constants parameters
+        final Parameter a = chain.addInputParameter("a", Double.class, "desc",1,1,null);
+        final Parameter r = chain.addOutputParameter("r", Double.class, "desc",1,1,null);
+        final Constant c10 = chain.addConstant(id++, Double.class, 10d);
+        final Constant c2 = chain.addConstant(id++, Double.class, 2d);
+
+        //chain blocks
+        final ElementProcess add = chain.addProcessElement(id++, "demo", "add");
+        final ElementProcess multi = chain.addProcessElement(id++, "demo", "multiply");
+        final ElementProcess divide = chain.addProcessElement(id++, "demo", "divide");
+
+        //execution flow links
+        chain.addFlowLink(BEGIN.getId(), add.getId());
+        chain.addFlowLink(BEGIN.getId(), multi.getId());
+        chain.addFlowLink(add.getId(), divide.getId());
+        chain.addFlowLink(multi.getId(), divide.getId());
+        chain.addFlowLink(divide.getId(), END.getId());
+
+        //data flow links
+        chain.addDataLink(BEGIN.getId(), a.getCode(), add.getId(), "first");
+        chain.addDataLink(c10.getId(), "", add.getId(), "second");
+        chain.addDataLink(BEGIN.getId(), a.getCode(), multi.getId(), "first");
+        chain.addDataLink(c2.getId(), "", multi.getId(), "second");
+        chain.addDataLink(add.getId(), "result", divide.getId(), "first");
+        chain.addDataLink(multi.getId(), "result", divide.getId(), "second");
+        chain.addDataLink(divide.getId(), "result", END.getId(), r.getCode());
+
+        return chain;
+    }
+
+    private Chain createFailingChain(){
+        //produce a chain with a process waiting to be canceled and an independent failing one
+        final Chain chain = new Chain("failingChain");
+        int id = 1;
+
+        //chain blocks
+        final ElementProcess wait = chain.addProcessElement(id++, "demo", "wait");
+        final ElementProcess fail = chain.addProcessElement(id++, "demo", "fail");
+
+        //execution flow links
+        chain.addFlowLink(BEGIN.getId(), wait.getId());
+        chain.addFlowLink(BEGIN.getId(), fail.getId());
+        chain.addFlowLink(wait.getId(), END.getId());
+        chain.addFlowLink(fail.getId(), END.getId());
+
+        return chain;
+    }
+
     @Test
     public void testSimpleChain() throws ProcessException{
 
@@ -135,6 +191,75 @@ public class ChainProcessTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    /**
+     * Independent branches run in parallel, or in the calling thread without executor.
+     */
+    @Test
+    public void testFanOutChain() throws ProcessException{
+
+        final Chain chain = createFanOutChain();
+
+        //process registries to use
+        final Set<MockProcessRegistry> registries = Collections.singleton(new MockProcessRegistry());
+
+        //create a process descriptor to use it like any process.
+        final ProcessDescriptor desc = new ChainProcessDescriptor(chain, MockProcessRegistry.IDENTIFICATION, registries);
+
+        for (int i = 1; i <= 20; i++) {
+            final ParameterValueGroup input = desc.getInputDescriptor().createValue();
+            input.parameter("a").setValue((double) i);
+
+            final ChainProcess process = (ChainProcess) desc.createProcess(input);
+            if (i % 2 == 0) process.setExecutor(null);
+            final ParameterValueGroup result = process.call();
+
+            assertEquals((i + 10d) / (i * 2d), result.parameter("r").doubleValue(),0.000001);
+        }
+    }
+
+    /**
+     * Sub processes still running are canceled when an independent branch fails.
+     */
+    @Test
+    public void testFailingChain() throws Exception{
+
+        final Chain chain = createFailingChain();
+
+        //process registries to use
+        final Set<MockProcessRegistry> registries = Collections.singleton(new MockProcessRegistry());
+
+        //create a process descriptor to use it like any process.
+        final ProcessDescriptor desc = new ChainProcessDescriptor(chain, MockProcessRegistry.IDENTIFICATION, registries);
+
+        MockWaitDescriptor.STARTED = new CountDownLatch(1);
+        MockWaitDescriptor.CANCELED = new CountDownLatch(1);
+
+        //the wait process runs in its own thread, the failing one is left to the chain thread
+        final ChainProcess process = (ChainProcess) desc.createProcess(desc.getInputDescriptor().createValue());
+        process.setExecutor(new Executor() {
+            private boolean first = true;
+            @Override
+            public void execute(final Runnable task) {
+                if (!first) return;
+                first = false;
+                new Thread(task).start();
+                try {
+                    assertTrue(MockWaitDescriptor.STARTED.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        });
+
+        try {
+            process.call();
+            fail("Chain should have failed.");
+        } catch (ProcessException ex) {
+            assertEquals("Process failed", ex.getMessage());
+        }
+        assertTrue("Running sub process has not been canceled.", MockWaitDescriptor.CANCELED.await(10, TimeUnit.SECONDS));
+    }
+
     @Test
     public void testSimpleXmlRW() throws ProcessException, JAXBException, IOException{
 
@@ -0,0 +1,77 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.chain;
+
+import org.apache.sis.parameter.ParameterBuilder;
+import org.geotoolkit.processing.AbstractProcess;
+import org.geotoolkit.processing.AbstractProcessDescriptor;
+import org.geotoolkit.process.Process;
+import org.geotoolkit.process.ProcessDescriptor;
+import org.geotoolkit.process.ProcessException;
+import org.apache.sis.util.iso.SimpleInternationalString;
+import org.opengis.parameter.ParameterDescriptor;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.parameter.ParameterValueGroup;
+
+/**
+ * Process always failing.
+ */
+public class MockFailDescriptor extends AbstractProcessDescriptor{
+
+    public static final String NAME = "fail";
+
+    public static final ParameterDescriptor<Double> FIRST_NUMBER = new ParameterBuilder()
+            .addName("first")
+            .setRequired(false)
+            .create(Double.class, null);
+    public static final ParameterDescriptorGroup INPUT_DESC = new ParameterBuilder()
+            .addName("InputParameters")
+            .createGroup(FIRST_NUMBER);
+
+    public static final ParameterDescriptor<Double> RESULT_NUMBER = new ParameterBuilder()
+            .addName("result")
+            .setRequired(false)
+            .create(Double.class, null);
+    public static final ParameterDescriptorGroup OUTPUT_DESC = new ParameterBuilder()
+            .addName("OutputParameters")
+            .createGroup(RESULT_NUMBER);
+
+    public static final ProcessDescriptor INSTANCE = new MockFailDescriptor();
+
+    private MockFailDescriptor() {
+        super(NAME, MockProcessRegistry.IDENTIFICATION,
+                new SimpleInternationalString(""),INPUT_DESC, OUTPUT_DESC);
+    }
+
+    @Override
+    public Process createProcess(final ParameterValueGroup input) {
+        return new FailProcess(this, input);
+    }
+
+    public class FailProcess extends AbstractProcess {
+
+        public FailProcess(final ProcessDescriptor descriptor, final ParameterValueGroup input) {
+            super(descriptor, input);
+        }
+
+        @Override
+        protected void execute() throws ProcessException {
+            throw new ProcessException("Process failed", this, null);
+        }
+    }
+
+}
@@ -46,7 +46,9 @@ public class MockProcessRegistry extends AbstractProcessingRegistry {
     public MockProcessRegistry() {
         super(MockAddDescriptor.INSTANCE,
               MockDivideDescriptor.INSTANCE,
-              MockMultiplyDescriptor.INSTANCE);
+              MockMultiplyDescriptor.INSTANCE,
+              MockWaitDescriptor.INSTANCE,
+              MockFailDescriptor.INSTANCE);
     }
 
     @Override
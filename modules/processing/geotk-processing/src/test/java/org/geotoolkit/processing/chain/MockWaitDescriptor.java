@@ -0,0 +1,98 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.processing.chain;
+
+import java.util.concurrent.CountDownLatch;
+import org.apache.sis.parameter.ParameterBuilder;
+import org.geotoolkit.processing.AbstractProcess;
+import org.geotoolkit.processing.AbstractProcessDescriptor;
+import org.geotoolkit.process.Process;
+import org.geotoolkit.process.ProcessDescriptor;
+import org.geotoolkit.process.ProcessException;
+import org.apache.sis.util.iso.SimpleInternationalString;
+import org.opengis.parameter.ParameterDescriptor;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.parameter.ParameterValueGroup;
+
+/**
+ * Process running until it is canceled.
+ */
+public class MockWaitDescriptor extends AbstractProcessDescriptor{
+
+    public static final String NAME = "wait";
+
+    public static final ParameterDescriptor<Double> FIRST_NUMBER = new ParameterBuilder()
+            .addName("first")
+            .setRequired(false)
+            .create(Double.class, null);
+    public static final ParameterDescriptorGroup INPUT_DESC = new ParameterBuilder()
+            .addName("InputParameters")
+            .createGroup(FIRST_NUMBER);
+
+    public static final ParameterDescriptor<Double> RESULT_NUMBER = new ParameterBuilder()
+            .addName("result")
+            .setRequired(false)
+            .create(Double.class, null);
+    public static final ParameterDescriptorGroup OUTPUT_DESC = new ParameterBuilder()
+            .addName("OutputParameters")
+            .createGroup(RESULT_NUMBER);
+
+    public static final ProcessDescriptor INSTANCE = new MockWaitDescriptor();
+
+    /**
+     * Released when a wait process starts and when it is canceled.
+     * Tests must reset them before running a chain.
+     */
+    static volatile CountDownLatch STARTED = new CountDownLatch(1);
+    static volatile CountDownLatch CANCELED = new CountDownLatch(1);
+
+    private MockWaitDescriptor() {
+        super(NAME, MockProcessRegistry.IDENTIFICATION,
+                new SimpleInternationalString(""),INPUT_DESC, OUTPUT_DESC);
+    }
+
+    @Override
+    public Process createProcess(final ParameterValueGroup input) {
+        return new WaitProcess(this, input);
+    }
+
+    public class WaitProcess extends AbstractProcess {
+
+        public WaitProcess(final ProcessDescriptor descriptor, final ParameterValueGroup input) {
+            super(descriptor, input);
+        }
+
+        @Override
+        protected void execute() throws ProcessException {
+            STARTED.countDown();
+            final long end = System.currentTimeMillis() + 10000;
+            while (!isCanceled()) {
+                if (System.currentTimeMillis() > end) {
+                    throw new ProcessException("Process has not been canceled.", this, null);
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ex) {
+                    throw new ProcessException("Interrupted", this, ex);
+                }
+            }
+            CANCELED.countDown();
+            throw new ProcessException("Process canceled", this, null);
+        }
+    }
+
+}
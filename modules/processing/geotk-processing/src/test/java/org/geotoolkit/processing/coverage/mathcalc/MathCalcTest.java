@@ -40,6 +40,8 @@ import org.geotoolkit.coverage.grid.GridCoverageBuilder;
 import org.geotoolkit.coverage.grid.ViewType;
 import org.geotoolkit.coverage.io.GridCoverageReader;
 import org.geotoolkit.coverage.memory.MPCoverageStore;
+import org.geotoolkit.cql.CQL;
+import org.geotoolkit.factory.FactoryFinder;
 import org.geotoolkit.util.NamesExt;
 import org.opengis.util.GenericName;
 import org.geotoolkit.geometry.GeneralEnvelope;
@@ -49,6 +51,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.opengis.coverage.Coverage;
 import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.filter.FilterFactory2;
 import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
@@ -217,6 +220,34 @@ public class MathCalcTest extends org.geotoolkit.test.TestBase {
 
     }
 
+    /**
+     * Compiled expression must give the same values as the expression evaluation.
+     */
+    @Test
+    public void kernelTest() throws Exception{
+        final FilterFactory2 ff = (FilterFactory2) FactoryFinder.getFilterFactory(null);
+        final String[] mapping = new String[]{"A","B","C"};
+        final MathCalcKernel kernel = new MathCalcKernel(CQL.parseExpression("(A+B)*5 - A/2", ff), mapping);
+        Assert.assertTrue(kernel.isUsed(0));
+        Assert.assertTrue(kernel.isUsed(1));
+        Assert.assertFalse(kernel.isUsed(2));
+
+        final double[][] rows = new double[][]{
+            {1, 2, -3, 0},
+            {4, -6, 8, Double.NaN},
+            null
+        };
+        final double[] result = kernel.evaluate(rows, 4);
+        Assert.assertEquals(24.5, result[0], DELTA);
+        Assert.assertEquals(-21.0, result[1], DELTA);
+        Assert.assertEquals(26.5, result[2], DELTA);
+        Assert.assertTrue(Double.isNaN(result[3]));
+
+        //unknown coverage names are NaN
+        final MathCalcKernel unknown = new MathCalcKernel(CQL.parseExpression("A+D", ff), mapping);
+        Assert.assertTrue(Double.isNaN(unknown.evaluate(rows, 4)[0]));
+    }
+
     /**
      * 4D calc test
      * @throws Exception
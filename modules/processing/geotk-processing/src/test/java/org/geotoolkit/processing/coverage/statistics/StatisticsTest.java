@@ -16,6 +16,8 @@
  */
 package org.geotoolkit.processing.coverage.statistics;
 
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import org.geotoolkit.metadata.ImageStatistics;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.referencing.CommonCRS;
@@ -148,6 +150,41 @@ public class StatisticsTest extends org.geotoolkit.test.TestBase {
         Assert.assertArrayEquals(expectMerge, merged.getHist());
     }
 
+    /**
+     * Image is analysed in several parts, results must be the same as a single pass.
+     */
+    @Test
+    public void testLargeImage() throws ProcessException {
+        final int width = 500;
+        final int height = 600;
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+        final WritableRaster raster = image.getRaster();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setSample(x, y, 0, (x + y * width) % 1000);
+            }
+        }
+
+        final ImageStatistics statistics = Statistics.analyse(image, true);
+        final ImageStatistics.Band band0 = statistics.getBand(0);
+        Assert.assertEquals(0d, band0.getMin(), 0d);
+        Assert.assertEquals(999d, band0.getMax(), 0d);
+        Assert.assertEquals(499.5d, band0.getMean(), 1e-9);
+
+        long total = 0;
+        for (long occurs : band0.getHistogram()) {
+            Assert.assertEquals(300l, occurs);
+            total += occurs;
+        }
+        Assert.assertEquals((long) width * height, total);
+
+        //quantiles are precise to a bin size
+        Assert.assertEquals(499.5d, band0.getQuantile(0.5), 1d);
+        Assert.assertEquals(899.1d, band0.getQuantile(0.9), 1d);
+        Assert.assertEquals(0d, band0.getQuantile(0.0), 1d);
+        Assert.assertEquals(999d, band0.getQuantile(1.0), 1d);
+    }
+
     @Test
     public void testTightenDistribution() {
         int fullDistribSize = 223;
@@ -25,6 +25,7 @@ import com.vividsolutions.jts.geom.LinearRing;
 
 import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureCollection;
+import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.feature.FeatureBuilder;
@@ -146,6 +147,71 @@ public class SpatialJoinTest extends AbstractProcessTest {
         assertTrue(featureListOut.containsAll(featureListResult));
     }
 
+    /**
+     * Test SpatialJoin process with Nearest method on more targets than a join batch
+     */
+    @Test
+    public void testSpacialJoinNearestLarge() throws ProcessException, NoSuchIdentifierException, FactoryException {
+
+        final FeatureType targetType = createSimpleType1();
+        final FeatureCollection targetFeatures = FeatureStoreUtilities.collection("Target", targetType);
+        final Coordinate[] targetCoords = new Coordinate[3000];
+        for (int i = 0; i < targetCoords.length; i++) {
+            targetCoords[i] = new Coordinate((i * 37) % 101 + 0.5, (i * 53) % 97 + 0.25);
+            final Feature feature = FeatureUtilities.defaultFeature(targetType, "id-" + i);
+            feature.getProperty("name").setValue(String.valueOf(i));
+            feature.getProperty("age").setValue(i);
+            feature.getProperty("geom1").setValue(geometryFactory.createPoint(targetCoords[i]));
+            targetFeatures.add(feature);
+        }
+
+        final FeatureType sourceType = createSimpleType2();
+        final FeatureCollection sourceFeatures = FeatureStoreUtilities.collection("source", sourceType);
+        final Coordinate[] sourceCoords = new Coordinate[100];
+        for (int i = 0; i < sourceCoords.length; i++) {
+            sourceCoords[i] = new Coordinate((i % 10) * 10, (i / 10) * 10);
+            final Feature feature = FeatureUtilities.defaultFeature(sourceType, "id-" + i);
+            feature.getProperty("type").setValue(String.valueOf(i));
+            feature.getProperty("age").setValue(i);
+            feature.getProperty("geom1").setValue(geometryFactory.createPoint(sourceCoords[i]));
+            sourceFeatures.add(feature);
+        }
+
+        ProcessDescriptor desc = ProcessFinder.getProcessDescriptor("vector", "spatialjoin");
+        ParameterValueGroup in = desc.getInputDescriptor().createValue();
+        in.parameter("feature_in").setValue(sourceFeatures);
+        in.parameter("feature_target").setValue(targetFeatures);
+        in.parameter("intersect").setValue(false);
+        org.geotoolkit.process.Process proc = desc.createProcess(in);
+
+        final FeatureCollection featureListOut = (FeatureCollection) proc.call().parameter("feature_out").getValue();
+
+        int count = 0;
+        final FeatureIterator ite = featureListOut.iterator();
+        try {
+            while (ite.hasNext()) {
+                final Feature feature = ite.next();
+                final int target = Integer.parseInt((String) feature.getProperty("name").getValue());
+
+                //search the expected nearest feature
+                int expected = -1;
+                double dist = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < sourceCoords.length; i++) {
+                    final double d = targetCoords[target].distance(sourceCoords[i]);
+                    if (d < dist) {
+                        dist = d;
+                        expected = i;
+                    }
+                }
+                assertEquals(String.valueOf(expected), feature.getProperty("type_SJ_Type2").getValue());
+                count++;
+            }
+        } finally {
+            ite.close();
+        }
+        assertEquals(targetCoords.length, count);
+    }
+
     private static FeatureType createSimpleType1() throws NoSuchAuthorityCodeException, FactoryException {
         final FeatureTypeBuilder ftb = new FeatureTypeBuilder();
         ftb.setName("SJ_Type1");
@@ -0,0 +1,780 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Decodes tiles or strips of a TIFF image read directly from a {@link FileChannel}.<br/>
+ * Strips are handled as blocks as wide as the image. Block bytes are read with positional
+ * reads, so several blocks can be read at the same time without sharing a stream position.
+ * The file is not memory mapped : a mapping can not be released explicitly, it would keep
+ * the file locked and its address space reserved after the reader is disposed.<br/>
+ * Blocks are decompressed concurrently, each thread reusing its own {@link Inflater},
+ * LZW tables, JPEG reader and buffers between reads until the decoder is disposed. Supported compressions are none (1), LZW (5), JPEG (7),
+ * Deflate (8 and 32946) and PackBits (32773), with horizontal (2) or floating point (3)
+ * predictors. Samples must fill a whole element of the destination raster data buffer.
+ *
+ * @module pending
+ */
+final class TiffBlockDecoder {
+
+    /**
+     * Byte values with bits in reverse order, to read images with fill order 2.
+     */
+    private static final byte[] REVERSED_BITS = new byte[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            REVERSED_BITS[i] = (byte) (Integer.reverse(i) >>> 24);
+        }
+    }
+
+    /**
+     * LZW particular codes and maximum table size.
+     */
+    private static final int LZW_CLEAR_CODE = 256;
+    private static final int LZW_EOI_CODE   = 257;
+    private static final int LZW_TABLE_SIZE = 4096;
+
+    /**
+     * Channel opened on the TIFF file, shared by all threads.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Byte order of the samples in the file.
+     */
+    private final ByteOrder order;
+
+    /**
+     * Compression, predictor, fill order and JPEG informations.
+     */
+    private final int compression;
+    private final int predictor;
+    private final boolean reversedBits;
+    private final byte[] jpegTables;
+    private final boolean ycbcr;
+
+    /**
+     * Image and blocks layout. Blocks of each plane are stored row by row.
+     */
+    private final int imageWidth, imageHeight;
+    private final int blockWidth, blockHeight;
+    private final int numXBlocks, numYBlocks;
+    private final long[] offsets, byteCounts;
+
+    /**
+     * Number of samples of a pixel in a block : all samples for chunky images, 1 for planar images.
+     */
+    private final int bands;
+
+    /**
+     * Data type of decoded samples and size of a sample in bytes.
+     */
+    private final int dataType;
+    private final int sampleSize;
+
+    /**
+     * Decompression tools and buffers of each thread, all of them are kept to be released by {@link #dispose()}.
+     */
+    private final Queue<Codec> allCodecs = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Codec> codecs = new ThreadLocal<Codec>() {
+        @Override
+        protected Codec initialValue() {
+            final Codec codec = new Codec();
+            allCodecs.add(codec);
+            return codec;
+        }
+    };
+
+    /**
+     * @param channel      channel opened on the TIFF file.
+     * @param order        byte order of the file.
+     * @param compression  TIFF compression code.
+     * @param predictor    TIFF predictor, 1 if none.
+     * @param reversedBits {@code true} if fill order is 2.
+     * @param jpegTables   content of JPEGTables tag, or {@code null}.
+     * @param ycbcr        {@code true} if JPEG data must be converted from YCbCr to RGB.
+     * @param imageWidth   image width in pixels.
+     * @param imageHeight  image height in pixels.
+     * @param blockWidth   tile width, or image width for strips.
+     * @param blockHeight  tile height, or rows per strip.
+     * @param offsets      position of each block in the file.
+     * @param byteCounts   length of each block in the file, may be {@code null} for uncompressed images.
+     * @param bands        samples per block pixel.
+     * @param dataType     data buffer type of decoded samples.
+     * @throws IIOException if the predictor does not apply to the samples type.
+     */
+    TiffBlockDecoder(final FileChannel channel, final ByteOrder order,
+                     final int compression, final int predictor, final boolean reversedBits,
+                     final byte[] jpegTables, final boolean ycbcr,
+                     final int imageWidth, final int imageHeight, final int blockWidth, final int blockHeight,
+                     final long[] offsets, final long[] byteCounts, final int bands, final int dataType)
+                     throws IIOException {
+        final boolean floating = (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE);
+        if (predictor == 2 && floating) {
+            throw new IIOException("Horizontal predictor (2) is not supported for floating point samples.");
+        }
+        if (predictor == 3 && !floating) {
+            throw new IIOException("Floating point predictor (3) is not supported for integer samples.");
+        }
+        this.channel      = channel;
+        this.order        = order;
+        this.compression  = compression;
+        this.predictor    = predictor;
+        this.reversedBits = reversedBits;
+        this.jpegTables   = jpegTables;
+        this.ycbcr        = ycbcr;
+        this.imageWidth   = imageWidth;
+        this.imageHeight  = imageHeight;
+        this.blockWidth   = blockWidth;
+        this.blockHeight  = blockHeight;
+        this.numXBlocks   = (imageWidth  + blockWidth  - 1) / blockWidth;
+        this.numYBlocks   = (imageHeight + blockHeight - 1) / blockHeight;
+        this.offsets      = offsets;
+        this.byteCounts   = byteCounts;
+        this.bands        = bands;
+        this.dataType     = dataType;
+        this.sampleSize   = DataBuffer.getDataTypeSize(dataType) / Byte.SIZE;
+    }
+
+    /**
+     * Returns the number of blocks expected for each plane.
+     */
+    int getBlockCount() {
+        return numXBlocks * numYBlocks;
+    }
+
+    /**
+     * Release the decompression tools of all threads.
+     * The decoder can still be used, tools are created again when needed.
+     */
+    void dispose() {
+        for (Codec codec : allCodecs) {
+            codec.dispose();
+        }
+    }
+
+    /**
+     * Read a region of the image in the given raster.
+     *
+     * @param raster       destination raster, with a {@link ComponentSampleModel} of samples per pixel bands.
+     * @param planes       1 for chunky images, samples per pixel for planar images.
+     * @param srcRegion    region to read in the image.
+     * @param dstRegion    region to write in the raster.
+     * @param xSubsampling source X subsampling.
+     * @param ySubsampling source Y subsampling.
+     * @throws IOException if a block can not be read or decoded.
+     */
+    void read(final WritableRaster raster, final int planes, final Rectangle srcRegion, final Rectangle dstRegion,
+              final int xSubsampling, final int ySubsampling) throws IOException {
+        final Target target = new Target(raster, srcRegion, dstRegion, xSubsampling, ySubsampling);
+
+        //-- blocks containing at least one read pixel.
+        final int srcMaxX = srcRegion.x + srcRegion.width;
+        final int srcMaxY = srcRegion.y + srcRegion.height;
+        final int minBX   = srcRegion.x / blockWidth;
+        final int minBY   = srcRegion.y / blockHeight;
+        final int maxBX   = (srcMaxX - 1) / blockWidth;
+        final int maxBY   = (srcMaxY - 1) / blockHeight;
+        final int[] blocks = new int[planes * (maxBX - minBX + 1) * (maxBY - minBY + 1)];
+        int nbBlocks = 0;
+        for (int p = 0; p < planes; p++) {
+            for (int by = minBY; by <= maxBY; by++) {
+                if (!target.intersects(srcRegion.y, srcMaxY, by * blockHeight, blockHeight, ySubsampling)) continue;
+                for (int bx = minBX; bx <= maxBX; bx++) {
+                    if (!target.intersects(srcRegion.x, srcMaxX, bx * blockWidth, blockWidth, xSubsampling)) continue;
+                    blocks[nbBlocks++] = (p * numYBlocks + by) * numXBlocks + bx;
+                }
+            }
+        }
+        if (nbBlocks == 0) return;
+
+        final int[] queue = Arrays.copyOf(blocks, nbBlocks);
+        final AtomicInteger cursor = new AtomicInteger();
+        final int nbParts = Math.min(nbBlocks, Threads.getParallelism());
+        final List<Callable<Object>> tasks = new ArrayList<>(nbParts);
+        for (int i = 0; i < nbParts; i++) {
+            tasks.add(new Worker(target, queue, cursor));
+        }
+        try {
+            Threads.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IIOException("Interrupted while decoding TIFF blocks.", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException)      throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IIOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Destination raster layout and read region.
+     */
+    private static final class Target {
+
+        private final int srcX, srcY, srcMaxX, srcMaxY;
+        private final int dstX, dstY;
+        private final int xSubsampling, ySubsampling;
+
+        /**
+         * Data array and index of sample (0, 0) of each band.
+         */
+        private final Object[] banks;
+        private final int[] offsets;
+        private final int pixelStride, scanlineStride;
+
+        /**
+         * {@code true} if all bands are consecutive samples of the same array.
+         */
+        private final boolean interleaved;
+
+        private Target(final WritableRaster raster, final Rectangle srcRegion, final Rectangle dstRegion,
+                       final int xSubsampling, final int ySubsampling) {
+            this.srcX         = srcRegion.x;
+            this.srcY         = srcRegion.y;
+            this.srcMaxX      = srcRegion.x + srcRegion.width;
+            this.srcMaxY      = srcRegion.y + srcRegion.height;
+            this.dstX         = dstRegion.x;
+            this.dstY         = dstRegion.y;
+            this.xSubsampling = xSubsampling;
+            this.ySubsampling = ySubsampling;
+
+            final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+            final DataBuffer buffer = raster.getDataBuffer();
+            final int[] bankIndices = sm.getBankIndices();
+            final int[] bandOffsets = sm.getBandOffsets();
+            final int numBands      = sm.getNumBands();
+            pixelStride    = sm.getPixelStride();
+            scanlineStride = sm.getScanlineStride();
+            banks   = new Object[numBands];
+            offsets = new int[numBands];
+            boolean consecutive = (pixelStride == numBands);
+            for (int b = 0; b < numBands; b++) {
+                final int bank = bankIndices[b];
+                switch (buffer.getDataType()) {
+                    case DataBuffer.TYPE_BYTE   : banks[b] = ((DataBufferByte)   buffer).getData(bank); break;
+                    case DataBuffer.TYPE_USHORT : banks[b] = ((DataBufferUShort) buffer).getData(bank); break;
+                    case DataBuffer.TYPE_SHORT  : banks[b] = ((DataBufferShort)  buffer).getData(bank); break;
+                    case DataBuffer.TYPE_INT    : banks[b] = ((DataBufferInt)    buffer).getData(bank); break;
+                    case DataBuffer.TYPE_FLOAT  : banks[b] = ((DataBufferFloat)  buffer).getData(bank); break;
+                    case DataBuffer.TYPE_DOUBLE : banks[b] = ((DataBufferDouble) buffer).getData(bank); break;
+                    default: throw new AssertionError(buffer.getDataType());
+                }
+                offsets[b] = buffer.getOffsets()[bank] + bandOffsets[b]
+                           - raster.getSampleModelTranslateY() * scanlineStride
+                           - raster.getSampleModelTranslateX() * pixelStride;
+                consecutive &= (bank == bankIndices[0] && bandOffsets[b] == bandOffsets[0] + b);
+            }
+            interleaved = consecutive;
+        }
+
+        /**
+         * Returns {@code true} if at least one read pixel is inside the given block range.
+         */
+        private boolean intersects(final int regionMin, final int regionMax, final int blockMin,
+                                   final int blockLength, final int subsampling) {
+            final int min = Math.max(regionMin, blockMin);
+            final int max = Math.min(regionMax, blockMin + blockLength);
+            return first(min - regionMin, subsampling) < first(max - regionMin, subsampling);
+        }
+
+        /**
+         * Index of the first read pixel at or after the given distance from the region start.
+         */
+        private static int first(final int distance, final int subsampling) {
+            return (distance + subsampling - 1) / subsampling;
+        }
+    }
+
+    /**
+     * Decodes blocks taken from a shared queue, with the codec of the executing thread.
+     */
+    private final class Worker implements Callable<Object> {
+
+        private final Target target;
+        private final int[] queue;
+        private final AtomicInteger cursor;
+
+        private Worker(final Target target, final int[] queue, final AtomicInteger cursor) {
+            this.target = target;
+            this.queue  = queue;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public Object call() throws IOException {
+            final Codec codec = codecs.get();
+            codec.target = target;
+            try {
+                int i;
+                while ((i = cursor.getAndIncrement()) < queue.length) {
+                    codec.decode(queue[i]);
+                }
+            } finally {
+                codec.target = null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Decompression tools and buffers of a thread.
+     */
+    private final class Codec {
+
+        /**
+         * Destination of the blocks being decoded.
+         */
+        private Target target;
+
+        /**
+         * Compressed and decompressed bytes, decoded samples.
+         */
+        private byte[] compressed = new byte[0];
+        private byte[] decoded = new byte[0];
+        private Object samples;
+
+        /**
+         * Decompression tools, created when first needed.
+         */
+        private Inflater inflater;
+        private int[] lzwPrefix, lzwLength;
+        private byte[] lzwSuffix, lzwFirst;
+        private ImageReader jpegReader;
+        private int[] pixels;
+
+        /**
+         * Release the decompression tools, buffers are kept.
+         */
+        private void dispose() {
+            if (inflater != null) {
+                inflater.end();
+                inflater = null;
+            }
+            if (jpegReader != null) {
+                jpegReader.dispose();
+                jpegReader = null;
+            }
+        }
+
+        /**
+         * Read, decompress and copy a block in the destination raster.
+         */
+        private void decode(final int index) throws IOException {
+            final int plane     = index / (numXBlocks * numYBlocks);
+            final int by        = (index / numXBlocks) % numYBlocks;
+            final int bx        = index % numXBlocks;
+            final int rows      = Math.min(blockHeight, imageHeight - by * blockHeight);
+            final int rowLength = blockWidth * bands;
+            final int nbSamples = rowLength * rows;
+            final int nbBytes   = nbSamples * sampleSize;
+
+            //-- compressed bytes
+            int length = (byteCounts != null && index < byteCounts.length) ? (int) byteCounts[index] : nbBytes;
+            if (compression == 1) length = Math.min(length, nbBytes);
+            if (compressed.length < length) compressed = new byte[length];
+            readBytes(offsets[index], compressed, length);
+            if (reversedBits) {
+                for (int i = 0; i < length; i++) {
+                    compressed[i] = REVERSED_BITS[compressed[i] & 0xFF];
+                }
+            }
+
+            //-- decompressed bytes
+            if (decoded.length < nbBytes) decoded = new byte[nbBytes];
+            final int n;
+            switch (compression) {
+                case 1     : System.arraycopy(compressed, 0, decoded, 0, n = length); break;
+                case 5     : n = decodeLZW(compressed, length, decoded, nbBytes); break;
+                case 7     : n = decodeJPEG(compressed, length, decoded, rows); break;
+                case 8     :
+                case 32946 : n = inflate(compressed, length, decoded, nbBytes); break;
+                case 32773 : n = decodePackBits(compressed, length, decoded, nbBytes); break;
+                default    : throw new IIOException("Unsupported compression : " + compression);
+            }
+            if (n < nbBytes) {
+                //-- truncated block, missing samples are zero.
+                Arrays.fill(decoded, n, nbBytes, (byte) 0);
+            }
+
+            toSamples(nbSamples, rowLength, rows);
+            copy(plane, bx * blockWidth, by * blockHeight, rows, rowLength);
+        }
+
+        /**
+         * Copy bytes from the file.
+         */
+        private void readBytes(final long position, final byte[] dest, final int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(dest, 0, length);
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                final int nb = channel.read(buffer, pos);
+                if (nb < 0) throw new EOFException();
+                pos += nb;
+            }
+        }
+
+        /**
+         * Convert decompressed bytes to samples of the data buffer type, applying the predictor.
+         */
+        private void toSamples(final int nbSamples, final int rowLength, final int rows) {
+            if (predictor == 3) {
+                floatingPointPredictor(nbSamples, rowLength, rows);
+                return;
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(decoded, 0, nbSamples * sampleSize).order(order);
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE : {
+                    samples = decoded;
+                    break;
+                }
+                case DataBuffer.TYPE_SHORT :
+                case DataBuffer.TYPE_USHORT : {
+                    if (!(samples instanceof short[]) || ((short[]) samples).length < nbSamples) samples = new short[nbSamples];
+                    buffer.asShortBuffer().get((short[]) samples, 0, nbSamples);
+                    break;
+                }
+                case DataBuffer.TYPE_INT : {
+                    if (!(samples instanceof int[]) || ((int[]) samples).length < nbSamples) samples = new int[nbSamples];
+                    buffer.asIntBuffer().get((int[]) samples, 0, nbSamples);
+                    break;
+                }
+                case DataBuffer.TYPE_FLOAT : {
+                    if (!(samples instanceof float[]) || ((float[]) samples).length < nbSamples) samples = new float[nbSamples];
+                    buffer.asFloatBuffer().get((float[]) samples, 0, nbSamples);
+                    break;
+                }
+                default : {
+                    if (!(samples instanceof double[]) || ((double[]) samples).length < nbSamples) samples = new double[nbSamples];
+                    buffer.asDoubleBuffer().get((double[]) samples, 0, nbSamples);
+                }
+            }
+            if (predictor == 2) {
+                //-- horizontal differencing : each sample is stored as the difference with the previous pixel.
+                for (int r = 0; r < rows; r++) {
+                    final int start = r * rowLength + bands;
+                    final int end   = (r + 1) * rowLength;
+                    if (samples instanceof byte[]) {
+                        final byte[] s = (byte[]) samples;
+                        for (int i = start; i < end; i++) s[i] += s[i - bands];
+                    } else if (samples instanceof short[]) {
+                        final short[] s = (short[]) samples;
+                        for (int i = start; i < end; i++) s[i] += s[i - bands];
+                    } else if (samples instanceof int[]) {
+                        final int[] s = (int[]) samples;
+                        for (int i = start; i < end; i++) s[i] += s[i - bands];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Floating point predictor : bytes of each row are differenced, then stored
+         * by byte significance, most significant bytes of all samples first.
+         */
+        private void floatingPointPredictor(final int nbSamples, final int rowLength, final int rows) {
+            final int rowBytes = rowLength * sampleSize;
+            if (dataType == DataBuffer.TYPE_FLOAT) {
+                if (!(samples instanceof float[]) || ((float[]) samples).length < nbSamples) samples = new float[nbSamples];
+            } else {
+                if (!(samples instanceof double[]) || ((double[]) samples).length < nbSamples) samples = new double[nbSamples];
+            }
+            for (int r = 0; r < rows; r++) {
+                final int start = r * rowBytes;
+                for (int i = start + bands, end = start + rowBytes; i < end; i++) {
+                    decoded[i] += decoded[i - bands];
+                }
+                final int s0 = r * rowLength;
+                if (dataType == DataBuffer.TYPE_FLOAT) {
+                    final float[] s = (float[]) samples;
+                    for (int k = 0; k < rowLength; k++) {
+                        int bits = 0;
+                        for (int b = 0, i = start + k; b < 4; b++, i += rowLength) {
+                            bits = (bits << 8) | (decoded[i] & 0xFF);
+                        }
+                        s[s0 + k] = Float.intBitsToFloat(bits);
+                    }
+                } else {
+                    final double[] s = (double[]) samples;
+                    for (int k = 0; k < rowLength; k++) {
+                        long bits = 0;
+                        for (int b = 0, i = start + k; b < 8; b++, i += rowLength) {
+                            bits = (bits << 8) | (decoded[i] & 0xFFL);
+                        }
+                        s[s0 + k] = Double.longBitsToDouble(bits);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Copy the read pixels of the decoded block in the destination raster.
+         */
+        private void copy(final int plane, final int blockX, final int blockY, final int rows, final int rowLength) {
+            final Target t = target;
+            final int i0 = Target.first(Math.max(t.srcX, blockX) - t.srcX, t.xSubsampling);
+            final int i1 = Target.first(Math.min(t.srcMaxX, blockX + blockWidth) - t.srcX, t.xSubsampling);
+            final int j0 = Target.first(Math.max(t.srcY, blockY) - t.srcY, t.ySubsampling);
+            final int j1 = Target.first(Math.min(t.srcMaxY, blockY + rows) - t.srcY, t.ySubsampling);
+            final int count = i1 - i0;
+            if (count <= 0) return;
+            final int srcStride = t.xSubsampling * bands;
+            for (int j = j0; j < j1; j++) {
+                final int srcRow = (t.srcY + j * t.ySubsampling - blockY) * rowLength
+                                 + (t.srcX + i0 * t.xSubsampling - blockX) * bands;
+                final int dstRow = (t.dstY + j) * t.scanlineStride + (t.dstX + i0) * t.pixelStride;
+                if (bands == 1) {
+                    copyStrided(samples, srcRow, srcStride, t.banks[plane], t.offsets[plane] + dstRow, t.pixelStride, count);
+                } else if (t.interleaved && t.xSubsampling == 1) {
+                    System.arraycopy(samples, srcRow, t.banks[0], t.offsets[0] + dstRow, count * bands);
+                } else {
+                    for (int b = 0; b < bands; b++) {
+                        copyStrided(samples, srcRow + b, srcStride, t.banks[b], t.offsets[b] + dstRow, t.pixelStride, count);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Decompress Deflate bytes.
+         */
+        private int inflate(final byte[] in, final int inLength, final byte[] out, final int outLength) throws IOException {
+            if (inflater == null) inflater = new Inflater(false);
+            inflater.reset();
+            inflater.setInput(in, 0, inLength);
+            int nb = 0;
+            try {
+                while (nb < outLength) {
+                    final int read = inflater.inflate(out, nb, outLength - nb);
+                    if (read <= 0) break;
+                    nb += read;
+                }
+            } catch (DataFormatException ex) {
+                throw new IIOException(ex.getMessage(), ex);
+            }
+            return nb;
+        }
+
+        /**
+         * Decompress PackBits bytes.
+         */
+        private int decodePackBits(final byte[] in, final int inLength, final byte[] out, final int outLength) {
+            int ip = 0, op = 0;
+            while (ip < inLength && op < outLength) {
+                final int n = in[ip++];
+                if (n >= 0) {
+                    //-- n + 1 literal bytes
+                    final int count = Math.min(n + 1, Math.min(outLength - op, inLength - ip));
+                    System.arraycopy(in, ip, out, op, count);
+                    ip += n + 1;
+                    op += count;
+                } else if (n != -128) {
+                    //-- next byte repeated 1 - n times
+                    if (ip >= inLength) break;
+                    final int count = Math.min(1 - n, outLength - op);
+                    Arrays.fill(out, op, op + count, in[ip++]);
+                    op += count;
+                }
+            }
+            return op;
+        }
+
+        /**
+         * Decompress LZW bytes, codes are written most significant bit first, with early change.
+         */
+        private int decodeLZW(final byte[] in, final int inLength, final byte[] out, final int outLength) throws IOException {
+            if (lzwPrefix == null) {
+                lzwPrefix = new int[LZW_TABLE_SIZE];
+                lzwLength = new int[LZW_TABLE_SIZE];
+                lzwSuffix = new byte[LZW_TABLE_SIZE];
+                lzwFirst  = new byte[LZW_TABLE_SIZE];
+                for (int i = 0; i < LZW_CLEAR_CODE; i++) {
+                    lzwPrefix[i] = -1;
+                    lzwLength[i] = 1;
+                    lzwSuffix[i] = lzwFirst[i] = (byte) i;
+                }
+            }
+            final long maxBits = (long) inLength * Byte.SIZE;
+            long bitPos    = 0;
+            int codeLength = 9;
+            int next       = LZW_EOI_CODE + 1;
+            int old        = -1;
+            int op         = 0;
+            while (op < outLength && bitPos + codeLength <= maxBits) {
+                //-- read next code, at most 12 bits spread on 3 bytes.
+                final int i = (int) (bitPos >>> 3);
+                int bits = (in[i] & 0xFF) << 16;
+                if (i + 1 < inLength) bits |= (in[i + 1] & 0xFF) << 8;
+                if (i + 2 < inLength) bits |=  in[i + 2] & 0xFF;
+                final int code = (bits >>> (24 - (int) (bitPos & 7) - codeLength)) & ((1 << codeLength) - 1);
+                bitPos += codeLength;
+
+                if (code == LZW_EOI_CODE) break;
+                if (code == LZW_CLEAR_CODE) {
+                    codeLength = 9;
+                    next       = LZW_EOI_CODE + 1;
+                    old        = -1;
+                    continue;
+                }
+                if (old < 0) {
+                    if (code > LZW_CLEAR_CODE) throw new IIOException("Invalid LZW code after clear code : " + code);
+                    out[op++] = (byte) code;
+                    old = code;
+                    continue;
+                }
+                final byte firstByte;
+                if (code < next) {
+                    op = writeString(code, out, op, outLength);
+                    firstByte = lzwFirst[code];
+                } else if (code == next) {
+                    //-- code not yet in table : previous string followed by its first byte.
+                    firstByte = lzwFirst[old];
+                    op = writeString(old, out, op, outLength);
+                    if (op < outLength) out[op++] = firstByte;
+                } else {
+                    throw new IIOException("Invalid LZW code : " + code);
+                }
+                if (next < LZW_TABLE_SIZE) {
+                    lzwPrefix[next] = old;
+                    lzwSuffix[next] = firstByte;
+                    lzwFirst[next]  = lzwFirst[old];
+                    lzwLength[next] = lzwLength[old] + 1;
+                    next++;
+                }
+                if (next == (1 << codeLength) - 1 && codeLength < 12) {
+                    codeLength++;
+                }
+                old = code;
+            }
+            return op;
+        }
+
+        /**
+         * Write the string of the given LZW code, truncated to the output length.
+         *
+         * @return position after the written string.
+         */
+        private int writeString(int code, final byte[] out, final int op, final int outLength) {
+            final int end = op + lzwLength[code];
+            for (int p = end - 1; p >= op; p--) {
+                if (p < outLength) out[p] = lzwSuffix[code];
+                code = lzwPrefix[code];
+            }
+            return Math.min(end, outLength);
+        }
+
+        /**
+         * Decode a JPEG block, abbreviated streams are completed with the JPEGTables content.
+         */
+        private int decodeJPEG(final byte[] in, final int inLength, final byte[] out, final int rows) throws IOException {
+            if (jpegReader == null) {
+                final Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("jpeg");
+                if (!readers.hasNext()) throw new IIOException("No JPEG decoder available.");
+                jpegReader = readers.next();
+            }
+            final InputStream stream;
+            if (jpegTables != null && jpegTables.length > 4 && inLength > 2) {
+                //-- tables without their end of image marker, block without its start of image marker.
+                stream = new SequenceInputStream(new ByteArrayInputStream(jpegTables, 0, jpegTables.length - 2),
+                                                 new ByteArrayInputStream(in, 2, inLength - 2));
+            } else {
+                stream = new ByteArrayInputStream(in, 0, inLength);
+            }
+            try (ImageInputStream input = new MemoryCacheImageInputStream(stream)) {
+                jpegReader.setInput(input, true, true);
+                final Raster raster = ycbcr ? jpegReader.read(0).getRaster() : jpegReader.readRaster(0, null);
+                if (raster.getNumBands() != bands) {
+                    throw new IIOException("JPEG block has " + raster.getNumBands() + " bands, expected " + bands + ".");
+                }
+                final int width  = Math.min(raster.getWidth(),  blockWidth);
+                final int height = Math.min(raster.getHeight(), rows);
+                if (pixels == null || pixels.length < width * bands) pixels = new int[width * bands];
+                for (int y = 0; y < height; y++) {
+                    raster.getPixels(raster.getMinX(), raster.getMinY() + y, width, 1, pixels);
+                    final int start = y * blockWidth * bands;
+                    for (int i = 0, n = width * bands; i < n; i++) {
+                        out[start + i] = (byte) pixels[i];
+                    }
+                }
+                return height * blockWidth * bands;
+            } finally {
+                jpegReader.setInput(null);
+            }
+        }
+    }
+
+    /**
+     * Copy samples with a stride, source and destination arrays are of the same type.
+     */
+    private static void copyStrided(final Object src, int srcPos, final int srcStride,
+                             final Object dst, int dstPos, final int dstStride, final int count) {
+        if (src instanceof byte[]) {
+            final byte[] s = (byte[]) src, d = (byte[]) dst;
+            for (int i = 0; i < count; i++, srcPos += srcStride, dstPos += dstStride) d[dstPos] = s[srcPos];
+        } else if (src instanceof short[]) {
+            final short[] s = (short[]) src, d = (short[]) dst;
+            for (int i = 0; i < count; i++, srcPos += srcStride, dstPos += dstStride) d[dstPos] = s[srcPos];
+        } else if (src instanceof int[]) {
+            final int[] s = (int[]) src, d = (int[]) dst;
+            for (int i = 0; i < count; i++, srcPos += srcStride, dstPos += dstStride) d[dstPos] = s[srcPos];
+        } else if (src instanceof float[]) {
+            final float[] s = (float[]) src, d = (float[]) dst;
+            for (int i = 0; i < count; i++, srcPos += srcStride, dstPos += dstStride) d[dstPos] = s[srcPos];
+        } else {
+            final double[] s = (double[]) src, d = (double[]) dst;
+            for (int i = 0; i < count; i++, srcPos += srcStride, dstPos += dstStride) d[dstPos] = s[srcPos];
+        }
+    }
+}
@@ -0,0 +1,615 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import javax.imageio.IIOException;
+import javax.imageio.stream.ImageOutputStream;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Encodes tiles or strips of a TIFF image from the tiles of a source {@link RenderedImage}.<br/>
+ * Strips are handled as blocks as wide as the image. Blocks are pulled from the source in
+ * block order, each one covering a small area of the source, so memory use does not depend
+ * on the image size.<br/>
+ * Source tiles are always requested by the calling thread, since rendered images are not
+ * required to be thread safe. When writing to a {@link FileChannel}, fetched blocks are
+ * compressed concurrently, each thread reusing its own {@link Deflater}, LZW table and
+ * buffers, and appended at the end of the file with positional writes. Otherwise blocks
+ * are encoded and written in order on the calling thread.<br/>
+ * Supported compressions are none (1), LZW (5) and Deflate (8).
+ * Samples must fill a whole element of the source data buffer.
+ *
+ * @module pending
+ */
+final class TiffBlockEncoder {
+
+    /**
+     * LZW particular codes, first free code and last code before table reset.
+     */
+    private static final int LZW_CLEAR_CODE = 256;
+    private static final int LZW_EOI_CODE   = 257;
+    private static final int LZW_FIRST_CODE = 258;
+    private static final int LZW_LAST_CODE  = 4094;
+
+    /**
+     * Size of the LZW hash table, a power of 2 greater than the number of codes.
+     */
+    private static final int LZW_HASH_SIZE = 8192;
+
+    /**
+     * Source image, area of the source which contains written pixels and
+     * source coordinates of pixel (0, 0) of the written image.
+     */
+    private final RenderedImage image;
+    private final int areaMinX, areaMinY, areaMaxX, areaMaxY;
+    private final int originX, originY;
+    private final int xSubsampling, ySubsampling;
+
+    /**
+     * Written image and blocks layout. Blocks of each plane are stored row by row.
+     * Tiles are padded up to the block height, the last strip is not.
+     */
+    private final int imageWidth, imageHeight;
+    private final int blockWidth, blockHeight;
+    private final int numXBlocks, numYBlocks, planes;
+    private final boolean tiled;
+
+    /**
+     * Compression and byte order of written samples.
+     */
+    private final int compression;
+    private final ByteOrder order;
+
+    /**
+     * Number of bands of the source, number of samples of a pixel in a block :
+     * all samples for chunky images, 1 for planar images.
+     */
+    private final int numBands;
+    private final int bands;
+
+    /**
+     * Data type of source samples and size of a sample in bytes.
+     */
+    private final int dataType;
+    private final int sampleSize;
+
+    /**
+     * @param image        source image.
+     * @param area         area of the source image to write, pixels outside are written as 0.
+     * @param originX      source X coordinate of the written image first column.
+     * @param originY      source Y coordinate of the written image first row.
+     * @param xSubsampling source X subsampling.
+     * @param ySubsampling source Y subsampling.
+     * @param imageWidth   written image width in pixels.
+     * @param imageHeight  written image height in pixels.
+     * @param blockWidth   tile width, or image width for strips.
+     * @param blockHeight  tile height, or rows per strip.
+     * @param tiled        {@code true} for tiles, {@code false} for strips.
+     * @param planes       1 for chunky images, samples per pixel for planar images.
+     * @param compression  TIFF compression code.
+     * @param order        byte order of the file.
+     */
+    TiffBlockEncoder(final RenderedImage image, final Rectangle area, final int originX, final int originY,
+                     final int xSubsampling, final int ySubsampling,
+                     final int imageWidth, final int imageHeight, final int blockWidth, final int blockHeight,
+                     final boolean tiled, final int planes, final int compression, final ByteOrder order) {
+        this.image        = image;
+        this.areaMinX     = area.x;
+        this.areaMinY     = area.y;
+        this.areaMaxX     = area.x + area.width;
+        this.areaMaxY     = area.y + area.height;
+        this.originX      = originX;
+        this.originY      = originY;
+        this.xSubsampling = xSubsampling;
+        this.ySubsampling = ySubsampling;
+        this.imageWidth   = imageWidth;
+        this.imageHeight  = imageHeight;
+        this.blockWidth   = blockWidth;
+        this.blockHeight  = blockHeight;
+        this.numXBlocks   = (imageWidth  + blockWidth  - 1) / blockWidth;
+        this.numYBlocks   = (imageHeight + blockHeight - 1) / blockHeight;
+        this.planes       = planes;
+        this.tiled        = tiled;
+        this.compression  = compression;
+        this.order        = order;
+        this.numBands     = image.getSampleModel().getNumBands();
+        this.bands        = (planes == 1) ? numBands : 1;
+        this.dataType     = image.getSampleModel().getDataType();
+        this.sampleSize   = DataBuffer.getDataTypeSize(dataType) / Byte.SIZE;
+    }
+
+    /**
+     * Returns {@code true} if blocks of the given image can be encoded with the given compression.
+     */
+    static boolean isSupported(final RenderedImage image, final int bitPerSample, final int compression) {
+        if (compression != 1 && compression != 5 && compression != 8) return false;
+        final int type = image.getSampleModel().getDataType();
+        switch (type) {
+            case DataBuffer.TYPE_BYTE   :
+            case DataBuffer.TYPE_SHORT  :
+            case DataBuffer.TYPE_USHORT :
+            case DataBuffer.TYPE_INT    :
+            case DataBuffer.TYPE_FLOAT  :
+            case DataBuffer.TYPE_DOUBLE : break;
+            default : return false;
+        }
+        return bitPerSample == DataBuffer.getDataTypeSize(type)
+            && image.getSampleModel().getNumDataElements() == image.getSampleModel().getNumBands();
+    }
+
+    /**
+     * Returns the number of blocks of all planes.
+     */
+    int getBlockCount() {
+        return planes * numXBlocks * numYBlocks;
+    }
+
+    /**
+     * Encode and write all blocks.<br/>
+     * If a file channel is given, blocks are written concurrently from the given position with
+     * positional writes, the channel position is not changed. Otherwise blocks are written
+     * in order at the current position of the output stream.
+     *
+     * @param channel    channel of the TIFF file, or {@code null} to write in the output stream.
+     * @param output     stream where to write blocks, used only if channel is {@code null}.
+     * @param position   position in the file where to write the first block, used only with a channel.
+     * @param offsets    receives the position of each block, of length {@link #getBlockCount()}.
+     * @param byteCounts receives the length of each block, of length {@link #getBlockCount()}.
+     * @return position after the last written byte.
+     * @throws IOException if a block can not be written.
+     */
+    long write(final FileChannel channel, final ImageOutputStream output, final long position,
+               final long[] offsets, final long[] byteCounts) throws IOException {
+        final AtomicLong end = new AtomicLong(position);
+        final int nbBlocks = getBlockCount();
+        final int nbParts = (channel != null) ? Math.min(nbBlocks, Threads.getParallelism()) : 1;
+        final Worker local = new Worker(channel, output, end, offsets, byteCounts, null);
+        if (nbParts <= 1) {
+            try {
+                for (int i = 0; i < nbBlocks; i++) {
+                    local.encode(fetch(i));
+                }
+            } finally {
+                local.dispose();
+            }
+            return (channel != null) ? end.get() : output.getStreamPosition();
+        }
+
+        //-- the calling thread fetches blocks, encodes them too when workers are late.
+        final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(2 * nbParts);
+        final List<FutureTask<Object>> tasks = new ArrayList<>(nbParts - 1);
+        for (int i = 1; i < nbParts; i++) {
+            final FutureTask<Object> task = new FutureTask<Object>(new Worker(channel, null, end, offsets, byteCounts, queue));
+            tasks.add(task);
+            Threads.executeParallel(task);
+        }
+        try {
+            try {
+                for (int i = 0; i < nbBlocks; i++) {
+                    final Block block = fetch(i);
+                    while (!queue.offer(block)) {
+                        final Block next = queue.poll();
+                        if (next != null) local.encode(next);
+                    }
+                    for (FutureTask<Object> task : tasks) {
+                        //-- stop early if a worker failed.
+                        if (task.isDone()) task.get();
+                    }
+                }
+                Block next;
+                while ((next = queue.poll()) != null) {
+                    local.encode(next);
+                }
+            } finally {
+                local.dispose();
+                queue.clear();
+                for (int i = 1; i < nbParts; i++) {
+                    queue.add(Block.END);
+                }
+            }
+            for (FutureTask<Object> task : tasks) {
+                //-- does nothing if the task is already started by an executor thread.
+                task.run();
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IIOException("Interrupted while encoding TIFF blocks.", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException)      throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IIOException(cause.getMessage(), cause);
+        }
+        return end.get();
+    }
+
+    /**
+     * Block layout and source samples it covers.
+     */
+    private static final class Block {
+
+        /**
+         * Marks the end of the blocks for workers.
+         */
+        private static final Block END = new Block(-1, 0, 0, 0, 0, 0, 0, 0, null, null);
+
+        private final int index, plane, rows, rowLength;
+
+        /**
+         * Block columns and rows whose source pixel is in source area.
+         */
+        private final int minI, minJ, maxI, maxJ;
+
+        /**
+         * Source region and its samples, {@code null} if the block contains no source pixel.
+         */
+        private final Rectangle region;
+        private final Raster source;
+
+        private Block(final int index, final int plane, final int rows, final int rowLength,
+                      final int minI, final int minJ, final int maxI, final int maxJ,
+                      final Rectangle region, final Raster source) {
+            this.index     = index;
+            this.plane     = plane;
+            this.rows      = rows;
+            this.rowLength = rowLength;
+            this.minI      = minI;
+            this.minJ      = minJ;
+            this.maxI      = maxI;
+            this.maxJ      = maxJ;
+            this.region    = region;
+            this.source    = source;
+        }
+    }
+
+    /**
+     * Compute the layout of a block and fetch the source samples it covers.
+     * Must be invoked by the calling thread only.
+     */
+    private Block fetch(final int index) {
+        final int plane     = index / (numXBlocks * numYBlocks);
+        final int by        = (index / numXBlocks) % numYBlocks;
+        final int bx        = index % numXBlocks;
+        final int rows      = tiled ? blockHeight : Math.min(blockHeight, imageHeight - by * blockHeight);
+        final int rowLength = blockWidth * bands;
+        final int x0        = bx * blockWidth;
+        final int y0        = by * blockHeight;
+
+        //-- block columns and rows whose source pixel is in source area.
+        final int minI = Math.max(0, ceilDiv(areaMinX - originX, xSubsampling) - x0);
+        final int minJ = Math.max(0, ceilDiv(areaMinY - originY, ySubsampling) - y0);
+        final int maxI = Math.min(Math.min(blockWidth, imageWidth - x0), ceilDiv(areaMaxX - originX, xSubsampling) - x0);
+        final int maxJ = Math.min(Math.min(rows, imageHeight - y0),      ceilDiv(areaMaxY - originY, ySubsampling) - y0);
+        if (maxI <= minI || maxJ <= minJ) {
+            return new Block(index, plane, rows, rowLength, minI, minJ, maxI, maxJ, null, null);
+        }
+        final Rectangle region = new Rectangle(
+                originX + (x0 + minI) * xSubsampling,
+                originY + (y0 + minJ) * ySubsampling,
+                (maxI - minI - 1) * xSubsampling + 1,
+                (maxJ - minJ - 1) * ySubsampling + 1);
+        return new Block(index, plane, rows, rowLength, minI, minJ, maxI, maxJ, region, fetch(region));
+    }
+
+    /**
+     * Returns source samples of the given region, without copy if the region is in a single tile.
+     */
+    private Raster fetch(final Rectangle region) {
+        final int tileWidth  = image.getTileWidth();
+        final int tileHeight = image.getTileHeight();
+        final int tx = (int) Math.floor((region.x - image.getTileGridXOffset()) / (double) tileWidth);
+        final int ty = (int) Math.floor((region.y - image.getTileGridYOffset()) / (double) tileHeight);
+        final int maxX = image.getTileGridXOffset() + (tx + 1) * tileWidth;
+        final int maxY = image.getTileGridYOffset() + (ty + 1) * tileHeight;
+        if (region.x + region.width <= maxX && region.y + region.height <= maxY) {
+            return image.getTile(tx, ty);
+        }
+        return image.getData(region);
+    }
+
+    /**
+     * Encodes fetched blocks, with its own buffers.
+     * Workers with a queue take their blocks from it until the end mark.
+     */
+    private final class Worker implements Callable<Object> {
+
+        private final FileChannel channel;
+        private final ImageOutputStream output;
+        private final AtomicLong end;
+        private final long[] offsets, byteCounts;
+        private final BlockingQueue<Block> queue;
+
+        /**
+         * Block samples and compressed bytes, source rows.
+         */
+        private byte[] raw = new byte[0];
+        private ByteBuffer view;
+        private byte[] compressed = new byte[0];
+        private Object row;
+
+        /**
+         * Compression tools, created when first needed.
+         */
+        private Deflater deflater;
+        private int[] lzwKeys;
+        private short[] lzwCodes;
+        private int lzwBits, lzwBitCount;
+
+        private Worker(final FileChannel channel, final ImageOutputStream output, final AtomicLong end,
+                       final long[] offsets, final long[] byteCounts, final BlockingQueue<Block> queue) {
+            this.channel    = channel;
+            this.output     = output;
+            this.end        = end;
+            this.offsets    = offsets;
+            this.byteCounts = byteCounts;
+            this.queue      = queue;
+        }
+
+        @Override
+        public Object call() throws IOException {
+            try {
+                Block block;
+                while ((block = queue.take()) != Block.END) {
+                    encode(block);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IIOException("Interrupted while encoding TIFF blocks.", ex);
+            } finally {
+                dispose();
+            }
+            return null;
+        }
+
+        /**
+         * Release compression tools.
+         */
+        private void dispose() {
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+        }
+
+        /**
+         * Copy, compress and write a block.
+         */
+        private void encode(final Block block) throws IOException {
+            final int index   = block.index;
+            final int nbBytes = block.rowLength * block.rows * sampleSize;
+
+            if (raw.length < nbBytes) {
+                raw  = new byte[nbBytes];
+                view = ByteBuffer.wrap(raw).order(order);
+            } else {
+                Arrays.fill(raw, 0, nbBytes, (byte) 0);
+            }
+            if (block.source != null) {
+                copy(block);
+            }
+
+            final byte[] bytes;
+            final int length;
+            switch (compression) {
+                case 1  : bytes = raw; length = nbBytes; break;
+                case 5  : length = encodeLZW(nbBytes); bytes = compressed; break;
+                case 8  : length = deflate(nbBytes);   bytes = compressed; break;
+                default : throw new IIOException("Unsupported compression : " + compression);
+            }
+
+            if (channel != null) {
+                long position = end.getAndAdd(length);
+                offsets[index]    = position;
+                byteCounts[index] = length;
+                final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } else {
+                offsets[index]    = output.getStreamPosition();
+                byteCounts[index] = length;
+                output.write(bytes, 0, length);
+            }
+        }
+
+        /**
+         * Copy the fetched source samples of a block.
+         */
+        private void copy(final Block block) {
+            final int minI = block.minI, minJ = block.minJ, maxI = block.maxI, maxJ = block.maxJ;
+            final int rowLength = block.rowLength;
+            final Rectangle region = block.region;
+            final Raster source = block.source;
+            final int rowSamples = region.width * numBands;
+            final int step       = xSubsampling * numBands;
+            final int firstBand  = (planes == 1) ? 0 : block.plane;
+            for (int j = minJ; j < maxJ; j++) {
+                final int y = region.y + (j - minJ) * ySubsampling;
+                int pos = (j * rowLength + minI * bands) * sampleSize;
+                switch (dataType) {
+                    case DataBuffer.TYPE_FLOAT : {
+                        if (!(row instanceof float[]) || ((float[]) row).length < rowSamples) row = new float[rowSamples];
+                        final float[] samples = source.getPixels(region.x, y, region.width, 1, (float[]) row);
+                        for (int s = firstBand, i = minI; i < maxI; i++, s += step) {
+                            for (int b = 0; b < bands; b++, pos += 4) view.putFloat(pos, samples[s + b]);
+                        }
+                        break;
+                    }
+                    case DataBuffer.TYPE_DOUBLE : {
+                        if (!(row instanceof double[]) || ((double[]) row).length < rowSamples) row = new double[rowSamples];
+                        final double[] samples = source.getPixels(region.x, y, region.width, 1, (double[]) row);
+                        for (int s = firstBand, i = minI; i < maxI; i++, s += step) {
+                            for (int b = 0; b < bands; b++, pos += 8) view.putDouble(pos, samples[s + b]);
+                        }
+                        break;
+                    }
+                    default : {
+                        if (!(row instanceof int[]) || ((int[]) row).length < rowSamples) row = new int[rowSamples];
+                        final int[] samples = source.getPixels(region.x, y, region.width, 1, (int[]) row);
+                        for (int s = firstBand, i = minI; i < maxI; i++, s += step) {
+                            for (int b = 0; b < bands; b++) {
+                                final int v = samples[s + b];
+                                switch (sampleSize) {
+                                    case 1  : raw[pos] = (byte) v;          break;
+                                    case 2  : view.putShort(pos, (short) v); break;
+                                    default : view.putInt(pos, v);           break;
+                                }
+                                pos += sampleSize;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Deflate block samples in the compressed array.
+         *
+         * @return number of compressed bytes.
+         */
+        private int deflate(final int length) {
+            if (deflater == null) deflater = new Deflater();
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            if (compressed.length < 64) compressed = new byte[length / 2 + 64];
+            int n = 0;
+            while (!deflater.finished()) {
+                if (n == compressed.length) compressed = Arrays.copyOf(compressed, n * 2);
+                n += deflater.deflate(compressed, n, compressed.length - n);
+            }
+            return n;
+        }
+
+        /**
+         * Compress block samples in the compressed array with TIFF LZW codes,
+         * most significant bits first, code length growing one code early.
+         *
+         * @return number of compressed bytes.
+         */
+        private int encodeLZW(final int length) {
+            if (lzwKeys == null) {
+                lzwKeys  = new int[LZW_HASH_SIZE];
+                lzwCodes = new short[LZW_HASH_SIZE];
+            }
+            //-- at most one 12 bits code for each byte, with clear codes.
+            final int capacity = length * 2 + 16;
+            if (compressed.length < capacity) compressed = new byte[capacity];
+            lzwBits = lzwBitCount = 0;
+            int pos = putCode(LZW_CLEAR_CODE, 9, 0);
+            if (length == 0) {
+                pos = putCode(LZW_EOI_CODE, 9, pos);
+                return flushBits(pos);
+            }
+            Arrays.fill(lzwKeys, -1);
+            int nbits    = 9;
+            int nextCode = LZW_FIRST_CODE;
+            int prefix   = raw[0] & 0xFF;
+            for (int i = 1; i < length; i++) {
+                final int c   = raw[i] & 0xFF;
+                final int key = (prefix << 8) | c;
+                int h = (key * 0x9E3779B1) >>> 19;
+                int k;
+                while ((k = lzwKeys[h]) != -1 && k != key) {
+                    h = (h + 1) & (LZW_HASH_SIZE - 1);
+                }
+                if (k == key) {
+                    prefix = lzwCodes[h];
+                    continue;
+                }
+                pos = putCode(prefix, nbits, pos);
+                prefix = c;
+                if (nextCode == LZW_LAST_CODE) {
+                    //-- table is full : emit clear code and reset.
+                    pos = putCode(LZW_CLEAR_CODE, nbits, pos);
+                    Arrays.fill(lzwKeys, -1);
+                    nextCode = LZW_FIRST_CODE;
+                    nbits    = 9;
+                } else {
+                    lzwKeys[h]  = key;
+                    lzwCodes[h] = (short) nextCode++;
+                    if (nextCode == (1 << nbits)) nbits++;
+                }
+            }
+            pos = putCode(prefix, nbits, pos);
+            //-- reader adds an entry after the last code, which may change code length.
+            if (++nextCode == LZW_LAST_CODE) {
+                pos = putCode(LZW_CLEAR_CODE, nbits, pos);
+                nbits = 9;
+            } else if (nextCode == (1 << nbits)) {
+                nbits++;
+            }
+            pos = putCode(LZW_EOI_CODE, nbits, pos);
+            return flushBits(pos);
+        }
+
+        /**
+         * Append a code of the given length to the compressed bytes.
+         *
+         * @return position of the next byte to write.
+         */
+        private int putCode(final int code, final int nbits, int pos) {
+            lzwBits = (lzwBits << nbits) | code;
+            lzwBitCount += nbits;
+            while (lzwBitCount >= 8) {
+                lzwBitCount -= 8;
+                compressed[pos++] = (byte) (lzwBits >>> lzwBitCount);
+            }
+            lzwBits &= (1 << lzwBitCount) - 1;
+            return pos;
+        }
+
+        /**
+         * Write remaining bits, padded with 0.
+         *
+         * @return number of compressed bytes.
+         */
+        private int flushBits(int pos) {
+            if (lzwBitCount > 0) {
+                compressed[pos++] = (byte) (lzwBits << (8 - lzwBitCount));
+                lzwBitCount = 0;
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Division of a number by a positive divisor, rounded toward positive infinity.
+     */
+    private static int ceilDiv(final int dividend, final int divisor) {
+        return (int) Math.ceil(dividend / (double) divisor);
+    }
+}
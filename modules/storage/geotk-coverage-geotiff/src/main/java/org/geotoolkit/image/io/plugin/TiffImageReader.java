@@ -18,6 +18,7 @@ package org.geotoolkit.image.io.plugin;
 
 import java.io.*;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
@@ -34,7 +35,9 @@ import java.nio.ByteBuffer;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.SampleModel;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
@@ -209,6 +212,19 @@ public class TiffImageReader extends SpatialImageReader {
      */
     private ByteBuffer buffer;
 
+    /**
+     * Channel opened on the input file to decode tiles or strips with a {@link TiffBlockDecoder}.
+     */
+    private FileChannel blockChannel;
+
+    /**
+     * Decoder of the last read image, kept to reuse its decompression tools when the image is read again.
+     * {@link #blockDecoderImage} and {@link #blockDecoderType} are the image index and raster data type
+     * it has been created for.
+     */
+    private TiffBlockDecoder blockDecoder;
+    private int blockDecoderImage, blockDecoderType;
+
     /**
      * Positions of each <cite>Image File Directory</cite> (IFD) in this file. The positions are
      * fetched when first needed. The number of valid positions is either {@link #countIFD}, or
@@ -383,6 +399,18 @@ public class TiffImageReader extends SpatialImageReader {
         return ((long[]) newSubFil.get(ATT_VALUE))[0] != 0;
     }
 
+    /**
+     * Return true if the current layer is a reduced resolution version of an other image,
+     * and not a transparency mask.
+     * @return true if the current layer is a reduced resolution image else false.
+     */
+    private boolean isReducedResolution() {
+        final Map newSubFil = headProperties.get(NewSubfileType);
+        if (newSubFil == null) return false;
+        final long type = ((long[]) newSubFil.get(ATT_VALUE))[0];
+        return (type & 1) != 0 && (type & 4) == 0;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -827,7 +855,9 @@ public class TiffImageReader extends SpatialImageReader {
         selectLayer(layerIndex);
         if (rawImageType == null) {
             //-- switch PhotoMetricInterpretation
-            final short photoInter = ((short[]) headProperties.get(PhotometricInterpretation).get(ATT_VALUE))[0];
+            short photoInter = ((short[]) headProperties.get(PhotometricInterpretation).get(ATT_VALUE))[0];
+            //-- YCbCr JPEG blocks are converted to RGB when decoded.
+            if (photoInter == 6 && compression == 7) photoInter = 2;
             final Map<String, Object> bitsPerSamples = (headProperties.get(BitsPerSample));
             final Map<String, Object> sampleFormat   = (headProperties.get(SampleFormat));
 
@@ -1055,7 +1085,109 @@ public class TiffImageReader extends SpatialImageReader {
     @Override
     public BufferedImage read(final int imageIndex, final ImageReadParam param) throws IOException {
         checkLayers();
-        return readLayer(getLayerIndex(imageIndex), param);
+        final int layerIndex = getLayerIndex(imageIndex);
+        final int overview   = selectOverview(layerIndex, param);
+        if (overview >= 0) return readOverview(layerIndex, overview, param);
+        return readLayer(layerIndex, param);
+    }
+
+    /**
+     * Returns the reduced resolution layer which is the most appropriate to read
+     * the image at the given layer index with the subsampling of given parameters.<br>
+     * An overview is used if its size is the image size divided by an integer factor,
+     * rounded up or down, no greater than the subsampling, and if it stores samples
+     * in the same way than the image.
+     *
+     * @param layerIndex index of the full resolution layer.
+     * @param param read parameters, may be {@code null}.
+     * @return layer index of the overview to read or -1 if the full resolution layer should be read.
+     * @throws IOException if a layer header can not be read.
+     */
+    private int selectOverview(final int layerIndex, final ImageReadParam param) throws IOException {
+        if (param == null || param.getSourceBands() != null || param.getDestinationBands() != null) return -1;
+        final int subsampling = Math.min(param.getSourceXSubsampling(), param.getSourceYSubsampling());
+        if (subsampling < 2) return -1;
+        final List<Integer> thumbs = imgAndThumbs.get(layerIndex);
+        if (thumbs == null || thumbs.isEmpty()) return -1;
+
+        final int dataType = getRawDataType(layerIndex);
+        final int width    = imageWidth;
+        final int height   = imageHeight;
+        final int bands    = samplesPerPixel;
+        int overview   = -1;
+        int bestFactor = 1;
+        for (final int thumb : thumbs) {
+            if (getRawDataType(thumb) != dataType || samplesPerPixel != bands || !isReducedResolution()) continue;
+            final int factor = (int) Math.round(width / (double) imageWidth);
+            if (factor <= bestFactor || factor > subsampling
+             || Math.abs(imageWidth  * (long) factor - width)  >= factor
+             || Math.abs(imageHeight * (long) factor - height) >= factor) continue;
+            overview   = thumb;
+            bestFactor = factor;
+        }
+        return overview;
+    }
+
+    /**
+     * Reads the image at the given layer index from one of its reduced resolution layers.<br>
+     * Destination image and regions are the same than a read of the full resolution layer,
+     * each destination pixel takes the value of the overview pixel which contains the full
+     * resolution pixel it would have been read from.
+     *
+     * @param layerIndex index of the full resolution layer.
+     * @param overview index of the reduced resolution layer, as returned by {@link #selectOverview(int, ImageReadParam)}.
+     * @param param read parameters with subsampling greater than overview factor.
+     * @return The image.
+     * @throws IOException If an error occurred while reading the overview.
+     */
+    private BufferedImage readOverview(final int layerIndex, final int overview, final ImageReadParam param) throws IOException {
+        selectLayer(layerIndex);
+        final int width  = imageWidth;
+        final int height = imageHeight;
+        final Rectangle srcRegion = new Rectangle();
+        final Rectangle dstRegion = new Rectangle();
+        final BufferedImage image = getDestination(param, getImageTypes(layerIndex), width, height);
+        computeRegions(param, width, height, image, srcRegion, dstRegion);
+
+        selectLayer(overview);
+        final int factor = (int) Math.round(width / (double) imageWidth);
+        final int xSub   = param.getSourceXSubsampling();
+        final int ySub   = param.getSourceYSubsampling();
+        final ImageReadParam overviewParam = new ImageReadParam();
+
+        if (srcRegion.x % factor == 0 && srcRegion.y % factor == 0 && xSub % factor == 0 && ySub % factor == 0
+         && (srcRegion.x + (dstRegion.width  - 1) * xSub) / factor < imageWidth
+         && (srcRegion.y + (dstRegion.height - 1) * ySub) / factor < imageHeight) {
+            //-- read pixels fall exactly on overview pixels : read overview with a smaller subsampling.
+            overviewParam.setSourceRegion(new Rectangle(srcRegion.x / factor, srcRegion.y / factor,
+                    (dstRegion.width - 1) * (xSub / factor) + 1, (dstRegion.height - 1) * (ySub / factor) + 1));
+            overviewParam.setSourceSubsampling(xSub / factor, ySub / factor, 0, 0);
+            overviewParam.setDestination(image);
+            overviewParam.setDestinationOffset(dstRegion.getLocation());
+            return readLayer(overview, overviewParam);
+        }
+
+        //-- read the overview window which contains read pixels, then pick them.
+        final int minX = Math.min(srcRegion.x / factor, imageWidth  - 1);
+        final int minY = Math.min(srcRegion.y / factor, imageHeight - 1);
+        final int maxX = Math.min((srcRegion.x + (dstRegion.width  - 1) * xSub) / factor, imageWidth  - 1);
+        final int maxY = Math.min((srcRegion.y + (dstRegion.height - 1) * ySub) / factor, imageHeight - 1);
+        overviewParam.setSourceRegion(new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1));
+        final Raster source = readLayer(overview, overviewParam).getRaster();
+        final WritableRaster target = image.getRaster();
+        final int[] columns = new int[dstRegion.width];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Math.min((srcRegion.x + i * xSub) / factor, maxX) - minX;
+        }
+        Object pixel = null;
+        for (int j = 0; j < dstRegion.height; j++) {
+            final int y = Math.min((srcRegion.y + j * ySub) / factor, maxY) - minY;
+            for (int i = 0; i < columns.length; i++) {
+                pixel = source.getDataElements(columns[i], y, pixel);
+                target.setDataElements(dstRegion.x + i, dstRegion.y + j, pixel);
+            }
+        }
+        return ImageUtils.replaceFloatingColorModel(image);
     }
 
     /**
@@ -1090,6 +1222,8 @@ public class TiffImageReader extends SpatialImageReader {
             // Keep the buffer, since we may reuse it for the next image.
         }
 
+        closeBlockChannel();
+
         if (channel != null) {
             if (IOUtilities.canProcessAsPath(currentInput)) {
                 channel.close();
@@ -1120,6 +1254,7 @@ public class TiffImageReader extends SpatialImageReader {
                 if (imageStream != null) imageStream.close();
                 if (channel != null) channel.close();
             }
+            closeBlockChannel();
         } catch (IOException ex) {
             Logging.getLogger("org.geotoolkit.image.io.plugin").log(Level.SEVERE, null, ex);
         }
@@ -1181,6 +1316,10 @@ public class TiffImageReader extends SpatialImageReader {
                     samplesPerPixel =  0;
                     bitsPerSample   = null;
                     tileOffsets     = null;
+                    tileByteCounts  = null;
+                    stripOffsets    = null;
+                    stripByteCounts = null;
+                    rowsPerStrip    = -1;
                     rawImageType    = null;
                     minSampleValue  = null;
                     maxSampleValue  = null;
@@ -1207,6 +1346,10 @@ public class TiffImageReader extends SpatialImageReader {
                         metaHeads[layerIndex] = headProperties;
                     }
 
+                    //-- compression is only parsed once, when the directory is first read.
+                    final Map<String, Object> compObj  = headProperties.get(Compression);
+                    compression = (compObj == null) ? 1 : ((int[]) compObj.get(ATT_VALUE))[0];
+
                     final Map<String, Object> iwObj    = headProperties.get(ImageWidth);
                     final Map<String, Object> ihObj    = headProperties.get(ImageLength);
                     final Map<String, Object> isppObj  = headProperties.get(SamplesPerPixel);
@@ -1454,7 +1597,9 @@ public class TiffImageReader extends SpatialImageReader {
      */
     private void parseDirectoryEntries(final Collection<long[]> deferred) throws IOException {
         final int tag       = imageStream.readShort() & 0xFFFF;
-        final short type    = imageStream.readShort();
+        short type          = imageStream.readShort();
+        //-- JPEG tables are declared as undefined bytes.
+        if (tag == JPEGTables && type == 7) type = TYPE_UBYTE;
         final long count    = readInt();
         final long datasize = count * TYPE_SIZE[type];
         //-- to avoid singularity of TreeMap headProperty
@@ -1564,14 +1709,15 @@ public class TiffImageReader extends SpatialImageReader {
             case Compression: { //-- Compression.
                 assert count == 1 : "with tiff compression tag, count should be equal 1.";
                 compression = (int) (imageStream.readShort() & 0xFFFF);
-                if (compression != 1 && compression != 32773 && compression != 5 && compression != 8) {
+                if (compression != 1 && compression != 32773 && compression != 5 && compression != 7
+                 && compression != 8 && compression != 32946) {
                     // '1' stands for "uncompressed".
-                    // '8' stands for "Deflate".
+                    // '7' stands for "JPEG", only decoded by TiffBlockDecoder.
+                    // '8' and '32 946' stand for "Deflate".
                     // '32 773' stands for packbits compression
                     final Object nameCompress;
                     switch (compression) {
                         case 6:  nameCompress = "JPEG";      break;
-                        case 7:  nameCompress = "JPEG";      break;
                         default: nameCompress = compression; break;
                     }
                     throw new UnsupportedImageFormatException(error(Errors.Keys.IllegalParameterValue_2,
@@ -2057,7 +2203,16 @@ public class TiffImageReader extends SpatialImageReader {
          * compute region : ajust les 2 rectangles src region et dest region en fonction des coeff subsampling present dans Imagereadparam.
          */
         computeRegions(param, imageWidth, imageHeight, image, srcRegion, dstRegion);// calculer une region de l'image sur le fichier que l'on doit lire
-        if (compression == 32773) {
+        final TiffBlockDecoder decoder = createBlockDecoder(image.getRaster(), param);
+        if (decoder != null) {
+            clearAbortRequest();
+            final int planes = (getPlanarConfiguration() == 2) ? samplesPerPixel : 1;
+            final int xSubsampling = (param != null) ? param.getSourceXSubsampling() : 1;
+            final int ySubsampling = (param != null) ? param.getSourceYSubsampling() : 1;
+            decoder.read(image.getRaster(), planes, srcRegion, dstRegion, xSubsampling, ySubsampling);
+        } else if (compression == 7) {
+            throw new IIOException(error(Errors.Keys.IllegalParameterValue_2, "compression", "JPEG"));
+        } else if (compression == 32773) {
             assert stripOffsets != null : "with compression 32773 (packbits) : image should be writen in strip offset use case.";
             readFromStrip32773(image.getRaster(), param, srcRegion, dstRegion);
         } else if (compression == 5) {
@@ -2067,7 +2222,7 @@ public class TiffImageReader extends SpatialImageReader {
                 assert tileOffsets != null;
                 readFromTilesLZW(image.getRaster(), param, srcRegion, dstRegion);
             }
-        } else if (compression == 8) {
+        } else if (compression == 8 || compression == 32946) {
             if (stripOffsets != null) {
                 readFromStripDeflate(image.getRaster(), param, srcRegion, dstRegion);
             } else {
@@ -2087,6 +2242,123 @@ public class TiffImageReader extends SpatialImageReader {
         return image;
     }
 
+    /**
+     * Returns the planar configuration of the current image, 1 for chunky or 2 for planar.
+     */
+    private short getPlanarConfiguration() {
+        final Map<String, Object> planarConfig = headProperties.get(PlanarConfiguration);
+        /*
+         * If samples per pixel = 1, planar configuration has no impact.
+         */
+        return (planarConfig != null && samplesPerPixel > 1) ? ((short[]) planarConfig.get(ATT_VALUE))[0] : 1;
+    }
+
+    /**
+     * Returns the first value of the given tag in the current image, or the given default value if absent.
+     */
+    private long getTagValue(final int tag, final long defaultValue) {
+        final Map<String, Object> tagAttributs = headProperties.get(tag);
+        return (tagAttributs != null) ? ((long[]) tagAttributs.get(ATT_VALUE))[0] : defaultValue;
+    }
+
+    /**
+     * Creates a decoder reading tiles or strips of the current image directly from the input file,
+     * decompressing them concurrently.
+     *
+     * @param  raster destination raster.
+     * @param  param  Parameters used to control the reading process, or {@code null}.
+     * @return decoder or {@code null} if the current image or the destination raster
+     *         can not be read by a {@link TiffBlockDecoder}.
+     * @throws IOException If the input file can not be opened.
+     */
+    private TiffBlockDecoder createBlockDecoder(final WritableRaster raster, final ImageReadParam param)
+            throws IOException {
+        if (param != null && (param.getSourceBands() != null || param.getDestinationBands() != null)) return null;
+        if (!(currentInput instanceof File || currentInput instanceof Path)) return null;
+        switch (compression) {
+            case 1 : case 5 : case 7 : case 8 : case 32773 : case 32946 : break;
+            default : return null;
+        }
+
+        //-- each sample must fill a whole data buffer element.
+        if (!(raster.getSampleModel() instanceof ComponentSampleModel)
+          || raster.getNumBands() != samplesPerPixel) return null;
+        final int dataType   = raster.getSampleModel().getDataType();
+        if (blockDecoder != null && blockDecoderImage == currentImage && blockDecoderType == dataType) {
+            return blockDecoder;
+        }
+        final int sampleBits = DataBuffer.getDataTypeSize(dataType);
+        for (long bits : bitsPerSample) {
+            if (bits != sampleBits) return null;
+        }
+        final boolean floating = (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE);
+        final int predictor = (int) getTagValue(Predictor, 1);
+        if ((predictor == 2 && floating) || (predictor == 3 && !floating) || predictor < 1 || predictor > 3) return null;
+        final long fillOrder = getTagValue(FillOrder, 1);
+        if (fillOrder != 1 && fillOrder != 2) return null;
+
+        byte[] jpegTables = null;
+        boolean ycbcr = false;
+        if (compression == 7) {
+            if (dataType != DataBuffer.TYPE_BYTE) return null;
+            final Map<String, Object> tables = headProperties.get(JPEGTables);
+            if (tables != null) {
+                final long[] values = (long[]) tables.get(ATT_VALUE);
+                jpegTables = new byte[values.length];
+                for (int i = 0; i < values.length; i++) jpegTables[i] = (byte) values[i];
+            }
+            final Map<String, Object> photometric = headProperties.get(PhotometricInterpretation);
+            ycbcr = photometric != null && ((short[]) photometric.get(ATT_VALUE))[0] == 6;
+        }
+
+        //-- strips are blocks as wide as the image.
+        final int planes = (getPlanarConfiguration() == 2) ? samplesPerPixel : 1;
+        final int blockWidth, blockHeight;
+        final long[] offsets, byteCounts;
+        if (tileOffsets != null) {
+            blockWidth  = tileWidth;
+            blockHeight = tileHeight;
+            offsets     = tileOffsets;
+            byteCounts  = tileByteCounts;
+        } else {
+            blockWidth  = imageWidth;
+            blockHeight = (rowsPerStrip <= 0 || rowsPerStrip > imageHeight) ? imageHeight : rowsPerStrip;
+            offsets     = stripOffsets;
+            byteCounts  = stripByteCounts;
+        }
+        if (offsets == null || (byteCounts == null && compression != 1)) return null;
+
+        if (blockChannel == null) {
+            blockChannel = FileChannel.open(IOUtilities.toPath(currentInput), StandardOpenOption.READ);
+        }
+        final TiffBlockDecoder decoder = new TiffBlockDecoder(blockChannel, imageStream.getByteOrder(),
+                compression, predictor, fillOrder == 2, jpegTables, ycbcr,
+                imageWidth, imageHeight, blockWidth, blockHeight, offsets, byteCounts,
+                (planes == 1) ? samplesPerPixel : 1, dataType);
+        if (offsets.length < planes * decoder.getBlockCount()) return null;
+        if (blockDecoder != null) blockDecoder.dispose();
+        blockDecoder      = decoder;
+        blockDecoderImage = currentImage;
+        blockDecoderType  = dataType;
+        return decoder;
+    }
+
+    /**
+     * Closes the channel used by {@link TiffBlockDecoder}, if opened, and disposes the last decoder.
+     *
+     * @throws IOException If an error occurred while closing the channel.
+     */
+    private void closeBlockChannel() throws IOException {
+        if (blockDecoder != null) {
+            blockDecoder.dispose();
+            blockDecoder = null;
+        }
+        if (blockChannel != null) {
+            blockChannel.close();
+            blockChannel = null;
+        }
+    }
+
     /**
      * Returns the <code>BufferedImage</code> to which decoded pixel
      * data should be written.  The image is determined by inspecting
@@ -17,6 +17,7 @@
 package org.geotoolkit.image.io.plugin;
 
 import javax.imageio.ImageWriter;
+import org.apache.sis.util.ArgumentChecks;
 import org.geotoolkit.image.io.SpatialImageWriteParam;
 
 /**
@@ -25,16 +26,45 @@ import org.geotoolkit.image.io.SpatialImageWriteParam;
  *
  * /!\ {@linkplain #setSourceBands(int[])} method will have no impact on image writing for now.
  *
+ * Reduced resolution images can be written after each image, see {@link #setOverviewCount(int)}.
+ *
  * @author Remi Marechal (Geomatys).
  */
 public class TiffImageWriteParam extends SpatialImageWriteParam {
 
+    /**
+     * Number of reduced resolution images written after the image.
+     */
+    private int overviewCount;
+
     public TiffImageWriteParam(ImageWriter writer) {
         super(writer);
         canOffsetTiles      = false;
         canWriteCompressed  = true;
         canWriteProgressive = false;
         canWriteTiles       = true;
-        compressionTypes    = new String[]{"LZW", "PackBits"};
+        compressionTypes    = new String[]{"LZW", "PackBits", "Deflate"};
+    }
+
+    /**
+     * Returns the number of reduced resolution images written after the image.
+     *
+     * @return number of overviews, 0 by default.
+     */
+    public int getOverviewCount() {
+        return overviewCount;
+    }
+
+    /**
+     * Sets the number of reduced resolution images written after the image.<br>
+     * Each overview is half the width and height of the previous image, rounded up.
+     * Less overviews are written if the image size can not be reduced anymore.<br>
+     * Readers can then use them when the image is read with a subsampling.
+     *
+     * @param overviewCount number of overviews, 0 for none.
+     */
+    public void setOverviewCount(final int overviewCount) {
+        ArgumentChecks.ensurePositive("overviewCount", overviewCount);
+        this.overviewCount = overviewCount;
     }
 }
@@ -16,6 +16,7 @@
  */
 package org.geotoolkit.image.io.plugin;
 
+import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
@@ -31,6 +32,7 @@ import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
+import java.awt.image.WritableRenderedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -60,7 +62,9 @@ import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.stream.ImageOutputStream;
+import javax.media.jai.TiledImage;
 
+import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.internal.storage.ChannelImageOutputStream;
 import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.ArraysExt;
@@ -68,9 +72,14 @@ import org.apache.sis.util.logging.Logging;
 import org.apache.sis.util.NullArgumentException;
 
 import org.geotoolkit.image.internal.ImageUtils;
+import org.geotoolkit.image.interpolation.InterpolationCase;
+import org.geotoolkit.image.interpolation.Resample;
+import org.geotoolkit.image.interpolation.ResampleBorderComportement;
 import org.geotoolkit.image.io.SpatialImageWriteParam;
 import org.geotoolkit.image.io.SpatialImageWriter;
 import org.geotoolkit.image.io.WritableImageByteChannel;
+import org.geotoolkit.image.io.large.LargeCache;
+import org.geotoolkit.image.io.large.WritableLargeRenderedImage;
 import org.geotoolkit.image.io.metadata.SpatialMetadata;
 import org.geotoolkit.image.io.metadata.SpatialMetadataFormat;
 import org.geotoolkit.metadata.geotiff.GeoTiffConstants;
@@ -79,6 +88,7 @@ import org.geotoolkit.nio.IOUtilities;
 import org.geotoolkit.resources.Errors;
 import org.geotoolkit.util.Utilities;
 import org.geotoolkit.util.DomUtilities;
+import org.opengis.referencing.operation.TransformException;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -120,6 +130,13 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private final static String packbits = "PackBits";
 
+    /**
+     * String use to determinate deflate compression type.
+     *
+     * @see TiffImageWriteParam#compressionTypes
+     */
+    private final static String deflate  = "Deflate";
+
     /**
      * Size of data structures in standard TIFF files ({@code SIZE_*}) and in big TIFF files
      * ({@code SIZE_BIG_*}). In standard TIFF, the size of structures for counting the number
@@ -171,6 +188,12 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private ChannelImageOutputStream channel;
 
+    /**
+     * The file channel wrapped by {@linkplain #channel} when the writer opened the output file itself,
+     * or {@code null}. Compressed blocks are written on it with positional writes.
+     */
+    private FileChannel fileChannel;
+
     /**
      * Position in tiff file where to write byte count array.
      * @see #writeByteCountAndOffsets(long, short, java.lang.Object, long, short, java.lang.Object)
@@ -518,6 +541,7 @@ public class TiffImageWriter extends SpatialImageWriter {
                 write(buff, headProperties, null, ifdPosition);
             }
         }
+        writeOverviews(img, param);
     }
 
     /**
@@ -593,6 +617,7 @@ public class TiffImageWriter extends SpatialImageWriter {
             addProperty(NewSubfileType, TYPE_LONG, 1, new long[]{1}, headProperties);
             write(buff, headProperties, param, ifdPosition);
         }
+        writeOverviews(img, param);
     }
 
     /**
@@ -641,6 +666,7 @@ public class TiffImageWriter extends SpatialImageWriter {
         //-- a new distinct map for each layer --//
         headProperties = new TreeMap<>();
         write(image, headProperties, param, ifdPosition);
+        writeOverviews(image, param);
     }
 
     /**
@@ -659,6 +685,142 @@ public class TiffImageWriter extends SpatialImageWriter {
         write(image, headProperties, null, ifdPosition);
     }
 
+    /**
+     * Write reduced resolution images of given image after it, as many as asked by
+     * {@link TiffImageWriteParam#getOverviewCount()}.<br>
+     * Each overview is half the size of the previous written image, rounded up, and is
+     * resampled from it, by nearest neighbor for indexed colors else by bilinear interpolation.
+     * Overviews are written as thumbnails, with the tiling and compression of the image.<br>
+     * Only two levels exist at a time, each one tiled as created by {@link #createOverview}.
+     *
+     * @param image image which has just been written.
+     * @param param properties used to write image or null.
+     * @throws IOException if problem during overview creation or writing.
+     */
+    private void writeOverviews(final RenderedImage image, final ImageWriteParam param) throws IOException {
+        if (!(param instanceof TiffImageWriteParam)) return;
+        final int count = ((TiffImageWriteParam) param).getOverviewCount();
+        if (count <= 0) return;
+
+        //-- written region, as computed when image is written.
+        final Rectangle region = new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+        if (param.getSourceRegion() != null) {
+            region.setBounds(region.intersection(param.getSourceRegion()));
+        }
+        final int xOffset = param.getSubsamplingXOffset();
+        final int yOffset = param.getSubsamplingYOffset();
+        region.x      += xOffset;
+        region.y      += yOffset;
+        region.width  -= xOffset;
+        region.height -= yOffset;
+        if (region.isEmpty()) return;
+        final int xSubsampling = param.getSourceXSubsampling();
+        final int ySubsampling = param.getSourceYSubsampling();
+        int width  = (region.width  + xSubsampling - 1) / xSubsampling;
+        int height = (region.height + ySubsampling - 1) / ySubsampling;
+
+        final ImageWriteParam overviewParam = getDefaultWriteParam();
+        if (param.getTilingMode() == ImageWriteParam.MODE_EXPLICIT) {
+            try {
+                overviewParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+                overviewParam.setTiling(param.getTileWidth(), param.getTileHeight(), 0, 0);
+            } catch (IllegalStateException ex) {
+                //-- tiles dimensions not set, overviews are written by strips.
+                overviewParam.setTilingMode(ImageWriteParam.MODE_DISABLED);
+            }
+        }
+        if (param.canWriteCompressed() && param.getCompressionMode() == ImageWriteParam.MODE_EXPLICIT) {
+            overviewParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            overviewParam.setCompressionType(param.getCompressionType());
+        }
+
+        final Dimension tileSize = (overviewParam.getTilingMode() == ImageWriteParam.MODE_EXPLICIT)
+                ? new Dimension(overviewParam.getTileWidth(), overviewParam.getTileHeight()) : null;
+        final InterpolationCase interpolation = (image.getColorModel() instanceof IndexColorModel)
+                ? InterpolationCase.NEIGHBOR : InterpolationCase.BILINEAR;
+        /*
+         * Overview pixel center (i, j) is in the middle of 2 x 2 pixels of the previous image,
+         * for the first overview written pixels are picked with subsampling in source image.
+         */
+        RenderedImage source = image;
+        double scaleX = 2 * xSubsampling, translateX = region.x + xSubsampling / 2.0;
+        double scaleY = 2 * ySubsampling, translateY = region.y + ySubsampling / 2.0;
+        try {
+            for (int level = 0; level < count && (width > 1 || height > 1); level++) {
+                width  = (width  + 1) / 2;
+                height = (height + 1) / 2;
+                final RenderedImage overview = createOverview(source, width, height, tileSize,
+                        new AffineTransform2D(scaleX, 0, 0, scaleY, translateX, translateY), interpolation);
+                //-- previous level is not needed anymore
+                release(source, image);
+                source = overview;
+
+                assert headProperties == null;
+                //-- a new distinct map for each layer --//
+                headProperties = new TreeMap<>();
+                //-- add reduced resolution tiff tag --//
+                addProperty(NewSubfileType, TYPE_LONG, 1, new long[]{1}, headProperties);
+                write(overview, headProperties, overviewParam, ifdPosition);
+
+                scaleX     = scaleY     = 2;
+                translateX = translateY = 0.5;
+            }
+        } finally {
+            release(source, image);
+        }
+    }
+
+    /**
+     * Create an overview resampled from given source image.<br>
+     * When the source has a color model, the overview is a {@link WritableLargeRenderedImage}:
+     * it is resampled by tiles and its tiles are swapped on disk by {@link LargeCache} when
+     * they exceed the cache memory, so an overview level is never held in a single raster.
+     *
+     * @param source image to resample.
+     * @param width overview width.
+     * @param height overview height.
+     * @param tileSize overview tile size, or {@code null} for default tile size.
+     * @param overviewToSource transform from overview pixel coordinates to source pixel coordinates.
+     * @param interpolation interpolation used to resample source.
+     * @return filled overview.
+     * @throws IOException if resampling failed.
+     */
+    static WritableRenderedImage createOverview(final RenderedImage source, final int width, final int height,
+            final Dimension tileSize, final AffineTransform2D overviewToSource, final InterpolationCase interpolation)
+            throws IOException {
+        final ColorModel cm  = source.getColorModel();
+        final SampleModel sm = source.getSampleModel();
+        final WritableRenderedImage overview;
+        if (cm != null) {
+            overview = new WritableLargeRenderedImage(0, 0, width, height, tileSize, 0, 0, cm, sm);
+        } else {
+            final int tileWidth  = Math.min(width,  (tileSize != null) ? tileSize.width  : 256);
+            final int tileHeight = Math.min(height, (tileSize != null) ? tileSize.height : 256);
+            overview = new TiledImage(0, 0, width, height, 0, 0, sm.createCompatibleSampleModel(tileWidth, tileHeight), null);
+        }
+        try {
+            final Resample resample = new Resample(overviewToSource, overview, source, interpolation,
+                    ResampleBorderComportement.EXTRAPOLATION, null);
+            resample.fillImage(true);
+        } catch (TransformException ex) {
+            release(overview, null);
+            throw new IOException(ex);
+        }
+        return overview;
+    }
+
+    /**
+     * Release tiles of an overview from the {@link LargeCache}.
+     *
+     * @param overview overview to release.
+     * @param image image given by the user, never released.
+     */
+    private static void release(final RenderedImage overview, final RenderedImage image) {
+        if (overview != image && overview instanceof WritableLargeRenderedImage) {
+            LargeCache.getInstance().removeTiles(overview);
+        }
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -1069,6 +1231,17 @@ public class TiffImageWriter extends SpatialImageWriter {
      */
     private void writeImage(final RenderedImage image, final Map<Integer, Map> tagsProperties,  final ImageWriteParam param) throws IOException {
 
+        //-- compressed blocks are encoded in parallel when written in a file, deflate is only supported this way --//
+        if (compression == 8 || (compression == 5 && fileChannel != null)) {
+            if (TiffBlockEncoder.isSupported(image, bitPerSample, compression)) {
+                writeImageByBlocks(image, param);
+                return;
+            }
+            if (compression == 8) {
+                throw new IIOException(error(Errors.Keys.IllegalParameterValue_2, "compression", deflate));
+            }
+        }
+
         //-- search strip or tile properties --//
         for (int tag : tagsProperties.keySet()) {
             if (tag == TileByteCounts || tag == TileLength || tag == TileWidth || tag == TileOffsets) {
@@ -1084,6 +1257,71 @@ public class TiffImageWriter extends SpatialImageWriter {
         throw new IllegalStateException("impossible to write image. Tile properties or strip properties don't exists.");
     }
 
+    /**
+     * Write current source image by tiles or strips, as defined by image properties,
+     * with a {@link TiffBlockEncoder}.<br/>
+     * When the output is a file, blocks are compressed in parallel and written with positional
+     * writes after current position, then stream is moved after the last block.
+     *
+     * @param image source image which will be written.
+     * @param param Image parameter to define written area and subsampling if exists else {@code null}.
+     * @throws IOException if problem during image writing.
+     */
+    private void writeImageByBlocks(final RenderedImage image, final ImageWriteParam param) throws IOException {
+        final SampleModel sm     = image.getSampleModel();
+        final int planes         = (getPlanarConfiguration(sm) == 2) ? sm.getNumBands() : 1;
+        final boolean tiled      = (currentImgTW != 0 && currentImgTH != 0);
+        final int blockWidth     = (tiled) ? currentImgTW : destRegion.width;
+        final int blockHeight    = (tiled) ? currentImgTH : 1; //-- one row for one strip, see addStripOffsetProperties.
+        final int subsampleX     = (param != null) ? param.getSourceXSubsampling() : 1;
+        final int subsampleY     = (param != null) ? param.getSourceYSubsampling() : 1;
+
+        //-- source region is translated by destination offsets, see computeRegions.
+        final int srcOffX = imageBoundary.x - image.getMinX();
+        final int srcOffY = imageBoundary.y - image.getMinY();
+        final Rectangle area = new Rectangle(srcRegion);
+        area.translate(-srcOffX, -srcOffY);
+
+        final TiffBlockEncoder encoder = new TiffBlockEncoder(image, area, area.x - srcOffX, area.y - srcOffY,
+                subsampleX, subsampleY, destRegion.width, destRegion.height, blockWidth, blockHeight,
+                tiled, planes, compression, currentBO);
+        final int numBlocks     = encoder.getBlockCount();
+        final long[] offsets    = new long[numBlocks];
+        final long[] byteCounts = new long[numBlocks];
+        if (fileChannel != null) {
+            final long position = channel.getStreamPosition();
+            channel.flush();
+            channel.seek(encoder.write(fileChannel, null, position, offsets, byteCounts));
+        } else {
+            encoder.write(null, channel, 0, offsets, byteCounts);
+        }
+
+        final short arrayType = (isBigTIFF) ? TYPE_ULONG : TYPE_UINT;
+        final Object offsetArray;
+        final Object byteCountArray;
+        if (isBigTIFF) {
+            offsetArray    = offsets;
+            byteCountArray = byteCounts;
+        } else {
+            final int[] intOffsets    = new int[numBlocks];
+            final int[] intByteCounts = new int[numBlocks];
+            for (int i = 0; i < numBlocks; i++) {
+                //-- classic TIFF offsets are unsigned 32 bits integers.
+                if (offsets[i] + byteCounts[i] > 0xFFFFFFFFL) {
+                    throw new IIOException("Image data exceeds 4 GiB from the file start at block "+i
+                            +", which can not be addressed by a classic TIFF file, use BigTIFF format.");
+                }
+                intOffsets[i]    = (int) offsets[i];
+                intByteCounts[i] = (int) byteCounts[i];
+            }
+            offsetArray    = intOffsets;
+            byteCountArray = intByteCounts;
+        }
+        writeByteCountAndOffsets(byteCountTagPosition, arrayType, byteCountArray, offsetTagPosition, arrayType, offsetArray);
+        //-- add current offset array in current headProperties --//
+        addProperty((tiled) ? TileOffsets : StripOffsets, arrayType, numBlocks, offsetArray, headProperties);
+    }
+
     /**
      * Travel down metadata tree and store metadata properties in {@link Map} properties.
      *
@@ -1478,6 +1716,8 @@ public class TiffImageWriter extends SpatialImageWriter {
                     compression = 5;
                 } else if (packbits.equalsIgnoreCase(comp)) {
                     compression = 32773;
+                } else if (deflate.equalsIgnoreCase(comp)) {
+                    compression = 8;
                 } else {
                     throw new IllegalStateException("the compression type : "+comp+". Is not known. Impossible to write image.");
                 }
@@ -3432,11 +3672,11 @@ public class TiffImageWriter extends SpatialImageWriter {
 
             final WritableByteChannel wBC;
             if (output instanceof String) {
-                wBC = new FileOutputStream((String) output).getChannel();
+                wBC = fileChannel = new FileOutputStream((String) output).getChannel();
             } else if (output instanceof Path) {
-                wBC = Files.newByteChannel((Path)output, CREATE, READ, WRITE);
+                wBC = fileChannel = FileChannel.open((Path)output, CREATE, READ, WRITE);
             } else if (output instanceof File) {
-                wBC = new FileOutputStream((File)output).getChannel();
+                wBC = fileChannel = new FileOutputStream((File)output).getChannel();
             } else if (output instanceof FileOutputStream) {
                 ((FileOutputStream) output).flush();
                 wBC = ((FileOutputStream) output).getChannel();
@@ -3521,7 +3761,8 @@ public class TiffImageWriter extends SpatialImageWriter {
         } catch (IOException ex) {
             Logging.getLogger("org.geotoolkit.image.io.plugin").log(Level.SEVERE, null, ex);
         }
-        channel = null;
+        channel     = null;
+        fileChannel = null;
     }
 
     /**
@@ -3545,7 +3786,8 @@ public class TiffImageWriter extends SpatialImageWriter {
         } catch (IOException ex) {
             Logging.getLogger("org.geotoolkit.image.io.plugin").log(Level.SEVERE, null, ex);
         }
-        channel = null;
+        channel     = null;
+        fileChannel = null;
         super.setOutput(out);
     }
 
@@ -98,6 +98,7 @@ public final class GeoTiffConstants {
     public static final int SMinSampleValue             = 0x0154;
     public static final int SMaxSampleValue             = 0x0155;
     public static final int TransferRange               = 0x0156;
+    public static final int JPEGTables                  = 0x015B;
     public static final int JPEGProc                    = 0x0200;
     public static final int JPEGInterchangeFormat       = 0x0201;
     public static final int JPEGInterchangeFormatLength = 0x0202;
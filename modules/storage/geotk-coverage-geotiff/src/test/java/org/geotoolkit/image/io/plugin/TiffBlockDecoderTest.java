@@ -0,0 +1,259 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import javax.imageio.IIOException;
+import javax.imageio.ImageReadParam;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Read Deflate compressed images with predictors, written by hand,
+ * through the {@link TiffBlockDecoder} of {@link TiffImageReader}.
+ *
+ * @module pending
+ */
+public class TiffBlockDecoderTest extends org.geotoolkit.test.TestBase {
+
+    private static final int WIDTH  = 37;
+    private static final int HEIGHT = 23;
+
+    /**
+     * Big endian tiled unsigned shorts, two bands, horizontal differencing.
+     */
+    @Test
+    public void ushortTiledPredictorTest() throws IOException {
+        final int bands = 2, tileWidth = 16, tileHeight = 16;
+        final double[] values = createValues(bands, 65536);
+        final int numXTiles = (WIDTH  + tileWidth  - 1) / tileWidth;
+        final int numYTiles = (HEIGHT + tileHeight - 1) / tileHeight;
+        final List<byte[]> blocks = new ArrayList<>();
+        for (int ty = 0; ty < numYTiles; ty++) {
+            for (int tx = 0; tx < numXTiles; tx++) {
+                final ByteBuffer buffer = ByteBuffer.allocate(tileWidth * tileHeight * bands * 2).order(ByteOrder.BIG_ENDIAN);
+                for (int y = 0; y < tileHeight; y++) {
+                    final int[] row = new int[tileWidth * bands];
+                    for (int x = 0; x < tileWidth; x++) {
+                        for (int b = 0; b < bands; b++) {
+                            row[x * bands + b] = (int) sample(values, bands, tx * tileWidth + x, ty * tileHeight + y, b);
+                        }
+                    }
+                    for (int i = row.length - 1; i >= bands; i--) row[i] -= row[i - bands];
+                    for (int v : row) buffer.putShort((short) v);
+                }
+                blocks.add(deflate(buffer.array()));
+            }
+        }
+        final File file = writeTiff(ByteOrder.BIG_ENDIAN, bands, 16, 1, 2, tileWidth, tileHeight, blocks);
+        checkRead(file, values, bands);
+    }
+
+    /**
+     * Little endian floats in strips, floating point predictor.
+     */
+    @Test
+    public void floatStripPredictorTest() throws IOException {
+        final int bands = 1, rowsPerStrip = 5;
+        final double[] values = createValues(bands, 0);
+        final List<byte[]> blocks = new ArrayList<>();
+        for (int y0 = 0; y0 < HEIGHT; y0 += rowsPerStrip) {
+            final int rows = Math.min(rowsPerStrip, HEIGHT - y0);
+            final int rowLength = WIDTH * bands;
+            final byte[] strip = new byte[rows * rowLength * 4];
+            for (int r = 0; r < rows; r++) {
+                final int start = r * rowLength * 4;
+                for (int k = 0; k < rowLength; k++) {
+                    final int bits = Float.floatToIntBits((float) values[(y0 + r) * rowLength + k]);
+                    for (int b = 0; b < 4; b++) {
+                        strip[start + b * rowLength + k] = (byte) (bits >>> (24 - 8 * b));
+                    }
+                }
+                for (int i = start + rowLength * 4 - 1; i >= start + bands; i--) strip[i] -= strip[i - bands];
+            }
+            blocks.add(deflate(strip));
+        }
+        final File file = writeTiff(ByteOrder.LITTLE_ENDIAN, bands, 32, 3, 3, WIDTH, rowsPerStrip, blocks);
+        checkRead(file, values, bands);
+    }
+
+    /**
+     * Horizontal differencing does not apply to floating point samples.
+     */
+    @Test
+    public void floatHorizontalPredictorTest() {
+        try {
+            new TiffBlockDecoder(null, ByteOrder.BIG_ENDIAN, 8, 2, false, null, false, WIDTH, HEIGHT, WIDTH, 5,
+                    new long[5], new long[5], 1, DataBuffer.TYPE_FLOAT);
+            fail("Predictor 2 on floats should be rejected.");
+        } catch (IIOException ex) {
+            //ok
+        }
+    }
+
+    private static double[] createValues(final int bands, final int maxValue) {
+        final Random random = new Random(42);
+        final double[] values = new double[WIDTH * HEIGHT * bands];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (maxValue > 0) ? random.nextInt(maxValue) : (float) (random.nextGaussian() * 1000);
+        }
+        return values;
+    }
+
+    private static double sample(final double[] values, final int bands, final int x, final int y, final int b) {
+        return (x < WIDTH && y < HEIGHT) ? values[(y * WIDTH + x) * bands + b] : 0;
+    }
+
+    private static byte[] deflate(final byte[] data) {
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        final byte[] buffer = new byte[data.length * 2 + 64];
+        final int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Read whole image, then a subsampled region with the same decoder, and compare with expected values.
+     */
+    private static void checkRead(final File file, final double[] values, final int bands) throws IOException {
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            reader.setInput(file);
+            Raster raster = reader.read(0, null).getRaster();
+            assertEquals(WIDTH,  raster.getWidth());
+            assertEquals(HEIGHT, raster.getHeight());
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int b = 0; b < bands; b++) {
+                        assertEquals(sample(values, bands, x, y, b), raster.getSampleDouble(x, y, b), 0.0);
+                    }
+                }
+            }
+
+            final Rectangle region = new Rectangle(5, 3, 30, 17);
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(region);
+            param.setSourceSubsampling(3, 2, 0, 0);
+            raster = reader.read(0, param).getRaster();
+            assertEquals(10, raster.getWidth());
+            assertEquals(9,  raster.getHeight());
+            for (int j = 0; j < raster.getHeight(); j++) {
+                for (int i = 0; i < raster.getWidth(); i++) {
+                    for (int b = 0; b < bands; b++) {
+                        assertEquals(sample(values, bands, region.x + 3 * i, region.y + 2 * j, b),
+                                raster.getSampleDouble(i, j, b), 0.0);
+                    }
+                }
+            }
+        } finally {
+            reader.dispose();
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * Write a single image TIFF file with Deflate compressed blocks.
+     *
+     * @param blockWidth tile width, or image width for strips.
+     * @param blockHeight tile height, or rows per strip if block width is image width.
+     */
+    private static File writeTiff(final ByteOrder order, final int bands, final int bitsPerSample,
+            final int sampleFormat, final int predictor, final int blockWidth, final int blockHeight,
+            final List<byte[]> blocks) throws IOException {
+        final boolean tiled = (blockWidth != WIDTH);
+        final long[] offsets = new long[blocks.size()];
+        final long[] counts  = new long[blocks.size()];
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(order);
+        buffer.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'M' : 'I'));
+        buffer.put(buffer.get(0));
+        buffer.putShort((short) 42);
+        buffer.putInt(0); //-- IFD position, written later.
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = buffer.position();
+            counts[i]  = blocks.get(i).length;
+            buffer.put(blocks.get(i));
+        }
+        final long[] bps = new long[bands];
+        final long[] sf  = new long[bands];
+        Arrays.fill(bps, bitsPerSample);
+        Arrays.fill(sf,  sampleFormat);
+
+        //-- entries sorted by tag : tag, type, values.
+        final List<Object[]> entries = new ArrayList<>();
+        entries.add(new Object[]{256, 4, new long[]{WIDTH}});
+        entries.add(new Object[]{257, 4, new long[]{HEIGHT}});
+        entries.add(new Object[]{258, 3, bps});
+        entries.add(new Object[]{259, 3, new long[]{8}});
+        entries.add(new Object[]{262, 3, new long[]{1}});
+        if (!tiled) entries.add(new Object[]{273, 4, offsets});
+        entries.add(new Object[]{277, 3, new long[]{bands}});
+        if (!tiled) entries.add(new Object[]{278, 4, new long[]{blockHeight}});
+        if (!tiled) entries.add(new Object[]{279, 4, counts});
+        entries.add(new Object[]{284, 3, new long[]{1}});
+        entries.add(new Object[]{317, 3, new long[]{predictor}});
+        if (tiled) entries.add(new Object[]{322, 4, new long[]{blockWidth}});
+        if (tiled) entries.add(new Object[]{323, 4, new long[]{blockHeight}});
+        if (tiled) entries.add(new Object[]{324, 4, offsets});
+        if (tiled) entries.add(new Object[]{325, 4, counts});
+        entries.add(new Object[]{339, 3, sf});
+
+        if ((buffer.position() & 1) != 0) buffer.put((byte) 0);
+        final int ifd = buffer.position();
+        buffer.putInt(4, ifd);
+        int extra = ifd + 2 + entries.size() * 12 + 4;
+        buffer.putShort((short) entries.size());
+        for (Object[] entry : entries) {
+            final int type = (Integer) entry[1];
+            final long[] array = (long[]) entry[2];
+            final int size = (type == 3) ? 2 : 4;
+            buffer.putShort((short) (int) (Integer) entry[0]);
+            buffer.putShort((short) type);
+            buffer.putInt(array.length);
+            final int pos = buffer.position();
+            if (array.length * size <= 4) {
+                buffer.position(pos);
+            } else {
+                buffer.putInt(extra);
+                buffer.position(extra);
+                extra += array.length * size;
+            }
+            for (long v : array) {
+                if (size == 2) buffer.putShort((short) v);
+                else buffer.putInt((int) v);
+            }
+            buffer.position(pos + 4);
+        }
+        buffer.putInt(0);
+        final File file = File.createTempFile("blockDecoder", ".tiff");
+        Files.write(file.toPath(), Arrays.copyOf(buffer.array(), extra));
+        return file;
+    }
+}
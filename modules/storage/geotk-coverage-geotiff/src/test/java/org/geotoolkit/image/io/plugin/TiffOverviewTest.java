@@ -0,0 +1,178 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.awt.image.WritableRenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageWriteParam;
+import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
+import org.geotoolkit.image.interpolation.InterpolationCase;
+import org.geotoolkit.image.io.large.LargeCache;
+import org.geotoolkit.image.io.large.WritableLargeRenderedImage;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Write an image with its overviews, then read it with subsamplings
+ * which are resolved from the overviews.
+ *
+ * @module pending
+ */
+public class TiffOverviewTest extends org.geotoolkit.test.TestBase {
+
+    private static final int WIDTH  = 100;
+    private static final int HEIGHT = 60;
+
+    @Test
+    public void overviewReadTest() throws IOException {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        final WritableRaster raster = image.getRaster();
+        final Random random = new Random(42);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, random.nextInt(256));
+            }
+        }
+
+        final File file = File.createTempFile("overviews", ".tiff");
+        final TiffImageWriter writer = new TiffImageWriter(null);
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            final TiffImageWriteParam writeParam = (TiffImageWriteParam) writer.getDefaultWriteParam();
+            writeParam.setOverviewCount(3);
+            writer.setOutput(file);
+            writer.write(image, writeParam);
+            writer.dispose();
+
+            reader.setInput(file);
+            assertEquals(1, reader.getNumImages(true));
+            assertEquals(3, reader.getNumThumbnails(0));
+            final Raster overview0 = reader.readThumbnail(0, 0).getRaster();
+            final Raster overview1 = reader.readThumbnail(0, 1).getRaster();
+            final Raster overview2 = reader.readThumbnail(0, 2).getRaster();
+            assertEquals(new Rectangle(0, 0, 50, 30), overview0.getBounds());
+            assertEquals(new Rectangle(0, 0, 25, 15), overview1.getBounds());
+            assertEquals(new Rectangle(0, 0, 13, 8),  overview2.getBounds());
+
+            //-- full resolution
+            Raster read = reader.read(0, reader.getDefaultReadParam()).getRaster();
+            assertEquals(image.getRaster().getBounds(), read.getBounds());
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(raster.getSample(x, y, 0), read.getSample(x, y, 0));
+                }
+            }
+
+            //-- subsampling multiple of overview factor : pixels read from second overview.
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(4, 4, 0, 0);
+            read = reader.read(0, param).getRaster();
+            assertEquals(new Rectangle(0, 0, 25, 15), read.getBounds());
+            for (int y = 0; y < read.getHeight(); y++) {
+                for (int x = 0; x < read.getWidth(); x++) {
+                    assertEquals(overview1.getSample(x, y, 0), read.getSample(x, y, 0));
+                }
+            }
+
+            //-- subsampling and region not aligned on overview pixels : pixels picked from first overview.
+            final Rectangle region = new Rectangle(5, 3, 90, 50);
+            param.setSourceRegion(region);
+            param.setSourceSubsampling(3, 3, 0, 0);
+            read = reader.read(0, param).getRaster();
+            assertEquals(new Rectangle(0, 0, 30, 17), read.getBounds());
+            for (int y = 0; y < read.getHeight(); y++) {
+                for (int x = 0; x < read.getWidth(); x++) {
+                    assertEquals(overview0.getSample((region.x + 3 * x) / 2, (region.y + 3 * y) / 2, 0),
+                                 read.getSample(x, y, 0));
+                }
+            }
+        } finally {
+            reader.dispose();
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * Overviews larger than a tile are resampled in tiles held by the large image cache,
+     * then written by tiles.
+     */
+    @Test
+    public void tiledOverviewTest() throws IOException {
+        final int width  = 1100;
+        final int height = 700;
+        //-- pixel values are constant in each 2 x 2 block, so interpolated overview values are exact.
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        final WritableRaster raster = image.getRaster();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setSample(x, y, 0, blockValue(x / 2, y / 2));
+            }
+        }
+
+        final WritableRenderedImage overview = TiffImageWriter.createOverview(image, width / 2, height / 2,
+                new Dimension(128, 128), new AffineTransform2D(2, 0, 0, 2, 0.5, 0.5), InterpolationCase.BILINEAR);
+        try {
+            assertTrue(overview instanceof WritableLargeRenderedImage);
+            assertEquals(5, overview.getNumXTiles());
+            assertEquals(3, overview.getNumYTiles());
+            final Raster tile = overview.getTile(4, 2);
+            assertEquals(new Rectangle(512, 256, 38, 94), tile.getBounds());
+            assertEquals(blockValue(549, 349), tile.getSample(549, 349, 0));
+        } finally {
+            LargeCache.getInstance().removeTiles(overview);
+        }
+
+        final File file = File.createTempFile("overviews", ".tiff");
+        final TiffImageWriter writer = new TiffImageWriter(null);
+        final TiffImageReader reader = new TiffImageReader(null);
+        try {
+            final TiffImageWriteParam writeParam = (TiffImageWriteParam) writer.getDefaultWriteParam();
+            writeParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setTiling(128, 128, 0, 0);
+            writeParam.setOverviewCount(1);
+            writer.setOutput(file);
+            writer.write(image, writeParam);
+            writer.dispose();
+
+            reader.setInput(file);
+            assertEquals(1, reader.getNumThumbnails(0));
+            final Raster overview0 = reader.readThumbnail(0, 0).getRaster();
+            assertEquals(new Rectangle(0, 0, width / 2, height / 2), overview0.getBounds());
+            for (int y = 0; y < height / 2; y++) {
+                for (int x = 0; x < width / 2; x++) {
+                    assertEquals(blockValue(x, y), overview0.getSample(x, y, 0));
+                }
+            }
+        } finally {
+            reader.dispose();
+            Files.delete(file.toPath());
+        }
+    }
+
+    private static int blockValue(final int x, final int y) {
+        return (3 * x + 5 * y) & 0xFF;
+    }
+}
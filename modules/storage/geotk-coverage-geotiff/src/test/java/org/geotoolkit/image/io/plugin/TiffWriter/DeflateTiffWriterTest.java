@@ -0,0 +1,33 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.plugin.TiffWriter;
+
+import org.geotoolkit.image.io.plugin.TiffImageWriteParam;
+
+import java.io.IOException;
+
+/**
+ * {@link TestTiffImageWriter} implementation which write image with Deflate compression.
+ *
+ * @see TiffImageWriteParam#compressionTypes
+ */
+public strictfp class DeflateTiffWriterTest extends TestTiffImageWriter {
+
+    public DeflateTiffWriterTest() throws IOException {
+        super("Deflate");
+    }
+}
@@ -59,4 +59,20 @@ public class BilinearInterpolation extends SeparableInterpolation {
         assert (f.length == 2) : " bilinear interpolation table not conform";
         return (t-t0)*(f[1]-f[0]) + f[0];
     }
+
+    /**
+     * Compute bilinear interpolation of all bands from the 4 window samples.
+     * {@inheritDoc }
+     */
+    @Override
+    int interpolateWindow(final double x, final double y, final double[] dest, int destOff) {
+        final double tx = x - minX;
+        final double ty = y - minY;
+        for (int b = 0, w = 0; b < numBands; b++, w += 4) {
+            final double top    = tx * (data[w + 1] - data[w])     + data[w];
+            final double bottom = tx * (data[w + 3] - data[w + 2]) + data[w + 2];
+            dest[destOff++] = ty * (bottom - top) + top;
+        }
+        return destOff;
+    }
 }
@@ -98,6 +98,12 @@ public abstract class Interpolation {
      * Define boundary which don't accept extrapolation.
      */
     protected final int boundMinX, boundMinY, boundMaxX, boundMaxY;
+
+    /**
+     * Direct access to source image samples used by batch interpolations,
+     * or {@code null} if samples can only be read through the iterator.
+     */
+    final RasterSamples samples;
     
     /**
      * Build an Interpolation object initialize by the given parameter.
@@ -140,6 +146,7 @@ public abstract class Interpolation {
         } else {
             this.fillValue = fillValue;
         }
+        this.samples = RasterSamples.create(pixelIterator);
     }
 
     public Interpolation(Interpolation source) {
@@ -161,6 +168,7 @@ public abstract class Interpolation {
         result          = new double[numBands];
         this.fillValue  = source.fillValue;
         this.borderChoice = source.borderChoice;
+        this.samples      = RasterSamples.create(pixelIterator);
     }
 
     /**
@@ -180,6 +188,40 @@ public abstract class Interpolation {
      * @return interpolate value from x, y pixel coordinate.
      */
     public abstract double[] interpolate(double x, double y);
+
+    /**
+     * <p>Interpolates all bands at several source pixel coordinates.<br/>
+     * Samples are written pixel interleaved in the destination array, {@link #getNumBands() } values by point.
+     * Points for which interpolation is not available, see {@link #checkInterpolate(double, double) },
+     * are marked as invalid and receive fill values.<br/><br/>
+     *
+     * Default implementation calls {@link #interpolate(double, double, int) } for each sample,
+     * sub-classes override it to read all needed source samples at once.</p>
+     *
+     * @param srcCoords source pixel coordinates, as (x, y) pairs.
+     * @param srcOff index of the first source coordinate.
+     * @param dest array in which interpolated samples are written.
+     * @param destOff index of the first destination sample.
+     * @param valid array in which is set, for each point, {@code true} if samples have been interpolated
+     *              or {@code false} if they are fill values.
+     * @param nbPoints number of points to interpolate.
+     */
+    public void interpolate(final double[] srcCoords, int srcOff, final double[] dest, int destOff,
+                            final boolean[] valid, final int nbPoints) {
+        for (int p = 0; p < nbPoints; p++) {
+            final double x = srcCoords[srcOff++];
+            final double y = srcCoords[srcOff++];
+            valid[p] = checkInterpolate(x, y);
+            if (valid[p]) {
+                for (int b = 0; b < numBands; b++) {
+                    dest[destOff++] = interpolate(x, y, b);
+                }
+            } else {
+                System.arraycopy(fillValue, 0, dest, destOff, numBands);
+                destOff += numBands;
+            }
+        }
+    }
     
     /**
      * <p>Find minimum and maximum pixels values for each band.<br/>
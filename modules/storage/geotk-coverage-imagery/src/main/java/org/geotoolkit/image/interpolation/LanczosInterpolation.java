@@ -149,6 +149,61 @@ public class LanczosInterpolation extends Interpolation {
         return interpol;
     }
 
+    /**
+     * {@inheritDoc }
+     *
+     * <p>When source samples can be read directly, the window of each point is copied
+     * once for all bands and kernel weights are computed once by row and by column.</p>
+     */
+    @Override
+    public void interpolate(final double[] srcCoords, int srcOff, final double[] dest, int destOff,
+                            final boolean[] valid, final int nbPoints) {
+        if (samples == null) {
+            super.interpolate(srcCoords, srcOff, dest, destOff, valid, nbPoints);
+            return;
+        }
+        final double[] wx = new double[windowSide];
+        final double[] wy = new double[windowSide];
+        for (int p = 0; p < nbPoints; p++) {
+            final double x = srcCoords[srcOff++];
+            final double y = srcCoords[srcOff++];
+            valid[p] = checkInterpolate(x, y);
+            if (!valid[p]) {
+                System.arraycopy(fillValue, 0, dest, destOff, numBands);
+                destOff += numBands;
+                continue;
+            }
+            setInterpolateMin(x, y);
+            if (!samples.getWindow(minX, minY, windowSide, data)) {
+                //-- window overlaps several tiles
+                for (int b = 0; b < numBands; b++) {
+                    dest[destOff++] = interpolate(x, y, b);
+                }
+                continue;
+            }
+            for (int d = 0; d < windowSide; d++) {
+                wx[d] = getLCZt(minX + d, x);
+                wy[d] = getLCZt(minY + d, y);
+            }
+            int w = 0;
+            for (int b = 0; b < numBands; b++) {
+                double interpol = 0;
+                for (int dy = 0; dy < windowSide; dy++) {
+                    final double ky = wy[dy];
+                    for (int dx = 0; dx < windowSide; dx++) {
+                        interpol += data[w++] * wx[dx] * ky;
+                    }
+                }
+                if (interpol < minValue) {
+                    interpol = minValue;
+                } else if (interpol > maxValue) {
+                    interpol = maxValue;
+                }
+                dest[destOff++] = interpol;
+            }
+        }
+    }
+
     
     /**
      * {@inheritDoc }.
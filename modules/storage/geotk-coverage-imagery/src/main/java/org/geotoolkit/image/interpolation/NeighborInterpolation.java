@@ -82,4 +82,39 @@ public class NeighborInterpolation extends Interpolation {
         }
         return result;
     }
+
+    /**
+     * {@inheritDoc }
+     *
+     * <p>When source samples can be read directly, samples of each point are
+     * copied for all bands at once, without going through the iterator.</p>
+     */
+    @Override
+    public void interpolate(final double[] srcCoords, int srcOff, final double[] dest, int destOff,
+                            final boolean[] valid, final int nbPoints) {
+        if (samples == null) {
+            super.interpolate(srcCoords, srcOff, dest, destOff, valid, nbPoints);
+            return;
+        }
+        final double[] pixel = new double[numBands];
+        for (int p = 0; p < nbPoints; p++) {
+            final double x = srcCoords[srcOff++];
+            final double y = srcCoords[srcOff++];
+            valid[p] = checkInterpolate(x, y);
+            if (!valid[p]) {
+                System.arraycopy(fillValue, 0, dest, destOff, numBands);
+            } else {
+                final int px = (int) Math.min(maxxId, Math.round(x));
+                final int py = (int) Math.min(maxyId, Math.round(y));
+                if (samples.getWindow(px, py, 1, pixel)) {
+                    System.arraycopy(pixel, 0, dest, destOff, numBands);
+                } else {
+                    for (int b = 0; b < numBands; b++) {
+                        dest[destOff + b] = interpolate(x, y, b);
+                    }
+                }
+            }
+            destOff += numBands;
+        }
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.interpolation;
+
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.geotoolkit.image.iterator.PixelIterator;
+
+/**
+ * Direct access to the samples of an image stored with a {@link ComponentSampleModel}.<br/>
+ * Interpolation windows are copied from the data buffer arrays with one loop
+ * for each data type, without going through a {@link PixelIterator}.<br/>
+ * A window overlapping several tiles can not be read, callers should then
+ * fall back on the iterator.<br/>
+ * Current tile is kept between reads, an instance must be used by a single thread.
+ *
+ * @module pending
+ */
+final class RasterSamples {
+
+    private final RenderedImage image;
+    private final int dataType;
+    private final int numBands;
+    private final int tileWidth, tileHeight;
+    private final int tileGridXOffset, tileGridYOffset;
+    private final int minTileX, minTileY, maxTileX, maxTileY;
+
+    /**
+     * Current tile indexes and bounds, upper bounds are exclusive.
+     */
+    private int tileX = Integer.MIN_VALUE, tileY = Integer.MIN_VALUE;
+    private int tMinX, tMinY, tMaxX, tMaxY;
+
+    /**
+     * Current tile layout : array and index of sample (0, 0) of each band.
+     */
+    private final Object[] banks;
+    private final int[] offsets;
+    private int pixelStride, scanlineStride;
+
+    private RasterSamples(final RenderedImage image) {
+        this.image           = image;
+        this.dataType        = image.getSampleModel().getDataType();
+        this.numBands        = image.getSampleModel().getNumBands();
+        this.tileWidth       = image.getTileWidth();
+        this.tileHeight      = image.getTileHeight();
+        this.tileGridXOffset = image.getTileGridXOffset();
+        this.tileGridYOffset = image.getTileGridYOffset();
+        this.minTileX        = image.getMinTileX();
+        this.minTileY        = image.getMinTileY();
+        this.maxTileX        = minTileX + image.getNumXTiles();
+        this.maxTileY        = minTileY + image.getNumYTiles();
+        this.banks           = new Object[numBands];
+        this.offsets         = new int[numBands];
+    }
+
+    /**
+     * Create a direct access to the image traveled by the given iterator.
+     *
+     * @param iterator source image iterator.
+     * @return direct access or {@code null} if image samples can not be read directly.
+     */
+    static RasterSamples create(final PixelIterator iterator) {
+        final RenderedImage image = iterator.getRenderedImage();
+        if (image == null || !(image.getSampleModel() instanceof ComponentSampleModel)) return null;
+        switch (image.getSampleModel().getDataType()) {
+            case DataBuffer.TYPE_BYTE   :
+            case DataBuffer.TYPE_SHORT  :
+            case DataBuffer.TYPE_USHORT :
+            case DataBuffer.TYPE_INT    :
+            case DataBuffer.TYPE_FLOAT  :
+            case DataBuffer.TYPE_DOUBLE : return new RasterSamples(image);
+            default                     : return null;
+        }
+    }
+
+    /**
+     * Copy samples of all bands within a square window.<br/>
+     * Window is filled band after band, each band row by row :
+     * sample (dx, dy) of band b is at index {@code (b * side + dy) * side + dx}.
+     *
+     * @param minX window lower corner X coordinate.
+     * @param minY window lower corner Y coordinate.
+     * @param side window width and height.
+     * @param window destination array of length {@code numBands * side * side} at least.
+     * @return {@code false} if window is not contained in a single tile, in which case window is unchanged.
+     */
+    boolean getWindow(final int minX, final int minY, final int side, final double[] window) {
+        if (!moveTo(minX, minY) || minX + side > tMaxX || minY + side > tMaxY) return false;
+        int w = 0;
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE : {
+                for (int b = 0; b < numBands; b++) {
+                    final byte[] data = (byte[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i] & 0xFF;
+                        }
+                    }
+                }
+                break;
+            }
+            case DataBuffer.TYPE_USHORT : {
+                for (int b = 0; b < numBands; b++) {
+                    final short[] data = (short[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i] & 0xFFFF;
+                        }
+                    }
+                }
+                break;
+            }
+            case DataBuffer.TYPE_SHORT : {
+                for (int b = 0; b < numBands; b++) {
+                    final short[] data = (short[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i];
+                        }
+                    }
+                }
+                break;
+            }
+            case DataBuffer.TYPE_INT : {
+                for (int b = 0; b < numBands; b++) {
+                    final int[] data = (int[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i];
+                        }
+                    }
+                }
+                break;
+            }
+            case DataBuffer.TYPE_FLOAT : {
+                for (int b = 0; b < numBands; b++) {
+                    final float[] data = (float[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i];
+                        }
+                    }
+                }
+                break;
+            }
+            default : {
+                for (int b = 0; b < numBands; b++) {
+                    final double[] data = (double[]) banks[b];
+                    int row = offsets[b] + minY * scanlineStride + minX * pixelStride;
+                    for (int dy = 0; dy < side; dy++, row += scanlineStride) {
+                        for (int dx = 0, i = row; dx < side; dx++, i += pixelStride) {
+                            window[w++] = data[i];
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set current tile to the one which contains the given pixel.
+     *
+     * @return {@code false} if pixel is outside image tiles or if the tile can not be read directly.
+     */
+    private boolean moveTo(final int x, final int y) {
+        if (x >= tMinX && x < tMaxX && y >= tMinY && y < tMaxY) return true;
+        final int tx = (int) Math.floor((x - tileGridXOffset) / (double) tileWidth);
+        final int ty = (int) Math.floor((y - tileGridYOffset) / (double) tileHeight);
+        if (tx < minTileX || tx >= maxTileX || ty < minTileY || ty >= maxTileY) return false;
+        if (tx == tileX && ty == tileY) return false; //-- tile already rejected.
+
+        tileX = tx;
+        tileY = ty;
+        tMinX = tMinY = tMaxX = tMaxY = 0;
+        final Raster raster = image.getTile(tx, ty);
+        if (!(raster.getSampleModel() instanceof ComponentSampleModel)) return false;
+        final ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+        final DataBuffer buffer = raster.getDataBuffer();
+        final int[] bankIndices = sm.getBankIndices();
+        final int[] bandOffsets = sm.getBandOffsets();
+        for (int b = 0; b < numBands; b++) {
+            final int bank = bankIndices[b];
+            final Object data;
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE   : data = (buffer instanceof DataBufferByte)   ? ((DataBufferByte)   buffer).getData(bank) : null; break;
+                case DataBuffer.TYPE_SHORT  : data = (buffer instanceof DataBufferShort)  ? ((DataBufferShort)  buffer).getData(bank) : null; break;
+                case DataBuffer.TYPE_USHORT : data = (buffer instanceof DataBufferUShort) ? ((DataBufferUShort) buffer).getData(bank) : null; break;
+                case DataBuffer.TYPE_INT    : data = (buffer instanceof DataBufferInt)    ? ((DataBufferInt)    buffer).getData(bank) : null; break;
+                case DataBuffer.TYPE_FLOAT  : data = (buffer instanceof DataBufferFloat)  ? ((DataBufferFloat)  buffer).getData(bank) : null; break;
+                default                     : data = (buffer instanceof DataBufferDouble) ? ((DataBufferDouble) buffer).getData(bank) : null;
+            }
+            if (data == null) return false;
+            banks[b] = data;
+            offsets[b] = buffer.getOffsets()[bank] + bandOffsets[b]
+                       - raster.getSampleModelTranslateY() * sm.getScanlineStride()
+                       - raster.getSampleModelTranslateX() * sm.getPixelStride();
+        }
+        pixelStride    = sm.getPixelStride();
+        scanlineStride = sm.getScanlineStride();
+        tMinX = raster.getMinX();
+        tMinY = raster.getMinY();
+        tMaxX = tMinX + raster.getWidth();
+        tMaxY = tMinY + raster.getHeight();
+        return x >= tMinX && x < tMaxX && y >= tMinY && y < tMaxY;
+    }
+}
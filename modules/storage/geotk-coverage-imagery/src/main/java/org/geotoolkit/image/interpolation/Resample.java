@@ -18,9 +18,14 @@ package org.geotoolkit.image.interpolation;
 
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.geometry.GeneralEnvelope;
 import org.apache.sis.util.ArgumentChecks;
@@ -28,6 +33,7 @@ import org.apache.sis.geometry.Envelopes;
 import org.geotoolkit.image.io.large.WritableLargeRenderedImage;
 import org.geotoolkit.image.iterator.PixelIterator;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import org.geotoolkit.internal.Threads;
 import org.geotoolkit.math.XMath;
 import org.opengis.referencing.datum.PixelInCell;
 import org.opengis.referencing.operation.MathTransform;
@@ -49,6 +55,11 @@ public class Resample {
     private static final double[] CLAMP_USHORT = new double[]{0,                 0xFFFF};
     private static final double[] CLAMP_INT    = new double[]{Integer.MIN_VALUE, Integer.MAX_VALUE};
 
+    /**
+     * Minimum number of rows of a stripe filled by a single thread.
+     */
+    private static final int MIN_STRIPE_HEIGHT = 32;
+
     /**
      * Transform multi-dimensional point (in our case pixel coordinate) from target image
      * {@code CoordinateReferenceSystem} to source image {@code CoordinateReferenceSystem}.
@@ -112,6 +123,24 @@ public class Resample {
      */
     ResampleGrid theGrid;
 
+    /**
+     * Source image and interpolation parameters, used to create an interpolation
+     * for each stripe in parallel mode. Source image is {@code null} if this
+     * resample has been created from an {@link Interpolation}.
+     */
+    private final RenderedImage imageSrc;
+    private final InterpolationCase interpolationCase;
+    private final int lanczosWindow;
+
+    /**
+     * Buffers of a destination row segment : source coordinates, interpolated samples,
+     * and for each pixel {@code true} if samples have been interpolated.
+     * Grown when needed by {@link #ensureRowCapacity(int) }.
+     */
+    private double[] rowCoords  = new double[0];
+    private double[] rowSamples = new double[0];
+    private boolean[] rowValid  = new boolean[0];
+
     /**
      * <p>Fill destination image from interpolation of source pixels.<br/>
      * Source pixel coordinate is obtained from invert transformation of destination pixel coordinates.<br/>
@@ -282,6 +311,9 @@ public class Resample {
         //-- interpolation creation --//
         PixelIterator pix = PixelIteratorFactory.createDefaultIterator(imageSrc);
         interpol          = Interpolation.create(pix, interpolation, lanczosWindow, rbc, fillValue);
+        this.imageSrc          = imageSrc;
+        this.interpolationCase = interpolation;
+        this.lanczosWindow     = lanczosWindow;
 
         this.rbc   = rbc;
         this.clamp = getClamp(imageDest.getSampleModel().getDataType());
@@ -336,12 +368,39 @@ public class Resample {
         this.destIterator              = PixelIteratorFactory.createDefaultWriteableIterator(this.imageDest, this.imageDest, resampleArea);
         this.destToSourceMathTransform = mathTransform;
         this.interpol                  = interpol;
+        this.imageSrc                  = null;
+        this.interpolationCase         = null;
+        this.lanczosWindow             = 0;
         srcCoords  = new double[2];
         destCoords = new double[2];
         this.rbc   = rbc;
         this.clamp = getClamp(imageDest.getSampleModel().getDataType());
     }
 
+    /**
+     * Create a resample filling a stripe of the base resample destination area,
+     * with its own destination iterator and interpolation.
+     *
+     * @param base resample to split.
+     * @param stripe destination image area filled by this resample.
+     */
+    private Resample(final Resample base, final Rectangle stripe) {
+        this.imageDest                 = base.imageDest;
+        this.numBands                  = base.numBands;
+        this.fillValue                 = base.fillValue;
+        this.destToSourceMathTransform = base.destToSourceMathTransform;
+        this.imageSrc                  = base.imageSrc;
+        this.interpolationCase         = base.interpolationCase;
+        this.lanczosWindow             = base.lanczosWindow;
+        this.rbc                       = base.rbc;
+        this.clamp                     = base.clamp;
+        this.destIterator = PixelIteratorFactory.createDefaultWriteableIterator(imageDest, imageDest, stripe);
+        this.interpol     = Interpolation.create(PixelIteratorFactory.createDefaultIterator(imageSrc),
+                                                  interpolationCase, lanczosWindow, rbc, fillValue);
+        srcCoords  = new double[2];
+        destCoords = new double[2];
+    }
+
     private static double[] getClamp(int dataType) {
         switch (dataType) {
             /* Because DataBuffer.TYPE_BYTE is define as UByte. */
@@ -416,7 +475,7 @@ public class Resample {
                 final int interMaxRastX = StrictMath.min(rMaxX, rectBound.x + rectBound.width);
 
                 //-- define minimum and maximum needed grid index in X direction.
-                final int gCMinX = (int) (interMinRastX - minGridY / stepX) + minGridXIndex;
+                final int gCMinX = (int) ((interMinRastX - minGridX) / stepX) + minGridXIndex;
                 /*
                  * Max grid index in X direction equal Math.ceil(intersectionX / stepX) + 1.
                  * With + 1 because gridWidth = sub-division on X axis + 1;
@@ -437,6 +496,7 @@ public class Resample {
 
                 final int interMaxY = StrictMath.min(interMaxRastY, gCMaxY * stepY);
                 final int interMaxX = StrictMath.min(interMaxRastX, gCMaxX * stepX);
+                ensureRowCapacity(interMaxX - interMinX);
 
                 //-- define grid array index.
                 int rowId0 = gCMinY * gridLineStride + (gCMinX << 1);
@@ -465,6 +525,7 @@ public class Resample {
                     id11 = rowId1 + 2;
                     gx   = gCMinX;
                     int px = interMinX;
+                    int coordId = 0;
 
                     //-- Define pixel coordinate in X direction to pass at next grid cell.
                     int nextGIdX = (gCMinX + 1) * stepX;// + (stepX >>> 1);
@@ -570,23 +631,12 @@ public class Resample {
                         //-- interpolation on Y coordinates
                         final double srcY = tx_t0x * (coeff1Y + v10Y - v00Y) + (1 - tx_t0x) * coeff0Y + v00Y;
 
-                        int band = 0;
-                        //-- pixel value interpolation
-                        //-- if destination coordinate transformation is out of source boundary.
-                        if (!interpol.checkInterpolate(srcX, srcY)) {
-                            while (band < numBands && destIterator.next()) {
-                                if (fillValue != null) destIterator.setSampleDouble(fillValue[band]);
-                                band++;
-                            }
-                        } else {
-                            while (band < numBands && destIterator.next()) {
-                                double sample = interpol.interpolate(srcX, srcY, band++);
-                                if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
-                                destIterator.setSampleDouble(sample);
-                            }
-                        }
+                        rowCoords[coordId++] = srcX;
+                        rowCoords[coordId++] = srcY;
                         px++;
                     }
+                    //-- pixel value interpolation
+                    writeRow(coordId >> 1);
                     py++;
                 }
 
@@ -601,71 +651,84 @@ public class Resample {
 
     /**
      * Fill image without any grid, all pixels coordinates are transform by given {@link MathTransform}.
+     * Destination area is traveled by rows of tiles, coordinates of a row are transformed
+     * and interpolated at once.
      *
+     * @param destCoordToSource transformation from destination to source pixel coordinates,
+     *        or {@code null} to use {@link #destToSourceMathTransform}.
      * @throws TransformException
      */
-    private void fillImageByAffineTransform(AffineTransform destCoordToSource) throws TransformException {
-        int band;
-        while (destIterator.next()) {
-            band = 0;
-            //-- Compute source coordinate from destination coordinate and mathtransform.
-            destCoords[0] = destIterator.getX();
-            destCoords[1] = destIterator.getY();
-            destCoordToSource.transform(destCoords, 0, srcCoords, 0, 1);
-
-            //-- if destination coordinate transformation is out of source boundary.
-            if (!interpol.checkInterpolate(srcCoords[0], srcCoords[1])) {
-
-                if (fillValue != null) destIterator.setSampleDouble(fillValue[band]); //Todo : find a way to avoid code duplication
-                while (++band < numBands) {
-                    destIterator.next();
-                    if (fillValue != null) destIterator.setSampleDouble(fillValue[band]);
-                }
-            } else {
-                double sample = interpol.interpolate(srcCoords[0], srcCoords[1], band);//Todo : find a way to avoid code duplication
-                if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
-                destIterator.setSampleDouble(sample);
-                while (++band < numBands) {
-                    destIterator.next();
-                    sample = interpol.interpolate(srcCoords[0], srcCoords[1], band);
-                    if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
-                    destIterator.setSampleDouble(sample);
+    private void fillImageByRows(final AffineTransform destCoordToSource) throws TransformException {
+        //-- destination area traveled by destination iterator, in the iterator order.
+        final Rectangle area  = destIterator.getBoundary(true);
+        final int tileWidth   = imageDest.getTileWidth();
+        final int tileHeight  = imageDest.getTileHeight();
+        final int offsetX     = imageDest.getTileGridXOffset();
+        final int offsetY     = imageDest.getTileGridYOffset();
+        final int minTileX    = (int) Math.floor((area.x - offsetX) / (double) tileWidth);
+        final int minTileY    = (int) Math.floor((area.y - offsetY) / (double) tileHeight);
+        final int maxTileX    = (int) Math.floor((area.x + area.width  - 1 - offsetX) / (double) tileWidth)  + 1;
+        final int maxTileY    = (int) Math.floor((area.y + area.height - 1 - offsetY) / (double) tileHeight) + 1;
+        ensureRowCapacity(Math.min(area.width, tileWidth));
+
+        for (int ty = minTileY; ty < maxTileY; ty++) {
+            final int minY = Math.max(area.y, offsetY + ty * tileHeight);
+            final int maxY = Math.min(area.y + area.height, offsetY + (ty + 1) * tileHeight);
+            for (int tx = minTileX; tx < maxTileX; tx++) {
+                final int minX  = Math.max(area.x, offsetX + tx * tileWidth);
+                final int width = Math.min(area.x + area.width, offsetX + (tx + 1) * tileWidth) - minX;
+                for (int y = minY; y < maxY; y++) {
+                    //-- Compute source coordinates from destination coordinates and mathtransform.
+                    for (int i = 0, c = 0; i < width; i++) {
+                        rowCoords[c++] = minX + i;
+                        rowCoords[c++] = y;
+                    }
+                    if (destCoordToSource != null) {
+                        destCoordToSource.transform(rowCoords, 0, rowCoords, 0, width);
+                    } else {
+                        destToSourceMathTransform.transform(rowCoords, 0, rowCoords, 0, width);
+                    }
+                    writeRow(width);
                 }
             }
         }
     }
 
     /**
-     * Fill image without any grid, all pixels coordinates are transform by given {@link MathTransform}.
-     *
-     * @throws TransformException
+     * Grow row buffers to contain at least the given number of pixels.
      */
-    private void fillImageByTransform() throws TransformException {
-        int band;
-        while (destIterator.next()) {
-            band = 0;
-            //-- Compute source coordinate from destination coordinate and mathtransform.
-            destCoords[0] = destIterator.getX();
-            destCoords[1] = destIterator.getY();
-            destToSourceMathTransform.transform(destCoords, 0, srcCoords, 0, 1);
+    private void ensureRowCapacity(final int width) {
+        if (rowValid.length < width) {
+            rowCoords  = new double[width << 1];
+            rowSamples = new double[width * numBands];
+            rowValid   = new boolean[width];
+        }
+    }
 
-            //-- if destination coordinate transformation is out of source boundary.
-            if (!interpol.checkInterpolate(srcCoords[0], srcCoords[1])) {
-                if (fillValue != null) destIterator.setSampleDouble(fillValue[band]);  //Todo : find a way to avoid code duplication
-                while (++band < numBands) {
+    /**
+     * Interpolates source pixels at coordinates stored in {@link #rowCoords} and write
+     * them in the next destination pixels traveled by destination iterator.
+     *
+     * @param width number of pixels.
+     */
+    private void writeRow(final int width) {
+        interpol.interpolate(rowCoords, 0, rowSamples, 0, rowValid, width);
+        int s = 0;
+        for (int p = 0; p < width; p++) {
+            if (rowValid[p]) {
+                for (int band = 0; band < numBands; band++) {
                     destIterator.next();
-                    if (fillValue != null) destIterator.setSampleDouble(fillValue[band]);
+                    double sample = rowSamples[s++];
+                    if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
+                    destIterator.setSampleDouble(sample);
                 }
             } else {
-                double sample = interpol.interpolate(srcCoords[0], srcCoords[1], band);  //Todo : find a way to avoid code duplication
-                if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
-                destIterator.setSampleDouble(sample);
-                while (++band < numBands) {
+                //-- destination coordinate transformation is out of source boundary.
+                for (int band = 0; band < numBands; band++) {
                     destIterator.next();
-                    sample = interpol.interpolate(srcCoords[0], srcCoords[1], band);
-                    if (clamp != null) sample = XMath.clamp(sample, clamp[0], clamp[1]);
-                    destIterator.setSampleDouble(sample);
+                    if (fillValue != null) destIterator.setSampleDouble(fillValue[band]);
                 }
+                s += numBands;
             }
         }
     }
@@ -674,31 +737,123 @@ public class Resample {
      * Fill destination image from source image pixel interpolation.
      */
     public void fillImage() throws TransformException {
+        fillImage(false);
+    }
+
+    /**
+     * Fill destination image from source image pixel interpolation.<br/>
+     * In parallel mode the destination area is split in stripes of tile rows,
+     * or of pixel rows for a {@link BufferedImage}, each stripe is filled by a different
+     * thread with its own interpolation. Source image must support concurrent reads.<br/>
+     * Parallel mode is ignored if this resample has been created from an {@link Interpolation}.
+     *
+     * @param parallel true to fill stripes of the destination image in parallel.
+     */
+    public void fillImage(final boolean parallel) throws TransformException {
+        Object object = null;
         if (destToSourceMathTransform instanceof MathTransform2D) {
             try {
                 final GridFactory gridFact = new GridFactory(0.125);
-                final Object object = gridFact.create((MathTransform2D) destToSourceMathTransform, destIterator.getBoundary(false));
-                if (object instanceof AffineTransform) {
-                    fillImageByAffineTransform((AffineTransform) object);
-                } else {
-                    theGrid = (ResampleGrid) object;
-                    fillImageByGrid();
-                }
-                return;
+                object = gridFact.create((MathTransform2D) destToSourceMathTransform, destIterator.getBoundary(false));
             } catch (TransformException ex) {
                 //-- leave to fall back
             } catch (ArithmeticException e) {
                 //-- leave to fall back
             }
         }
-        fillImageByTransform();
+        if (object instanceof ResampleGrid) {
+            theGrid = (ResampleGrid) object;
+        }
+
+        if (parallel && imageSrc != null) {
+            final List<Rectangle> stripes = getStripes();
+            if (stripes.size() > 1) {
+                final List<Callable<Object>> tasks = new ArrayList<>(stripes.size());
+                for (int i = 0, n = stripes.size(); i < n; i++) {
+                    final Resample stripe = new Resample(this, stripes.get(i));
+                    stripe.theGrid = theGrid;
+                    final Object fill = object;
+                    tasks.add(new Callable<Object>() {
+                        @Override
+                        public Object call() throws TransformException {
+                            stripe.fill(fill);
+                            return null;
+                        }
+                    });
+                }
+                try {
+                    Threads.invokeAll(tasks);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new TransformException("Interrupted while resampling image.", ex);
+                } catch (ExecutionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof TransformException) throw (TransformException) cause;
+                    if (cause instanceof RuntimeException)   throw (RuntimeException) cause;
+                    throw new TransformException(cause.getMessage(), cause);
+                }
+                return;
+            }
+        }
+        fill(object);
+    }
+
+    /**
+     * Fill destination area traveled by destination iterator.
+     *
+     * @param object {@link AffineTransform} or {@link ResampleGrid} computed by {@link GridFactory},
+     *        or {@code null} to transform each pixel coordinates.
+     */
+    private void fill(final Object object) throws TransformException {
+        if (object instanceof AffineTransform) {
+            fillImageByRows((AffineTransform) object);
+        } else if (object instanceof ResampleGrid) {
+            fillImageByGrid();
+        } else {
+            fillImageByRows(null);
+        }
+    }
+
+    /**
+     * Split destination area in stripes filled in parallel.
+     * Stripes are made of whole destination tile rows so no tile is written
+     * by two threads, except for {@link BufferedImage} which can be split
+     * in rows of pixels.
+     */
+    private List<Rectangle> getStripes() {
+        final Rectangle area = destIterator.getBoundary(true);
+        final int maxStripes = Threads.getParallelism();
+        final List<Rectangle> stripes = new ArrayList<>(maxStripes);
+        if (imageDest instanceof BufferedImage) {
+            final int nbStripes = Math.max(1, Math.min(maxStripes, area.height / MIN_STRIPE_HEIGHT));
+            for (int i = 0; i < nbStripes; i++) {
+                final int minY = area.y + (int) ((long) area.height * i / nbStripes);
+                final int maxY = area.y + (int) ((long) area.height * (i + 1) / nbStripes);
+                stripes.add(new Rectangle(area.x, minY, area.width, maxY - minY));
+            }
+        } else {
+            final int tileHeight = imageDest.getTileHeight();
+            final int offsetY    = imageDest.getTileGridYOffset();
+            final int minTileY   = (int) Math.floor((area.y - offsetY) / (double) tileHeight);
+            final int maxTileY   = (int) Math.floor((area.y + area.height - 1 - offsetY) / (double) tileHeight) + 1;
+            final int nbRows     = maxTileY - minTileY;
+            final int nbStripes  = Math.max(1, Math.min(maxStripes, nbRows));
+            for (int i = 0; i < nbStripes; i++) {
+                final int minY = Math.max(area.y,
+                        offsetY + (minTileY + (int) ((long) nbRows * i / nbStripes)) * tileHeight);
+                final int maxY = Math.min(area.y + area.height,
+                        offsetY + (minTileY + (int) ((long) nbRows * (i + 1) / nbStripes)) * tileHeight);
+                stripes.add(new Rectangle(area.x, minY, area.width, maxY - minY));
+            }
+        }
+        return stripes;
     }
 
     /**
-     * Please use {@link #fillImageByTransform() } method.
+     * Please use {@link #fillImage() } method.
      *
      * @throws TransformException
-     * @deprecated replace by {@link #fillImageByTransform() }.
+     * @deprecated replace by {@link #fillImage() }.
      */
     @Deprecated
     public void fillImagePx() throws TransformException {
@@ -42,5 +42,19 @@ public class Rescaler extends PipeLineInterpolation {
         double tmp = super.interpolate(x, y, band);
         return (tmp + translation[band]) * scale[band];
     }
+
+    /**
+     * Batch interpolation of the source, then scaled.
+     */
+    @Override
+    public void interpolate(double[] srcCoords, int srcOff, double[] dest, int destOff, boolean[] valid, int nbPoints) {
+        source.interpolate(srcCoords, srcOff, dest, destOff, valid, nbPoints);
+        for (int p = 0; p < nbPoints; p++, destOff += numBands) {
+            if (!valid[p]) continue;
+            for (int band = 0; band < numBands; band++) {
+                dest[destOff + band] = (dest[destOff + band] + translation[band]) * scale[band];
+            }
+        }
+    }
     
 }
@@ -144,6 +144,63 @@ abstract class SeparableInterpolation extends Interpolation {
         return result;
     }
     
+    /**
+     * {@inheritDoc }
+     *
+     * <p>When source samples can be read directly, the interpolation window of each
+     * point is copied once for all bands, without going through the iterator.</p>
+     */
+    @Override
+    public void interpolate(final double[] srcCoords, int srcOff, final double[] dest, int destOff,
+                            final boolean[] valid, final int nbPoints) {
+        if (samples == null) {
+            super.interpolate(srcCoords, srcOff, dest, destOff, valid, nbPoints);
+            return;
+        }
+        for (int p = 0; p < nbPoints; p++) {
+            final double x = srcCoords[srcOff++];
+            final double y = srcCoords[srcOff++];
+            valid[p] = checkInterpolate(x, y);
+            if (!valid[p]) {
+                System.arraycopy(fillValue, 0, dest, destOff, numBands);
+                destOff += numBands;
+                continue;
+            }
+            setInterpolateMin(x, y);
+            if (samples.getWindow(minX, minY, windowSide, data)) {
+                destOff = interpolateWindow(x, y, dest, destOff);
+            } else {
+                //-- window overlaps several tiles
+                for (int b = 0; b < numBands; b++) {
+                    dest[destOff++] = interpolate(x, y, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interpolates all bands from the samples window stored in {@link #data},
+     * which lower corner is ({@link #minX}, {@link #minY}).
+     *
+     * @param x pixel x coordinate.
+     * @param y pixel y coordinate.
+     * @param dest array in which interpolated samples are written.
+     * @param destOff index of the first destination sample.
+     * @return index of the next destination sample.
+     */
+    int interpolateWindow(final double x, final double y, final double[] dest, int destOff) {
+        int w = 0;
+        for (int b = 0; b < numBands; b++) {
+            for (int dy = 0; dy < windowSide; dy++) {
+                System.arraycopy(data, w, rows, 0, windowSide);
+                w += windowSide;
+                cols[dy] = interpolate1D(minX, x, rows);
+            }
+            dest[destOff++] = interpolate1D(minY, y, cols);
+        }
+        return destOff;
+    }
+
     /**
      * Fill double destination array from unknow type source array.
      * 
@@ -158,12 +215,18 @@ abstract class SeparableInterpolation extends Interpolation {
             case DataBuffer.TYPE_BYTE   : {
                 int l = -1;
                 while (++l < length) {
-                    dest[destPos++] = (double) Array.getByte(src, srcPos++);
+                    dest[destPos++] = (double) (Array.getByte(src, srcPos++) & 0xFF);
                 }
                 break;
             }
-            case DataBuffer.TYPE_SHORT  : 
             case DataBuffer.TYPE_USHORT : {
+                int l = -1;
+                while (++l < length) {
+                    dest[destPos++] = (double) (Array.getShort(src, srcPos++) & 0xFFFF);
+                }
+                break;
+            }
+            case DataBuffer.TYPE_SHORT  : {
                 int l = -1;
                 while (++l < length) {
                     dest[destPos++] = (double) Array.getShort(src, srcPos++);
@@ -53,6 +53,15 @@ public final class ImageCacheConfiguration extends Static {
      */
     public static final String KEY_CACHE_SWAP = "geotk.image.cache.swap";
 
+    /**
+     *  The {@linkplain System#getProperties() system properties} key which control
+     *  the LargeCache off heap storage.
+     *  Valid values : "true", "false"
+     *  If true LargeCache keep only a quarter of its memory size for tiles on java heap,
+     *  the remaining memory size is used to keep tiles samples in direct buffers before swapping them.
+     */
+    public static final String KEY_CACHE_OFF_HEAP = "geotk.image.cache.offheap";
+
     /**
      * Default memory size used if {@linkplain System#getProperties() system properties} {@linkplain #KEY_CACHE_MEMORY_SIZE}
      * property is not defined.
@@ -161,4 +170,24 @@ public final class ImageCacheConfiguration extends Static {
     public static void setCacheSwapEnable(boolean allowSwap) {
         System.setProperty(KEY_CACHE_SWAP, String.valueOf(allowSwap));
     }
+
+    /**
+     * Check in {@linkplain System#getProperties() system properties} for cache off heap storage configuration.
+     *
+     * @return return property value or {@code false} if property not found.
+     */
+    public static boolean isCacheOffHeapEnable() {
+        return Boolean.parseBoolean(System.getProperty(KEY_CACHE_OFF_HEAP));
+    }
+
+    /**
+     * Set cache off heap storage in {@linkplain System#getProperties() system properties}.
+     * It is not assured that LargeCache will use given value if it was already instantiated.
+     * <b>This flag should be set during application startup not during his life-cycle.</b>
+     *
+     * @param allowOffHeap flag that enable tiles storage outside of java heap.
+     */
+    public static void setCacheOffHeapEnable(boolean allowOffHeap) {
+        System.setProperty(KEY_CACHE_OFF_HEAP, String.valueOf(allowOffHeap));
+    }
 }
@@ -28,21 +28,24 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 import java.util.logging.Level;
+import static java.nio.file.StandardOpenOption.*;
 import javax.imageio.spi.ImageReaderSpi;
 import javax.imageio.spi.ImageWriterSpi;
 import org.apache.sis.util.ArgumentChecks;
-import org.apache.sis.util.collection.WeakValueHashMap;
 import org.apache.sis.util.logging.Logging;
 import org.geotoolkit.nio.IOUtilities;
 
@@ -77,6 +80,16 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
     }
     private static final Point WPOINT = new Point(0, 0);
 
+    /**
+     * Extension of tiles spilled from {@link OffHeapTileStore}, written as raw samples.
+     */
+    private static final String RAW_EXTENSION = ".raw";
+
+    /**
+     * Tile lock stripe number, should be a power of 2.
+     */
+    private static final int LOCK_STRIPES = 64;
+
     private final LargeCache cache;
     private ColorModel cm;
     private final int minTileX;
@@ -93,9 +106,20 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
     private final boolean isWritableRenderedImage;
 
     /**
-     * Tile by Tile locks.
+     * Tile locks. A fixed number of locks is shared between all tiles, avoiding a lock creation
+     * (and a global synchronization) at each tile access.
+     */
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+
+    /**
+     * Off heap tiles, shared between all cached images, or {@code null} if off heap storage is disabled.
+     */
+    private final OffHeapTileStore offHeapStore;
+
+    /**
+     * Samples organisation of tiles spilled as raw files from {@link #offHeapStore}.
      */
-    private final WeakValueHashMap<Point,ReadWriteLock> locks = new WeakValueHashMap<>(Point.class);
+    private final Map<Point, OffHeapTileStore.Layout> rawTiles = new ConcurrentHashMap<>();
 
     /**
      * Contains tiles of pointed image.
@@ -130,21 +154,16 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
 
 
     /**
-     * when you use the lock keep it until release
+     * when you use the lock keep it until release.<br/>
+     * Note : a lock is shared by several tiles, never hold two of them at the same time.
      *
      * @param key
      * @return
      */
     private ReadWriteLock getLock(final Point key){
-        ReadWriteLock lock;
-        synchronized(locks){
-            lock = locks.get(key);
-            if (lock == null) {
-                lock = new ReentrantReadWriteLock();
-                locks.put(key, lock);
-            }
-        }
-        return lock;
+        int h = key.x * 31 + key.y;
+        h ^= (h >>> 16);
+        return locks[h & (LOCK_STRIPES - 1)];
     }
 
     /**
@@ -179,6 +198,10 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
         this.riTileHeight  = ri.getTileHeight();
         this.minTileX      = ri.getMinTileX();
         this.minTileY      = ri.getMinTileY();
+        this.offHeapStore  = cache.getOffHeapStore();
+        for (int l = 0; l < LOCK_STRIPES; l++) {
+            locks[l] = new ReentrantReadWriteLock();
+        }
 
         //quad tree directory architecture.
         if (cache.isEnableSwap()) {
@@ -225,6 +248,16 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
     }
 
     private void add(Point tileCorner, WritableRaster raster) throws IOException {
+        put(tileCorner, raster);
+        //remove or cache on disk oldest raster
+        checkMap();
+    }
+
+    /**
+     * Store raster in memory without checking memory capacity.
+     * Tile lock may be held by caller.
+     */
+    private void put(Point tileCorner, WritableRaster raster) throws IOException {
         final long rasterWeight = getRasterWeight(raster);
         if (rasterWeight > cache.getCacheSizePerImage()) throw new IOException("Raster too large : " + rasterWeight
                 + " bytes, but maximum cache capacity is "+ cache.getCacheSizePerImage() +" bytes");
@@ -238,8 +271,6 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
         } finally {
             tileLock.writeLock().unlock();
         }
-        //remove or cache on disk oldest raster
-        checkMap();
     }
 
     /**
@@ -257,17 +288,16 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
             synchronized(tiles){
                 tiles.remove(tileCorner);
             }
+            if (offHeapStore != null) {
+                offHeapStore.remove(this, tileCorner.x, tileCorner.y);
+            }
 
             if (qTD != null) {
                 //quad tree
-                final Path removeFile = Paths.get(qTD.getPath(tileCorner.x, tileCorner.y));
-                //delete on hard disk if exist.
-                try {
-                    Files.deleteIfExists(removeFile);
-                } catch (IOException e) {
-                    //delete failed try to delete it when JVM shutdown
-                    LOGGER.log(Level.FINE,"Tile delete failed : "+ e.getLocalizedMessage(), e);
-                    IOUtilities.deleteOnExit(removeFile);
+                final String tilePath = qTD.getPath(tileCorner.x, tileCorner.y);
+                deleteTileFile(Paths.get(tilePath));
+                if (rawTiles.remove(tileCorner) != null) {
+                    deleteTileFile(Paths.get(tilePath + RAW_EXTENSION));
                 }
             }
 
@@ -277,6 +307,19 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
 
     }
 
+    /**
+     * Delete tile file on hard disk if exist.
+     */
+    private static void deleteTileFile(final Path removeFile) {
+        try {
+            Files.deleteIfExists(removeFile);
+        } catch (IOException e) {
+            //delete failed try to delete it when JVM shutdown
+            LOGGER.log(Level.FINE,"Tile delete failed : "+ e.getLocalizedMessage(), e);
+            IOUtilities.deleteOnExit(removeFile);
+        }
+    }
+
     /**
      * Return {@link java.awt.image.Raster} at tileX tileY mosaic coordinates.
      *
@@ -303,11 +346,12 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
             tileLock.readLock().unlock();
         }
 
-        if (qTD == null) {
+        if (qTD == null && offHeapStore == null) {
             // raster not found in memory
             throw new IllegalArgumentException("Tile (" + tileX + ", " + tileY + ") not found in memory.");
         } else {
 
+            WritableRaster loaded = null;
             //-- lock in writing
             tileLock.writeLock().lock();
             try {
@@ -322,6 +366,38 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
                     return lRaster.getRaster();
                 }
 
+                //-- then from off heap store.
+                if (offHeapStore != null) {
+                    loaded = offHeapStore.get(this, tileCorner.x, tileCorner.y, tileLocation(tileCorner));
+                }
+                if (loaded == null && qTD != null) {
+                    loaded = readRawTile(tileCorner);
+                }
+                if (loaded != null) {
+                    put(tileCorner, loaded);
+                } else if (qTD == null) {
+                    throw new IllegalArgumentException("Tile (" + tileX + ", " + tileY + ") not found in memory.");
+                }
+            } finally {
+               tileLock.writeLock().unlock();
+            }
+            if (loaded != null) {
+                checkMap();
+                return loaded;
+            }
+
+            //-- lock in writing
+            tileLock.writeLock().lock();
+            try {
+                //-- tile may have been loaded by another thread in the meantime.
+                final TileRasterCache lRaster;
+                synchronized (tiles) {
+                    lRaster= tiles.get(tileCorner);
+                }
+                if (lRaster != null) {
+                    return lRaster.getRaster();
+                }
+
                 // If not, we must take it from input quad-tree.
                 final Path tileFile = Paths.get(qTD.getPath(tileCorner.x, tileCorner.y));
                 if (Files.exists(tileFile)) {
@@ -337,24 +413,89 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
                         imgReader.dispose();
                     }
                     //add in cache list.
-                    final WritableRaster checkedRaster = checkRaster(buff.getRaster(), tileCorner);
-                    add(tileCorner, checkedRaster);
-                    return checkedRaster;
+                    loaded = checkRaster(buff.getRaster(), tileCorner);
+                    put(tileCorner, loaded);
                 }
             } finally {
                tileLock.writeLock().unlock();
             }
+            if (loaded != null) {
+                checkMap();
+                return loaded;
+            }
         }
         throw new IOException("Tile (" + tileX + ", " + tileY + ") unknown. Cannot get raster.");
     }
 
+    /**
+     * Read tile previously spilled from {@link #offHeapStore}, tile lock should be held by caller.
+     *
+     * @param tileCorner tile location within renderedImage owner.
+     * @return read raster or {@code null} if tile has not been spilled.
+     * @throws IOException if an error occurs during reading.
+     */
+    private WritableRaster readRawTile(final Point tileCorner) throws IOException {
+        final OffHeapTileStore.Layout layout = rawTiles.get(tileCorner);
+        if (layout == null) return null;
+        final Path rawFile = Paths.get(qTD.getPath(tileCorner.x, tileCorner.y) + RAW_EXTENSION);
+        final ByteBuffer buffer = ByteBuffer.allocate((int) layout.getByteLength());
+        try (final FileChannel channel = FileChannel.open(rawFile, READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    throw new IOException("Unexpected end of file : "+rawFile);
+            }
+        }
+        buffer.flip();
+        return layout.createRaster(buffer, tileLocation(tileCorner));
+    }
+
+    /**
+     * Write tile samples released by {@link OffHeapTileStore} into swap area.<br/>
+     * Direct buffer content is written as is, without any intermediary copy.
+     * If swap is disabled, tile is just forgotten.
+     *
+     * @param entry released off heap tile.
+     * @throws IOException if impossible to write tile on disk.
+     */
+    void spill(final OffHeapTileStore.Entry entry) throws IOException {
+        if (qTD == null) return;
+        final Point tileCorner = new Point(entry.getTileX(), entry.getTileY());
+        final ReadWriteLock tileLock = getLock(tileCorner);
+        tileLock.writeLock().lock();
+        try {
+            //-- tile removed or replaced in the meantime.
+            if (!offHeapStore.isStored(entry)) return;
+            final Path rawFile = Paths.get(qTD.getPath(tileCorner.x, tileCorner.y) + RAW_EXTENSION);
+            final ByteBuffer data = entry.getData();
+            try (final FileChannel channel = FileChannel.open(rawFile, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            rawTiles.put(tileCorner, entry.getLayout());
+        } finally {
+            tileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Return upper left corner of tile at tileCorner location.
+     */
+    private Point tileLocation(final Point tileCorner) {
+        return new Point(riTileWidth * tileCorner.x + riMinX, riTileHeight * tileCorner.y + riMinY);
+    }
+
     /**
      * Remove all file and directory relevant to this cached image.
      */
     void removeTiles() throws IOException {
         //rendered image won't be used after this
+        if (offHeapStore != null) {
+            offHeapStore.removeAll(this);
+        }
         synchronized(tiles){
             tiles.clear();
+            rawTiles.clear();
             if (qTD != null) {
                 qTD.cleanDirectory();
             }
@@ -391,7 +532,12 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
      * @throws java.io.IOException if impossible to write raster on disk.
      */
     private void writeRaster(final TileRasterCache lRaster) throws IOException {
-        final Path tileFile = Paths.get(qTD.getPath(lRaster.getGridX(), lRaster.getGridY()));
+        final String tilePath = qTD.getPath(lRaster.getGridX(), lRaster.getGridY());
+        final Path tileFile = Paths.get(tilePath);
+        //-- a previously spilled raw tile is not up to date anymore.
+        if (rawTiles.remove(new Point(lRaster.getGridX(), lRaster.getGridY())) != null) {
+            deleteTileFile(Paths.get(tilePath + RAW_EXTENSION));
+        }
         if (isWritableRenderedImage || !Files.exists(tileFile)) {
             final BufferedImage toWrite = new BufferedImage(
                     cm, RasterFactory.createWritableRaster(lRaster.getRaster().getSampleModel(), lRaster.getRaster().getDataBuffer(), WPOINT), true, null);
@@ -504,13 +650,19 @@ final class ImageTilesCache extends PhantomReference<RenderedImage> {
                     tr = tiles.remove(key);
                 }
 
-                if (tr != null && swap) {
-                    writeRaster(tr);
+                if (tr != null) {
+                    //-- keep tile samples off heap, or write them on disk.
+                    if (offHeapStore == null
+                     || !offHeapStore.put(this, key.x, key.y, tr.getRaster(), isWritableRenderedImage)) {
+                        if (swap) writeRaster(tr);
+                    }
                 }
             } finally {
                 rwl.writeLock().unlock();
             }
         }
+        //-- off heap tiles may exceed their own capacity now, no tile lock should be held here.
+        if (offHeapStore != null) cache.evictOffHeap();
 
     }
 }
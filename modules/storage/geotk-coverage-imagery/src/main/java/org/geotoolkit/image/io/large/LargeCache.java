@@ -48,9 +48,20 @@ public final class LargeCache implements TileCache {
 
     private final ReferenceQueue<RenderedImage> phantomQueue = new ReferenceQueue<>();
 
+    /**
+     * Part of memory capacity let to tiles kept on heap when off heap storage is enabled.
+     * Remaining capacity is given to {@link #offHeapStore}.
+     */
+    private static final int HEAP_RATIO = 4;
+
     private volatile long memoryCapacity;
     private final boolean enableSwap;
 
+    /**
+     * Tiles released from heap are kept here before being swapped, {@code null} if off heap storage is disabled.
+     */
+    private final OffHeapTileStore offHeapStore;
+
     /**
      * Contains a tile manager for each cached rendered image. A tile manager job is to swap / cache image tiles as we ask it.
      *
@@ -65,9 +76,10 @@ public final class LargeCache implements TileCache {
 
     private static LargeCache INSTANCE;
 
-    private LargeCache(long memoryCapacity, boolean enableSwap) {
+    private LargeCache(long memoryCapacity, boolean enableSwap, boolean enableOffHeap) {
         this.memoryCapacity = memoryCapacity;
         this.enableSwap = enableSwap;
+        this.offHeapStore = (enableOffHeap) ? new OffHeapTileStore(memoryCapacity - memoryCapacity / HEAP_RATIO) : null;
         final Thread phantomCleaner = new Thread(new Runnable() {
             @Override
             public void run() {
@@ -97,9 +109,41 @@ public final class LargeCache implements TileCache {
     }
 
     long getCacheSizePerImage(){
+        final long heapCapacity = (offHeapStore == null) ? memoryCapacity : memoryCapacity / HEAP_RATIO;
         synchronized(tileManagers){
-            return memoryCapacity / (tileManagers.size() + 1);
+            return heapCapacity / (tileManagers.size() + 1);
+        }
+    }
+
+    /**
+     * Return store shared by all images to keep tiles off heap, or {@code null} if off heap storage is disabled.
+     *
+     * @return off heap tile store or {@code null}.
+     */
+    OffHeapTileStore getOffHeapStore() {
+        return offHeapStore;
+    }
+
+    /**
+     * Release off heap tiles which exceed off heap capacity, spilling them into their image swap area.
+     * Caller should not hold any tile lock.
+     *
+     * @throws IOException if a released tile cannot be written on disk.
+     */
+    void evictOffHeap() throws IOException {
+        if (offHeapStore == null) return;
+        IOException failure = null;
+        for (OffHeapTileStore.Entry entry : offHeapStore.evict()) {
+            try {
+                entry.getOwner().spill(entry);
+            } catch (IOException ex) {
+                if (failure == null) failure = ex;
+                else failure.addSuppressed(ex);
+            } finally {
+                offHeapStore.release(entry);
+            }
         }
+        if (failure != null) throw failure;
     }
 
     /**
@@ -112,7 +156,8 @@ public final class LargeCache implements TileCache {
         if(INSTANCE==null){
             final long memoryCapacity = ImageCacheConfiguration.getCacheMemorySize();
             final boolean enableSwap  = ImageCacheConfiguration.isCacheSwapEnable();
-            INSTANCE = new LargeCache(memoryCapacity, enableSwap);
+            final boolean enableOffHeap = ImageCacheConfiguration.isCacheOffHeapEnable();
+            INSTANCE = new LargeCache(memoryCapacity, enableSwap, enableOffHeap);
         }
         return INSTANCE;
     }
@@ -283,7 +328,15 @@ public final class LargeCache implements TileCache {
     @Override
     public void setMemoryCapacity(long l) {
         this.memoryCapacity = l;
+        if (offHeapStore != null) {
+            offHeapStore.setCapacity(l - l / HEAP_RATIO);
+        }
         updateLList();
+        try {
+            evictOffHeap();
+        } catch (IOException ex) {
+            throw new RuntimeException("impossible to release off heap tiles (write raster on disk)", ex);
+        }
     }
 
     /**
@@ -0,0 +1,586 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.large;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Store tile samples outside of the java heap, within direct {@link ByteBuffer}s.<br/><br/>
+ *
+ * All {@link ImageTilesCache} share the same store, thereby the byte budget is global for all cached images.
+ * Tiles are indexed by (image, tileX, tileY) within a fixed number of lock stripes, to avoid contention
+ * between threads which work on different tiles. When budget is exceeded, tiles to release are chosen
+ * with a CLOCK (second chance) policy, and handed to their owner which may spill buffer content
+ * into its swap area directly, without any intermediary copy.
+ *
+ * @see LargeCache
+ */
+final class OffHeapTileStore {
+
+    /**
+     * Lock stripe number, should be a power of 2.
+     */
+    private static final int STRIPE_NUMBER = 32;
+
+    /**
+     * Tile index, split in stripes.
+     */
+    private final Stripe[] stripes;
+
+    /**
+     * CLOCK ring. Each stored entry is offered once, and re-offered while it has been referenced since last pass.
+     */
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Stored byte number, including entries selected for eviction and not yet released.
+     */
+    private final AtomicLong usedCapacity = new AtomicLong();
+
+    /**
+     * Byte number of entries selected for eviction and not yet released.
+     */
+    private final AtomicLong evictingCapacity = new AtomicLong();
+
+    /**
+     * Maximum stored byte number.
+     */
+    private volatile long capacity;
+
+    /**
+     * Create an empty store.
+     *
+     * @param capacity maximum stored byte number.
+     */
+    OffHeapTileStore(final long capacity) {
+        this.capacity = capacity;
+        stripes = new Stripe[STRIPE_NUMBER];
+        for (int s = 0; s < STRIPE_NUMBER; s++) {
+            stripes[s] = new Stripe();
+        }
+    }
+
+    /**
+     * Affect a new maximum stored byte number.<br/>
+     * Exceeding tiles are only released at next {@link #evict() } call.
+     *
+     * @param capacity new maximum stored byte number.
+     */
+    void setCapacity(final long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Return maximum stored byte number.
+     *
+     * @return maximum stored byte number.
+     */
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Return currently stored byte number.
+     *
+     * @return currently stored byte number.
+     */
+    long getUsedCapacity() {
+        return usedCapacity.get();
+    }
+
+    /**
+     * Copy {@link Raster} samples into store.
+     *
+     * @param owner cache of the image which contain tile.
+     * @param tileX tile index in X direction.
+     * @param tileY tile index in Y direction.
+     * @param raster tile to store.
+     * @param replace if {@code false} and tile is already stored, stored samples are kept unchanged.
+     * @return {@code true} if tile is stored, {@code false} if it is too large for this store.
+     */
+    boolean put(final ImageTilesCache owner, final int tileX, final int tileY, final Raster raster, final boolean replace) {
+        final Key key = new Key(owner, tileX, tileY);
+        final Stripe stripe = stripe(key);
+        if (!replace) {
+            stripe.lock.lock();
+            try {
+                final Entry entry = stripe.entries.get(key);
+                if (entry != null) {
+                    entry.referenced = true;
+                    return true;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        final Layout layout = new Layout(raster.getSampleModel(), raster.getDataBuffer());
+        final long weight   = layout.getByteLength();
+        if (weight > capacity || weight > Integer.MAX_VALUE) return false;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect((int) weight).order(ByteOrder.nativeOrder());
+        write(raster.getDataBuffer(), buffer);
+        buffer.flip();
+        final Entry entry = new Entry(key, layout, buffer);
+        stripe.lock.lock();
+        try {
+            final Entry old = stripe.entries.put(key, entry);
+            if (old != null) detach(old);
+            usedCapacity.addAndGet(weight);
+        } finally {
+            stripe.lock.unlock();
+        }
+        clock.offer(entry);
+        return true;
+    }
+
+    /**
+     * Return a new heap {@link WritableRaster} which contain a copy of stored tile samples.
+     *
+     * @param owner cache of the image which contain tile.
+     * @param tileX tile index in X direction.
+     * @param tileY tile index in Y direction.
+     * @param location upper left raster corner.
+     * @return raster copy or {@code null} if tile is not stored.
+     */
+    WritableRaster get(final ImageTilesCache owner, final int tileX, final int tileY, final Point location) {
+        final Key key = new Key(owner, tileX, tileY);
+        final Entry entry;
+        final Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            entry = stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (entry == null) return null;
+        entry.referenced = true;
+        //-- buffer is never modified after creation, a duplicate may be read concurrently.
+        return entry.layout.createRaster(entry.data.duplicate(), location);
+    }
+
+    /**
+     * Forget stored tile.
+     *
+     * @param owner cache of the image which contain tile.
+     * @param tileX tile index in X direction.
+     * @param tileY tile index in Y direction.
+     */
+    void remove(final ImageTilesCache owner, final int tileX, final int tileY) {
+        final Key key = new Key(owner, tileX, tileY);
+        final Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry entry = stripe.entries.remove(key);
+            if (entry != null) detach(entry);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Forget all stored tiles of an image.
+     *
+     * @param owner cache of the image.
+     */
+    void removeAll(final ImageTilesCache owner) {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                final Iterator<Map.Entry<Key, Entry>> ite = stripe.entries.entrySet().iterator();
+                while (ite.hasNext()) {
+                    final Map.Entry<Key, Entry> e = ite.next();
+                    if (e.getKey().owner == owner) {
+                        detach(e.getValue());
+                        ite.remove();
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Select entries to release to not exceed store capacity anymore.<br/>
+     * Selected entries stay readable until {@link #release(Entry) } call,
+     * thereby owner can spill them without any tile lost in the meantime.
+     *
+     * @return entries to spill then release.
+     */
+    List<Entry> evict() {
+        List<Entry> victims = null;
+        //-- each referenced entry gets a second chance, so at most two passes are needed.
+        int budget = clock.size() << 1;
+        while (usedCapacity.get() - evictingCapacity.get() > capacity && budget-- >= 0) {
+            final Entry entry = clock.poll();
+            if (entry == null) break;
+            if (entry.isDetached()) continue;
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.offer(entry);
+                continue;
+            }
+            entry.evicting = true;
+            evictingCapacity.addAndGet(entry.layout.getByteLength());
+            if (victims == null) victims = new ArrayList<>();
+            victims.add(entry);
+        }
+        return (victims == null) ? Collections.<Entry>emptyList() : victims;
+    }
+
+    /**
+     * Return {@code true} if entry is still the current stored version of its tile.
+     *
+     * @param entry tested entry.
+     * @return {@code true} if entry is still stored.
+     */
+    boolean isStored(final Entry entry) {
+        final Stripe stripe = stripe(entry.key);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.get(entry.key) == entry;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove an entry previously returned by {@link #evict() }.
+     *
+     * @param entry spilled entry.
+     */
+    void release(final Entry entry) {
+        final Stripe stripe = stripe(entry.key);
+        stripe.lock.lock();
+        try {
+            if (stripe.entries.get(entry.key) == entry) {
+                stripe.entries.remove(entry.key);
+                detach(entry);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (entry.evicting) {
+            entry.evicting = false;
+            evictingCapacity.addAndGet(-entry.layout.getByteLength());
+        }
+    }
+
+    /**
+     * Mark entry as removed from index and give back its weight, only the first call has an effect.
+     */
+    private void detach(final Entry entry) {
+        if (entry.detached.compareAndSet(false, true)) {
+            usedCapacity.addAndGet(-entry.layout.getByteLength());
+        }
+    }
+
+    /**
+     * Return stripe which index key.
+     */
+    private Stripe stripe(final Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPE_NUMBER - 1)];
+    }
+
+    /**
+     * Copy all {@link DataBuffer} banks into {@link ByteBuffer}.
+     *
+     * @param dataBuffer copied samples.
+     * @param buffer destination, which should have enough remaining bytes.
+     */
+    private static void write(final DataBuffer dataBuffer, final ByteBuffer buffer) {
+        final int numBanks = dataBuffer.getNumBanks();
+        for (int b = 0; b < numBanks; b++) {
+            if (dataBuffer instanceof DataBufferByte) {
+                buffer.put(((DataBufferByte) dataBuffer).getData(b));
+            } else if (dataBuffer instanceof DataBufferShort) {
+                final short[] data = ((DataBufferShort) dataBuffer).getData(b);
+                buffer.asShortBuffer().put(data);
+                buffer.position(buffer.position() + (data.length << 1));
+            } else if (dataBuffer instanceof DataBufferUShort) {
+                final short[] data = ((DataBufferUShort) dataBuffer).getData(b);
+                buffer.asShortBuffer().put(data);
+                buffer.position(buffer.position() + (data.length << 1));
+            } else if (dataBuffer instanceof DataBufferInt) {
+                final int[] data = ((DataBufferInt) dataBuffer).getData(b);
+                buffer.asIntBuffer().put(data);
+                buffer.position(buffer.position() + (data.length << 2));
+            } else if (dataBuffer instanceof DataBufferFloat) {
+                final float[] data = ((DataBufferFloat) dataBuffer).getData(b);
+                buffer.asFloatBuffer().put(data);
+                buffer.position(buffer.position() + (data.length << 2));
+            } else if (dataBuffer instanceof DataBufferDouble) {
+                final double[] data = ((DataBufferDouble) dataBuffer).getData(b);
+                buffer.asDoubleBuffer().put(data);
+                buffer.position(buffer.position() + (data.length << 3));
+            } else {
+                //-- other implementations (JAI DataBuffers for example), copy element by element.
+                final int size = dataBuffer.getSize() + dataBuffer.getOffsets()[b];
+                for (int i = 0; i < size; i++) {
+                    switch (dataBuffer.getDataType()) {
+                        case DataBuffer.TYPE_BYTE   : buffer.put((byte) dataBuffer.getElem(b, i)); break;
+                        case DataBuffer.TYPE_SHORT  :
+                        case DataBuffer.TYPE_USHORT : buffer.putShort((short) dataBuffer.getElem(b, i)); break;
+                        case DataBuffer.TYPE_INT    : buffer.putInt(dataBuffer.getElem(b, i)); break;
+                        case DataBuffer.TYPE_FLOAT  : buffer.putFloat(dataBuffer.getElemFloat(b, i)); break;
+                        default                     : buffer.putDouble(dataBuffer.getElemDouble(b, i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stored tile identifier, image cache is compared by identity.
+     */
+    private static final class Key {
+        private final ImageTilesCache owner;
+        private final int tileX;
+        private final int tileY;
+
+        private Key(final ImageTilesCache owner, final int tileX, final int tileY) {
+            this.owner = owner;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(owner) + 31 * (tileX + 31 * tileY);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return owner == other.owner && tileX == other.tileX && tileY == other.tileY;
+        }
+    }
+
+    /**
+     * Part of the tile index protected by its own lock.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Key, Entry> entries = new HashMap<>();
+    }
+
+    /**
+     * Stored tile.
+     */
+    static final class Entry {
+        private final Key key;
+        private final Layout layout;
+        private final ByteBuffer data;
+
+        /**
+         * CLOCK bit, set each time tile is read.
+         */
+        private volatile boolean referenced;
+
+        /**
+         * {@code true} while entry is selected for eviction and not yet released.
+         */
+        private volatile boolean evicting;
+
+        /**
+         * {@code true} when entry has been removed or replaced.
+         */
+        private final AtomicBoolean detached = new AtomicBoolean();
+
+        private Entry(final Key key, final Layout layout, final ByteBuffer data) {
+            this.key    = key;
+            this.layout = layout;
+            this.data   = data;
+        }
+
+        /**
+         * Return cache of the image which contain tile.
+         */
+        ImageTilesCache getOwner() {
+            return key.owner;
+        }
+
+        int getTileX() {
+            return key.tileX;
+        }
+
+        int getTileY() {
+            return key.tileY;
+        }
+
+        Layout getLayout() {
+            return layout;
+        }
+
+        /**
+         * Return a read only view of stored samples, positioned at the beginning.
+         */
+        ByteBuffer getData() {
+            return data.asReadOnlyBuffer();
+        }
+
+        private boolean isDetached() {
+            return detached.get();
+        }
+    }
+
+    /**
+     * Everything needed to re-create a {@link Raster} from its samples copied by {@link #write(DataBuffer, ByteBuffer) }.
+     */
+    static final class Layout {
+        private final SampleModel sampleModel;
+        private final int dataType;
+        private final int size;
+        private final int[] offsets;
+        private final int[] bankLengths;
+        private final long byteLength;
+
+        /**
+         * Describe samples organisation of a tile.
+         *
+         * @param sampleModel tile sample model.
+         * @param dataBuffer tile samples.
+         */
+        Layout(final SampleModel sampleModel, final DataBuffer dataBuffer) {
+            this.sampleModel = sampleModel;
+            this.dataType    = dataBuffer.getDataType();
+            this.size        = dataBuffer.getSize();
+            this.offsets     = dataBuffer.getOffsets().clone();
+            final int numBanks = dataBuffer.getNumBanks();
+            bankLengths = new int[numBanks];
+            long length = 0;
+            for (int b = 0; b < numBanks; b++) {
+                bankLengths[b] = bankLength(dataBuffer, b);
+                length += bankLengths[b];
+            }
+            byteLength = length * (DataBuffer.getDataTypeSize(dataType) >>> 3);
+        }
+
+        /**
+         * Return element number of bank {@code b} as copied by {@link #write(DataBuffer, ByteBuffer) }.
+         */
+        private static int bankLength(final DataBuffer dataBuffer, final int b) {
+            if (dataBuffer instanceof DataBufferByte)   return ((DataBufferByte)   dataBuffer).getData(b).length;
+            if (dataBuffer instanceof DataBufferShort)  return ((DataBufferShort)  dataBuffer).getData(b).length;
+            if (dataBuffer instanceof DataBufferUShort) return ((DataBufferUShort) dataBuffer).getData(b).length;
+            if (dataBuffer instanceof DataBufferInt)    return ((DataBufferInt)    dataBuffer).getData(b).length;
+            if (dataBuffer instanceof DataBufferFloat)  return ((DataBufferFloat)  dataBuffer).getData(b).length;
+            if (dataBuffer instanceof DataBufferDouble) return ((DataBufferDouble) dataBuffer).getData(b).length;
+            return dataBuffer.getSize() + dataBuffer.getOffsets()[b];
+        }
+
+        /**
+         * Return byte number needed to store tile samples.
+         */
+        long getByteLength() {
+            return byteLength;
+        }
+
+        /**
+         * Create a new heap {@link WritableRaster} filled from buffer content.
+         *
+         * @param buffer samples, read from its current position.
+         * @param location upper left raster corner.
+         * @return new raster.
+         */
+        WritableRaster createRaster(final ByteBuffer buffer, final Point location) {
+            buffer.order(ByteOrder.nativeOrder());
+            final int numBanks = bankLengths.length;
+            final DataBuffer dataBuffer;
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE : {
+                    final byte[][] banks = new byte[numBanks][];
+                    for (int b = 0; b < numBanks; b++) {
+                        banks[b] = new byte[bankLengths[b]];
+                        buffer.get(banks[b]);
+                    }
+                    dataBuffer = new DataBufferByte(banks, size, offsets);
+                    break;
+                }
+                case DataBuffer.TYPE_SHORT :
+                case DataBuffer.TYPE_USHORT : {
+                    final short[][] banks = new short[numBanks][];
+                    for (int b = 0; b < numBanks; b++) {
+                        banks[b] = new short[bankLengths[b]];
+                        buffer.asShortBuffer().get(banks[b]);
+                        buffer.position(buffer.position() + (bankLengths[b] << 1));
+                    }
+                    dataBuffer = (dataType == DataBuffer.TYPE_SHORT)
+                            ? new DataBufferShort(banks, size, offsets)
+                            : new DataBufferUShort(banks, size, offsets);
+                    break;
+                }
+                case DataBuffer.TYPE_INT : {
+                    final int[][] banks = new int[numBanks][];
+                    for (int b = 0; b < numBanks; b++) {
+                        banks[b] = new int[bankLengths[b]];
+                        buffer.asIntBuffer().get(banks[b]);
+                        buffer.position(buffer.position() + (bankLengths[b] << 2));
+                    }
+                    dataBuffer = new DataBufferInt(banks, size, offsets);
+                    break;
+                }
+                case DataBuffer.TYPE_FLOAT : {
+                    final float[][] banks = new float[numBanks][];
+                    for (int b = 0; b < numBanks; b++) {
+                        banks[b] = new float[bankLengths[b]];
+                        buffer.asFloatBuffer().get(banks[b]);
+                        buffer.position(buffer.position() + (bankLengths[b] << 2));
+                    }
+                    dataBuffer = new DataBufferFloat(banks, size, offsets);
+                    break;
+                }
+                case DataBuffer.TYPE_DOUBLE : {
+                    final double[][] banks = new double[numBanks][];
+                    for (int b = 0; b < numBanks; b++) {
+                        banks[b] = new double[bankLengths[b]];
+                        buffer.asDoubleBuffer().get(banks[b]);
+                        buffer.position(buffer.position() + (bankLengths[b] << 3));
+                    }
+                    dataBuffer = new DataBufferDouble(banks, size, offsets);
+                    break;
+                }
+                default : throw new IllegalStateException("unknown raster data type");
+            }
+            return Raster.createWritableRaster(sampleModel, dataBuffer, location);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.interpolation;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.util.Random;
+import javax.media.jai.TiledImage;
+import org.geotoolkit.image.iterator.PixelIteratorFactory;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Batch interpolation must give the same results as interpolation sample by sample.
+ *
+ * @module pending
+ */
+public class BatchInterpolationTest extends org.geotoolkit.test.TestBase {
+
+    private static final InterpolationCase[] CASES = new InterpolationCase[]{
+        InterpolationCase.NEIGHBOR, InterpolationCase.BILINEAR, InterpolationCase.BICUBIC,
+        InterpolationCase.BICUBIC2, InterpolationCase.LANCZOS};
+
+    /**
+     * Pixel interleaved unsigned bytes, with windows overlapping several tiles.
+     */
+    @Test
+    public void byteTiledTest() {
+        final SampleModel sm = new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, 16, 16, 3, 48, new int[]{2, 1, 0});
+        final TiledImage image = createImage(sm, 40, 30, 255);
+        for (InterpolationCase interpolation : CASES) {
+            compare(image, interpolation, ResampleBorderComportement.FILL_VALUE);
+            compare(image, interpolation, ResampleBorderComportement.EXTRAPOLATION);
+        }
+    }
+
+    /**
+     * Banded shorts and doubles in a single tile.
+     */
+    @Test
+    public void bandedTest() {
+        for (int dataType : new int[]{DataBuffer.TYPE_USHORT, DataBuffer.TYPE_SHORT, DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE}) {
+            final SampleModel sm = new BandedSampleModel(dataType, 25, 20, 2);
+            final TiledImage image = createImage(sm, 25, 20, 30000);
+            for (InterpolationCase interpolation : CASES) {
+                compare(image, interpolation, ResampleBorderComportement.FILL_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Rescaler applies its scale on batch results.
+     */
+    @Test
+    public void rescalerTest() {
+        final SampleModel sm = new BandedSampleModel(DataBuffer.TYPE_DOUBLE, 10, 10, 1);
+        final TiledImage image = createImage(sm, 10, 10, 1000);
+        final Interpolation source = Interpolation.create(PixelIteratorFactory.createDefaultIterator(image),
+                InterpolationCase.BILINEAR, 2, ResampleBorderComportement.FILL_VALUE, null);
+        final Rescaler rescaler = new Rescaler(source, 0, 255);
+        final double[] coords = new double[]{1.5, 2.25, 8.75, 0.5, -3, 4};
+        final double[] dest = new double[3];
+        final boolean[] valid = new boolean[3];
+        rescaler.interpolate(coords, 0, dest, 0, valid, 3);
+        assertTrue(valid[0]);
+        assertTrue(valid[1]);
+        assertFalse(valid[2]);
+        assertEquals(rescaler.interpolate(1.5, 2.25, 0), dest[0], 1E-9);
+        assertEquals(rescaler.interpolate(8.75, 0.5, 0), dest[1], 1E-9);
+    }
+
+    /**
+     * Pipeline interpolations overriding only the sample method give the same results in batch.
+     */
+    @Test
+    public void pipeLineTest() {
+        final SampleModel sm = new BandedSampleModel(DataBuffer.TYPE_DOUBLE, 10, 10, 1);
+        final TiledImage image = createImage(sm, 10, 10, 1000);
+        final Interpolation source = Interpolation.create(PixelIteratorFactory.createDefaultIterator(image),
+                InterpolationCase.BILINEAR, 2, ResampleBorderComportement.FILL_VALUE, null);
+        final PipeLineInterpolation negate = new PipeLineInterpolation(source) {
+            @Override
+            public double interpolate(double x, double y, int band) {
+                return -super.interpolate(x, y, band);
+            }
+        };
+        final double[] coords = new double[]{1.5, 2.25, 8.75, 0.5, -3, 4};
+        final double[] dest = new double[3];
+        final boolean[] valid = new boolean[3];
+        negate.interpolate(coords, 0, dest, 0, valid, 3);
+        assertTrue(valid[0]);
+        assertTrue(valid[1]);
+        assertFalse(valid[2]);
+        assertEquals(negate.interpolate(1.5, 2.25, 0), dest[0], 1E-9);
+        assertEquals(negate.interpolate(8.75, 0.5, 0), dest[1], 1E-9);
+    }
+
+    private static TiledImage createImage(final SampleModel sm, final int width, final int height, final int maxValue) {
+        final TiledImage image = new TiledImage(-3, 2, width, height, -3, 2, sm, null);
+        final Random random = new Random(42);
+        for (int y = image.getMinY(); y < image.getMinY() + height; y++) {
+            for (int x = image.getMinX(); x < image.getMinX() + width; x++) {
+                for (int b = 0; b < sm.getNumBands(); b++) {
+                    image.setSample(x, y, b, random.nextInt(maxValue));
+                }
+            }
+        }
+        return image;
+    }
+
+    private static void compare(final TiledImage image, final InterpolationCase interpolationCase,
+                                final ResampleBorderComportement rbc) {
+        final Interpolation interpol = Interpolation.create(PixelIteratorFactory.createDefaultIterator(image),
+                interpolationCase, 2, rbc, null);
+        assertNotNull("samples should be read directly", interpol.samples);
+        final int numBands = interpol.getNumBands();
+        final int nbPoints = 2000;
+        final Random random = new Random(7);
+        final double[] coords = new double[nbPoints * 2];
+        for (int p = 0; p < nbPoints; p++) {
+            coords[2 * p]     = image.getMinX() - 1 + random.nextDouble() * (image.getWidth()  + 2);
+            coords[2 * p + 1] = image.getMinY() - 1 + random.nextDouble() * (image.getHeight() + 2);
+        }
+        final double[] dest = new double[nbPoints * numBands];
+        final boolean[] valid = new boolean[nbPoints];
+        interpol.interpolate(coords, 0, dest, 0, valid, nbPoints);
+
+        for (int p = 0; p < nbPoints; p++) {
+            final double x = coords[2 * p];
+            final double y = coords[2 * p + 1];
+            assertEquals(interpolationCase + " validity at (" + x + ", " + y + ")", interpol.checkInterpolate(x, y), valid[p]);
+            for (int b = 0; b < numBands; b++) {
+                final double expected = valid[p] ? interpol.interpolate(x, y, b) : Double.NaN;
+                assertEquals(interpolationCase + " at (" + x + ", " + y + ") band " + b, expected, dest[p * numBands + b], 1E-9);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.geotoolkit.image.interpolation;
 
+import java.awt.Dimension;
 import java.awt.Transparency;
 import java.awt.color.ColorSpace;
 import java.awt.image.*;
@@ -24,6 +25,7 @@ import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.operation.transform.MathTransforms;
 import org.apache.sis.geometry.Envelopes;
+import org.geotoolkit.image.io.large.WritableLargeRenderedImage;
 import org.geotoolkit.image.iterator.PixelIterator;
 import org.geotoolkit.image.iterator.PixelIteratorFactory;
 import org.geotoolkit.referencing.CRS;
@@ -354,6 +356,54 @@ public class ResampleTest extends org.geotoolkit.test.TestBase {
         assertArrayEquals(expectedResultByFeedBack, testedArray, tol);
     }
 
+    /**
+     * Parallel resampling must give the same result as the sequential one,
+     * for images split in pixel rows and in tile rows.
+     */
+    @Test
+    public void parallelTest() throws FactoryException, TransformException {
+        final ColorSpace cs = ColorSpace.getInstance(ColorSpace.CS_GRAY);
+        final ColorModel cm = new ComponentColorModel(cs, new int[]{Double.SIZE}, false, false, Transparency.OPAQUE, DataBuffer.TYPE_DOUBLE);
+        final ImageTypeSpecifier imgTypeSpec = new ImageTypeSpecifier(cm, cm.createCompatibleSampleModel(1, 1));
+        sourceImg = imgTypeSpec.createBufferedImage(64, 64);
+        final WritableRaster raster = sourceImg.getWritableTile(0, 0);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                raster.setSample(x, y, 0, x * 3 + y * 7 % 13);
+            }
+        }
+
+        //-- non linear transform, resampling uses a grid
+        final ProjectedCRS projCRS = (ProjectedCRS) CRS.decode("EPSG:2154");
+        final MathTransform mt = projCRS.getConversionFromBase().getMathTransform();
+        final Envelope srcEnv = new Envelope2D(projCRS.getBaseCRS(), 45, -8, 5, 16);
+        final Envelope destEnv = Envelopes.transform(mt, srcEnv);
+        final int width = 300;
+        final int height = 260;
+        final AffineTransform2D srcGridToCrs = new AffineTransform2D(srcEnv.getSpan(0) / 64, 0, 0, -srcEnv.getSpan(1) / 64, srcEnv.getMinimum(0), srcEnv.getMaximum(1));
+        final AffineTransform2D destGridToCrs = new AffineTransform2D(destEnv.getSpan(0) / width, 0, 0, -destEnv.getSpan(1) / height, destEnv.getMinimum(0), destEnv.getMaximum(1));
+        final MathTransform destToSrc = MathTransforms.concatenate(
+                MathTransforms.concatenate(pixelInCellCenter, srcGridToCrs), mt,
+                MathTransforms.concatenate(pixelInCellCenter, destGridToCrs).inverse()).inverse();
+
+        //-- buffered image, split in rows
+        final WritableRenderedImage sequential = imgTypeSpec.createBufferedImage(width, height);
+        final WritableRenderedImage parallel   = imgTypeSpec.createBufferedImage(width, height);
+        new Resample(destToSrc, sequential, sourceImg, InterpolationCase.BILINEAR, ResampleBorderComportement.FILL_VALUE, new double[]{-1}).fillImage();
+        new Resample(destToSrc, parallel,   sourceImg, InterpolationCase.BILINEAR, ResampleBorderComportement.FILL_VALUE, new double[]{-1}).fillImage(true);
+        assertArrayEquals(sequential.getData().getSamples(0, 0, width, height, 0, (double[]) null),
+                          parallel.getData().getSamples(0, 0, width, height, 0, (double[]) null), 0.0);
+
+        //-- tiled image, split in tile rows
+        final Dimension tileSize = new Dimension(64, 64);
+        final WritableRenderedImage tiledSequential = new WritableLargeRenderedImage(0, 0, width, height, tileSize, 0, 0, cm, sourceImg.getSampleModel());
+        final WritableRenderedImage tiledParallel   = new WritableLargeRenderedImage(0, 0, width, height, tileSize, 0, 0, cm, sourceImg.getSampleModel());
+        new Resample(destToSrc, tiledSequential, sourceImg, InterpolationCase.BILINEAR, ResampleBorderComportement.FILL_VALUE, new double[]{-1}).fillImage();
+        new Resample(destToSrc, tiledParallel,   sourceImg, InterpolationCase.BILINEAR, ResampleBorderComportement.FILL_VALUE, new double[]{-1}).fillImage(true);
+        assertArrayEquals(tiledSequential.getData().getSamples(0, 0, width, height, 0, (double[]) null),
+                          tiledParallel.getData().getSamples(0, 0, width, height, 0, (double[]) null), 0.0);
+    }
+
     /**
      * Study grid built during resample an verify pertinency of its values from
      * destination coordinates transformed by {@link MathTransform}.
@@ -0,0 +1,113 @@
+/*
+ *    Geotoolkit.org - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.image.io.large;
+
+import java.awt.Point;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link OffHeapTileStore} copies and eviction order.<br/>
+ * Image caches are only used as identity keys by the store, a {@code null} owner is enough here.
+ */
+public class OffHeapTileStoreTest {
+
+    private static WritableRaster createRaster(final int dataType, final int width, final int height, final int bands, final double seed) {
+        final WritableRaster raster = Raster.createWritableRaster(new BandedSampleModel(dataType, width, height, bands), null);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int b = 0; b < bands; b++) {
+                    raster.setSample(x, y, b, (seed + x + y * width + b * 7) % 120);
+                }
+            }
+        }
+        return raster;
+    }
+
+    private static void assertSameSamples(final Raster expected, final Raster result) {
+        Assert.assertEquals(expected.getWidth(),    result.getWidth());
+        Assert.assertEquals(expected.getHeight(),   result.getHeight());
+        Assert.assertEquals(expected.getNumBands(), result.getNumBands());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                for (int b = 0; b < expected.getNumBands(); b++) {
+                    Assert.assertEquals(expected.getSampleDouble(x, y, b),
+                            result.getSampleDouble(x + result.getMinX(), y + result.getMinY(), b), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void copyTest() {
+        final OffHeapTileStore store = new OffHeapTileStore(1 << 20);
+        final int[] dataTypes = {DataBuffer.TYPE_BYTE, DataBuffer.TYPE_USHORT, DataBuffer.TYPE_INT,
+                                 DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE};
+        for (int t = 0; t < dataTypes.length; t++) {
+            final WritableRaster raster = createRaster(dataTypes[t], 16, 8, 3, t);
+            Assert.assertTrue(store.put(null, t, 0, raster, true));
+            final WritableRaster copy = store.get(null, t, 0, new Point(32, 64));
+            Assert.assertNotNull(copy);
+            Assert.assertEquals(32, copy.getMinX());
+            Assert.assertEquals(64, copy.getMinY());
+            assertSameSamples(raster, copy);
+            //-- copy should be independent from stored samples.
+            copy.setSample(32, 64, 0, 121);
+            assertSameSamples(raster, store.get(null, t, 0, new Point(0, 0)));
+        }
+        Assert.assertNull(store.get(null, 0, 1, new Point(0, 0)));
+        store.remove(null, 0, 0);
+        Assert.assertNull(store.get(null, 0, 0, new Point(0, 0)));
+        store.removeAll(null);
+        Assert.assertEquals(0, store.getUsedCapacity());
+    }
+
+    @Test
+    public void evictionTest() {
+        //-- 100 bytes per tile, place for 2 tiles and a half.
+        final OffHeapTileStore store = new OffHeapTileStore(250);
+        for (int t = 0; t < 3; t++) {
+            Assert.assertTrue(store.put(null, t, 0, createRaster(DataBuffer.TYPE_BYTE, 10, 10, 1, t), true));
+        }
+        Assert.assertEquals(300, store.getUsedCapacity());
+
+        //-- tile 0 is read, it gets a second chance and tile 1 is released first.
+        Assert.assertNotNull(store.get(null, 0, 0, new Point(0, 0)));
+        final List<OffHeapTileStore.Entry> victims = store.evict();
+        Assert.assertEquals(1, victims.size());
+        final OffHeapTileStore.Entry victim = victims.get(0);
+        Assert.assertEquals(1, victim.getTileX());
+        Assert.assertEquals(100, victim.getData().remaining());
+
+        //-- still readable until released.
+        Assert.assertTrue(store.isStored(victim));
+        Assert.assertNotNull(store.get(null, 1, 0, new Point(0, 0)));
+        store.release(victim);
+        Assert.assertFalse(store.isStored(victim));
+        Assert.assertNull(store.get(null, 1, 0, new Point(0, 0)));
+        Assert.assertEquals(200, store.getUsedCapacity());
+        Assert.assertTrue(store.evict().isEmpty());
+
+        //-- tile larger than capacity is refused.
+        Assert.assertFalse(store.put(null, 5, 5, createRaster(DataBuffer.TYPE_BYTE, 20, 20, 1, 0), true));
+    }
+}
@@ -177,6 +177,35 @@ public class ImageStatistics implements Serializable{
             return distArr;
         }
 
+        /**
+         * Estimate a quantile from the histogram, values are supposed uniformly
+         * distributed in each bin. The error is at most the size of a bin :
+         * (max - min) / histogram length.
+         *
+         * @param p probability, between 0 and 1, 0.5 for the median.
+         * @return estimated value or null if the band has no histogram or no values.
+         */
+        public Double getQuantile(double p) {
+            ArgumentChecks.ensureBetween("p", 0.0, 1.0, p);
+            if (histogram == null || min == null || max == null) return null;
+
+            long total = 0;
+            for (long occurs : histogram) total += occurs;
+            if (total == 0) return null;
+
+            final double binSize = (max - min) / histogram.length;
+            final double rank = p * total;
+            long count = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                final long occurs = histogram[i];
+                if (occurs > 0 && count + occurs >= rank) {
+                    return min + binSize * (i + (rank - count) / occurs);
+                }
+                count += occurs;
+            }
+            return max;
+        }
+
         public double[] getNoData() {
             return noData;
         }
@@ -21,8 +21,11 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.*;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EventListener;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import javax.media.jai.RasterFactory;
 import javax.swing.event.EventListenerList;
@@ -69,6 +72,16 @@ public class CoverageReferenceRenderedImage implements RenderedImage{
     /** listener support */
     private final EventListenerList listeners = new EventListenerList();
 
+    /**
+     * Compute tiles, several at a time for {@link #copyData(Rectangle, WritableRaster) } requests.
+     */
+    private final ParallelTileLoader tileLoader = new ParallelTileLoader() {
+        @Override
+        protected Raster loadTile(int tileX, int tileY) throws Exception {
+            return computeTile(tileX, tileY);
+        }
+    };
+
     public CoverageReferenceRenderedImage(CoverageReference ref, GridMosaic mosaic) throws DataStoreException,
             IOException, TransformException {
         this.ref = ref;
@@ -266,6 +279,23 @@ public class CoverageReferenceRenderedImage implements RenderedImage{
         return sampleModel;
     }
 
+    /**
+     * Enable or disable parallel tile computing for {@link #getData(Rectangle) } and {@link #copyData(Rectangle, WritableRaster) }.
+     * Parallel computing is enabled by default.
+     *
+     * @param parallel {@code true} to compute tiles covered by a requested area in parallel.
+     */
+    public void setParallelLoading(boolean parallel) {
+        tileLoader.setParallel(parallel);
+    }
+
+    /**
+     * @return {@code true} if tiles covered by a requested area are computed in parallel.
+     */
+    public boolean isParallelLoading() {
+        return tileLoader.isParallel();
+    }
+
     public GridCoverage2D getTileCoverage(int idx, int idy) throws CoverageStoreException, TransformException {
         final GridCoverageReadParam rparam = new GridCoverageReadParam();
         Envelope tenv = mosaic.getEnvelope(idx, idy);
@@ -281,68 +311,83 @@ public class CoverageReferenceRenderedImage implements RenderedImage{
         return coverage;
     }
 
+    /**
+     * {@inheritDoc }
+     * If the tile is already being computed by another thread, wait for its result.
+     */
     @Override
     public Raster getTile(int idx, int idy) {
-        try{
-            final GridCoverage2D coverage = getTileCoverage(idx, idy);
-            final Envelope coverageEnvelope = coverage.getEnvelope2D();
-            final RenderedImage image = coverage.getRenderedImage();
-            final GridSampleDimension[] sampleDimensions = coverage.getSampleDimensions();
-            Interpolation interpolation = Interpolation.create(PixelIteratorFactory.createRowMajorIterator(image), InterpolationCase.NEIGHBOR, 2);
-
-            //create an empty tile
-            final Pyramid pyramid = mosaic.getPyramid();
-            final int tileWidth = getTileWidth();
-            final int tileHeight = getTileHeight();
-            final BufferedImage workTile;
-            final int nbBand = sampleDimensions.length;
-            final double[] fillValue = new double[nbBand];
-            Arrays.fill(fillValue,Double.NaN);
-            final double res = mosaic.getScale();
-            if(sampleDimensions.length>0){
-                workTile = BufferedImages.createImage(tileWidth, tileHeight, sampleDimensions.length,
-                        CoverageUtilities.getDataType(sampleDimensions[0].getSampleDimensionType()));
-                for(int i=0;i<nbBand;i++){
-                    final double[] nodata = sampleDimensions[i].geophysics(true).getNoDataValues();
-                    if(nodata!=null && nodata.length>0){
-                        fillValue[i] = nodata[0];
-                    }
+        try {
+            return tileLoader.getTile(idx, idy);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Compute a tile from coverage reference.
+     *
+     * @param idx tile index in X direction.
+     * @param idy tile index in Y direction.
+     * @return computed tile.
+     */
+    private Raster computeTile(int idx, int idy) throws Exception {
+        final GridCoverage2D coverage = getTileCoverage(idx, idy);
+        final Envelope coverageEnvelope = coverage.getEnvelope2D();
+        final RenderedImage image = coverage.getRenderedImage();
+        final GridSampleDimension[] sampleDimensions = coverage.getSampleDimensions();
+        Interpolation interpolation = Interpolation.create(PixelIteratorFactory.createRowMajorIterator(image), InterpolationCase.NEIGHBOR, 2);
+
+        //create an empty tile
+        final Pyramid pyramid = mosaic.getPyramid();
+        final int tileWidth = getTileWidth();
+        final int tileHeight = getTileHeight();
+        final BufferedImage workTile;
+        final int nbBand = sampleDimensions.length;
+        final double[] fillValue = new double[nbBand];
+        Arrays.fill(fillValue,Double.NaN);
+        final double res = mosaic.getScale();
+        if(sampleDimensions.length>0){
+            workTile = BufferedImages.createImage(tileWidth, tileHeight, sampleDimensions.length,
+                    CoverageUtilities.getDataType(sampleDimensions[0].getSampleDimensionType()));
+            for(int i=0;i<nbBand;i++){
+                final double[] nodata = sampleDimensions[i].geophysics(true).getNoDataValues();
+                if(nodata!=null && nodata.length>0){
+                    fillValue[i] = nodata[0];
                 }
-            }else{
-                workTile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_ARGB);
             }
+        }else{
+            workTile = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_ARGB);
+        }
 
-            ImageUtilities.fill(workTile, fillValue[0]);
-
-            // define tile translation from bufferedImage min pixel position to mosaic pixel position.
-            final int minidx = idx * getTileWidth();
-            final int minidy = idy * getTileHeight();
-            final double mosULX = mosaic.getUpperLeftCorner().getOrdinate(0);
-            final double mosULY = mosaic.getUpperLeftCorner().getOrdinate(1);
+        ImageUtilities.fill(workTile, fillValue[0]);
 
-            CoordinateReferenceSystem destCrs2D = CRSUtilities.getCRS2D(pyramid.getCoordinateReferenceSystem());
-            MathTransform crsDestToCrsCoverage = CRS.findMathTransform(destCrs2D, coverageEnvelope.getCoordinateReferenceSystem());
-            MathTransform srcCRSToGrid = ((GridCoverage2D)coverage).getGridGeometry().getGridToCRS(PixelInCell.CELL_CENTER).inverse();
-            MathTransform crsDestToSrcGrid = MathTransforms.concatenate(crsDestToCrsCoverage, srcCRSToGrid);
+        // define tile translation from bufferedImage min pixel position to mosaic pixel position.
+        final int minidx = idx * getTileWidth();
+        final int minidy = idy * getTileHeight();
+        final double mosULX = mosaic.getUpperLeftCorner().getOrdinate(0);
+        final double mosULY = mosaic.getUpperLeftCorner().getOrdinate(1);
 
+        CoordinateReferenceSystem destCrs2D = CRSUtilities.getCRS2D(pyramid.getCoordinateReferenceSystem());
+        MathTransform crsDestToCrsCoverage = CRS.findMathTransform(destCrs2D, coverageEnvelope.getCoordinateReferenceSystem());
+        MathTransform srcCRSToGrid = ((GridCoverage2D)coverage).getGridGeometry().getGridToCRS(PixelInCell.CELL_CENTER).inverse();
+        MathTransform crsDestToSrcGrid = MathTransforms.concatenate(crsDestToCrsCoverage, srcCRSToGrid);
 
-            //define destination grid to CRS.
-            final AffineTransform2D destImgToCRSDest = new AffineTransform2D(res, 0, 0, -res, mosULX + (minidx + 0.5) * res, mosULY - (minidy + 0.5) * res);
-            final MathTransform destImgToCrsCoverage = MathTransforms.concatenate(destImgToCRSDest, crsDestToSrcGrid);
 
-            try {
-                final Resample resample = new Resample(destImgToCrsCoverage, workTile, interpolation, fillValue);
-                resample.fillImage();
-            } catch (Exception ex) {
-                throw new RuntimeException(ex);
-            }
-            fireTileCreated(idx,idy);
+        //define destination grid to CRS.
+        final AffineTransform2D destImgToCRSDest = new AffineTransform2D(res, 0, 0, -res, mosULX + (minidx + 0.5) * res, mosULY - (minidy + 0.5) * res);
+        final MathTransform destImgToCrsCoverage = MathTransforms.concatenate(destImgToCRSDest, crsDestToSrcGrid);
 
-            return workTile.getData();
-        }catch(Exception ex){
-            ex.printStackTrace();
-            return null;
+        try {
+            final Resample resample = new Resample(destImgToCrsCoverage, workTile, interpolation, fillValue);
+            resample.fillImage();
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
         }
+        fireTileCreated(idx,idy);
+
+        return workTile.getData();
     }
 
     @Override
@@ -383,23 +428,40 @@ public class CoverageReferenceRenderedImage implements RenderedImage{
         //calculate the first and last tiles index we will need
         final int startTileX = xsect.x / getTileWidth();
         final int startTileY = xsect.y / getTileHeight();
-        final int endTileX = (xsect.x+xsect.width) / getTileWidth();
-        final int endTileY = (xsect.y+xsect.height) / getTileHeight();
+        final int endTileX = Math.min((xsect.x+xsect.width) / getTileWidth(), getNumXTiles() - 1);
+        final int endTileY = Math.min((xsect.y+xsect.height) / getTileHeight(), getNumYTiles() - 1);
 
-        //loop on each tile
+        //compute all tiles together
+        final List<Point> covered = new ArrayList<>();
         for (int j = startTileY; j <= endTileY; j++) {
             for (int i = startTileX; i <= endTileX; i++) {
-                final Raster tile = getTile(i, j);
-                dstRaster.setRect(
-                        i*getTileWidth(),
-                        j*getTileHeight(),
-                        tile);
+                covered.add(new Point(i, j));
             }
         }
+        final Map<Point, Raster> tiles;
+        try {
+            tiles = tileLoader.getTiles(covered);
+        } catch (DataStoreException ex) {
+            throw new ImagingOpException(ex.getMessage());
+        }
+
+        //loop on each tile
+        for (Map.Entry<Point, Raster> entry : tiles.entrySet()) {
+            final Raster tile = entry.getValue();
+            if (tile == null) continue;
+            dstRaster.setRect(
+                    entry.getKey().x*getTileWidth(),
+                    entry.getKey().y*getTileHeight(),
+                    tile);
+        }
 
         return dstRaster;
     }
 
+    /**
+     * Tiles requested together are created in parallel, this method may be called
+     * by several threads at the same time.
+     */
     protected void fireTileCreated(int x, int y){
         for(ProgressListener l : listeners.getListeners(ProgressListener.class)){
             l.tileCreated(x, y);
@@ -414,6 +476,10 @@ public class CoverageReferenceRenderedImage implements RenderedImage{
         listeners.remove(ProgressListener.class, listener);
     }
 
+    /**
+     * Listener of tile creation. Tiles are created in parallel, listeners may be called
+     * concurrently from several threads and must be thread safe.
+     */
     public static interface ProgressListener extends EventListener{
 
         void tileCreated(int x, int y);
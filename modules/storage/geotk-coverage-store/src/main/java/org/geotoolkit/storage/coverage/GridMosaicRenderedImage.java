@@ -22,6 +22,9 @@ import javax.imageio.ImageReader;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,6 +51,16 @@ public class GridMosaicRenderedImage implements RenderedImage {
      */
     private final Cache<Point,Raster> tileCache = new Cache<>(10, 12, true);
 
+    /**
+     * Load tiles not found in cache, several at a time for {@link #getData(Rectangle) } requests.
+     */
+    private final ParallelTileLoader tileLoader = new ParallelTileLoader() {
+        @Override
+        protected Raster loadTile(int tileX, int tileY) throws Exception {
+            return readTile(tileX, tileY);
+        }
+    };
+
     /**
      * The original mosaic to read
      */
@@ -127,6 +140,23 @@ public class GridMosaicRenderedImage implements RenderedImage {
         return firstTile;
     }
 
+    /**
+     * Enable or disable parallel tile reading for {@link #getData() } and {@link #getData(Rectangle) }.
+     * Parallel reading is enabled by default.
+     *
+     * @param parallel {@code true} to read tiles covered by a requested area in parallel.
+     */
+    public void setParallelLoading(boolean parallel) {
+        tileLoader.setParallel(parallel);
+    }
+
+    /**
+     * @return {@code true} if tiles covered by a requested area are read in parallel.
+     */
+    public boolean isParallelLoading() {
+        return tileLoader.isParallel();
+    }
+
     /**
      * Return intern GridMosaic
      * @return GridMosaic
@@ -311,40 +341,52 @@ public class GridMosaicRenderedImage implements RenderedImage {
 
         if (raster == null) {
             try {
-                DataBuffer buffer = null;
+                //-- if the tile is already being read by another thread, wait for it.
+                raster = tileLoader.getTile(tileX, tileY);
+            } catch (DataStoreException e) {
+                LOGGER.log(Level.WARNING, e.getMessage(), e);
+            }
+        }
 
-                if (!mosaic.isMissing(tileX,tileY)) {
-                    final TileReference tile = mosaic.getTile(tileX,tileY, null);
-                    if (tile != null) {
-                        if (tile.getInput() instanceof RenderedImage) {
-                            buffer = ((RenderedImage)tile.getInput()).getData().getDataBuffer();
-                        } else {
-                            final ImageReader reader = tile.getImageReader();
-                            buffer = reader.read(0).getData().getDataBuffer();
-                            reader.dispose();
-                        }
-                    }
-                }
+        return raster;
+    }
 
-                if(buffer==null){
-                    //create an empty buffer
-                    buffer = getSampleModel().createDataBuffer();
+    /**
+     * Read a tile from the mosaic and put it in the tile cache.
+     *
+     * @param tileX tile index in mosaic grid, in X direction.
+     * @param tileY tile index in mosaic grid, in Y direction.
+     * @return read tile, or an empty tile if missing in mosaic.
+     */
+    private Raster readTile(int tileX, int tileY) throws DataStoreException, IOException {
+        DataBuffer buffer = null;
+
+        if (!mosaic.isMissing(tileX,tileY)) {
+            final TileReference tile = mosaic.getTile(tileX,tileY, null);
+            if (tile != null) {
+                if (tile.getInput() instanceof RenderedImage) {
+                    buffer = ((RenderedImage)tile.getInput()).getData().getDataBuffer();
+                } else {
+                    final ImageReader reader = tile.getImageReader();
+                    buffer = reader.read(0).getData().getDataBuffer();
+                    reader.dispose();
                 }
+            }
+        }
 
-                //create a raster from tile image with tile position offset.
-                LOGGER.log(Level.FINE, "Request tile {0}:{1} ", new Object[]{tileX,tileY});
-                final int rX = tileX*this.getTileWidth();
-                final int rY = tileY*this.getTileHeight();
+        if(buffer==null){
+            //create an empty buffer
+            buffer = getSampleModel().createDataBuffer();
+        }
 
-                raster = Raster.createWritableRaster(getSampleModel(), buffer, new Point(rX, rY));
+        //create a raster from tile image with tile position offset.
+        LOGGER.log(Level.FINE, "Request tile {0}:{1} ", new Object[]{tileX,tileY});
+        final int rX = tileX*this.getTileWidth();
+        final int rY = tileY*this.getTileHeight();
 
-                this.tileCache.put(new Point(tileX, tileY), raster);
-
-            } catch ( DataStoreException | IOException e) {
-                LOGGER.log(Level.WARNING, e.getMessage(), e);
-            }
-        }
+        final Raster raster = Raster.createWritableRaster(getSampleModel(), buffer, new Point(rX, rY));
 
+        this.tileCache.put(new Point(tileX, tileY), raster);
         return raster;
     }
 
@@ -352,56 +394,12 @@ public class GridMosaicRenderedImage implements RenderedImage {
         return mosaic.isMissing(x+gridRange.x, y+gridRange.y);
     }
 
-    private TileReference getTileReference(int x, int y) throws DataStoreException{
-        return mosaic.getTile(x+gridRange.x,y+gridRange.y,null);
-    }
-
     /**
      * {@inheritDoc}
      */
     @Override
     public Raster getData() {
-        final RenderedImage firstTile = getFirstTile();
-        Raster rasterOut = null;
-        if (firstTile != null) {
-            rasterOut = firstTile.getTile(0, 0).createCompatibleWritableRaster(getWidth(), getHeight());
-
-            // Clear dataBuffer to 0 value for all bank
-            for (int s = 0; s < rasterOut.getDataBuffer().getSize(); s++) {
-                for (int b = 0; b < rasterOut.getDataBuffer().getNumBanks(); b++) {
-                    rasterOut.getDataBuffer().setElem(b, s, 0);
-                }
-            }
-
-            try {
-
-                for (int y = 0; y < this.getNumYTiles(); y++) {
-                    for (int x = 0; x < this.getNumYTiles(); x++) {
-                        if (!isTileMissing(x, y)) {
-                            final TileReference tile = getTileReference(x, y);
-                            final RenderedImage sourceImg;
-
-                            if (tile.getInput() instanceof RenderedImage) {
-                                sourceImg = (RenderedImage) tile.getInput();
-                            } else {
-                                sourceImg = tile.getImageReader().read(tile.getImageIndex());
-                            }
-
-                            final Raster rasterIn = sourceImg.getData();
-
-                            rasterOut.getSampleModel().setDataElements(x * this.getTileWidth(), y * this.getTileHeight(), this.getTileWidth(), this.getTileHeight(),
-                                    rasterIn.getSampleModel().getDataElements(0, 0, this.getTileWidth(), this.getTileHeight(), null, rasterIn.getDataBuffer()),
-                                    rasterOut.getDataBuffer());
-
-                        }
-                    }
-                }
-
-            } catch (Exception ex) {
-                LOGGER.log(Level.WARNING, "", ex);
-            }
-        }
-        return rasterOut;
+        return getData(new Rectangle(0, 0, getWidth(), getHeight()));
     }
 
     /**
@@ -425,43 +423,49 @@ public class GridMosaicRenderedImage implements RenderedImage {
                 final Point upperLeftPosition = this.getPositionOf(rect.x, rect.y);
                 final Point lowerRightPosition = this.getPositionOf(rect.x + rect.width - 1, rect.y + rect.height - 1);
 
+                //-- tiles covered by requested area, read all together.
+                final List<Point> covered = new ArrayList<>();
                 for (int y = Math.max(upperLeftPosition.y, 0); y < Math.min(lowerRightPosition.y + 1, this.getNumYTiles()); y++) {
                     for (int x = Math.max(upperLeftPosition.x, 0); x < Math.min(lowerRightPosition.x + 1, this.getNumXTiles()); x++) {
                         if (!isTileMissing(x, y)) {
-                            final TileReference tile = getTileReference(x, y);
-                            final Rectangle tileRect = new Rectangle(x * this.getTileWidth(), y * this.getTileHeight(), this.getTileWidth(), this.getTileHeight());
-
-                            final int minX, maxX, minY, maxY;
-                            minX = XMath.clamp(rect.x, tileRect.x, tileRect.x + tileRect.width);
-                            maxX = XMath.clamp(rect.x + rect.width, tileRect.x, tileRect.x + tileRect.width);
-                            minY = XMath.clamp(rect.y, tileRect.y, tileRect.y + tileRect.height);
-                            maxY = XMath.clamp(rect.y + rect.height, tileRect.y, tileRect.y + tileRect.height);
-
-                            final Rectangle rectIn = new Rectangle(minX, minY, maxX - minX, maxY - minY);
-                            rectIn.translate(-tileRect.x, -tileRect.y);
-                            final Rectangle rectOut = new Rectangle(minX, minY, maxX - minX, maxY - minY);
-                            rectOut.translate(-rect.x, -rect.y);
-
-                            if (rectIn.width <= 0 || rectIn.height <= 0 || rectOut.width <= 0 || rectOut.height <= 0) {
-                                continue;
-                            }
-
-                            final RenderedImage sourceImg;
-                            if (tile.getInput() instanceof RenderedImage) {
-                                sourceImg = (RenderedImage) tile.getInput();
-                            } else {
-                                sourceImg = tile.getImageReader().read(tile.getImageIndex());
-                            }
-
-                            final Raster rasterIn = sourceImg.getData();
-
-                            rasterOut.getSampleModel().setDataElements(rectOut.x, rectOut.y, rectOut.width, rectOut.height,
-                                    rasterIn.getSampleModel().getDataElements(rectIn.x, rectIn.y, rectIn.width, rectIn.height, null, rasterIn.getDataBuffer()),
-                                    rasterOut.getDataBuffer());
-
+                            covered.add(new Point(x + gridRange.x, y + gridRange.y));
                         }
                     }
                 }
+                final List<Point> toLoad = new ArrayList<>();
+                for (Point tile : covered) {
+                    if (tileCache.peek(tile) == null) toLoad.add(tile);
+                }
+                final Map<Point, Raster> loaded = tileLoader.getTiles(toLoad);
+
+                for (Point tile : covered) {
+                    Raster rasterIn = loaded.get(tile);
+                    if (rasterIn == null) rasterIn = getTile(tile.x - gridRange.x, tile.y - gridRange.y);
+                    if (rasterIn == null) continue;
+
+                    final int x = tile.x - gridRange.x;
+                    final int y = tile.y - gridRange.y;
+                    final Rectangle tileRect = new Rectangle(x * this.getTileWidth(), y * this.getTileHeight(), this.getTileWidth(), this.getTileHeight());
+
+                    final int minX, maxX, minY, maxY;
+                    minX = XMath.clamp(rect.x, tileRect.x, tileRect.x + tileRect.width);
+                    maxX = XMath.clamp(rect.x + rect.width, tileRect.x, tileRect.x + tileRect.width);
+                    minY = XMath.clamp(rect.y, tileRect.y, tileRect.y + tileRect.height);
+                    maxY = XMath.clamp(rect.y + rect.height, tileRect.y, tileRect.y + tileRect.height);
+
+                    final Rectangle rectIn = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+                    rectIn.translate(-tileRect.x, -tileRect.y);
+                    final Rectangle rectOut = new Rectangle(minX, minY, maxX - minX, maxY - minY);
+                    rectOut.translate(-rect.x, -rect.y);
+
+                    if (rectIn.width <= 0 || rectIn.height <= 0 || rectOut.width <= 0 || rectOut.height <= 0) {
+                        continue;
+                    }
+
+                    rasterOut.getSampleModel().setDataElements(rectOut.x, rectOut.y, rectOut.width, rectOut.height,
+                            rasterIn.getSampleModel().getDataElements(rectIn.x, rectIn.y, rectIn.width, rectIn.height, null, rasterIn.getDataBuffer()),
+                            rasterOut.getDataBuffer());
+                }
 
             } catch (Exception ex) {
                 LOGGER.log(Level.WARNING, "", ex);
@@ -0,0 +1,188 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.storage.coverage;
+
+import java.awt.Point;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Load tiles of an image, one at a time or several in parallel.<br/><br/>
+ *
+ * Tiles requested together are loaded with {@link Threads#invokeAll(List)}, the requesting thread also
+ * loads tiles which are not started yet. A tile already being loaded by a request is not loaded again by
+ * a concurrent request, which just waits for the result.
+ *
+ * @module pending
+ */
+abstract class ParallelTileLoader {
+
+    /**
+     * Tiles currently loading, removed once loaded.
+     */
+    private final ConcurrentMap<Point, FutureTask<Raster>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * If {@code false}, tiles requested together are loaded in requesting thread.
+     */
+    private volatile boolean parallel = true;
+
+    /**
+     * Load a tile. This method may be called from several threads at the same time, but never
+     * for the same tile.
+     *
+     * @param tileX tile index in X direction.
+     * @param tileY tile index in Y direction.
+     * @return loaded tile, may be {@code null}.
+     * @throws Exception if tile cannot be loaded.
+     */
+    protected abstract Raster loadTile(int tileX, int tileY) throws Exception;
+
+    /**
+     * Enable or disable parallel loading of tiles requested together.
+     *
+     * @param parallel {@code true} to load tiles in parallel.
+     */
+    void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * @return {@code true} if tiles requested together are loaded in parallel.
+     */
+    boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Load a single tile in current thread, or wait for it if it is already loading.
+     *
+     * @param tileX tile index in X direction.
+     * @param tileY tile index in Y direction.
+     * @return loaded tile, may be {@code null}.
+     * @throws DataStoreException if tile cannot be loaded.
+     */
+    Raster getTile(final int tileX, final int tileY) throws DataStoreException {
+        final FutureTask<Raster> task = getTask(new Point(tileX, tileY));
+        //-- does nothing if task is already started by another thread.
+        task.run();
+        return getResult(task);
+    }
+
+    /**
+     * Load all given tiles, in parallel if enabled.
+     *
+     * @param tiles tile indices.
+     * @return loaded tiles in the same order as given indices. Values may be {@code null}.
+     * @throws DataStoreException if a tile cannot be loaded.
+     */
+    Map<Point, Raster> getTiles(final Collection<Point> tiles) throws DataStoreException {
+        final Map<Point, Raster> result = new LinkedHashMap<>();
+        if (!parallel || tiles.size() <= 1) {
+            for (Point tile : tiles) {
+                result.put(tile, getTile(tile.x, tile.y));
+            }
+            return result;
+        }
+        final List<Callable<Raster>> tasks = new ArrayList<>(tiles.size());
+        for (Point tile : tiles) {
+            final FutureTask<Raster> task = getTask(tile);
+            tasks.add(new Callable<Raster>() {
+                @Override
+                public Raster call() throws DataStoreException {
+                    //-- does nothing if task is already started by another thread.
+                    task.run();
+                    return getResult(task);
+                }
+            });
+        }
+        final List<Raster> rasters;
+        try {
+            rasters = Threads.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataStoreException("Interrupted while loading tile.", ex);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        }
+        int i = 0;
+        for (Point tile : tiles) {
+            result.put(tile, rasters.get(i++));
+        }
+        return result;
+    }
+
+    /**
+     * Return loading task of a tile, creating it if the tile is not currently loading.
+     */
+    private FutureTask<Raster> getTask(final Point tile) {
+        FutureTask<Raster> task = inFlight.get(tile);
+        if (task == null) {
+            final Point key = new Point(tile);
+            final FutureTask<Raster> created = new FutureTask<Raster>(new Callable<Raster>() {
+                @Override
+                public Raster call() throws Exception {
+                    return loadTile(key.x, key.y);
+                }
+            }) {
+                @Override
+                protected void done() {
+                    inFlight.remove(key, this);
+                }
+            };
+            task = inFlight.putIfAbsent(key, created);
+            if (task == null) task = created;
+        }
+        return task;
+    }
+
+    /**
+     * Wait for task end and return its result.
+     */
+    private static Raster getResult(final FutureTask<Raster> task) throws DataStoreException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataStoreException("Interrupted while loading tile.", ex);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex);
+        }
+    }
+
+    /**
+     * Return the task failure as a data store exception, unchecked exceptions are rethrown.
+     */
+    private static DataStoreException unwrap(final ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof DataStoreException) return (DataStoreException) cause;
+        if (cause instanceof RuntimeException)   throw (RuntimeException) cause;
+        if (cause instanceof Error)              throw (Error) cause;
+        return new DataStoreException(cause.getMessage(), cause);
+    }
+}
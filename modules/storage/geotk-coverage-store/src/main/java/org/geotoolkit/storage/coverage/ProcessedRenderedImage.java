@@ -152,6 +152,14 @@ public class ProcessedRenderedImage extends AbstractRenderedImage {
         //TODO take in consideration other values
         final int offsetX = tileX * tileWidth;
         final int offsetY = tileY * tileHeight;
+        if(evaluator instanceof RowEvaluator){
+            final double[] rowBuffer = new double[tileWidth*nbBand];
+            for(int y=0;y<tileHeight;y++){
+                ((RowEvaluator)evaluator).evaluate(offsetX, y+offsetY, tileWidth, rowBuffer);
+                raster.setPixels(0, y, tileWidth, 1, rowBuffer);
+            }
+            return raster;
+        }
         for(int y=0;y<tileHeight;y++){
             for(int x=0;x<tileWidth;x++){
                 evaluator.evaluate(x+offsetX, y+offsetY, sampleBuffer);
@@ -169,5 +177,20 @@ public class ProcessedRenderedImage extends AbstractRenderedImage {
         void evaluate(int x, int y, double[] sampleBuffer);
         
     }
+
+    /**
+     * Evaluator able to compute a whole row of pixels at once.
+     */
+    public static interface RowEvaluator extends Evaluator {
+
+        /**
+         * @param x first pixel x
+         * @param y pixels y
+         * @param width number of pixels
+         * @param sampleBuffer samples of all pixels, pixel interleaved
+         */
+        void evaluate(int x, int y, int width, double[] sampleBuffer);
+
+    }
     
 }
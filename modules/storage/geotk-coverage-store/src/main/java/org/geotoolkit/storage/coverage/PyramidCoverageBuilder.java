@@ -1127,7 +1127,7 @@ public class PyramidCoverageBuilder {
 
                 final Resample resample = new Resample(mt.inverse(), destImg, baseImg, interpolationCase, lanczosWindow,
                         ResampleBorderComportement.FILL_VALUE, (noFill ? null : fill));
-                resample.fillImage();
+                resample.fillImage(true);
                 return destImg.getTile(0, 0);
             }catch(Exception ex){
                 throw new ImagingOpException(ex.getMessage());
@@ -0,0 +1,108 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.storage.coverage;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link ParallelTileLoader}.
+ *
+ * @module pending
+ */
+public class ParallelTileLoaderTest {
+
+    @Test
+    public void loadAllTilesTest() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final ParallelTileLoader loader = new ParallelTileLoader() {
+            @Override
+            protected Raster loadTile(int tileX, int tileY) throws Exception {
+                count.incrementAndGet();
+                return Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 4, 4, 1, new Point(tileX * 4, tileY * 4));
+            }
+        };
+        final List<Point> tiles = new ArrayList<>();
+        for (int y = 0; y < 5; y++) {
+            for (int x = 0; x < 6; x++) {
+                tiles.add(new Point(x, y));
+            }
+        }
+        final Map<Point, Raster> result = loader.getTiles(tiles);
+        Assert.assertEquals(30, result.size());
+        Assert.assertEquals(30, count.get());
+        for (Map.Entry<Point, Raster> entry : result.entrySet()) {
+            Assert.assertEquals(entry.getKey().x * 4, entry.getValue().getMinX());
+            Assert.assertEquals(entry.getKey().y * 4, entry.getValue().getMinY());
+        }
+    }
+
+    /**
+     * A tile requested while it is being loaded should not be loaded twice.
+     */
+    @Test
+    public void inFlightTest() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ParallelTileLoader loader = new ParallelTileLoader() {
+            @Override
+            protected Raster loadTile(int tileX, int tileY) throws Exception {
+                count.incrementAndGet();
+                started.countDown();
+                release.await();
+                return Raster.createBandedRaster(DataBuffer.TYPE_BYTE, 4, 4, 1, new Point(0, 0));
+            }
+        };
+        final Raster[] results = new Raster[2];
+        final Thread[] threads = new Thread[2];
+        for (int t = 0; t < 2; t++) {
+            final int index = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        results[index] = loader.getTile(0, 0);
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            };
+        }
+        threads[0].start();
+        started.await();
+        //-- second request while first one is loading.
+        threads[1].start();
+        while (threads[1].getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        threads[0].join();
+        threads[1].join();
+        Assert.assertEquals(1, count.get());
+        Assert.assertNotNull(results[0]);
+        Assert.assertSame(results[0], results[1]);
+    }
+}
@@ -72,6 +72,17 @@ public final class Bundle extends IndexedResourceBundle {
          * XML coverage
          */
         public static final short coverageXMLTitle = 5;
+
+        /**
+         * Tile writing threads
+         */
+        public static final short coverageXMLWriteThreads = 6;
+
+        /**
+         * Number of threads encoding tiles when writing mosaics. Encoded tiles are written in files
+         * by a smaller set of threads. Default is the number of processors minus one.
+         */
+        public static final short coverageXMLWriteThreadsRemarks = 7;
     }
 
     /**
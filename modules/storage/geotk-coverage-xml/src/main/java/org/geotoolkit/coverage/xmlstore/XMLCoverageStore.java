@@ -58,6 +58,13 @@ public class XMLCoverageStore extends AbstractCoverageStore {
 
     final boolean cacheTileState;
 
+    /**
+     * Number of threads encoding tiles, and pipeline shared by all mosaics of this store,
+     * created at first tile write.
+     */
+    private final int writeThreads;
+    private XMLTileWritePipeline writePipeline;
+
     @Deprecated
     public XMLCoverageStore(File root) throws URISyntaxException, IOException {
         this(root.toPath(),true);
@@ -90,6 +97,9 @@ public class XMLCoverageStore extends AbstractCoverageStore {
         root = Paths.get(rootPath);
         Boolean tmpCacheState = Parameters.value(XMLCoverageStoreFactory.CACHE_TILE_STATE, params);
         cacheTileState = (tmpCacheState == null)? true : tmpCacheState;
+        final Integer tmpWriteThreads = Parameters.value(XMLCoverageStoreFactory.WRITE_THREADS, params);
+        writeThreads = (tmpWriteThreads == null || tmpWriteThreads < 1)?
+                XMLTileWritePipeline.getDefaultThreadCount() : tmpWriteThreads;
         explore();
     }
 
@@ -156,8 +166,22 @@ public class XMLCoverageStore extends AbstractCoverageStore {
         }
     }
 
+    /**
+     * Returns the tile write pipeline of this store, creating it if needed.
+     */
+    synchronized XMLTileWritePipeline getWritePipeline() {
+        if (writePipeline == null) {
+            writePipeline = new XMLTileWritePipeline(writeThreads);
+        }
+        return writePipeline;
+    }
+
     @Override
-    public void close() {
+    public synchronized void close() {
+        if (writePipeline != null) {
+            writePipeline.close();
+            writePipeline = null;
+        }
     }
 
     @Override
@@ -76,10 +76,19 @@ public class XMLCoverageStoreFactory extends AbstractCoverageStoreFactory {
             .setRemarks(Bundle.formatInternational(Bundle.Keys.coverageXMLTileStateRemarks))
             .setRequired(false)
             .create(Boolean.class, Boolean.FALSE);
+    /**
+     * Optional - number of threads encoding tiles when writing mosaics.
+     */
+    public static final ParameterDescriptor<Integer> WRITE_THREADS = new ParameterBuilder()
+            .addName("writeThreads")
+            .addName(Bundle.formatInternational(Bundle.Keys.coverageXMLWriteThreads))
+            .setRemarks(Bundle.formatInternational(Bundle.Keys.coverageXMLWriteThreadsRemarks))
+            .setRequired(false)
+            .create(Integer.class, null);
 
     public static final ParameterDescriptorGroup PARAMETERS_DESCRIPTOR =
             new ParameterBuilder().addName("XMLCoverageStoreParameters").createGroup(
-                IDENTIFIER, PATH, NAMESPACE, CACHE_TILE_STATE);
+                IDENTIFIER, PATH, NAMESPACE, CACHE_TILE_STATE, WRITE_THREADS);
 
     @Override
     public Identification getIdentification() {
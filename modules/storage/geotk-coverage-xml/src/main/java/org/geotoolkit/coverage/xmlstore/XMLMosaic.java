@@ -23,7 +23,6 @@ import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
-import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -38,7 +37,6 @@ import java.util.concurrent.*;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
@@ -82,14 +80,6 @@ public class XMLMosaic implements GridMosaic {
     private static final Logger LOGGER = Logging.getLogger("org.geotoolkit.coverage.xmlstore");
     private static final NumberFormat DECIMAL_FORMAT = NumberFormat.getInstance(Locale.ENGLISH);
 
-    /** Executor used to write images */
-    private static final RejectedExecutionHandler LOCAL_REJECT_EXECUTION_HANDLER = new ThreadPoolExecutor.CallerRunsPolicy();
-
-    private static final BlockingQueue IMAGEQUEUE = new ArrayBlockingQueue(getMaxExecutors()*2);
-
-    private static final ThreadPoolExecutor TILEWRITEREXECUTOR = new ThreadPoolExecutor(
-            0, getMaxExecutors(), 1, TimeUnit.MINUTES, IMAGEQUEUE, LOCAL_REJECT_EXECUTION_HANDLER);
-
     /*
      * Used only if we use the tile state cache mechanism, which means we don't use XML document to read / write tile states.
      */
@@ -126,25 +116,7 @@ public class XMLMosaic implements GridMosaic {
 
     final ReentrantReadWriteLock bitsetLock = new ReentrantReadWriteLock();
 
-    /**
-     * Read the maximum number of threads in {@link #TILEWRITEREXECUTOR} from
-     * {@code geotk.pyramid.xml.max.painters} system property.
-     *
-     * @return value of {@code geotk.pyramid.xml.max.painters} system property} or
-     * number of available processors - 1.
-     */
-    private static int getMaxExecutors() {
-        final int availableProcessors = Runtime.getRuntime().availableProcessors();
-        final String property = System.getProperty("geotk.pyramid.xml.max.painters");
-        final int nbPainters;
-        if (property != null) {
-            nbPainters = Integer.valueOf(property);
-        } else {
-            nbPainters = availableProcessors > 1 ? availableProcessors - 1 : 1;
-        }
-        LOGGER.log(Level.FINE, "Initialize XML tile writer executor pool with a size of "+nbPainters);
-        return nbPainters;
-    }
+    private final XMLTileWriteStatistics statistics = new XMLTileWriteStatistics();
 
     /**
      * Mosaic initialization. Should ALWAYS be called at mosaic instantiation, before doing anything else.
@@ -291,6 +263,15 @@ public class XMLMosaic implements GridMosaic {
         return emptyTileEncoded;
     }
 
+    /**
+     * Tile write counters of this mosaic, since it has been loaded.
+     *
+     * @return write statistics, never null.
+     */
+    public XMLTileWriteStatistics getWriteStatistics() {
+        return statistics;
+    }
+
     private static String updateCompletionString(BitSet input) throws IOException {
         return Base64.encodeBytes(input.toByteArray(), Base64.GZIP);
     }
@@ -576,6 +557,20 @@ public class XMLMosaic implements GridMosaic {
         return fils;
     }
 
+    /**
+     * Returns the path of the tile file to write, existing one or default one.
+     *
+     * @param col mosaic column index.
+     * @param row mosaic row index.
+     * @return path where tile should be written.
+     * @throws DataStoreException if position is outside the mosaic.
+     */
+    Path getTileWritePath(int col, int row) throws DataStoreException {
+        checkPosition(col, row);
+        final Path tilePath = getTileFile(col, row);
+        return (tilePath != null) ? tilePath : getDefaultTileFile(col, row);
+    }
+
     ImageWriter acquireImageWriter() throws IOException {
         return XImageIO.getWriterByFormatName(getPyramid().getPyramidSet().getFormatName(), null, null);
     }
@@ -611,6 +606,7 @@ public class XMLMosaic implements GridMosaic {
             } finally {
                 bitsetLock.writeLock().unlock();
             }
+            statistics.emptyTile();
             return;
         }
 
@@ -619,6 +615,7 @@ public class XMLMosaic implements GridMosaic {
         if (tilePath == null) tilePath = getDefaultTileFile(col, row);
 
         ImageOutputStream out = null;
+        final long start = System.nanoTime();
         try {
             final Class[] outTypes = writer.getOriginatingProvider().getOutputTypes();
             if(ArraysExt.contains(outTypes, Path.class)){
@@ -632,6 +629,12 @@ public class XMLMosaic implements GridMosaic {
                 out = ImageIO.createImageOutputStream(tilePath);
             }
             writer.write(image);
+            if (out != null) {
+                out.flush();
+            }
+            final long elapsed = System.nanoTime() - start;
+            statistics.tileWritten(Files.size(tilePath), elapsed);
+            statistics.elapsed(elapsed);
             if (tileExist != null) {
                 final int ti = getTileIndex(col, row);
                 bitsetLock.writeLock().lock();
@@ -660,14 +663,15 @@ public class XMLMosaic implements GridMosaic {
         }
     }
 
-     void writeTiles(final RenderedImage image, final Rectangle area, final boolean onlyMissing, final ProgressMonitor monitor) throws DataStoreException{
-         
-         try {
-             checkMosaicFolderExist();
-         } catch (IOException e) {
-             throw new DataStoreException("Unable to create mosaic folder "+e.getLocalizedMessage(), e);
-         }
-         
+    void writeTiles(final RenderedImage image, final Rectangle area, final boolean onlyMissing, final ProgressMonitor monitor) throws DataStoreException{
+
+        //-- use the pipeline of the owner store, or a temporary one if this mosaic is detached.
+        final XMLCoverageReference ref = getPyramid().getPyramidSet().getRef();
+        final boolean temporary = (ref == null || !(ref.getStore() instanceof XMLCoverageStore));
+        final XMLTileWritePipeline pipeline = temporary ?
+                new XMLTileWritePipeline(XMLTileWritePipeline.getDefaultThreadCount()) :
+                ((XMLCoverageStore) ref.getStore()).getWritePipeline();
+
         final int offsetX = image.getMinTileX();
         final int offsetY = image.getMinTileY();
 
@@ -681,41 +685,66 @@ public class XMLMosaic implements GridMosaic {
         assert endX > startX && endX <= image.getNumXTiles();
         assert endY > startY && endY <= image.getNumYTiles();
 
-        final List<Future> futurs = new ArrayList<>();
-        for(int y=startY; y < endY; y++){
-            for(int x=startX; x < endX; x++){
-                if (monitor != null && monitor.isCanceled()) {
-                    // Stops submitting new thread
-                    return;
-                }
+        try {
+            final XMLTileWritePipeline.Batch batch = pipeline.open(this, monitor);
+            try {
+                submit:
+                for(int y=startY; y < endY; y++){
+                    for(int x=startX; x < endX; x++){
+                        if (monitor != null && monitor.isCanceled()) {
+                            // Stops submitting new tiles
+                            break submit;
+                        }
 
-                final int tx = offsetX+x;
-                final int ty = offsetY+y;
+                        final int tx = offsetX+x;
+                        final int ty = offsetY+y;
 
-                if(onlyMissing && !isMissing(tx, ty)){
-                    continue;
+                        if(onlyMissing && !isMissing(tx, ty)){
+                            continue;
+                        }
+                        batch.submit(image, new Point(tx, ty), tx, ty);
+                    }
                 }
-
-                final int tileIndex = getTileIndex(tx, ty);
-                checkPosition(tx, ty);
-
-                Path tilePath = getTileFile(tx, ty);
-                if (tilePath == null) tilePath = getDefaultTileFile(tx, ty);
-
-                Future fut = TILEWRITEREXECUTOR.submit(new TileWriter(tilePath, image, tx, ty, tileIndex, image.getColorModel(), getPyramid().getPyramidSet().getFormatName(), monitor));
-                futurs.add(fut);
+            } finally {
+                //wait for all writing to be done
+                batch.await();
+            }
+        } finally {
+            if (temporary) {
+                pipeline.close();
             }
         }
+    }
 
-        //wait for all writing tobe done
-        for (Future f : futurs) {
+    /**
+     * Applies tile states gathered by the write pipeline, under a single lock.
+     *
+     * @param filled indices of tiles written in files.
+     * @param filledCount number of valid values in {@code filled} array.
+     * @param empty indices of empty tiles.
+     * @param emptyCount number of valid values in {@code empty} array.
+     */
+    void updateTileStates(final int[] filled, final int filledCount, final int[] empty, final int emptyCount) {
+        if (tileExist != null) {
+            bitsetLock.writeLock().lock();
             try {
-                f.get();
-            } catch (InterruptedException | ExecutionException ex) {
-                LOGGER.log(Level.WARNING, ex.getMessage(), ex);
+                for (int i = 0; i < filledCount; i++) {
+                    tileExist.set(filled[i], true);
+                    tileEmpty.set(filled[i], false);
+                }
+                for (int i = 0; i < emptyCount; i++) {
+                    tileExist.set(empty[i], true);
+                    tileEmpty.set(empty[i], true);
+                }
+            } finally {
+                bitsetLock.writeLock().unlock();
+            }
+        } else {
+            final Cache<Point, Boolean> cache = getIsMissingCache();
+            for (int i = 0; i < filledCount; i++) {
+                cache.put(new Point(filled[i] % gridWidth, filled[i] / gridWidth), false);
             }
         }
-
     }
 
     private void checkPosition(int col, int row) throws PointOutsideCoverageException {
@@ -731,14 +760,14 @@ public class XMLMosaic implements GridMosaic {
      * 
      * @throws IOException
      */
-    private void checkMosaicFolderExist() throws IOException {
+    void checkMosaicFolderExist() throws IOException {
         final Path mosaicFolder = getFolder();
         if (!Files.isDirectory(mosaicFolder)) {
             Files.createDirectories(mosaicFolder);
         }
     }
 
-    private int getTileIndex(int col, int row){
+    int getTileIndex(int col, int row){
         final int index = row*getGridSize().width + col;
         return index;
     }
@@ -802,7 +831,7 @@ public class XMLMosaic implements GridMosaic {
     /**
      * check if image is empty
      */
-    private static boolean isEmpty(Raster raster) { //-- maybe use iterator is more efficiency
+    static boolean isEmpty(Raster raster) { //-- maybe use iterator is more efficiency
         double[] array = null;
         searchEmpty:
         for(int x=0,width=raster.getWidth(); x<width; x++){
@@ -823,111 +852,6 @@ public class XMLMosaic implements GridMosaic {
         return AbstractGridMosaic.getTiles(this, positions, hints);
     }
 
-    private class TileWriter implements Runnable{
-
-        private final Path tilePath;
-        private final RenderedImage image;
-        private final int idx;
-        private final int idy;
-        private final int tileIndex;
-        private final ColorModel cm;
-        private final String formatName;
-        private final ProgressMonitor monitor;
-
-        public TileWriter(Path tilePath, RenderedImage image, int idx, int idy, int tileIndex, ColorModel cm, String formatName, ProgressMonitor monitor) {
-            ArgumentChecks.ensureNonNull("file", tilePath);
-            ArgumentChecks.ensureNonNull("image", image);
-            this.tilePath = tilePath;
-            this.image = image;
-            this.idx = idx;
-            this.idy = idy;
-            this.tileIndex = tileIndex;
-            this.cm = cm;
-            this.formatName = formatName;
-            this.monitor = monitor;
-
-        }
-
-        @Override
-        public void run() {
-            // Stops writing tile if process cancelled
-            if (monitor != null && monitor.isCanceled()) {
-                return;
-            }
-
-            ImageWriter writer = null;
-            ImageOutputStream out = null;
-            try {
-                final int offsetX = image.getMinTileX();
-                final int offsetY = image.getMinTileY();
-                Raster raster = image.getTile(offsetX+idx, offsetY+idy);
-
-                //check if image is empty
-                if (tileEmpty != null && (raster == null || isEmpty(raster))) {
-
-                    bitsetLock.writeLock().lock();
-                    try {
-                        tileExist.set(tileIndex, true);
-                        tileEmpty.set(tileIndex, true);
-                    } finally {
-                        bitsetLock.writeLock().unlock();
-                    }
-                    return;
-                }
-
-                writer = ImageIO.getImageWritersByFormatName(formatName).next();
-
-                final Class[] outTypes = writer.getOriginatingProvider().getOutputTypes();
-                if (ArraysExt.contains(outTypes, Path.class)) {
-                    //writer support files directly, let him handle it
-                    writer.setOutput(tilePath);
-                } else {
-                    out = ImageIO.createImageOutputStream(tilePath);
-                    writer.setOutput(out);
-                }
-
-                final boolean canWriteRaster = writer.canWriteRasters();
-                //write tile
-                if (canWriteRaster) {
-                    final IIOImage buffer = new IIOImage(raster, null, null);
-                    writer.write(buffer);
-                } else {
-                    //encapsulate image in a buffered image with parent color model
-                    final BufferedImage buffer = new BufferedImage(
-                            cm, (WritableRaster) raster, cm.isAlphaPremultiplied(), null);
-                    writer.write(buffer);
-                }
-
-                if (tileExist != null) {
-                    bitsetLock.writeLock().lock();
-                    try {
-                        tileExist.set(tileIndex, true);
-                        tileEmpty.set(tileIndex, false);
-                    } finally {
-                        bitsetLock.writeLock().unlock();
-                    }
-                } else {
-                    getIsMissingCache().put(new Point(idx, idy), false);
-                }
-
-            } catch (Exception ex) {
-                LOGGER.log(Level.WARNING, ex.getMessage(), ex);
-                throw new RuntimeException(ex.getMessage(), ex);
-            } finally {
-                if (writer != null) {
-                    writer.dispose();
-                    if (out != null) {
-                        try {
-                            out.close();
-                        } catch (IOException ex) {
-                            LOGGER.log(Level.SEVERE, null, ex);
-                        }
-                    }
-                }
-            }
-        }
-    }
-
     /**
      * For retro-compatibility purpose with the 2D-limited pyramids. X coordinate of the upper-left point of the mosaic.
      * DO NOT put a getter, as we don't want it to be written, only read from description file.
@@ -0,0 +1,550 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.ImageWriterSpi;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import javax.swing.ProgressMonitor;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.logging.Logging;
+import org.geotoolkit.image.io.XImageIO;
+import org.geotoolkit.internal.Threads;
+
+/**
+ * Tile write pipeline of a {@link XMLCoverageStore}.
+ *
+ * Tiles are encoded in memory by the parallel threads shared by the library, at most
+ * {@code encoderCount} tiles of a store at the same time, then the encoded bytes are
+ * written in tile files by a small pool of I/O threads owned by the store. The number
+ * of tiles in flight is bounded : when the limit is reached, the producer encodes the
+ * pending tiles itself, and waits only when all tiles in flight are already being
+ * processed. Tile states are applied to the mosaic bitsets by batches, and the pyramid
+ * descriptor is saved every {@link #SAVE_BATCH_SIZE} tiles.
+ * <p>
+ * The first failure of a batch stops it : the following tiles are skipped and the
+ * failure is thrown by {@link Batch#await()}.
+ *
+ * @module pending
+ */
+final class XMLTileWritePipeline {
+
+    private static final Logger LOGGER = Logging.getLogger("org.geotoolkit.coverage.xmlstore");
+
+    /**
+     * Number of tile states gathered before being applied to the mosaic bitsets.
+     */
+    static final int STATE_BATCH_SIZE = 64;
+
+    /**
+     * Number of tile states applied between two saves of the pyramid descriptor.
+     */
+    static final int SAVE_BATCH_SIZE = 1024;
+
+    /** Number of tiles encoded at the same time. */
+    private final Semaphore encoding;
+    /** Tiles waiting for an encoding thread. */
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    /** Threads writing encoded tiles in files. */
+    private final ThreadPoolExecutor writers;
+    /** Number of tiles which can be submitted before the producer waits. */
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    /** Image writers released by encoder threads, by format name. */
+    private final ConcurrentMap<String,Queue<ImageWriter>> imageWriters = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param encoderCount maximum number of tiles encoded at the same time, the number
+     *        of file writing threads is derived from it.
+     */
+    XMLTileWritePipeline(final int encoderCount) {
+        ArgumentChecks.ensureStrictlyPositive("encoderCount", encoderCount);
+        final int writerCount = Math.max(1, (encoderCount + 3) / 4);
+        encoding    = new Semaphore(encoderCount);
+        maxInFlight = 2 * (encoderCount + writerCount);
+        inFlight    = new Semaphore(maxInFlight);
+
+        //-- writing threads mostly wait for the disk, they are not taken from the shared parallel threads.
+        final ThreadFactory factory = Threads.createThreadFactory("XML tile writer #");
+        writers = new ThreadPoolExecutor(writerCount, writerCount, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = factory.newThread(r);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        writers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Read the default number of encoding threads from
+     * {@code geotk.pyramid.xml.max.painters} system property.
+     *
+     * @return value of {@code geotk.pyramid.xml.max.painters} system property or
+     * number of available processors - 1.
+     */
+    static int getDefaultThreadCount() {
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        final String property = System.getProperty("geotk.pyramid.xml.max.painters");
+        final int nbPainters;
+        if (property != null) {
+            nbPainters = Integer.valueOf(property);
+        } else {
+            nbPainters = availableProcessors > 1 ? availableProcessors - 1 : 1;
+        }
+        LOGGER.log(Level.FINE, "Initialize XML tile writer pipeline with "+nbPainters+" encoders");
+        return nbPainters;
+    }
+
+    /**
+     * Start a write operation in given mosaic.
+     *
+     * @param mosaic mosaic where tiles are written.
+     * @param monitor used to stop encoding tiles on cancel, can be null.
+     * @return batch to submit tiles to, {@link Batch#await() } must be called once all tiles are submitted.
+     * @throws DataStoreException if mosaic folder can not be created.
+     */
+    Batch open(final XMLMosaic mosaic, final ProgressMonitor monitor) throws DataStoreException {
+        if (closed) {
+            throw new DataStoreException("Tile write pipeline is closed.");
+        }
+        try {
+            mosaic.checkMosaicFolderExist();
+        } catch (IOException e) {
+            throw new DataStoreException("Unable to create mosaic folder "+e.getLocalizedMessage(), e);
+        }
+        return new Batch(mosaic, monitor);
+    }
+
+    /**
+     * Stop all threads once submitted tiles are written.
+     */
+    void close() {
+        closed = true;
+        //-- each tile in flight holds a permit until it is written.
+        try {
+            if (inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+                inFlight.release(maxInFlight);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writers.shutdown();
+        for (Queue<ImageWriter> queue : imageWriters.values()) {
+            ImageWriter writer;
+            while ((writer = queue.poll()) != null) {
+                writer.dispose();
+            }
+        }
+    }
+
+    /**
+     * Start encoding a pending tile if less than {@code encoderCount} tiles are being encoded.
+     * An encoding thread calls this method again when it is done, so no pending tile is left behind.
+     */
+    private void startEncoding() {
+        if (pending.isEmpty() || !encoding.tryAcquire()) {
+            return;
+        }
+        Threads.executeParallel(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Runnable encoder = pending.poll();
+                    if (encoder != null) encoder.run();
+                } finally {
+                    encoding.release();
+                    startEncoding();
+                }
+            }
+        });
+    }
+
+    /**
+     * Wait for a tile in flight to complete. Pending tiles are encoded by the calling thread
+     * meanwhile, the shared threads may all be busy, possibly waiting for this producer.
+     */
+    private void acquireInFlight() throws InterruptedException {
+        while (!inFlight.tryAcquire()) {
+            if (!encodePending() && inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encode a pending tile in the calling thread.
+     *
+     * @return {@code false} if there was no pending tile.
+     */
+    private boolean encodePending() {
+        final Runnable encoder = pending.poll();
+        if (encoder == null) return false;
+        encoder.run();
+        return true;
+    }
+
+    private ImageWriter acquireWriter(final String formatName) throws IOException {
+        final Queue<ImageWriter> queue = imageWriters.get(formatName);
+        final ImageWriter writer = (queue != null) ? queue.poll() : null;
+        return (writer != null) ? writer : XImageIO.getWriterByFormatName(formatName, null, null);
+    }
+
+    private void releaseWriter(final String formatName, final ImageWriter writer) {
+        writer.reset();
+        Queue<ImageWriter> queue = imageWriters.get(formatName);
+        if (queue == null) {
+            queue = new ConcurrentLinkedQueue<>();
+            final Queue<ImageWriter> previous = imageWriters.putIfAbsent(formatName, queue);
+            if (previous != null) queue = previous;
+        }
+        queue.add(writer);
+    }
+
+    private static boolean acceptsStreams(final ImageWriter writer) {
+        final ImageWriterSpi spi = writer.getOriginatingProvider();
+        if (spi == null) return true;
+        for (Class<?> type : spi.getOutputTypes()) {
+            if (type.isAssignableFrom(ImageOutputStream.class)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tiles submitted to a mosaic by one write operation.
+     */
+    final class Batch {
+
+        private final XMLMosaic mosaic;
+        private final ProgressMonitor monitor;
+        private final String formatName;
+        private final XMLTileWriteStatistics statistics;
+        private final long start = System.nanoTime();
+
+        /** One party for the producer, plus one per tile in flight. */
+        private final Phaser phaser = new Phaser(1);
+
+        /** First failure, the following tiles are not written. */
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        //-- tile states not yet applied to the mosaic, guarded by this batch.
+        private final int[] filled = new int[STATE_BATCH_SIZE];
+        private final int[] empty  = new int[STATE_BATCH_SIZE];
+        private int filledCount, emptyCount, sinceSave;
+
+        private Batch(final XMLMosaic mosaic, final ProgressMonitor monitor) {
+            this.mosaic     = mosaic;
+            this.monitor    = monitor;
+            this.formatName = mosaic.getPyramid().getPyramidSet().getFormatName();
+            this.statistics = mosaic.getWriteStatistics();
+        }
+
+        /**
+         * Queue a tile for writing, waits if too many tiles are in flight.
+         *
+         * @param image image containing the tile.
+         * @param tile index of the tile in the image, or {@code null} to write the whole image.
+         * @param col mosaic column index.
+         * @param row mosaic row index.
+         * @throws DataStoreException if the position is outside the mosaic, the pipeline is closed,
+         *         a previous tile of this batch failed or the thread is interrupted while waiting.
+         */
+        void submit(final RenderedImage image, final Point tile, final int col, final int row) throws DataStoreException {
+            ArgumentChecks.ensureNonNull("image", image);
+            checkFailure();
+            if (closed) {
+                throw new DataStoreException("Tile write pipeline is closed.");
+            }
+            final Path tilePath = mosaic.getTileWritePath(col, row);
+            final int tileIndex = mosaic.getTileIndex(col, row);
+            try {
+                acquireInFlight();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+            phaser.register();
+            pending.add(new Encoder(image, tile, col, row, tileIndex, tilePath));
+            startEncoding();
+        }
+
+        /**
+         * Waits until all submitted tiles are written, then applies remaining tile states.
+         *
+         * @throws DataStoreException if a tile could not be encoded or written,
+         *         or if the thread is interrupted while waiting.
+         */
+        void await() throws DataStoreException {
+            //-- tiles of this batch not yet started, the shared threads may all be busy.
+            while (encodePending());
+            try {
+                phaser.awaitAdvanceInterruptibly(phaser.arrive());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DataStoreException(ex.getMessage(), ex);
+            } finally {
+                synchronized (this) {
+                    flushStates();
+                }
+                statistics.elapsed(System.nanoTime() - start);
+            }
+            checkFailure();
+        }
+
+        /**
+         * Throws the first failure of this batch, if any.
+         */
+        private void checkFailure() throws DataStoreException {
+            final Exception ex = failure.get();
+            if (ex instanceof DataStoreException) {
+                throw (DataStoreException) ex;
+            } else if (ex != null) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+
+        /**
+         * Records a failure, only the first one is kept and thrown by {@link #await()}.
+         */
+        private void failed(final Exception ex) {
+            if (!failure.compareAndSet(null, ex)) {
+                LOGGER.log(Level.FINE, ex.getMessage(), ex);
+            }
+        }
+
+        private void done() {
+            inFlight.release();
+            phaser.arriveAndDeregister();
+        }
+
+        /**
+         * Records a tile state, applied to the mosaic once {@link #STATE_BATCH_SIZE} states are gathered.
+         */
+        private void record(final int tileIndex, final boolean isEmpty) {
+            final boolean save;
+            synchronized (this) {
+                if (isEmpty) {
+                    empty[emptyCount++] = tileIndex;
+                } else {
+                    filled[filledCount++] = tileIndex;
+                }
+                if (filledCount + emptyCount < STATE_BATCH_SIZE) {
+                    return;
+                }
+                save = flushStates();
+            }
+            if (save && mosaic.tileExist != null && !mosaic.cacheTileState) {
+                try {
+                    mosaic.getPyramid().getPyramidSet().getRef().save();
+                } catch (DataStoreException ex) {
+                    failed(ex);
+                }
+            }
+        }
+
+        /**
+         * Applies gathered states, caller must hold the lock on this batch.
+         *
+         * @return {@code true} if pyramid descriptor should be saved.
+         */
+        private boolean flushStates() {
+            final int count = filledCount + emptyCount;
+            if (count == 0) return false;
+            mosaic.updateTileStates(filled, filledCount, empty, emptyCount);
+            filledCount = 0;
+            emptyCount  = 0;
+            sinceSave  += count;
+            if (sinceSave >= SAVE_BATCH_SIZE) {
+                sinceSave = 0;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * First stage : encode the tile in memory, then hand the bytes over to the writer threads.
+         */
+        private final class Encoder implements Runnable {
+
+            private final RenderedImage image;
+            private final Point tile;
+            private final int col;
+            private final int row;
+            private final int tileIndex;
+            private final Path tilePath;
+
+            Encoder(RenderedImage image, Point tile, int col, int row, int tileIndex, Path tilePath) {
+                this.image     = image;
+                this.tile      = tile;
+                this.col       = col;
+                this.row       = row;
+                this.tileIndex = tileIndex;
+                this.tilePath  = tilePath;
+            }
+
+            @Override
+            public void run() {
+                boolean handedOver = false;
+                try {
+                    // Stops writing tile if process cancelled or a previous tile failed
+                    if ((monitor != null && monitor.isCanceled()) || failure.get() != null) {
+                        return;
+                    }
+                    final Raster raster = (tile != null) ? image.getTile(tile.x, tile.y) : image.getData();
+
+                    //check if image is empty
+                    if (mosaic.tileEmpty != null && (raster == null || XMLMosaic.isEmpty(raster))) {
+                        statistics.emptyTile();
+                        record(tileIndex, true);
+                        return;
+                    }
+
+                    final long t0 = System.nanoTime();
+                    final ImageWriter writer = acquireWriter(formatName);
+                    boolean recycle = false;
+                    boolean direct = false;
+                    try {
+                        final Object data = toWritable(writer, raster);
+                        if (!acceptsStreams(writer)) {
+                            //writer only supports files, encoding and writing can not be split
+                            writer.setOutput(tilePath);
+                            write(writer, data);
+                            recycle = true;
+                            direct = true;
+                        } else {
+                            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                            try (ImageOutputStream out = new MemoryCacheImageOutputStream(buffer)) {
+                                writer.setOutput(out);
+                                write(writer, data);
+                            }
+                            recycle = true;
+                            statistics.tileEncoded(System.nanoTime() - t0);
+                            writers.execute(new Writer(buffer.toByteArray(), tileIndex, tilePath));
+                            handedOver = true;
+                        }
+                    } finally {
+                        if (recycle) {
+                            releaseWriter(formatName, writer);
+                        } else {
+                            writer.dispose();
+                        }
+                    }
+                    if (direct) {
+                        //-- the writer released its output, the file holds all encoded bytes.
+                        statistics.tileWritten(Files.size(tilePath), System.nanoTime() - t0);
+                        record(tileIndex, false);
+                    }
+                } catch (Exception ex) {
+                    failed(new DataStoreException("Unable to write tile "+col+" "+row+" : "+ex.getMessage(), ex));
+                } finally {
+                    if (!handedOver) done();
+                }
+            }
+
+            /**
+             * Tile raster, or image wrapping it if the writer can not write rasters.
+             */
+            private Object toWritable(final ImageWriter writer, final Raster raster) {
+                if (tile == null) {
+                    return image;
+                }
+                if (writer.canWriteRasters()) {
+                    return raster;
+                }
+                //encapsulate raster in a buffered image with parent color model
+                final WritableRaster wr;
+                if (raster instanceof WritableRaster && raster.getMinX() == 0 && raster.getMinY() == 0) {
+                    wr = (WritableRaster) raster;
+                } else {
+                    wr = raster.createCompatibleWritableRaster(raster.getWidth(), raster.getHeight());
+                    wr.setRect(-raster.getMinX(), -raster.getMinY(), raster);
+                }
+                final ColorModel cm = image.getColorModel();
+                return new BufferedImage(cm, wr, cm.isAlphaPremultiplied(), null);
+            }
+
+            private void write(final ImageWriter writer, final Object data) throws IOException {
+                if (data instanceof Raster) {
+                    writer.write(new IIOImage((Raster) data, null, null));
+                } else {
+                    writer.write((RenderedImage) data);
+                }
+            }
+        }
+
+        /**
+         * Second stage : write encoded bytes in the tile file.
+         */
+        private final class Writer implements Runnable {
+
+            private final byte[] data;
+            private final int tileIndex;
+            private final Path tilePath;
+
+            Writer(byte[] data, int tileIndex, Path tilePath) {
+                this.data      = data;
+                this.tileIndex = tileIndex;
+                this.tilePath  = tilePath;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    if (failure.get() != null) return;
+                    final long t0 = System.nanoTime();
+                    Files.write(tilePath, data);
+                    statistics.tileWritten(data.length, System.nanoTime() - t0);
+                    record(tileIndex, false);
+                } catch (Exception ex) {
+                    failed(new DataStoreException("Unable to write tile file "+tilePath+" : "+ex.getMessage(), ex));
+                } finally {
+                    done();
+                }
+            }
+        }
+    }
+}
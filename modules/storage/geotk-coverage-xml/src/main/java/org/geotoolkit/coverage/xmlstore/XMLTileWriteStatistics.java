@@ -0,0 +1,132 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.sis.util.Classes;
+
+/**
+ * Tile write counters of a {@link XMLMosaic}, updated by the write pipeline
+ * of the store. Values are cumulated since the mosaic has been loaded.
+ *
+ * @module pending
+ */
+public final class XMLTileWriteStatistics {
+
+    private final AtomicLong tiles = new AtomicLong();
+    private final AtomicLong emptyTiles = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong elapsedNanos = new AtomicLong();
+
+    XMLTileWriteStatistics() {
+    }
+
+    void tileEncoded(final long nanos) {
+        encodeNanos.addAndGet(nanos);
+    }
+
+    void tileWritten(final long length, final long nanos) {
+        tiles.incrementAndGet();
+        if (length > 0) bytes.addAndGet(length);
+        writeNanos.addAndGet(nanos);
+    }
+
+    void emptyTile() {
+        emptyTiles.incrementAndGet();
+    }
+
+    void elapsed(final long nanos) {
+        elapsedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @return number of tile files written.
+     */
+    public long getTileCount() {
+        return tiles.get();
+    }
+
+    /**
+     * @return number of empty tiles, only flagged in the tile states without any file written.
+     */
+    public long getEmptyTileCount() {
+        return emptyTiles.get();
+    }
+
+    /**
+     * @return number of encoded bytes written in tile files.
+     */
+    public long getByteCount() {
+        return bytes.get();
+    }
+
+    /**
+     * @param unit wanted time unit.
+     * @return time spent by all threads encoding tiles in memory.
+     */
+    public long getEncodeTime(final TimeUnit unit) {
+        return unit.convert(encodeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit wanted time unit.
+     * @return time spent by all threads writing tile files.
+     */
+    public long getWriteTime(final TimeUnit unit) {
+        return unit.convert(writeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit wanted time unit.
+     * @return cumulated duration of the write operations, from the first tile submitted
+     *         to the last tile state recorded.
+     */
+    public long getElapsedTime(final TimeUnit unit) {
+        return unit.convert(elapsedNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return tiles, empty or not, processed per second of write operation, or 0 if nothing has been written.
+     */
+    public double getTilesPerSecond() {
+        final long nanos = elapsedNanos.get();
+        return (nanos == 0) ? 0 : (tiles.get() + emptyTiles.get()) * 1E9 / nanos;
+    }
+
+    /**
+     * @return bytes written per second of write operation, or 0 if nothing has been written.
+     */
+    public double getBytesPerSecond() {
+        final long nanos = elapsedNanos.get();
+        return (nanos == 0) ? 0 : bytes.get() * 1E9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(Classes.getShortClassName(this));
+        sb.append("   tiles = ").append(getTileCount());
+        sb.append("   empty = ").append(getEmptyTileCount());
+        sb.append("   bytes = ").append(getByteCount());
+        sb.append("   encode = ").append(getEncodeTime(TimeUnit.MILLISECONDS)).append("ms");
+        sb.append("   write = ").append(getWriteTime(TimeUnit.MILLISECONDS)).append("ms");
+        sb.append("   tiles/s = ").append(getTilesPerSecond());
+        return sb.toString();
+    }
+}
@@ -22,7 +22,9 @@ import org.geotoolkit.image.io.XImageIO;
 
 import javax.imageio.ImageWriter;
 import java.awt.image.RenderedImage;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 /**
@@ -91,6 +93,7 @@ public class XMLTileWriter implements Runnable {
 
     /**
      * Core method for tile writing. This function uses a simple algorithm which will peek tiles one by one.
+     * Tiles are encoded and written by the pipeline of the store if there is one, by given writer otherwise.
      *
      * @param writer        The {@link javax.imageio.ImageWriter} to use to write tiles in the mosaics.
      * @param currentThread The current thread in which the runnable is running. Used to get interruption status.
@@ -98,6 +101,9 @@ public class XMLTileWriter implements Runnable {
      * @throws InterruptedException If the thread in which we run has been intercepted while we were waiting for a tile from the queue.
      */
     private void takeMethod(final ImageWriter writer, final Thread currentThread) throws DataStoreException, InterruptedException {
+        final XMLTileWritePipeline pipeline = (targetRef.getStore() instanceof XMLCoverageStore) ?
+                ((XMLCoverageStore) targetRef.getStore()).getWritePipeline() : null;
+        final Map<XMLMosaic,XMLTileWritePipeline.Batch> batches = new HashMap<>();
         XMLTileInfo info;
         try {
             while (!currentThread.isInterrupted()) {
@@ -105,10 +111,32 @@ public class XMLTileWriter implements Runnable {
                 if (info == null || info instanceof MissingInfo) {
                     break;
                 }
-                info.mosaic.createTile(info.tX, info.tY, info.data, writer);
+                if (pipeline == null) {
+                    info.mosaic.createTile(info.tX, info.tY, info.data, writer);
+                    continue;
+                }
+                XMLTileWritePipeline.Batch batch = batches.get(info.mosaic);
+                if (batch == null) {
+                    batch = pipeline.open(info.mosaic, null);
+                    batches.put(info.mosaic, batch);
+                }
+                batch.submit(info.data, null, info.tX, info.tY);
             }
         } finally {
-            targetRef.save();
+            try {
+                //-- wait for all batches, then report the first failure.
+                DataStoreException failure = null;
+                for (XMLTileWritePipeline.Batch batch : batches.values()) {
+                    try {
+                        batch.await();
+                    } catch (DataStoreException ex) {
+                        if (failure == null) failure = ex;
+                    }
+                }
+                if (failure != null) throw failure;
+            } finally {
+                targetRef.save();
+            }
         }
     }
 
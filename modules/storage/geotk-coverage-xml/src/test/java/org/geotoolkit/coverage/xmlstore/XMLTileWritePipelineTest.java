@@ -0,0 +1,157 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.coverage.xmlstore;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import javax.media.jai.TiledImage;
+import org.apache.sis.geometry.GeneralDirectPosition;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.coverage.grid.ViewType;
+import org.geotoolkit.nio.IOUtilities;
+import org.geotoolkit.parameter.Parameters;
+import org.geotoolkit.storage.coverage.GridMosaic;
+import org.geotoolkit.storage.coverage.Pyramid;
+import org.geotoolkit.storage.coverage.PyramidalCoverageReference;
+import org.geotoolkit.util.NamesExt;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.opengis.parameter.ParameterValueGroup;
+
+/**
+ * Write a mosaic through the tile write pipeline of the store.
+ *
+ * @module pending
+ */
+public class XMLTileWritePipelineTest extends org.geotoolkit.test.TestBase {
+
+    private static final int GRID_WIDTH  = 6;
+    private static final int GRID_HEIGHT = 5;
+    private static final int TILE_SIZE   = 16;
+
+    private static ParameterValueGroup createParameters(final Path folder) {
+        final ParameterValueGroup params = XMLCoverageStoreFactory.PARAMETERS_DESCRIPTOR.createValue();
+        Parameters.getOrCreate(XMLCoverageStoreFactory.PATH, params).setValue(folder.toUri());
+        Parameters.getOrCreate(XMLCoverageStoreFactory.CACHE_TILE_STATE, params).setValue(false);
+        Parameters.getOrCreate(XMLCoverageStoreFactory.WRITE_THREADS, params).setValue(2);
+        return params;
+    }
+
+    private static GridMosaic createMosaic(final PyramidalCoverageReference ref) throws Exception {
+        ref.setPackMode(ViewType.RENDERED);
+        final Pyramid pyramid = ref.createPyramid(CommonCRS.WGS84.normalizedGeographic());
+        final GeneralDirectPosition corner = new GeneralDirectPosition(pyramid.getCoordinateReferenceSystem());
+        corner.setOrdinate(0, -180);
+        corner.setOrdinate(1, 90);
+        return ref.createMosaic(pyramid.getId(), new Dimension(GRID_WIDTH, GRID_HEIGHT),
+                new Dimension(TILE_SIZE, TILE_SIZE), corner, 1);
+    }
+
+    /**
+     * First tile column is left empty.
+     */
+    private static TiledImage createImage() {
+        final ColorModel cm = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).getColorModel();
+        final TiledImage image = new TiledImage(0, 0, GRID_WIDTH * TILE_SIZE, GRID_HEIGHT * TILE_SIZE, 0, 0,
+                cm.createCompatibleSampleModel(TILE_SIZE, TILE_SIZE), cm);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = TILE_SIZE; x < image.getWidth(); x++) {
+                image.setSample(x, y, 0, x);
+                image.setSample(x, y, 1, y);
+                image.setSample(x, y, 3, 255);
+            }
+        }
+        return image;
+    }
+
+    @Test
+    public void writeTilesTest() throws Exception {
+        final Path folder = Files.createTempDirectory("pipeline");
+        try {
+            final ParameterValueGroup params = createParameters(folder);
+            XMLCoverageStore store = new XMLCoverageStore(params);
+            final PyramidalCoverageReference ref = (PyramidalCoverageReference) store.create(NamesExt.create("pipeline"));
+            final GridMosaic mosaic = createMosaic(ref);
+            final Pyramid pyramid = mosaic.getPyramid();
+            final TiledImage image = createImage();
+
+            ref.writeTiles(pyramid.getId(), mosaic.getId(), image, new Rectangle(0, 0, GRID_WIDTH, GRID_HEIGHT), false, null);
+
+            final XMLTileWriteStatistics statistics = ((XMLMosaic) mosaic).getWriteStatistics();
+            assertEquals(GRID_HEIGHT * (GRID_WIDTH - 1), statistics.getTileCount());
+            assertEquals(GRID_HEIGHT, statistics.getEmptyTileCount());
+            assertTrue(statistics.getByteCount() > 0);
+            assertTrue(statistics.getTilesPerSecond() > 0);
+
+            final Path tileFile = ((XMLMosaic) mosaic).getFolder().resolve("2_3.png");
+            final BufferedImage tile = ImageIO.read(tileFile.toFile());
+            assertEquals(TILE_SIZE, tile.getWidth());
+            assertEquals(3 * TILE_SIZE + 5, tile.getRaster().getSample(5, 7, 0));
+            assertEquals(2 * TILE_SIZE + 7, tile.getRaster().getSample(5, 7, 1));
+            assertFalse(Files.exists(((XMLMosaic) mosaic).getFolder().resolve("2_0.png")));
+            store.close();
+
+            //-- tile states must have been saved in the pyramid descriptor.
+            store = new XMLCoverageStore(params);
+            final PyramidalCoverageReference read = (PyramidalCoverageReference) store.getCoverageReference(ref.getName());
+            final GridMosaic readMosaic = read.getPyramidSet().getPyramid(pyramid.getId()).getMosaics().get(0);
+            for (int y = 0; y < GRID_HEIGHT; y++) {
+                for (int x = 0; x < GRID_WIDTH; x++) {
+                    assertFalse(readMosaic.isMissing(x, y));
+                }
+            }
+            store.close();
+        } finally {
+            IOUtilities.deleteSilently(folder);
+        }
+    }
+
+    /**
+     * A tile which can not be written must fail the write operation, without being flagged as existing.
+     */
+    @Test
+    public void writeFailureTest() throws Exception {
+        final Path folder = Files.createTempDirectory("pipeline");
+        try {
+            final XMLCoverageStore store = new XMLCoverageStore(createParameters(folder));
+            final PyramidalCoverageReference ref = (PyramidalCoverageReference) store.create(NamesExt.create("failure"));
+            final GridMosaic mosaic = createMosaic(ref);
+
+            //-- a folder in place of tile file 2_3.png
+            ((XMLMosaic) mosaic).checkMosaicFolderExist();
+            Files.createDirectories(((XMLMosaic) mosaic).getFolder().resolve("2_3.png"));
+
+            try {
+                ref.writeTiles(mosaic.getPyramid().getId(), mosaic.getId(), createImage(),
+                        new Rectangle(0, 0, GRID_WIDTH, GRID_HEIGHT), false, null);
+                fail("Tile write failure must be reported.");
+            } catch (DataStoreException ex) {
+                //-- expected
+            }
+            assertTrue(mosaic.isMissing(3, 2));
+            store.close();
+        } finally {
+            IOUtilities.deleteSilently(folder);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db.postgres;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.io.ByteOrderValues;
+import com.vividsolutions.jts.io.WKBWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encoder of rows in the binary format of the COPY command.
+ * http://www.postgresql.org/docs/9.3/static/sql-copy.html
+ *
+ * Only a few column types are supported, geometries are encoded as EWKB
+ * which is the binary form of the PostGIS geometry type.
+ *
+ * @module pending
+ */
+final class PostgresBinaryCopy {
+
+    private static final byte[] SIGNATURE = {'P','G','C','O','P','Y','\n',(byte)0xFF,'\r','\n',0};
+    private static final int MASK_SRID = 0x20000000;
+
+    private final String[] types;
+    private final int[] srids;
+    private final boolean emptyAsNull;
+    private final WKBWriter wkbWriter = new WKBWriter(2, ByteOrderValues.BIG_ENDIAN);
+
+    private PostgresBinaryCopy(final String[] types, final int[] srids, final boolean emptyAsNull) {
+        this.types = types;
+        this.srids = srids;
+        this.emptyAsNull = emptyAsNull;
+    }
+
+    /**
+     * @param typeNames database type name of each column
+     * @param srids srid of each column, used by geometry columns
+     * @param emptyAsNull true to encode empty geometries as null, needed with postgis &lt; 2
+     * @return encoder, or null if a column type is not supported
+     */
+    static PostgresBinaryCopy create(final String[] typeNames, final int[] srids, final boolean emptyAsNull) {
+        final String[] types = new String[typeNames.length];
+        for (int i=0; i<typeNames.length; i++) {
+            String type = typeNames[i].toLowerCase();
+            switch (type) {
+                case "serial"      : type = "int4"; break;
+                case "bigserial"   : type = "int8"; break;
+                case "smallserial" : type = "int2"; break;
+                case "bool"   :
+                case "int2"   :
+                case "int4"   :
+                case "int8"   :
+                case "float4" :
+                case "float8" :
+                case "text"   :
+                case "varchar":
+                case "bpchar" :
+                case "name"   :
+                case "bytea"  :
+                case "geometry" : break;
+                default : return null;
+            }
+            types[i] = type;
+        }
+        return new PostgresBinaryCopy(types, srids, emptyAsNull);
+    }
+
+    /**
+     * Encode rows, header and trailer included.
+     *
+     * @param rows values of each row, in columns order
+     * @return encoded rows, or null if a value does not match its column type
+     */
+    byte[] encode(final List<Object[]> rows) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.write(SIGNATURE);
+        //flags and header extension length
+        out.writeInt(0);
+        out.writeInt(0);
+
+        for (Object[] row : rows) {
+            out.writeShort(row.length);
+            for (int i=0; i<row.length; i++) {
+                if (!write(out, types[i], srids[i], row[i])) {
+                    return null;
+                }
+            }
+        }
+
+        //file trailer
+        out.writeShort(-1);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private boolean write(final DataOutputStream out, final String type, final int srid, Object value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return true;
+        }
+
+        switch (type) {
+            case "bool" :
+                if (!(value instanceof Boolean)) return false;
+                out.writeInt(1);
+                out.writeByte(((Boolean) value) ? 1 : 0);
+                return true;
+            case "int2" : {
+                if (!isIntegral(value)) return false;
+                final long v = ((Number) value).longValue();
+                if (v != (short) v) return false;
+                out.writeInt(2);
+                out.writeShort((short) v);
+                return true;
+            }
+            case "int4" : {
+                if (!isIntegral(value)) return false;
+                final long v = ((Number) value).longValue();
+                if (v != (int) v) return false;
+                out.writeInt(4);
+                out.writeInt((int) v);
+                return true;
+            }
+            case "int8" :
+                if (!isIntegral(value)) return false;
+                out.writeInt(8);
+                out.writeLong(((Number) value).longValue());
+                return true;
+            case "float4" :
+                if (!(value instanceof Float || isIntegral(value))) return false;
+                out.writeInt(4);
+                out.writeFloat(((Number) value).floatValue());
+                return true;
+            case "float8" :
+                if (!(value instanceof Double || value instanceof Float || isIntegral(value))) return false;
+                out.writeInt(8);
+                out.writeDouble(((Number) value).doubleValue());
+                return true;
+            case "bytea" :
+                if (!(value instanceof byte[])) return false;
+                out.writeInt(((byte[]) value).length);
+                out.write((byte[]) value);
+                return true;
+            case "geometry" :
+                if (!(value instanceof Geometry)) return false;
+                return writeGeometry(out, (Geometry) value, srid);
+            default :
+                //text types
+                if (!(value instanceof String)) return false;
+                final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                return true;
+        }
+    }
+
+    /**
+     * Write geometry as EWKB, the srid is inserted after the geometry type.
+     */
+    private boolean writeGeometry(final DataOutputStream out, Geometry geom, final int srid) throws IOException {
+        if (geom instanceof LinearRing) {
+            //postgis does not handle linear rings, convert to just a line string
+            geom = geom.getFactory().createLineString(((LinearRing) geom).getCoordinateSequence());
+        }
+        if (emptyAsNull && geom.isEmpty()) {
+            //empty geometries are interpreted as Geometrycollection in postgis < 2
+            out.writeInt(-1);
+            return true;
+        }
+
+        final byte[] wkb = wkbWriter.write(geom);
+        if (srid <= 0) {
+            out.writeInt(wkb.length);
+            out.write(wkb);
+            return true;
+        }
+
+        final int geomType = ((wkb[1] & 0xFF) << 24) | ((wkb[2] & 0xFF) << 16)
+                           | ((wkb[3] & 0xFF) <<  8) |  (wkb[4] & 0xFF);
+        out.writeInt(wkb.length + 4);
+        out.writeByte(wkb[0]);
+        out.writeInt(geomType | MASK_SRID);
+        out.writeInt(srid);
+        out.write(wkb, 5, wkb.length - 5);
+        return true;
+    }
+
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte;
+    }
+
+}
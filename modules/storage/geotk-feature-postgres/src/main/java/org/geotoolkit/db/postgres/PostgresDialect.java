@@ -18,6 +18,7 @@ package org.geotoolkit.db.postgres;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.LinearRing;
 import com.vividsolutions.jts.geom.MultiLineString;
@@ -25,14 +26,18 @@ import com.vividsolutions.jts.geom.MultiPoint;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.impl.PackedCoordinateSequenceFactory;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKBReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Time;
@@ -40,6 +45,7 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
@@ -55,6 +61,8 @@ import org.geotoolkit.db.JDBCFeatureStore;
 import org.geotoolkit.db.JDBCFeatureStoreUtilities;
 import static org.geotoolkit.db.JDBCFeatureStoreUtilities.*;
 import org.geotoolkit.db.dialect.AbstractSQLDialect;
+import org.geotoolkit.db.dialect.ColumnReader;
+import org.geotoolkit.db.dialect.GeometryColumnReader;
 import org.geotoolkit.db.reverse.ColumnMetaModel;
 import org.geotoolkit.db.reverse.MetaDataConstants;
 import org.geotoolkit.db.reverse.PrimaryKey;
@@ -120,6 +128,8 @@ import org.opengis.filter.spatial.Touches;
 import org.opengis.filter.spatial.Within;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.util.FactoryException;
+import org.postgresql.PGConnection;
+import org.postgresql.PGStatement;
 import org.postgresql.jdbc4.Jdbc4ResultSetMetaData;
 
 /**
@@ -589,9 +599,11 @@ final class PostgresDialect extends AbstractSQLDialect{
         }
                 
         
+        //in streaming mode geometries are transfered as binary, not as base64 text
+        final boolean binary = isStreaming(hints);
         final CoordinateReferenceSystem crs = gatt.getCoordinateReferenceSystem();
         final int dimensions = (crs == null) ? 2 : crs.getCoordinateSystem().getDimension();
-        sql.append("encode(");
+        if (!binary) sql.append("encode(");
 
         if(res > 0){
             if (dimensions > 2) {
@@ -627,7 +639,11 @@ final class PostgresDialect extends AbstractSQLDialect{
             sql.append(") ");
         }
 
-        sql.append(",'base64')");
+        if (!binary) sql.append(",'base64')");
+    }
+
+    private static boolean isStreaming(final Hints hints) {
+        return hints != null && Boolean.TRUE.equals(hints.get(JDBCFeatureStore.STREAMING));
     }
 
     @Override
@@ -667,6 +683,20 @@ final class PostgresDialect extends AbstractSQLDialect{
         }
     }
 
+    @Override
+    public void setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid)
+            throws SQLException, DataStoreException {
+        if (value instanceof LinearRing) {
+            //postgis does not handle linear rings, convert to just a line string
+            value = value.getFactory().createLineString(((LinearRing) value).getCoordinateSequence());
+        }
+        if (value != null && value.isEmpty() && ((Comparable)getVersion(null).getMajor()).compareTo((Comparable)Integer.valueOf(2)) < 0) {
+            //empty geometries are interpreted as Geometrycollection in postgis < 2
+            value = null;
+        }
+        super.setGeometryParameter(stmt, index, value, srid);
+    }
+
     @Override
     public void encodeCoverageValue(StringBuilder sql, Coverage value) throws DataStoreException {
         try{
@@ -864,6 +894,89 @@ final class PostgresDialect extends AbstractSQLDialect{
         return null;
     }
     
+    /**
+     * Sequence values are all fetched with a single query.
+     */
+    @Override
+    public Object[] nextValues(final ColumnMetaModel column, final Connection cx, final int count) throws SQLException, DataStoreException {
+        if(column.getType() == ColumnMetaModel.Type.SEQUENCED && count > 1){
+            final Object[] values = new Object[count];
+            final Statement st = cx.createStatement();
+            ResultSet rs = null;
+            try {
+                final String sql = "SELECT nextval('" + column.getSequenceName() + "') FROM generate_series(1," + count + ")";
+                rs = st.executeQuery(sql);
+                for (int i=0; i<count && rs.next(); i++) {
+                    values[i] = rs.getLong(1);
+                }
+            } finally {
+                JDBCFeatureStoreUtilities.closeSafe(featurestore.getLogger(), null,st,rs);
+            }
+            return values;
+        }
+        return super.nextValues(column, cx, count);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    // BULK INSERTION //////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Rows are sent with a binary COPY command when the connection is a postgresql
+     * connection and all column types are supported by {@link PostgresBinaryCopy}.
+     */
+    @Override
+    public boolean insertBulk(String schemaName, String tableName, List<PropertyDescriptor> columns,
+            int[] srids, List<Object[]> rows, Connection cx) throws SQLException, DataStoreException {
+        final PGConnection pgcx;
+        try {
+            if (!cx.isWrapperFor(PGConnection.class)) return false;
+            pgcx = cx.unwrap(PGConnection.class);
+        } catch (SQLException ex) {
+            //connection pool does not give access to the driver connection
+            featurestore.getLogger().log(Level.FINE, ex.getMessage(), ex);
+            return false;
+        }
+
+        final StringBuilder table = new StringBuilder();
+        encodeSchemaAndTableName(table, schemaName, tableName);
+        final StringBuilder names = new StringBuilder();
+        for (PropertyDescriptor desc : columns) {
+            encodeColumnName(names, desc.getName().tip().toString());
+            names.append(',');
+        }
+        names.setLength(names.length() - 1);
+
+        //column types as declared in the table
+        final String[] types = new String[columns.size()];
+        final Statement st = cx.createStatement();
+        ResultSet rs = null;
+        try {
+            rs = st.executeQuery("SELECT " + names + " FROM " + table + " LIMIT 0");
+            final ResultSetMetaData metadata = rs.getMetaData();
+            for (int i=0; i<types.length; i++) {
+                types[i] = metadata.getColumnTypeName(i+1);
+            }
+        } finally {
+            JDBCFeatureStoreUtilities.closeSafe(featurestore.getLogger(), null,st,rs);
+        }
+
+        final boolean emptyAsNull = ((Comparable)getVersion(null).getMajor()).compareTo((Comparable)Integer.valueOf(2)) < 0;
+        final PostgresBinaryCopy copy = PostgresBinaryCopy.create(types, srids, emptyAsNull);
+        if (copy == null) return false;
+
+        try {
+            final byte[] data = copy.encode(rows);
+            if (data == null) return false;
+            final String sql = "COPY " + table + " (" + names + ") FROM STDIN (FORMAT binary)";
+            featurestore.getLogger().log(Level.FINE, "Copying {0} rows: {1}", new Object[]{rows.size(), sql});
+            pgcx.getCopyAPI().copyIn(sql, new ByteArrayInputStream(data));
+        } catch (IOException ex) {
+            throw new DataStoreException(ex);
+        }
+        return true;
+    }
+    
     ////////////////////////////////////////////////////////////////////////////
     // METHODS TO READ FROM RESULTSET //////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////
@@ -1212,6 +1325,48 @@ final class PostgresDialect extends AbstractSQLDialect{
         }
     }
 
+    /**
+     * In streaming mode, table geometries are read from binary WKB
+     * directly in packed coordinate sequences.
+     */
+    @Override
+    public ColumnReader createColumnReader(final PropertyDescriptor descriptor, final int index, final Hints hints) {
+        if (isStreaming(hints) && descriptor instanceof GeometryDescriptor
+                && !Coverage.class.isAssignableFrom(descriptor.getType().getBinding())) {
+            final Map userData = descriptor.getType().getUserData();
+            if (userData != null && userData.get(GEOM_ENCODING) == GeometryEncoding.WKB) {
+                final GeometryFactory gf = featurestore.getGeometryFactory();
+                final WKBReader reader = new WKBReader(new GeometryFactory(
+                        gf.getPrecisionModel(), gf.getSRID(), PackedCoordinateSequenceFactory.DOUBLE_FACTORY));
+                return new GeometryColumnReader((GeometryDescriptor) descriptor, index) {
+                    @Override
+                    protected Geometry decode(ResultSet rs) throws IOException, SQLException {
+                        final byte[] wkb = rs.getBytes(index);
+                        if (wkb == null) return null;
+                        try {
+                            return reader.read(wkb);
+                        } catch (ParseException ex) {
+                            throw new IOException(ex.getMessage(),ex);
+                        }
+                    }
+                };
+            }
+        }
+        return super.createColumnReader(descriptor, index, hints);
+    }
+
+    /**
+     * Results are requested in binary form, bytea geometries are then
+     * received without hexadecimal escaping.
+     */
+    @Override
+    public void prepareStreaming(Statement stmt) throws SQLException {
+        if (stmt.isWrapperFor(PGStatement.class)) {
+            //a negative threshold forces binary transfer from the first execution
+            stmt.unwrap(PGStatement.class).setPrepareThreshold(-1);
+        }
+    }
+
     @Override
     public Coverage decodeCoverageValue(GeometryDescriptor descriptor, ResultSet rs, String column) throws IOException, SQLException {
         byte[] data = rs.getBytes(column);
@@ -0,0 +1,83 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db.postgres;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Binary COPY encoding tests, no database needed.
+ *
+ * @module pending
+ */
+public class PostgresBinaryCopyTest extends org.geotoolkit.test.TestBase {
+
+    @Test
+    public void testUnsupportedType() {
+        assertNull(PostgresBinaryCopy.create(new String[]{"int4","timestamp"}, new int[2], false));
+        assertNotNull(PostgresBinaryCopy.create(new String[]{"serial","geometry"}, new int[2], false));
+    }
+
+    @Test
+    public void testEncode() throws IOException {
+        final PostgresBinaryCopy copy = PostgresBinaryCopy.create(
+                new String[]{"serial","varchar","float8","geometry"}, new int[]{0,0,0,4326}, false);
+        final Object[] row = new Object[]{12L, "ab", null, new GeometryFactory().createPoint(new Coordinate(3, 4))};
+        final ByteBuffer buffer = ByteBuffer.wrap(copy.encode(Collections.singletonList(row)));
+
+        //header
+        final byte[] signature = new byte[11];
+        buffer.get(signature);
+        assertEquals("PGCOPY\n", new String(signature, 0, 7, "US-ASCII"));
+        assertEquals(0, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+
+        //row
+        assertEquals(4, buffer.getShort());
+        assertEquals(4, buffer.getInt());
+        assertEquals(12, buffer.getInt());
+        assertEquals(2, buffer.getInt());
+        assertEquals('a', buffer.get());
+        assertEquals('b', buffer.get());
+        assertEquals(-1, buffer.getInt());
+
+        //EWKB point with srid
+        assertEquals(25, buffer.getInt());
+        assertEquals(0, buffer.get());
+        assertEquals(0x20000001, buffer.getInt());
+        assertEquals(4326, buffer.getInt());
+        assertEquals(3, buffer.getDouble(), 0);
+        assertEquals(4, buffer.getDouble(), 0);
+
+        //trailer
+        assertEquals(-1, buffer.getShort());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testMismatchValue() throws IOException {
+        final PostgresBinaryCopy copy = PostgresBinaryCopy.create(new String[]{"int2"}, new int[1], false);
+        assertNull(copy.encode(Collections.singletonList(new Object[]{"text"})));
+        assertNull(copy.encode(Collections.singletonList(new Object[]{100000})));
+    }
+
+}
@@ -51,6 +51,7 @@ import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.session.Session;
 import org.geotoolkit.db.JDBCFeatureStore;
+import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.referencing.CRS;
@@ -877,6 +878,51 @@ public class PostgresFeatureStoreTest extends org.geotoolkit.test.TestBase {
         }
     }
 
+    @Test
+    public void testGeometryStreamingRead() throws DataStoreException, VersioningException{
+        reload(true);
+
+        final GeometryFactory gf = new GeometryFactory();
+        store.createFeatureType(FTYPE_GEOMETRY.getName(), FTYPE_GEOMETRY);
+        final FeatureType resType = store.getFeatureType(store.getNames().iterator().next());
+
+        final List<Feature> features = new ArrayList<>();
+        for(int i=0;i<20;i++){
+            final Feature feature = FeatureUtilities.defaultFeature(resType, String.valueOf(i));
+            final Point point = gf.createPoint(new Coordinate(i, -i));
+            final LinearRing ring = gf.createLinearRing(new Coordinate[]{
+                                    new Coordinate(i, 0),
+                                    new Coordinate(i+1, 0),
+                                    new Coordinate(i+1, 1),
+                                    new Coordinate(i, 0)});
+            feature.getProperty("point").setValue(point);
+            feature.getProperty("polygon").setValue(gf.createPolygon(ring, new LinearRing[0]));
+            features.add(feature);
+        }
+        store.addFeatures(resType.getName(), features);
+
+        final QueryBuilder qb = new QueryBuilder(resType.getName());
+        qb.setProperties(new String[]{"point","polygon"});
+        qb.setHints(new Hints(JDBCFeatureStore.STREAMING, Boolean.TRUE));
+        final FeatureReader reader = store.getFeatureReader(qb.buildQuery());
+        int count = 0;
+        try{
+            while(reader.hasNext()){
+                final Feature resFeature = reader.next();
+                final Point point = (Point) resFeature.getProperty("point").getValue();
+                final int i = (int) point.getX();
+                assertEquals(-i, point.getY(), 0.0);
+                assertEquals(CRS_4326, JTS.findCoordinateReferenceSystem(point));
+                final Geometry polygon = (Geometry) resFeature.getProperty("polygon").getValue();
+                assertEquals(features.get(i).getProperty("polygon").getValue(), polygon);
+                count++;
+            }
+        }finally{
+            reader.close();
+        }
+        assertEquals(20, count);
+    }
+
     /**
      * 2 level depths feature test.
      */
@@ -117,11 +117,16 @@ public class MultiLineHandler extends AbstractShapeHandler {
             partOffsets[i] = buffer.getInt();
         }
 
-        // read the first two coordinates and start building the coordinate sequences
-        final double[][] lines = new double[numParts][0];
         //use a double buffer to increase bulk reading
         final DoubleBuffer dbuffer = buffer.asDoubleBuffer();
 
+        if (buffer.isReadOnly()) {
+            return readView(dbuffer, partOffsets, numPoints, dimensions);
+        }
+
+        // read the first two coordinates and start building the coordinate sequences
+        final double[][] lines = new double[numParts][0];
+
         for (int part = 0; part < numParts; part++) {
 
             final int finish;
@@ -184,6 +189,39 @@ public class MultiLineHandler extends AbstractShapeHandler {
         return GEOMETRY_FACTORY.createMultiLineString(lineCharSequences);
     }
 
+    /**
+     * Create lines reading coordinates directly in the buffer.
+     * Buffer content must not change after this call.
+     */
+    private Object readView(final DoubleBuffer dbuffer, final int[] partOffsets,
+            final int numPoints, final int dimensions) {
+        final int numParts = partOffsets.length;
+        final LineString[] lineCharSequences = new LineString[numParts];
+        for (int part = 0; part < numParts; part++) {
+            final int finish = (part == (numParts - 1)) ? numPoints : partOffsets[part + 1];
+            final int length = finish - partOffsets[part];
+            // z values are after xy values, z min and z max
+            final int zOffset = (dimensions == 3) ? numPoints*2 + 2 + partOffsets[part] : -1;
+            final CoordinateSequence cs;
+            if (length == 1) {
+                //only one point for a line, JTS do not like that, so we make two points at same place.
+                final double[] coords = new double[2*dimensions];
+                coords[0] = coords[2] = dbuffer.get(partOffsets[part]*2);
+                coords[1] = coords[3] = dbuffer.get(partOffsets[part]*2 + 1);
+                if (dimensions == 3) {
+                    coords[4] = coords[5] = dbuffer.get(zOffset);
+                    cs = new ShapeCoordinateSequence3D(coords);
+                } else {
+                    cs = new ShapeCoordinateSequence2D(coords);
+                }
+            } else {
+                cs = new ShapeBufferCoordinateSequence(dbuffer, partOffsets[part]*2, zOffset, length);
+            }
+            lineCharSequences[part] = GEOMETRY_FACTORY.createLineString(cs);
+        }
+        return GEOMETRY_FACTORY.createMultiLineString(lineCharSequences);
+    }
+
 
 
 //    @Override
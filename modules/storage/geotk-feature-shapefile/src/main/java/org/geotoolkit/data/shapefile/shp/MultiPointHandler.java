@@ -119,6 +119,12 @@ public class MultiPointHandler extends AbstractShapeHandler {
 
         final DoubleBuffer dbuffer = buffer.asDoubleBuffer();
 
+        if (buffer.isReadOnly()) {
+            //read coordinates directly in the buffer, z values after xy values, z min and z max
+            return GEOMETRY_FACTORY.createMultiPoint(new ShapeBufferCoordinateSequence(
+                    dbuffer, 0, (dimensions == 3) ? numpoints*2 + 2 : -1, numpoints));
+        }
+
         final double[] coords = new double[numpoints*dimensions];
         final int xySize = numpoints*2;
         dbuffer.get(coords,0,xySize);
@@ -163,6 +163,37 @@ public class PolygonHandler extends AbstractShapeHandler {
         final DoubleBuffer dbuffer = buffer.asDoubleBuffer();
         final int dimensions = (read3D && shapeType == ShapeType.POLYGONZ)? 3:2;
 
+        if (buffer.isReadOnly()) {
+            readRingViews(dbuffer, partOffsets, numPoints, dimensions);
+        } else {
+            readRings(dbuffer, partOffsets, numPoints, dimensions);
+        }
+
+        // quick optimization: if there's only one shell no need to check
+        // for holes inclusion
+        if (shells.size() == 1) {
+            return createMulti(shells.get(0), holes);
+        }
+        // if for some reason, there is only one hole, we just reverse it and
+        // carry on.
+        else if (holes.size() == 1 && shells.isEmpty()) {
+            //LOGGER.warning("only one hole in this polygon record");
+            return createMulti(JTS.reverseRing(holes.get(0)));
+        } else {
+
+            // build an association between shells and holes
+            final List<List<LinearRing>> holesForShells = assignHolesToShells(shells, holes);
+            return buildGeometries(shells, holes, holesForShells);
+        }
+    }
+
+    /**
+     * Read rings coordinates and sort them in shells and holes.
+     */
+    private void readRings(final DoubleBuffer dbuffer, final int[] partOffsets,
+            final int numPoints, final int dimensions) {
+        final int numParts = partOffsets.length;
+
         //read everything in one round : +2 for minZ/maxZ
         final double[] coords = new double[numPoints*dimensions + ((dimensions==2)?0:2)];
         final int xySize = numPoints*2;
@@ -207,23 +238,62 @@ public class PolygonHandler extends AbstractShapeHandler {
                 shells.add(ring);
             }
         }
+    }
 
-        // quick optimization: if there's only one shell no need to check
-        // for holes inclusion
-        if (shells.size() == 1) {
-            return createMulti(shells.get(0), holes);
+    /**
+     * Create rings reading coordinates directly in the buffer and sort them in shells and holes.
+     * Buffer content must not change after this call.
+     */
+    private void readRingViews(final DoubleBuffer dbuffer, final int[] partOffsets,
+            final int numPoints, final int dimensions) {
+        final int numParts = partOffsets.length;
+        for (int part = 0; part < numParts; part++) {
+            final int start = partOffsets[part];
+            final int finish = (part == (numParts - 1)) ? numPoints : partOffsets[part + 1];
+            final int length = finish - start;
+
+            // REVISIT: polyons with only 1 to 3 points are not polygons -
+            // geometryFactory will bomb so we skip if we find one.
+            if (length > 0 && length < 4) {
+                continue;
+            }
+
+            // z values are after xy values, z min and z max
+            final int zOffset = (dimensions == 3) ? numPoints*2 + 2 + start : -1;
+            final CoordinateSequence cs = new ShapeBufferCoordinateSequence(dbuffer, start*2, zOffset, length);
+            if (length > 0 && (cs.getX(0) != cs.getX(length-1) || cs.getY(0) != cs.getY(length-1))) {
+                //close ring, coordinates are copied on modification
+                for (int i = 0; i < dimensions; i++) {
+                    cs.setOrdinate(length-1, i, cs.getOrdinate(0, i));
+                }
+            }
+
+            final LinearRing ring = GEOMETRY_FACTORY.createLinearRing(cs);
+            if (isCCW(cs)) {
+                // counter-clockwise
+                holes.add(ring);
+            } else {
+                // clockwise
+                shells.add(ring);
+            }
         }
-        // if for some reason, there is only one hole, we just reverse it and
-        // carry on.
-        else if (holes.size() == 1 && shells.isEmpty()) {
-            //LOGGER.warning("only one hole in this polygon record");
-            return createMulti(JTS.reverseRing(holes.get(0)));
-        } else {
+    }
 
-            // build an association between shells and holes
-            final List<List<LinearRing>> holesForShells = assignHolesToShells(shells, holes);
-            return buildGeometries(shells, holes, holesForShells);
+    /**
+     * Ring orientation computed with the signed area, to avoid creating coordinates.
+     *
+     * @return true if ring is counter-clockwise
+     */
+    private static boolean isCCW(final CoordinateSequence ring) {
+        final int n = ring.size();
+        if (n < 3) return false;
+        final double x0 = ring.getX(0);
+        double sum = 0.0;
+        for (int i = 1; i < n - 1; i++) {
+            final double x = ring.getX(i) - x0;
+            sum += x * (ring.getY(i + 1) - ring.getY(i - 1));
         }
+        return sum > 0;
     }
 
 
@@ -0,0 +1,188 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.shapefile.shp;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.Envelope;
+import java.nio.DoubleBuffer;
+
+/**
+ * Coordinates read directly from a shape record in a read only buffer, usually memory mapped.
+ * Coordinates are ordered in the buffer like [x1,y1, ... xN, yN] and Z values, if any,
+ * are stored elsewhere in the same buffer like [z1, ... zN].<br/>
+ * Nothing is copied until an ordinate is modified, then all coordinates are copied
+ * in an array and the buffer is not used anymore.
+ *
+ * @module pending
+ */
+class ShapeBufferCoordinateSequence implements CoordinateSequence {
+
+    private final DoubleBuffer buffer;
+    private final int xyOffset;
+    private final int zOffset;
+    private final int size;
+
+    /**
+     * Coordinates copy, created on first modification.
+     */
+    private ShapeCoordinateSequence2D copy;
+
+    /**
+     * @param buffer buffer view on the record, buffer position is not used
+     * @param xyOffset index of the first x value in the buffer
+     * @param zOffset index of the first z value in the buffer, -1 for 2D coordinates
+     * @param size number of coordinates
+     */
+    ShapeBufferCoordinateSequence(final DoubleBuffer buffer, final int xyOffset, final int zOffset, final int size){
+        this.buffer = buffer;
+        this.xyOffset = xyOffset;
+        this.zOffset = zOffset;
+        this.size = size;
+    }
+
+    @Override
+    public int getDimension() {
+        return (zOffset < 0) ? 2 : 3;
+    }
+
+    @Override
+    public Coordinate getCoordinate(final int index) {
+        if(copy != null) return copy.getCoordinate(index);
+        final int i = xyOffset + index*2;
+        return new Coordinate(buffer.get(i), buffer.get(i+1),
+                (zOffset < 0) ? Coordinate.NULL_ORDINATE : buffer.get(zOffset + index));
+    }
+
+    @Override
+    public Coordinate getCoordinateCopy(final int i) {
+        return getCoordinate(i);
+    }
+
+    @Override
+    public void getCoordinate(final int index, final Coordinate coord) {
+        if(copy != null){
+            copy.getCoordinate(index, coord);
+            return;
+        }
+        final int i = xyOffset + index*2;
+        coord.x = buffer.get(i);
+        coord.y = buffer.get(i+1);
+        if(zOffset >= 0){
+            coord.z = buffer.get(zOffset + index);
+        }
+    }
+
+    @Override
+    public double getX(final int index) {
+        if(copy != null) return copy.getX(index);
+        return buffer.get(xyOffset + index*2);
+    }
+
+    @Override
+    public double getY(final int index) {
+        if(copy != null) return copy.getY(index);
+        return buffer.get(xyOffset + index*2 + 1);
+    }
+
+    @Override
+    public double getOrdinate(final int index, final int ordinate) {
+        if(copy != null) return copy.getOrdinate(index, ordinate);
+        switch(ordinate){
+            case 0: return buffer.get(xyOffset + index*2);
+            case 1: return buffer.get(xyOffset + index*2 + 1);
+            case 2: return (zOffset < 0) ? Double.NaN : buffer.get(zOffset + index);
+            default:
+                throw new IllegalArgumentException("Unvalid ordinate : " + ordinate);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void setOrdinate(final int index, final int ordinate, final double value) {
+        if(copy == null){
+            copy = toArraySequence();
+        }
+        copy.setOrdinate(index, ordinate, value);
+    }
+
+    @Override
+    public Coordinate[] toCoordinateArray() {
+        final Coordinate[] array = new Coordinate[size];
+        for(int i=0;i<size;i++){
+            array[i] = getCoordinate(i);
+        }
+        return array;
+    }
+
+    @Override
+    public Envelope expandEnvelope(final Envelope envlp) {
+        if(copy != null) return copy.expandEnvelope(envlp);
+        if(size == 0){
+            return envlp;
+        }
+
+        double minX = buffer.get(xyOffset);
+        double minY = buffer.get(xyOffset + 1);
+        double maxX = minX;
+        double maxY = minY;
+
+        for(int i=xyOffset+2,n=xyOffset+size*2; i<n; i++){
+            final double x = buffer.get(i);
+            final double y = buffer.get(++i);
+            if(x < minX) minX = x;
+            else if(x > maxX) maxX = x;
+
+            if(y < minY) minY = y;
+            else if(y > maxY) maxY = y;
+        }
+        envlp.expandToInclude(minX, minY);
+        envlp.expandToInclude(maxX, maxY);
+        return envlp;
+    }
+
+    /**
+     * Copy coordinates in an array sequence.
+     */
+    private ShapeCoordinateSequence2D toArraySequence(){
+        if(copy != null){
+            final double[] array = copy.coordinates.clone();
+            return (zOffset < 0) ? new ShapeCoordinateSequence2D(array) : new ShapeCoordinateSequence3D(array);
+        }
+        final double[] array = new double[size * getDimension()];
+        final DoubleBuffer view = buffer.duplicate();
+        view.position(xyOffset);
+        view.get(array, 0, size*2);
+        if(zOffset < 0){
+            return new ShapeCoordinateSequence2D(array);
+        }
+        view.position(zOffset);
+        view.get(array, size*2, size);
+        return new ShapeCoordinateSequence3D(array);
+    }
+
+    @Override
+    public CoordinateSequence clone(){
+        if(copy != null) return toArraySequence();
+        return new ShapeBufferCoordinateSequence(buffer, xyOffset, zOffset, size);
+    }
+
+}
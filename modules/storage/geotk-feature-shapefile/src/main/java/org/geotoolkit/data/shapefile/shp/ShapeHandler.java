@@ -48,6 +48,11 @@ public interface ShapeHandler {
      * well as the shape type integer. The handler need not worry about reading
      * unused information as the ShapefileReader will correctly adjust the
      * buffer position after this call.
+     * <p>
+     * A read only buffer, like a memory mapped file, is never modified by the reader.
+     * Handlers may then return geometries reading their coordinates directly from
+     * the buffer instead of copying them.
+     * </p>
      * 
      * @param buffer The ByteBuffer to read from.
      * @return A geometry object.
@@ -39,6 +39,11 @@ import org.geotoolkit.data.dbf.Closeable;
  * record will contain the bounds of the shape and will only read the shape when
  * the shape() method is called. This ShapefileReader.Record is the same object
  * every time, so if you need data from the Record, be sure to copy it.
+ * <p>
+ * When the file is memory mapped, line, polygon and multipoint coordinates are not
+ * copied : geometries read them directly from the mapped buffer, until modified.
+ * Such geometries keep the file mapped as long as they are referenced.
+ * </p>
  * 
  * @author jamesm
  * @author aaime
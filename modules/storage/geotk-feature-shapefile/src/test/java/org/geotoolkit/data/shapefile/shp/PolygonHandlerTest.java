@@ -26,7 +26,11 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.geom.PrecisionModel;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -86,6 +90,47 @@ public class PolygonHandlerTest extends AbstractTestCaseSupport {
 
     }
 
+    /**
+     * Geometries read from a read only buffer must be the same as the ones read from a
+     * normal buffer, and must stay modifiable.
+     */
+    @Test
+    public void testReadOnlyBuffer() throws Exception {
+        final GeometryFactory gf = new GeometryFactory();
+        final LinearRing shell = gf.createLinearRing(new Coordinate[]{
+            new Coordinate(0, 0, 1), new Coordinate(0, 10, 2), new Coordinate(10, 10, 3),
+            new Coordinate(10, 0, 4), new Coordinate(0, 0, 1)});
+        final LinearRing hole = gf.createLinearRing(new Coordinate[]{
+            new Coordinate(2, 2, 5), new Coordinate(4, 2, 6), new Coordinate(4, 4, 7),
+            new Coordinate(2, 4, 8), new Coordinate(2, 2, 5)});
+        final MultiPolygon original = gf.createMultiPolygon(new Polygon[]{
+            gf.createPolygon(shell, new LinearRing[]{hole})});
+
+        final PolygonHandler handler = new PolygonHandler(ShapeType.POLYGONZ, true);
+        final ByteBuffer buffer = ByteBuffer.allocate(handler.getLength(original));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        handler.write(buffer, original);
+        buffer.flip();
+
+        final Geometry copied = (Geometry) handler.read(buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN), ShapeType.POLYGONZ);
+        final Geometry mapped = (Geometry) handler.read(buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN), ShapeType.POLYGONZ);
+        assertTrue(copied.equalsExact(mapped));
+        assertEquals(1, mapped.getNumGeometries());
+        assertEquals(1, ((Polygon) mapped.getGeometryN(0)).getNumInteriorRing());
+        final Coordinate[] expected = copied.getCoordinates();
+        final Coordinate[] result = mapped.getCoordinates();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].z, result[i].z, 0.0);
+        }
+
+        //modifications are not written in the buffer
+        final Polygon polygon = (Polygon) mapped.getGeometryN(0);
+        polygon.getExteriorRing().getCoordinateSequence().setOrdinate(0, 0, 50);
+        assertEquals(50, polygon.getExteriorRing().getCoordinateSequence().getX(0), 0.0);
+        final Geometry reread = (Geometry) handler.read(buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN), ShapeType.POLYGONZ);
+        assertTrue(copied.equalsExact(reread));
+    }
+
     public static Geometry rectangle(final PrecisionModel pm, final int SRID) {
         Coordinate[] coords = new Coordinate[5];
         for (int i = 0; i < coords.length; i++) {
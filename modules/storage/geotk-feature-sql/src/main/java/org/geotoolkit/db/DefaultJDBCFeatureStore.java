@@ -16,16 +16,25 @@
  */
 package org.geotoolkit.db;
 
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,6 +67,7 @@ import org.geotoolkit.feature.AttributeTypeBuilder;
 import org.geotoolkit.util.NamesExt;
 import org.geotoolkit.feature.FeatureTypeBuilder;
 import org.geotoolkit.feature.FeatureUtilities;
+import org.geotoolkit.filter.identity.DefaultFeatureId;
 import org.geotoolkit.filter.visitor.CRSAdaptorVisitor;
 import org.geotoolkit.filter.visitor.FIDFixVisitor;
 import org.geotoolkit.filter.visitor.FilterAttributeExtractor;
@@ -77,6 +87,7 @@ import org.geotoolkit.feature.type.FeatureType;
 import org.opengis.util.GenericName;
 import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.geotoolkit.feature.type.PropertyType;
+import org.opengis.coverage.Coverage;
 import org.opengis.feature.MismatchedFeatureException;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
@@ -100,6 +111,11 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         UPDATE_AND_INSERT
     }
 
+    /**
+     * Maximum number of rows inserted by a single batch.
+     */
+    private static final int BATCH_SIZE = 1000;
+
     protected static final QueryCapabilities DEFAULT_CAPABILITIES = new DefaultQueryCapabilities(false, false, new String[]{Query.GEOTK_QOM, CUSTOM_SQL});
     
     protected final GeometryFactory geometryFactory = new GeometryFactory();
@@ -404,7 +420,7 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         FeatureReader reader;
         try {
             sql = getQueryBuilder().selectSQL(queryFeatureType, preQuery);
-            reader = new JDBCFeatureReader(this, sql, queryFeatureType, cnx, release, null);
+            reader = new JDBCFeatureReader(this, sql, queryFeatureType, cnx, release, preQuery.getHints());
         } catch (SQLException ex) {
             throw new DataStoreException(ex.getMessage(), ex);
         }
@@ -907,7 +923,43 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
     
     public final List<FeatureId> addFeatures(GenericName groupName, Collection<? extends Feature> newFeatures, 
             Connection cnx, Hints hints) throws DataStoreException {
-        return handleAddWithFeatureWriter(groupName, newFeatures, cnx, hints);
+        final FeatureType featureType = getFeatureType(groupName);
+        final PrimaryKey key = dbmodel.getPrimaryKey(featureType.getName());
+
+        //ids of generated keys are only known after each insertion, use the writer
+        if (!isWritable(groupName) || !isBatchInsertable(featureType) || key.hasAutoColumn()) {
+            return handleAddWithFeatureWriter(groupName, newFeatures, cnx, hints);
+        }
+
+        //we gave him the connection, he must not release it
+        final boolean release = (cnx == null);
+        if (cnx == null) {
+            try {
+                cnx = getDataSource().getConnection();
+            } catch (SQLException ex) {
+                throw new DataStoreException(ex.getMessage(), ex);
+            }
+        }
+
+        try {
+            final List<FeatureId> ids = new ArrayList<>(newFeatures.size());
+            final List<Feature> chunk = new ArrayList<>(Math.min(newFeatures.size(), BATCH_SIZE));
+            final Iterator<? extends Feature> ite = newFeatures.iterator();
+            while (ite.hasNext()) {
+                chunk.add(ite.next());
+                if (chunk.size() == BATCH_SIZE || !ite.hasNext()) {
+                    for (String fid : insertBatch(chunk, featureType, key, cnx)) {
+                        ids.add(new DefaultFeatureId(fid));
+                    }
+                    chunk.clear();
+                }
+            }
+            return ids;
+        } finally {
+            if (release) {
+                JDBCFeatureStoreUtilities.closeSafe(getLogger(), cnx);
+            }
+        }
     }
     
     /**
@@ -935,29 +987,242 @@ public class DefaultJDBCFeatureStore extends JDBCFeatureStore{
         handleRemoveWithFeatureWriter(groupName, filter, cnx);
     }
 
+    /**
+     * Insert features of a flat type with pre-allocated key values, each feature
+     * receives its id in the "fid" user data, unless keys are generated by the database.
+     * Complex types and coverages are inserted one feature at a time.
+     */
     protected void insert(final Collection<? extends ComplexAttribute> features, final ComplexType featureType,
             final Connection cx) throws DataStoreException {
+        if (!isBatchInsertable(featureType)) {
+            for (ComplexAttribute feature : features) {
+                insert(feature, featureType, cx);
+            }
+            return;
+        }
+
         final PrimaryKey key = dbmodel.getPrimaryKey(featureType.getName());
+        final List<String> fids = insertBatch(features, featureType, key, cx);
+        int i = 0;
+        for (ComplexAttribute feature : features) {
+            final String fid = fids.get(i++);
+            if (fid != null) {
+                feature.getUserData().put("fid", fid);
+            }
+        }
+    }
 
-        // we do this in a synchronized block because we need to do two queries,
-        // first to figure out what the id will be, then the insert statement
-        synchronized (this) {
-            Statement st = null;
-            try {
-                st = cx.createStatement();
-                final Object[] nextKeyValues = key.nextPrimaryKeyValues(this, cx);
-                final String sql = getQueryBuilder().insertSQL(featureType, features, nextKeyValues, cx);
-                st.executeUpdate(sql);
+    /**
+     * @return true if features of this type can be inserted with batches.
+     */
+    private static boolean isBatchInsertable(final ComplexType featureType) {
+        if (!(featureType instanceof SimpleFeatureType)) return false;
+        for (PropertyDescriptor desc : featureType.getDescriptors()) {
+            if (Coverage.class.isAssignableFrom(desc.getType().getBinding())) return false;
+        }
+        return true;
+    }
 
-                if (cx.getAutoCommit()) {
-                    fireFeaturesAdded(featureType.getName(), null);
+    /**
+     * Insert features of a flat type, key values are allocated for all features at once.
+     *
+     * @return feature ids in insertion order, null values if keys are generated by the database.
+     */
+    private List<String> insertBatch(final Collection<? extends ComplexAttribute> features, final ComplexType featureType,
+            final PrimaryKey key, final Connection cx) throws DataStoreException {
+        if (key.hasComputedColumn()) {
+            // we do this in a synchronized block because key values are computed
+            // from the table content, they must be inserted before other keys are computed
+            synchronized (this) {
+                return executeInsertBatch(features, featureType, key, cx);
+            }
+        }
+        return executeInsertBatch(features, featureType, key, cx);
+    }
+
+    private List<String> executeInsertBatch(final Collection<? extends ComplexAttribute> features, final ComplexType featureType,
+            final PrimaryKey key, final Connection cx) throws DataStoreException {
+        final int count = features.size();
+        if (count == 0) return Collections.emptyList();
+
+        final String typeName = featureType.getName().tip().toString();
+        final List<ColumnMetaModel> keyColumns = key.getColumns();
+        final boolean generatedKeys = key.hasAutoColumn();
+
+        //inserted columns, key columns generated by the database are left out
+        final List<PropertyDescriptor> columns = new ArrayList<>();
+        final List<Integer> keyIndexes = new ArrayList<>();
+        fields :
+        for (PropertyDescriptor desc : featureType.getDescriptors()) {
+            final String attName = desc.getName().tip().toString();
+            int keyIndex = -1;
+            for (int k=0,n=keyColumns.size(); k<n; k++) {
+                if (keyColumns.get(k).getName().equals(attName)) {
+                    if (keyColumns.get(k).getType() == ColumnMetaModel.Type.AUTO) continue fields;
+                    keyIndex = k;
+                    break;
                 }
-            } catch (SQLException e) {
-                throw new DataStoreException("Error inserting features",e);
-            } finally {
-                JDBCFeatureStoreUtilities.closeSafe(getLogger(),st);
+            }
+            columns.add(desc);
+            keyIndexes.add(keyIndex);
+        }
+
+        final int nbColumn = columns.size();
+        final int[] srids = new int[nbColumn];
+        for (int c=0; c<nbColumn; c++) {
+            final PropertyDescriptor desc = columns.get(c);
+            if (Geometry.class.isAssignableFrom(desc.getType().getBinding())) {
+                srids[c] = SQLQueryBuilder.getDescriptorSRID(desc);
+            }
+        }
+
+        String sql = null;
+        try {
+            final Object[][] keyValues = key.nextPrimaryKeyValues(this, cx, count);
+            final List<Object[]> rows = new ArrayList<>(count);
+            final List<String> fids = new ArrayList<>(count);
+            int i = 0;
+            for (ComplexAttribute feature : features) {
+                final Object[] keyRow = keyValues[i++];
+                final Object[] row = new Object[nbColumn];
+                for (int c=0; c<nbColumn; c++) {
+                    final PropertyDescriptor desc = columns.get(c);
+                    final Property prop = feature.getProperty(desc.getName().tip().toString());
+                    Object value = (prop == null) ? null : prop.getValue();
+                    final int k = keyIndexes.get(c);
+                    if (k >= 0) {
+                        if (value == null) {
+                            value = keyRow[k];
+                        } else {
+                            keyRow[k] = value;
+                        }
+                    }
+                    if (value instanceof Geometry && srids[c] <= 0) {
+                        srids[c] = SQLQueryBuilder.getGeometrySRID((Geometry) value, desc);
+                    }
+                    row[c] = value;
+                }
+                rows.add(row);
+
+                //report the feature id as user data since we cant set the fid
+                if (generatedKeys) {
+                    fids.add(null);
+                } else if (keyRow.length == 0) {
+                    fids.add(FeatureUtilities.createDefaultFeatureId());
+                } else {
+                    fids.add(typeName + "." + PrimaryKey.encodeFID(keyRow));
+                }
+            }
+
+            if (!getDialect().insertBulk(getDatabaseSchema(), typeName, columns, srids, rows, cx)) {
+                sql = getQueryBuilder().insertPreparedSQL(featureType, columns, srids);
+                getLogger().log(Level.FINE, "Inserting {0} new features: {1}", new Object[]{count, sql});
+                executeBatch(sql, columns, srids, rows, cx);
+            }
+
+            if (cx.getAutoCommit()) {
+                fireFeaturesAdded(featureType.getName(), null);
+            }
+            return fids;
+        } catch (SQLException ex) {
+            throw new DataStoreException("Failed to insert features : "+ex.getMessage()+"\nSQL Query :"+sql, ex);
+        }
+    }
+
+    /**
+     * Bind rows in a prepared statement, rows are sent every {@link #BATCH_SIZE} rows.
+     */
+    private void executeBatch(final String sql, final List<PropertyDescriptor> columns, final int[] srids,
+            final List<Object[]> rows, final Connection cx) throws SQLException, DataStoreException {
+        final SQLDialect dialect = getDialect();
+        final boolean[] geometries = new boolean[columns.size()];
+        for (int c=0; c<geometries.length; c++) {
+            geometries[c] = Geometry.class.isAssignableFrom(columns.get(c).getType().getBinding());
+        }
+
+        final PreparedStatement stmt = cx.prepareStatement(sql);
+        try {
+            int[] nullTypes = null;
+            int pending = 0;
+            for (Object[] row : rows) {
+                for (int c=0; c<row.length; c++) {
+                    final Object value = row[c];
+                    if (geometries[c]) {
+                        dialect.setGeometryParameter(stmt, c+1, (Geometry) value, srids[c]);
+                    } else if (value == null) {
+                        if (nullTypes == null) nullTypes = getNullTypes(stmt, columns);
+                        stmt.setNull(c+1, nullTypes[c]);
+                    } else if (value.getClass() == java.util.Date.class) {
+                        stmt.setTimestamp(c+1, new Timestamp(((java.util.Date) value).getTime()));
+                    } else {
+                        stmt.setObject(c+1, value);
+                    }
+                }
+                stmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+        } finally {
+            JDBCFeatureStoreUtilities.closeSafe(getLogger(), stmt);
+        }
+    }
+
+    /**
+     * SQL types used to bind null values, as declared by the statement parameters.
+     * If the driver does not describe parameters, types are derived from the property bindings.
+     */
+    private static int[] getNullTypes(final PreparedStatement stmt, final List<PropertyDescriptor> columns) {
+        ParameterMetaData metadata;
+        try {
+            metadata = stmt.getParameterMetaData();
+        } catch (SQLException ex) {
+            //not supported by the driver
+            metadata = null;
+        }
+        final int[] types = new int[columns.size()];
+        for (int c=0; c<types.length; c++) {
+            types[c] = Types.OTHER;
+            if (metadata != null) {
+                try {
+                    types[c] = metadata.getParameterType(c+1);
+                    continue;
+                } catch (SQLException ex) {
+                    //not supported by the driver
+                }
+            }
+            final Class binding = columns.get(c).getType().getBinding();
+            if (String.class.equals(binding)) {
+                types[c] = Types.VARCHAR;
+            } else if (Boolean.class.equals(binding)) {
+                types[c] = Types.BOOLEAN;
+            } else if (Short.class.equals(binding) || Byte.class.equals(binding)) {
+                types[c] = Types.SMALLINT;
+            } else if (Integer.class.equals(binding)) {
+                types[c] = Types.INTEGER;
+            } else if (Long.class.equals(binding)) {
+                types[c] = Types.BIGINT;
+            } else if (Float.class.equals(binding)) {
+                types[c] = Types.REAL;
+            } else if (Double.class.equals(binding)) {
+                types[c] = Types.DOUBLE;
+            } else if (BigDecimal.class.equals(binding) || BigInteger.class.equals(binding)) {
+                types[c] = Types.NUMERIC;
+            } else if (java.sql.Date.class.equals(binding)) {
+                types[c] = Types.DATE;
+            } else if (java.sql.Time.class.equals(binding)) {
+                types[c] = Types.TIME;
+            } else if (java.util.Date.class.isAssignableFrom(binding)) {
+                types[c] = Types.TIMESTAMP;
+            } else if (byte[].class.equals(binding)) {
+                types[c] = Types.BINARY;
             }
         }
+        return types;
     }
 
     protected void insert(final ComplexAttribute feature, final ComplexType featureType,
@@ -17,6 +17,7 @@
 package org.geotoolkit.db;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -24,7 +25,10 @@ import java.util.logging.Level;
 import org.apache.sis.util.ArgumentChecks;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.FeatureWriter;
 import static org.geotoolkit.db.JDBCFeatureStoreUtilities.*;
+import org.geotoolkit.db.dialect.ColumnReader;
+import org.geotoolkit.db.dialect.SQLDialect;
 import org.geotoolkit.db.reverse.PrimaryKey;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.simple.DefaultSimpleFeature;
@@ -55,6 +59,8 @@ public class JDBCFeatureReader implements FeatureReader {
     //array of properties for faster access when simple type
     protected final PropertyDescriptor[] properties;
     protected final Object[] values;
+    //column readers when simple type, null otherwise
+    protected final ColumnReader[] readers;
     
     /**
      * statement,result set that is being worked from.
@@ -63,6 +69,8 @@ public class JDBCFeatureReader implements FeatureReader {
     protected final ResultSet rs;
     protected final Connection cx;
     protected final boolean release ;
+    /** true if the connection auto commit has been disabled to read with a cursor */
+    private final boolean streaming;
     /** the next feature */
     private Feature feature = null;
     protected boolean closed = false;
@@ -83,15 +91,36 @@ public class JDBCFeatureReader implements FeatureReader {
         
         this.sql = sql;        
         this.cx = cnx;
-        this.st = cx.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-        this.st.setFetchSize(store.getFetchSize());
+        this.hints = hints;
+        this.release = release;
+
+        //writers select rows without query hints and modify the database with
+        //this connection, they are never streamed.
+        //drivers like postgresql only use a cursor outside of auto commit mode.
+        final Hints queryHints = (this instanceof FeatureWriter) ? null : hints;
+        this.readers = createReaders(store.getDialect(), type, properties, queryHints);
+        this.streaming = release && queryHints != null
+                && Boolean.TRUE.equals(queryHints.get(JDBCFeatureStore.STREAMING)) && cx.getAutoCommit();
+
         try {
-            this.rs = this.st.executeQuery(sql);
+            if (streaming) {
+                cx.setAutoCommit(false);
+                final PreparedStatement stmt = cx.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                stmt.setFetchSize(store.getFetchSize());
+                store.getDialect().prepareStreaming(stmt);
+                this.st = stmt;
+                this.rs = stmt.executeQuery();
+            } else {
+                this.st = cx.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                this.st.setFetchSize(store.getFetchSize());
+                this.rs = this.st.executeQuery(sql);
+            }
         } catch (SQLException sqle){
+            if (streaming) {
+                cx.setAutoCommit(true);
+            }
             throw new SQLException(sqle.getMessage()+" with query :"+ sql,sqle);
         }
-        this.hints = hints;
-        this.release = release;
     }
     
     public JDBCFeatureReader(final JDBCFeatureReader other) throws SQLException {
@@ -107,6 +136,23 @@ public class JDBCFeatureReader implements FeatureReader {
         this.release = other.release;
         this.properties = other.properties;
         this.values = new Object[this.properties.length];
+        this.readers = other.readers;
+        this.streaming = false;
+    }
+
+    /**
+     * Resolve the column readers once for all rows.
+     *
+     * @return readers, null if type is not simple
+     */
+    private static ColumnReader[] createReaders(final SQLDialect dialect, final FeatureType type,
+            final PropertyDescriptor[] properties, final Hints hints) {
+        if (!(type instanceof SimpleFeatureType)) return null;
+        final ColumnReader[] readers = new ColumnReader[properties.length];
+        for (int i=0; i<readers.length; i++) {
+            readers[i] = dialect.createColumnReader(properties[i], i+1, hints);
+        }
+        return readers;
     }
     
     @Override
@@ -144,10 +190,9 @@ public class JDBCFeatureReader implements FeatureReader {
     
     protected Feature toFeature(ResultSet rs) throws SQLException, DataStoreException{
         final FeatureId fid = new DefaultFeatureId(fidBase + pkey.encodeFID(rs));
-        if(type instanceof SimpleFeatureType){
+        if(readers != null){
             for(int i=0;i<values.length;i++){
-                final PropertyDescriptor pdesc = properties[i];
-                values[i] = JDBCComplexFeature.readSimpleValue(store.getDialect(), rs, i+1, pdesc);
+                values[i] = readers[i].read(rs);
             }
             return new DefaultSimpleFeature((SimpleFeatureType)type, fid, values.clone(), false);
         }else{
@@ -158,6 +203,17 @@ public class JDBCFeatureReader implements FeatureReader {
     @Override
     public void close() {
         closed = true;
+        if (streaming) {
+            //end the read only transaction before giving back the connection
+            closeSafe(store.getLogger(),rs);
+            closeSafe(store.getLogger(),st);
+            try {
+                cx.rollback();
+                cx.setAutoCommit(true);
+            } catch (SQLException ex) {
+                store.getLogger().log(Level.WARNING, ex.getMessage(), ex);
+            }
+        }
         closeSafe(store.getLogger(),(release)?cx:null,st,rs);
     }
 
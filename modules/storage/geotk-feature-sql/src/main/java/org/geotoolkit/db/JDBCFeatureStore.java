@@ -32,6 +32,13 @@ import org.opengis.parameter.ParameterValueGroup;
 public abstract class JDBCFeatureStore extends AbstractFeatureStore{
     
     public static final RenderingHints.Key RESAMPLING = new org.geotoolkit.factory.Hints.Key(Object.class);
+
+    /**
+     * Query hint, when true features are read in streaming mode : rows are fetched
+     * by a database cursor, fetch size rows at a time, and geometries are transfered
+     * in binary form when the dialect supports it. Value is a Boolean.
+     */
+    public static final RenderingHints.Key STREAMING = new org.geotoolkit.factory.Hints.Key(Boolean.class);
     
     /**
      * Query language supported : SQL.
@@ -16,14 +16,28 @@
  */
 package org.geotoolkit.db.dialect;
 
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKBWriter;
+import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import org.apache.sis.storage.DataStoreException;
+import org.geotoolkit.db.reverse.ColumnMetaModel;
+import org.geotoolkit.factory.Hints;
 import org.geotoolkit.feature.AttributeTypeBuilder;
 import org.geotoolkit.filter.capability.DefaultFilterCapabilities;
 import org.geotoolkit.filter.visitor.CapabilitiesFilterSplitter;
 import org.geotoolkit.feature.type.AttributeDescriptor;
 import org.geotoolkit.feature.type.ComplexType;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.geotoolkit.feature.type.PropertyDescriptor;
+import org.opengis.coverage.Coverage;
 import org.opengis.filter.Filter;
 
 /**
@@ -95,6 +109,49 @@ public abstract class AbstractSQLDialect implements SQLDialect {
     public void encodePostCreateTable(StringBuilder sql, String tableName) {
     }
     
+    /**
+     * Default implementation uses the simple feature access function ST_GeomFromWKB.
+     */
+    @Override
+    public void encodeGeometryParameter(StringBuilder sql, int srid) {
+        sql.append("ST_GeomFromWKB(?,").append(srid).append(')');
+    }
+
+    /**
+     * Default implementation binds the geometry as 2D well known binary.
+     */
+    @Override
+    public void setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid)
+            throws SQLException, DataStoreException {
+        if (value == null) {
+            stmt.setNull(index, Types.BINARY);
+        } else {
+            stmt.setBytes(index, new WKBWriter(2).write(value));
+        }
+    }
+
+    /**
+     * Default implementation calls {@link #nextValue(ColumnMetaModel, Connection) } for each row.
+     */
+    @Override
+    public Object[] nextValues(ColumnMetaModel column, Connection cx, int count) throws SQLException, DataStoreException {
+        final Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = nextValue(column, cx);
+        }
+        return values;
+    }
+
+    /**
+     * Default implementation has no bulk loading mechanism, rows are inserted
+     * with prepared statement batches.
+     */
+    @Override
+    public boolean insertBulk(String schemaName, String tableName, List<PropertyDescriptor> columns,
+            int[] srids, List<Object[]> rows, Connection cx) throws SQLException, DataStoreException {
+        return false;
+    }
+
     @Override
     public void decodeColumnType(final AttributeTypeBuilder atb, final Connection cx,
             final String typeName, final int datatype, final String schemaName,
@@ -105,5 +162,51 @@ public abstract class AbstractSQLDialect implements SQLDialect {
         atb.setBinding(binding);
     }
 
+    /**
+     * Default implementation delegates to the decode methods of the dialect.
+     */
+    @Override
+    public ColumnReader createColumnReader(final PropertyDescriptor descriptor, final int index, final Hints hints) {
+        if (descriptor instanceof GeometryDescriptor) {
+            final GeometryDescriptor gatt = (GeometryDescriptor) descriptor;
+            if (Coverage.class.isAssignableFrom(gatt.getType().getBinding())) {
+                //raster type
+                return new ColumnReader() {
+                    @Override
+                    public Object read(ResultSet rs) throws SQLException {
+                        try {
+                            return decodeCoverageValue(gatt, rs, index);
+                        } catch (IOException e) {
+                            throw new SQLException(e);
+                        }
+                    }
+                };
+            } else {
+                //vector type
+                return new GeometryColumnReader(gatt, index) {
+                    @Override
+                    protected Geometry decode(ResultSet rs) throws IOException, SQLException {
+                        return decodeGeometryValue(gatt, rs, index);
+                    }
+                };
+            }
+        } else {
+            final AttributeDescriptor att = (AttributeDescriptor) descriptor;
+            return new ColumnReader() {
+                @Override
+                public Object read(ResultSet rs) throws SQLException {
+                    return decodeAttributeValue(att, rs, index);
+                }
+            };
+        }
+    }
+
+    /**
+     * Default implementation does nothing, the fetch size is enough for most drivers.
+     */
+    @Override
+    public void prepareStreaming(Statement stmt) throws SQLException {
+    }
+
     
 }
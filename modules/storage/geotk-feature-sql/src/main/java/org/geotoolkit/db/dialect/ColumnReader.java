@@ -0,0 +1,39 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db.dialect;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reader of a column value in a result set. Readers are resolved once per result set
+ * from the column descriptor, avoiding type tests for each row.
+ * Readers are not thread safe.
+ *
+ * @module pending
+ */
+public interface ColumnReader {
+
+    /**
+     * Read column value of the current row.
+     *
+     * @param rs result set positioned on a row
+     * @return column value, can be null
+     */
+    Object read(ResultSet rs) throws SQLException;
+
+}
@@ -0,0 +1,94 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.db.dialect;
+
+import com.vividsolutions.jts.geom.Geometry;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.geotoolkit.geometry.jts.JTS;
+import org.geotoolkit.geometry.jts.SRIDGenerator;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Reader of a geometry column, the descriptor crs is set on geometries which
+ * do not declare one. The crs srid is computed once for all rows.
+ *
+ * @module pending
+ */
+public abstract class GeometryColumnReader implements ColumnReader {
+
+    protected final GeometryDescriptor descriptor;
+    protected final int index;
+    private final CoordinateReferenceSystem crs;
+    private final int srid;
+    private final boolean sridKnown;
+
+    /**
+     * @param descriptor geometry column descriptor
+     * @param index column index in the result set, starting at 1
+     */
+    protected GeometryColumnReader(final GeometryDescriptor descriptor, final int index) {
+        this.descriptor = descriptor;
+        this.index = index;
+        this.crs = descriptor.getCoordinateReferenceSystem();
+
+        int srid = 0;
+        boolean sridKnown = false;
+        if (crs != null) {
+            try {
+                srid = SRIDGenerator.toSRID(crs, SRIDGenerator.Version.V1);
+                sridKnown = true;
+            } catch (IllegalArgumentException ex) {
+                //unsupported authority, crs will be set on each geometry by JTS.setCRS
+            }
+        }
+        this.srid = srid;
+        this.sridKnown = sridKnown;
+    }
+
+    @Override
+    public final Object read(final ResultSet rs) throws SQLException {
+        final Geometry geom;
+        try {
+            geom = decode(rs);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+
+        if (geom != null && crs != null && geom.getUserData() == null) {
+            //set crs is not set
+            if (sridKnown) {
+                geom.setUserData(crs);
+                geom.setSRID(srid);
+            } else {
+                JTS.setCRS(geom, crs);
+            }
+        }
+        return geom;
+    }
+
+    /**
+     * Decode the geometry of the current row.
+     *
+     * @param rs result set positioned on a row
+     * @return geometry, can be null
+     */
+    protected abstract Geometry decode(ResultSet rs) throws IOException, SQLException;
+
+}
@@ -19,8 +19,11 @@ package org.geotoolkit.db.dialect;
 import com.vividsolutions.jts.geom.Geometry;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
 import java.util.Map;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.util.Version;
@@ -33,6 +36,7 @@ import org.geotoolkit.feature.type.AttributeDescriptor;
 import org.geotoolkit.feature.type.ComplexType;
 import org.geotoolkit.feature.type.FeatureType;
 import org.geotoolkit.feature.type.GeometryDescriptor;
+import org.geotoolkit.feature.type.PropertyDescriptor;
 import org.opengis.filter.Filter;
 import org.opengis.filter.capability.FilterCapabilities;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
@@ -114,6 +118,27 @@ public interface SQLDialect {
     void encodeValue(StringBuilder sql, Object value, Class type);
 
     void encodeGeometryValue(StringBuilder sql, Geometry value, int srid) throws DataStoreException;
+
+    /**
+     * Encode the parameter of a geometry value in a prepared statement.
+     * The value is bound with {@link #setGeometryParameter(PreparedStatement, int, Geometry, int) }.
+     *
+     * @param sql prepared statement sql
+     * @param srid geometry column srid
+     */
+    void encodeGeometryParameter(StringBuilder sql, int srid);
+
+    /**
+     * Bind a geometry value in a prepared statement, parameter has been
+     * encoded by {@link #encodeGeometryParameter(StringBuilder, int) }.
+     *
+     * @param stmt prepared statement
+     * @param index parameter index
+     * @param value geometry, can be null
+     * @param srid geometry column srid
+     */
+    void setGeometryParameter(PreparedStatement stmt, int index, Geometry value, int srid)
+            throws SQLException, DataStoreException;
     
     void encodeCoverageValue(StringBuilder sql, Coverage value) throws DataStoreException;
     
@@ -131,6 +156,33 @@ public interface SQLDialect {
     ////////////////////////////////////////////////////////////////////////////
     
     Object nextValue(ColumnMetaModel column, Connection cx) throws SQLException, DataStoreException;
+
+    /**
+     * Calculate the next values of a key column for several rows.
+     *
+     * @param count number of values
+     * @return values, may contain nulls if values are generated by the database.
+     */
+    Object[] nextValues(ColumnMetaModel column, Connection cx, int count) throws SQLException, DataStoreException;
+
+    
+    ////////////////////////////////////////////////////////////////////////////
+    // BULK INSERTION //////////////////////////////////////////////////////////
+    ////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Insert rows with a database specific bulk loading mechanism.
+     *
+     * @param schemaName database schema, can be null
+     * @param tableName table where rows are inserted
+     * @param columns inserted columns
+     * @param srids srid of each column, used by geometry columns
+     * @param rows values of each row, in columns order
+     * @return true if rows have been inserted, false if bulk loading is not supported
+     *         for this table, in which case nothing has been written.
+     */
+    boolean insertBulk(String schemaName, String tableName, List<PropertyDescriptor> columns,
+            int[] srids, List<Object[]> rows, Connection cx) throws SQLException, DataStoreException;
     
     
     ////////////////////////////////////////////////////////////////////////////
@@ -164,5 +216,23 @@ public interface SQLDialect {
     Coverage decodeCoverageValue(GeometryDescriptor descriptor, ResultSet rs,
         int column) throws IOException, SQLException;
 
+    /**
+     * Create the reader of a column, used for all rows of a result set.
+     *
+     * @param descriptor column descriptor
+     * @param index column index in the result set, starting at 1
+     * @param hints query hints, the same which were given to
+     *        {@link #encodeGeometryColumn(StringBuilder, GeometryDescriptor, int, Hints) }
+     */
+    ColumnReader createColumnReader(PropertyDescriptor descriptor, int index, Hints hints);
+
+    /**
+     * Configure a statement which will be read in streaming mode,
+     * see {@link org.geotoolkit.db.JDBCFeatureStore#STREAMING }.
+     * The statement has a fetch size, it is executed outside of auto commit mode.
+     *
+     * @param stmt statement not executed yet
+     */
+    void prepareStreaming(Statement stmt) throws SQLException;
     
 }
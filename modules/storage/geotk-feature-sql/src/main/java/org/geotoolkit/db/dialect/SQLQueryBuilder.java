@@ -320,6 +320,38 @@ public class SQLQueryBuilder {
         return sqlType.toString() + sqlValues.toString();
     }
 
+    /**
+     * Generates a parameterized 'INSERT INTO' statement, values are bound in columns order.
+     *
+     * @param featureType inserted type
+     * @param columns inserted columns
+     * @param srids srid of each column, used by geometry columns
+     */
+    public String insertPreparedSQL(final ComplexType featureType, final List<PropertyDescriptor> columns,
+                               final int[] srids) {
+        final StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO ");
+        dialect.encodeSchemaAndTableName(sql, databaseSchema, featureType.getName().tip().toString());
+        sql.append(" ( ");
+        for (PropertyDescriptor desc : columns) {
+            dialect.encodeColumnName(sql, desc.getName().tip().toString());
+            sql.append(',');
+        }
+        sql.setLength(sql.length() - 1);
+        sql.append(" ) VALUES ( ");
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            if (Geometry.class.isAssignableFrom(columns.get(i).getType().getBinding())) {
+                dialect.encodeGeometryParameter(sql, srids[i]);
+            } else {
+                sql.append('?');
+            }
+            sql.append(',');
+        }
+        sql.setLength(sql.length() - 1);
+        sql.append(" )");
+        return sql.toString();
+    }
+
 
     /**
      * Generates an 'UPDATE' sql statement.
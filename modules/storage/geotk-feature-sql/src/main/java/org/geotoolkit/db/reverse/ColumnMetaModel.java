@@ -194,5 +194,40 @@ public class ColumnMetaModel {
 
         return next;
     }
+
+    /**
+     * Calculate the next column values of several rows at once.
+     * Sequences are queried in a single request and computed keys are
+     * incremented from a single maximum value search.
+     *
+     * @param count number of values to generate.
+     * @return generated values, may contain nulls if values are generated by the database.
+     */
+    public Object[] nextColumnValues(final DefaultJDBCFeatureStore store, final Connection cx, final int count)
+            throws SQLException, DataStoreException {
+        if(type == Type.AUTO || type == Type.SEQUENCED){
+            return store.getDialect().nextValues(this, cx, count);
+        }
+
+        final Object[] values = new Object[count];
+        if(count == 0) return values;
+        final Object first = nextColumnValue(store, cx);
+        values[0] = first;
+        for(int i=1; i<count; i++){
+            final Object previous = values[i-1];
+            if (CharSequence.class.isAssignableFrom(clazz)) {
+                values[i] = FeatureUtilities.createDefaultFeatureId();
+            }else if (clazz == Float.class){
+                values[i] = Math.nextUp( ((Number)previous).floatValue() );
+            }else if (clazz == Double.class){
+                values[i] = Math.nextUp( ((Number)previous).doubleValue() );
+            }else if (previous instanceof Number){
+                values[i] = ((Number)previous).longValue() +1;
+            }else{
+                throw new DataStoreException("Cannot generate key values for column of type: " + clazz.getName());
+            }
+        }
+        return values;
+    }
     
 }
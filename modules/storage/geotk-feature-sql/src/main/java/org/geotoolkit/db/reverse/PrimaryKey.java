@@ -130,5 +130,45 @@ public class PrimaryKey {
         }
         return parts;
     }
+
+    /**
+     * Calculate the primary key values of several new entries at once.
+     *
+     * @param count number of entries.
+     * @return key values, indexed by entry then by column.
+     */
+    public Object[][] nextPrimaryKeyValues(final DefaultJDBCFeatureStore store, final Connection cx, final int count)
+            throws SQLException, DataStoreException {
+        final Object[][] values = new Object[count][columns.size()];
+        for(int i=0,n=columns.size(); i<n; i++){
+            final Object[] columnValues = columns.get(i).nextColumnValues(store, cx, count);
+            for(int k=0; k<count; k++){
+                values[k][i] = columnValues[k];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return true if a key column value is generated by the database at insertion,
+     *         in which case key values can not be known before insertion.
+     */
+    public boolean hasAutoColumn(){
+        for(ColumnMetaModel column : columns){
+            if(column.getType() == ColumnMetaModel.Type.AUTO) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a key column value is computed from existing table values,
+     *         in which case concurrent insertions must be serialized.
+     */
+    public boolean hasComputedColumn(){
+        for(ColumnMetaModel column : columns){
+            if(column.getType() == ColumnMetaModel.Type.NON_INCREMENTING) return true;
+        }
+        return false;
+    }
     
 }
@@ -32,6 +32,7 @@ import org.apache.sis.storage.DataStoreException;
 import org.geotoolkit.data.memory.GenericEmptyFeatureIterator;
 import org.geotoolkit.data.memory.GenericFilterFeatureIterator;
 import org.geotoolkit.data.memory.GenericMaxFeatureIterator;
+import org.geotoolkit.data.memory.GenericQueryFeatureIterator;
 import org.geotoolkit.data.memory.GenericReprojectFeatureIterator;
 import org.geotoolkit.data.memory.GenericRetypeFeatureIterator;
 import org.geotoolkit.data.memory.GenericSortByFeatureIterator;
@@ -279,13 +280,6 @@ public abstract class AbstractFeatureCollection extends AbstractCollection<Featu
         //          otherwise the result will be illogic.
 
 
-        //wrap sort by ---------------------------------------------------------
-        //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
-        if(sorts != null && sorts.length != 0){
-            result = GenericSortByFeatureIterator.wrap(result, sorts);
-        }
-
         //wrap filter ----------------------------------------------------------
         //we must keep the filter first since it impacts the start index and max feature
         if(filter != null && filter != Filter.INCLUDE){
@@ -297,6 +291,13 @@ public abstract class AbstractFeatureCollection extends AbstractCollection<Featu
             }
         }
 
+        //wrap sort by ---------------------------------------------------------
+        //This can be really expensive, and force the us to read the full iterator.
+        //placed after the filter, when max feature is defined only the first features are kept.
+        if(sorts != null && sorts.length != 0){
+            result = GenericSortByFeatureIterator.wrap(result, sorts, GenericQueryFeatureIterator.getSortLimit(start, max), hints);
+        }
+
         //wrap start index -----------------------------------------------------
         if(start != null && start > 0){
             result = GenericStartIndexFeatureIterator.wrap(result, start);
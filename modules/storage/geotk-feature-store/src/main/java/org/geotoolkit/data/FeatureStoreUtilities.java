@@ -262,6 +262,48 @@ public class FeatureStoreUtilities {
         return env;
     }
 
+    /**
+     * Split a reader in several readers, to iterate on features in parallel.
+     * The reader is split only if it is a {@link SplittableFeatureReader}, the returned
+     * list may therefore contain less readers than requested, in the worst case only
+     * the given reader. All returned readers must be closed.
+     *
+     * @param reader reader to split
+     * @param parts maximum number of readers
+     * @return given reader followed by the readers split from it
+     * @throws FeatureStoreRuntimeException
+     */
+    public static List<FeatureReader> split(final FeatureReader reader, final int parts) throws FeatureStoreRuntimeException{
+        ensureNonNull("reader", reader);
+        ensureStrictlyPositive("parts", parts);
+
+        final List<FeatureReader> readers = new ArrayList<>();
+        readers.add(reader);
+        try{
+            boolean split = true;
+            while(split && readers.size() < parts){
+                split = false;
+                for(int i=0,n=readers.size(); i<n && readers.size()<parts; i++){
+                    final FeatureReader candidate = readers.get(i);
+                    if(candidate instanceof SplittableFeatureReader){
+                        final FeatureReader part = ((SplittableFeatureReader)candidate).trySplit();
+                        if(part != null){
+                            readers.add(part);
+                            split = true;
+                        }
+                    }
+                }
+            }
+        }catch(FeatureStoreRuntimeException ex){
+            //close the readers we created, the caller keeps ownership of the given one
+            for(int i=1;i<readers.size();i++){
+                readers.get(i).close();
+            }
+            throw ex;
+        }
+        return readers;
+    }
+
     public static FeatureCollection sequence(final String id, final FeatureCollection... collections) {
         return new FeatureCollectionSequence(id, collections);
     }
@@ -0,0 +1,52 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data;
+
+/**
+ * A FeatureReader which can be partitioned, to read features in several threads.
+ * <br/>
+ * Each call to {@link #trySplit() } moves part of the remaining features to a new reader,
+ * the two readers can then be iterated concurrently, each one by a single thread.
+ * Every reader obtained this way must be closed, closing a reader does not close the
+ * readers split from it.
+ * <br/>
+ * Feature order is not preserved between readers, use {@link FeatureStoreUtilities#split(FeatureReader, int) }
+ * to obtain a given number of partitions.
+ *
+ * @module pending
+ */
+public interface SplittableFeatureReader extends FeatureReader {
+
+    /**
+     * Move part of the remaining features in a new reader.
+     * Splitting should be done before iteration starts, readers may refuse
+     * to split once features have been read.
+     *
+     * @return reader on part of the remaining features, or null if this reader can not be split.
+     * @throws FeatureStoreRuntimeException if the new reader could not be created.
+     */
+    SplittableFeatureReader trySplit() throws FeatureStoreRuntimeException;
+
+    /**
+     * Estimated number of remaining features, the real number may be lower if
+     * features are filtered.
+     *
+     * @return estimated number of features, or -1 if unknown.
+     */
+    long estimateSize();
+
+}
@@ -0,0 +1,420 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+
+package org.geotoolkit.data.memory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateFilter;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.FeatureBuilder;
+import org.geotoolkit.feature.simple.SimpleFeature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Compact binary encoding of simple features, used to spill features on disk.<br/>
+ * Strings, numbers, booleans, dates, identifiers, arrays, lists, maps and geometries are written
+ * in binary form, geometries as WKB. Other values are written with Java serialization, a value
+ * which can not be serialized makes {@link #write(Feature, DataOutput)} fail with a
+ * {@link NotSerializableException}.<br/>
+ * Geometry factories, coordinate reference systems and array component classes are shared by
+ * many features : they are kept in an in-memory dictionary and only their index is written.
+ * Encoded features can therefore only be decoded by the same codec instance.
+ *
+ * This class is not thread safe.
+ *
+ * @module pending
+ */
+final class BinaryFeatureCodec {
+
+    private static final byte NULL      = 0;
+    private static final byte STRING    = 1;
+    private static final byte INTEGER   = 2;
+    private static final byte LONG      = 3;
+    private static final byte DOUBLE    = 4;
+    private static final byte FLOAT     = 5;
+    private static final byte SHORT     = 6;
+    private static final byte BYTE      = 7;
+    private static final byte BOOLEAN   = 8;
+    private static final byte DATE      = 9;
+    private static final byte SQL_DATE  = 10;
+    private static final byte SQL_TIME  = 11;
+    private static final byte TIMESTAMP = 12;
+    private static final byte GEOMETRY  = 13;
+    private static final byte CRS       = 14;
+    private static final byte BIG_DECIMAL = 15;
+    private static final byte BIG_INTEGER = 16;
+    private static final byte UUID_VALUE  = 17;
+    private static final byte BYTES       = 18;
+    private static final byte ARRAY       = 19;
+    private static final byte LIST        = 20;
+    private static final byte MAP         = 21;
+    private static final byte SERIALIZED  = 22;
+
+    private final SimpleFeatureType type;
+    private final FeatureBuilder builder;
+
+    /**
+     * Coordinate reference systems, usually stored in geometry user data, with their index.
+     */
+    private final List<Object> crs = new ArrayList<>();
+    private final Map<Object,Integer> crsIndex = new IdentityHashMap<>();
+
+    /**
+     * Component classes of arrays, with their index.
+     */
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final Map<Class<?>,Integer> classIndex = new HashMap<>();
+
+    /**
+     * Geometry factories are kept to rebuild geometries with the same precision model
+     * and coordinate sequence factory. One reader per factory.
+     */
+    private final List<WKBReader> readers = new ArrayList<>();
+    private final Map<GeometryFactory,Integer> factoryIndex = new IdentityHashMap<>();
+    private final WKBWriter writer2D = new WKBWriter(2);
+    private final WKBWriter writer3D = new WKBWriter(3);
+    private final HasZ hasZ = new HasZ();
+
+    BinaryFeatureCodec(final SimpleFeatureType type) {
+        this.type = type;
+        this.builder = new FeatureBuilder(type);
+    }
+
+    /**
+     * @return true if given feature can be written by this codec.
+     */
+    boolean canEncode(final Feature feature) {
+        return feature instanceof SimpleFeature && feature.getType() == type;
+    }
+
+    /**
+     * @throws NotSerializableException if a value can not be encoded.
+     */
+    void write(final Feature feature, final DataOutput out) throws IOException {
+        final String id = feature.getIdentifier() == null ? null : feature.getIdentifier().getID();
+        writeValue(id, out);
+        final Map<Object,Object> userData = feature.getUserData();
+        if (userData == null || userData.isEmpty()) {
+            out.writeByte(NULL);
+        } else {
+            writeMap(userData, out);
+        }
+        final List<Object> values = ((SimpleFeature) feature).getAttributes();
+        out.writeShort(values.size());
+        for (Object value : values) {
+            writeValue(value, out);
+        }
+    }
+
+    Feature read(final DataInput in) throws IOException {
+        final String id = (String) readValue(in);
+        final Object userData = readValue(in);
+        final Object[] values = new Object[in.readUnsignedShort()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readValue(in);
+        }
+        final Feature feature = builder.buildFeature(id, values);
+        if (userData != null) {
+            feature.getUserData().putAll((Map) userData);
+        }
+        return feature;
+    }
+
+    private void writeValue(final Object value, final DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Geometry) {
+            writeGeometry((Geometry) value, out);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value.getClass() == java.sql.Date.class) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value.getClass() == java.sql.Time.class) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(((Date) value).getTime());
+        } else if (value.getClass() == java.sql.Timestamp.class) {
+            final java.sql.Timestamp ts = (java.sql.Timestamp) value;
+            out.writeByte(TIMESTAMP);
+            out.writeLong(ts.getTime());
+            out.writeInt(ts.getNanos());
+        } else if (value instanceof BigDecimal) {
+            final BigDecimal big = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(big.scale());
+            writeBytes(big.unscaledValue().toByteArray(), out);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray(), out);
+        } else if (value instanceof UUID) {
+            out.writeByte(UUID_VALUE);
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes((byte[]) value, out);
+        } else if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            out.writeByte(ARRAY);
+            out.writeShort(index(value.getClass().getComponentType()));
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i), out);
+            }
+        } else if (value instanceof CoordinateReferenceSystem) {
+            out.writeByte(CRS);
+            out.writeShort(crs(value));
+        } else if (value.getClass() == ArrayList.class) {
+            final List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(element, out);
+            }
+        } else if (value.getClass() == HashMap.class) {
+            writeMap((Map<?,?>) value, out);
+        } else if (value instanceof Serializable) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            writeBytes(bytes.toByteArray(), out);
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    /**
+     * Write map entries, the map is read back as a {@link HashMap}.
+     */
+    private void writeMap(final Map<?,?> map, final DataOutput out) throws IOException {
+        out.writeByte(MAP);
+        out.writeInt(map.size());
+        for (Map.Entry<?,?> entry : map.entrySet()) {
+            writeValue(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    private static void writeBytes(final byte[] bytes, final DataOutput out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private Object readValue(final DataInput in) throws IOException {
+        final byte tag = in.readByte();
+        switch (tag) {
+            case NULL    : return null;
+            case STRING  : {
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case INTEGER  : return in.readInt();
+            case LONG     : return in.readLong();
+            case DOUBLE   : return in.readDouble();
+            case FLOAT    : return in.readFloat();
+            case SHORT    : return in.readShort();
+            case BYTE     : return in.readByte();
+            case BOOLEAN  : return in.readBoolean();
+            case DATE     : return new Date(in.readLong());
+            case SQL_DATE : return new java.sql.Date(in.readLong());
+            case SQL_TIME : return new java.sql.Time(in.readLong());
+            case TIMESTAMP: {
+                final java.sql.Timestamp ts = new java.sql.Timestamp(in.readLong());
+                ts.setNanos(in.readInt());
+                return ts;
+            }
+            case GEOMETRY : return readGeometry(in);
+            case CRS      : return crs.get(in.readUnsignedShort());
+            case BIG_DECIMAL : {
+                final int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case BIG_INTEGER : return new BigInteger(readBytes(in));
+            case UUID_VALUE  : return new UUID(in.readLong(), in.readLong());
+            case BYTES       : return readBytes(in);
+            case ARRAY : {
+                final Class<?> component = classes.get(in.readUnsignedShort());
+                final Object array = Array.newInstance(component, in.readInt());
+                for (int i = 0, n = Array.getLength(array); i < n; i++) {
+                    Array.set(array, i, readValue(in));
+                }
+                return array;
+            }
+            case LIST : {
+                final int size = in.readInt();
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP : {
+                final int size = in.readInt();
+                final Map<Object,Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case SERIALIZED : {
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+                    return ois.readObject();
+                } catch (ClassNotFoundException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+            }
+            default : throw new IOException("Unexpected value tag : " + tag);
+        }
+    }
+
+    private void writeGeometry(final Geometry geometry, final DataOutput out) throws IOException {
+        final GeometryFactory factory = geometry.getFactory();
+        Integer index = factoryIndex.get(factory);
+        if (index == null) {
+            index = readers.size();
+            readers.add(new WKBReader(factory));
+            factoryIndex.put(factory, index);
+        }
+        hasZ.found = false;
+        geometry.apply(hasZ);
+        final byte[] wkb = (hasZ.found ? writer3D : writer2D).write(geometry);
+        out.writeByte(GEOMETRY);
+        out.writeShort(index);
+        out.writeInt(geometry.getSRID());
+        writeValue(geometry.getUserData(), out);
+        out.writeInt(wkb.length);
+        out.write(wkb);
+    }
+
+    private Geometry readGeometry(final DataInput in) throws IOException {
+        final WKBReader reader = readers.get(in.readUnsignedShort());
+        final int srid = in.readInt();
+        final Object userData = readValue(in);
+        final byte[] wkb = new byte[in.readInt()];
+        in.readFully(wkb);
+        final Geometry geometry;
+        try {
+            geometry = reader.read(wkb);
+        } catch (ParseException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        geometry.setSRID(srid);
+        geometry.setUserData(userData);
+        return geometry;
+    }
+
+    /**
+     * @return index of the coordinate reference system in dictionary, adding it if needed.
+     */
+    private int crs(final Object value) {
+        Integer index = crsIndex.get(value);
+        if (index == null) {
+            index = crs.size();
+            crs.add(value);
+            crsIndex.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return index of the class in dictionary, adding it if needed.
+     */
+    private int index(final Class<?> clazz) {
+        Integer index = classIndex.get(clazz);
+        if (index == null) {
+            index = classes.size();
+            classes.add(clazz);
+            classIndex.put(clazz, index);
+        }
+        return index;
+    }
+
+    /**
+     * Check if a geometry has Z values, to avoid writing empty ordinates in WKB.
+     */
+    private static final class HasZ implements CoordinateFilter {
+        private boolean found;
+
+        @Override
+        public void filter(final Coordinate coord) {
+            if (!Double.isNaN(coord.z)) found = true;
+        }
+    }
+
+}
@@ -24,10 +24,12 @@ import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.SplittableFeatureReader;
 import org.geotoolkit.factory.Hints;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.feature.Feature;
 import org.geotoolkit.feature.type.FeatureType;
+import org.geotoolkit.filter.FilterUtilities;
 import org.opengis.filter.Filter;
 
 /**
@@ -182,6 +184,19 @@ public class GenericFilterFeatureIterator<R extends FeatureIterator> implements
 
     }
 
+    /**
+     * Prepare the filter for features of the given type.
+     * Property names are bound to attribute indexes and literals converted
+     * to the attribute types, see {@link FilterUtilities#prepare(Filter, Class, org.geotoolkit.feature.type.ComplexType)}.
+     *
+     * @param type expected feature type, can be null
+     */
+    private static Filter prepare(final Filter filter, final FeatureType type){
+        if(filter == Filter.INCLUDE || filter == Filter.EXCLUDE) return filter;
+        final Filter prepared = FilterUtilities.prepare(filter, Feature.class, type);
+        return (prepared != null) ? prepared : filter;
+    }
+
     /**
      * Wrap a FeatureIterator with a filter.
      */
@@ -191,22 +206,30 @@ public class GenericFilterFeatureIterator<R extends FeatureIterator> implements
         }else if(reader instanceof FeatureWriter){
             return wrap((FeatureWriter)reader,filter);
         }else{
-            return new GenericFilterFeatureIterator(reader, filter);
+            return new GenericFilterFeatureIterator(reader, prepare(filter, null));
         }
     }
 
     /**
      * Wrap a FeatureReader with a filter.
+     * If the reader is a {@link SplittableFeatureReader}, the filtered reader is splittable too.
      */
     public static FeatureReader wrap(final FeatureReader reader, final Filter filter){
-        return new GenericFilterFeatureReader(reader, filter);
+        final Filter prepared = prepare(filter, reader.getFeatureType());
+        return SplittableWrapFeatureReader.wrap(reader, new GenericFilterFeatureReader(reader, prepared),
+                new SplittableWrapFeatureReader.Wrapper() {
+            @Override
+            public FeatureReader wrap(FeatureReader split) {
+                return new GenericFilterFeatureReader(split, prepared);
+            }
+        });
     }
 
     /**
      * Wrap a FeatureWriter with a filter.
      */
     public static FeatureWriter wrap(final FeatureWriter writer, final Filter filter){
-        return new GenericFilterFeatureWriter(writer, filter);
+        return new GenericFilterFeatureWriter(writer, prepare(filter, writer.getFeatureType()));
     }
 
     /**
@@ -63,13 +63,6 @@ public class GenericQueryFeatureIterator {
         //          otherwise the result will be illogic.
 
 
-        //wrap sort by ---------------------------------------------------------
-        //This can be really expensive, and force the us to read the full iterator.
-        //that may cause out of memory errors.
-        if(sorts != null && sorts.length != 0){
-            reader = GenericSortByFeatureIterator.wrap(reader, sorts);
-        }
-
         //wrap filter ----------------------------------------------------------
         //we must keep the filter first since it impacts the start index and max feature
         if(filter != null && filter != Filter.INCLUDE){
@@ -83,6 +76,13 @@ public class GenericQueryFeatureIterator {
             }
         }
 
+        //wrap sort by ---------------------------------------------------------
+        //This can be really expensive, and force the us to read the full iterator.
+        //placed after the filter, when max feature is defined only the first features are kept.
+        if(sorts != null && sorts.length != 0){
+            reader = GenericSortByFeatureIterator.wrap(reader, sorts, getSortLimit(start, max), hints);
+        }
+
         //wrap start index -----------------------------------------------------
         if(start != null && start > 0){
             reader = GenericStartIndexFeatureIterator.wrap(reader, start);
@@ -152,6 +152,19 @@ public class GenericQueryFeatureIterator {
         return reader;
     }
     
+    /**
+     * Number of features to sort when only a part of the result is needed.
+     *
+     * @param start query start index, can be null
+     * @param max query max features, can be null
+     * @return start + max, or null if all features are needed
+     */
+    public static Integer getSortLimit(final Integer start, final Integer max){
+        if(max == null) return null;
+        final long limit = (long) max + (start == null ? 0 : Math.max(0, start));
+        return (limit > Integer.MAX_VALUE) ? null : (int) limit;
+    }
+
     public static FeatureCollection wrap(final FeatureCollection col, final Query query){
         return new AbstractFeatureCollection("wrap", col.getSource()) {
             
@@ -28,6 +28,7 @@ import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.SplittableFeatureReader;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.AbstractFeature;
@@ -440,6 +441,7 @@ public abstract class GenericReprojectFeatureIterator<R extends FeatureReader>
 
     /**
      * Wrap a FeatureReader with a reprojection.
+     * If the reader is a {@link SplittableFeatureReader}, the reprojected reader is splittable too.
      */
     public static FeatureReader wrap(final FeatureReader reader, final CoordinateReferenceSystem crs, final Hints hints) throws FactoryException, MismatchedFeatureException {
         final GeometryDescriptor desc = reader.getFeatureType().getGeometryDescriptor();
@@ -453,24 +455,43 @@ public abstract class GenericReprojectFeatureIterator<R extends FeatureReader>
             }
 
             final Boolean detached = (hints == null) ? null : (Boolean) hints.get(HintsPending.FEATURE_DETACHED);
-            if(detached == null || detached){
-                //default behavior, make separate features
-                return new GenericReprojectFeatureReader(reader, crs);
-            }else{
-                //reuse same feature
-                final FeatureType ft = reader.getFeatureType();
-                if(ft instanceof SimpleFeatureType){
-                    return new GenericSimpleReuseReprojectFeatureReader(reader, crs);
-                }else{
-                    return new GenericReuseReprojectFeatureReader(reader, crs);
+            final boolean separate = detached == null || detached;
+            return SplittableWrapFeatureReader.wrap(reader, create(reader, crs, separate),
+                    new SplittableWrapFeatureReader.Wrapper() {
+                @Override
+                public FeatureReader wrap(FeatureReader split) {
+                    try {
+                        return create(split, crs, separate);
+                    } catch (FactoryException | MismatchedFeatureException ex) {
+                        throw new FeatureStoreRuntimeException(ex);
+                    }
                 }
-            }
+            });
 
         } else {
             return reader;
         }
     }
 
+    /**
+     * Create the reprojection reader, each one has its own transformer.
+     */
+    private static FeatureReader create(final FeatureReader reader, final CoordinateReferenceSystem crs, final boolean separate)
+            throws FactoryException, MismatchedFeatureException {
+        if(separate){
+            //default behavior, make separate features
+            return new GenericReprojectFeatureReader(reader, crs);
+        }else{
+            //reuse same feature
+            final FeatureType ft = reader.getFeatureType();
+            if(ft instanceof SimpleFeatureType){
+                return new GenericSimpleReuseReprojectFeatureReader(reader, crs);
+            }else{
+                return new GenericReuseReprojectFeatureReader(reader, crs);
+            }
+        }
+    }
+
     /**
      * Create a reproject FeatureCollection wrapping the given collection.
      */
@@ -264,7 +264,13 @@ public abstract class GenericRetypeFeatureIterator<R extends FeatureIterator> im
             //same type mapping, no need to wrap it
             return reader;
         } else {
-            return new GenericSeparateRetypeFeatureReader(reader,mask);
+            return SplittableWrapFeatureReader.wrap(reader, new GenericSeparateRetypeFeatureReader(reader,mask),
+                    new SplittableWrapFeatureReader.Wrapper() {
+                @Override
+                public FeatureReader wrap(FeatureReader split) {
+                    return new GenericSeparateRetypeFeatureReader(split,mask);
+                }
+            });
         }
     }
 
@@ -17,62 +17,184 @@
 
 package org.geotoolkit.data.memory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.query.SortByComparator;
 import org.geotoolkit.factory.Hints;
+import org.geotoolkit.factory.HintsPending;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.simple.SimpleFeatureType;
 import org.geotoolkit.feature.type.FeatureType;
 import org.opengis.filter.sort.SortBy;
 
 /**
  * Basic support for a  FeatureIterator that will sort features using the given sort by
- * orders. This may be very consuming in memory since this implementation must iterate
- * over all features and store them in memory in the right order.
+ * orders. This implementation must iterate over all features before returning the first one.
  *
- * Don't use this class in you now that your iterator holds a great amount of features,
- * otherwise it may cause an Out Of Memory Exception.
+ * At most {@code bufferSize} features are kept in memory. When there are more features,
+ * sorted runs of {@code bufferSize} features are written in temporary files, then merged
+ * while iterating. Only simple features can be written on disk, other features, and
+ * features with values which can not be serialized, are all kept in memory.<br/>
+ * When the maximum number of features to return is known, only this number of features
+ * is kept, without writing anything on disk if it is lower than {@code bufferSize}.
  *
  * @author Johann Sorel (Geomatys)
  * @module pending
  */
 public class GenericSortByFeatureIterator<R extends FeatureIterator> implements FeatureIterator {
 
+    /**
+     * Default maximum number of features kept in memory by a sort.
+     *
+     * @see HintsPending#FEATURE_SORT_BUFFER_SIZE
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 100000;
+
     protected final R iterator;
     private final Comparator<Feature> comparator;
+    private final int maxFeatures;
+    private final int bufferSize;
     protected List<Feature> ordered = null;
     protected int index = 0;
 
+    /**
+     * Sorted runs merge, used instead of ordered list when features did not fit in memory.
+     */
+    private RunMerger merger = null;
+
     /**
      * Creates a new instance of GenericSortByFeatureIterator
      *
      * @param iterator FeatureReader to sort
      * @param orders sorting orders
+     * @param maxFeatures maximum number of features which will be read, -1 for all
+     * @param bufferSize maximum number of features kept in memory
      */
-    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders) {
+    private GenericSortByFeatureIterator(final R iterator, final SortBy[] orders,
+            final int maxFeatures, final int bufferSize) {
         this.iterator = iterator;
         this.comparator = new SortByComparator(orders);
+        this.maxFeatures = maxFeatures;
+        this.bufferSize = Math.max(1, bufferSize);
     }
 
     private synchronized void sort() throws FeatureStoreRuntimeException{
-        if(ordered != null) return;
+        if(ordered != null || merger != null) return;
+
+        if(maxFeatures >= 0 && maxFeatures <= bufferSize){
+            ordered = selectFirst();
+            return;
+        }
+
+        List<Feature> buffer = new ArrayList<>();
+        while(iterator.hasNext() && buffer.size() < bufferSize){
+            buffer.add(FeatureUtilities.copy(iterator.next()));
+        }
+
+        if(!iterator.hasNext()){
+            //everything fits in memory
+            Collections.sort(buffer,comparator);
+            ordered = buffer;
+            return;
+        }
+
+        final Feature first = buffer.get(0);
+        if(!(first.getType() instanceof SimpleFeatureType)){
+            //can not be written on disk, keep everything in memory
+            while(iterator.hasNext()){
+                buffer.add(FeatureUtilities.copy(iterator.next()));
+            }
+            Collections.sort(buffer,comparator);
+            ordered = buffer;
+            return;
+        }
 
-        ordered = new ArrayList<>();
+        final BinaryFeatureCodec codec = new BinaryFeatureCodec((SimpleFeatureType) first.getType());
+        merger = new RunMerger(comparator);
+        try{
+            boolean spill = true;
+            for(;;){
+                if(spill && buffer.size() >= bufferSize){
+                    for(Feature f : buffer){
+                        if(!codec.canEncode(f)){
+                            //unexpected feature, remaining features are kept in memory
+                            spill = false;
+                            break;
+                        }
+                    }
+                    if(spill){
+                        Collections.sort(buffer,comparator);
+                        try{
+                            merger.add(new FileRun(codec, buffer));
+                            buffer.clear();
+                        }catch(NotSerializableException ex){
+                            //a value can not be written, remaining features are kept in memory
+                            spill = false;
+                        }
+                    }
+                }
+                if(!iterator.hasNext()) break;
+                buffer.add(FeatureUtilities.copy(iterator.next()));
+            }
+            if(!buffer.isEmpty()){
+                Collections.sort(buffer,comparator);
+                merger.add(new MemoryRun(buffer));
+            }
+        }catch(IOException ex){
+            merger.close();
+            throw new FeatureStoreRuntimeException(ex);
+        }
+    }
+
+    /**
+     * Keep only the first features in sort order, in a bounded heap.
+     * Equal features are kept in iteration order.
+     */
+    private List<Feature> selectFirst() throws FeatureStoreRuntimeException{
+        final List<Feature> result = new ArrayList<>();
+        if(maxFeatures == 0) return result;
 
+        //heap head is the last feature to be returned
+        final PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(maxFeatures, 1024), Collections.reverseOrder(new RankedComparator(comparator)));
+        long rank = 0;
         while(iterator.hasNext()){
-            ordered.add(FeatureUtilities.copy( iterator.next()));
+            final Feature candidate = iterator.next();
+            if(heap.size() < maxFeatures){
+                heap.add(new Ranked(FeatureUtilities.copy(candidate), rank));
+            }else if(comparator.compare(candidate, heap.peek().feature) < 0){
+                //copy only features which are kept
+                heap.poll();
+                heap.add(new Ranked(FeatureUtilities.copy(candidate), rank));
+            }
+            rank++;
         }
 
-        Collections.sort(ordered,comparator);
+        final Ranked[] sorted = heap.toArray(new Ranked[heap.size()]);
+        Arrays.sort(sorted, new RankedComparator(comparator));
+        for(Ranked r : sorted){
+            result.add(r.feature);
+        }
+        return result;
     }
 
     /**
@@ -81,6 +203,9 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
     @Override
     public Feature next() throws FeatureStoreRuntimeException {
         sort();
+        if(merger != null){
+            return merger.next();
+        }
         try{
             Feature c = ordered.get(index);
             index++;
@@ -95,7 +220,13 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      */
     @Override
     public void close() throws FeatureStoreRuntimeException {
-        iterator.close();
+        try{
+            iterator.close();
+        }finally{
+            synchronized(this){
+                if(merger != null) merger.close();
+            }
+        }
     }
 
     /**
@@ -104,6 +235,9 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
     @Override
     public boolean hasNext() throws FeatureStoreRuntimeException {
         sort();
+        if(merger != null){
+            return merger.hasNext();
+        }
         return index < ordered.size();
     }
 
@@ -125,6 +259,183 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
         return sb.toString();
     }
 
+    /**
+     * A feature with its position in the original iteration.
+     */
+    private static final class Ranked {
+        private final Feature feature;
+        private final long rank;
+
+        private Ranked(final Feature feature, final long rank) {
+            this.feature = feature;
+            this.rank = rank;
+        }
+    }
+
+    private static final class RankedComparator implements Comparator<Ranked> {
+        private final Comparator<Feature> comparator;
+
+        private RankedComparator(final Comparator<Feature> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(final Ranked r1, final Ranked r2) {
+            final int c = comparator.compare(r1.feature, r2.feature);
+            return (c != 0) ? c : Long.compare(r1.rank, r2.rank);
+        }
+    }
+
+    /**
+     * A sorted sequence of features.
+     */
+    private static abstract class Run {
+        /** run position, used to keep equal features in iteration order */
+        int rank;
+        /** current feature, null when run is exhausted */
+        Feature current;
+
+        /**
+         * Move to next feature.
+         */
+        abstract void advance() throws IOException;
+
+        void close() throws IOException {}
+    }
+
+    private static final class MemoryRun extends Run {
+        private final Iterator<Feature> ite;
+
+        private MemoryRun(final List<Feature> features) {
+            ite = features.iterator();
+        }
+
+        @Override
+        void advance() {
+            current = ite.hasNext() ? ite.next() : null;
+        }
+    }
+
+    /**
+     * Sorted features written in a temporary file.
+     */
+    private static final class FileRun extends Run {
+        private final BinaryFeatureCodec codec;
+        private final Path file;
+        private int remaining;
+        private DataInputStream in;
+
+        private FileRun(final BinaryFeatureCodec codec, final List<Feature> features) throws IOException {
+            this.codec = codec;
+            this.remaining = features.size();
+            file = Files.createTempFile("geotk-sort", ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (Feature f : features) {
+                    codec.write(f, out);
+                }
+            } catch (IOException ex) {
+                Files.deleteIfExists(file);
+                throw ex;
+            }
+        }
+
+        @Override
+        void advance() throws IOException {
+            if (in == null) {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            }
+            if (remaining > 0) {
+                remaining--;
+                current = codec.read(in);
+            } else {
+                current = null;
+                close();
+            }
+        }
+
+        @Override
+        void close() throws IOException {
+            try {
+                if (in != null) in.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs.
+     */
+    private static final class RunMerger {
+        private final List<Run> runs = new ArrayList<>();
+        private final PriorityQueue<Run> queue;
+        private boolean started = false;
+
+        private RunMerger(final Comparator<Feature> comparator) {
+            queue = new PriorityQueue<>(11, new Comparator<Run>() {
+                @Override
+                public int compare(final Run r1, final Run r2) {
+                    final int c = comparator.compare(r1.current, r2.current);
+                    return (c != 0) ? c : Integer.compare(r1.rank, r2.rank);
+                }
+            });
+        }
+
+        private void add(final Run run) {
+            run.rank = runs.size();
+            runs.add(run);
+        }
+
+        private void start() throws FeatureStoreRuntimeException {
+            if (started) return;
+            started = true;
+            for (Run run : runs) {
+                advance(run);
+            }
+        }
+
+        private void advance(final Run run) throws FeatureStoreRuntimeException {
+            try {
+                run.advance();
+            } catch (IOException ex) {
+                throw new FeatureStoreRuntimeException(ex);
+            }
+            if (run.current != null) queue.add(run);
+        }
+
+        private boolean hasNext() throws FeatureStoreRuntimeException {
+            start();
+            return !queue.isEmpty();
+        }
+
+        private Feature next() throws FeatureStoreRuntimeException {
+            start();
+            final Run run = queue.poll();
+            if (run == null) throw new NoSuchElementException("No more elements.");
+            final Feature feature = run.current;
+            advance(run);
+            return feature;
+        }
+
+        /**
+         * Delete all temporary files.
+         */
+        private void close() throws FeatureStoreRuntimeException {
+            queue.clear();
+            IOException error = null;
+            for (Run run : runs) {
+                try {
+                    run.close();
+                } catch (IOException ex) {
+                    if (error == null) error = ex;
+                    else error.addSuppressed(ex);
+                }
+            }
+            runs.clear();
+            if (error != null) throw new FeatureStoreRuntimeException(error);
+        }
+    }
+
     /**
      * Wrap a FeatureReader that will sort features using the given sort by.
      *
@@ -134,8 +445,9 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      */
     private static final class GenericSortByFeatureReader extends GenericSortByFeatureIterator<FeatureReader> implements FeatureReader{
 
-        private GenericSortByFeatureReader(final FeatureReader reader,final SortBy[] orders){
-            super(reader,orders);
+        private GenericSortByFeatureReader(final FeatureReader reader,final SortBy[] orders,
+                final int maxFeatures, final int bufferSize){
+            super(reader,orders,maxFeatures,bufferSize);
         }
 
         @Override
@@ -148,15 +460,26 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
     private static final class GenericSortByFeatureCollection extends WrapFeatureCollection{
 
         private final SortBy[] order;
+        private final Integer maxFeatures;
+        private final Hints sortHints;
 
-        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order){
+        private GenericSortByFeatureCollection(final FeatureCollection original, final SortBy[] order,
+                final Integer maxFeatures, final Hints sortHints){
             super(original);
             this.order = order;
+            this.maxFeatures = maxFeatures;
+            this.sortHints = sortHints;
         }
 
         @Override
         public FeatureIterator iterator(final Hints hints) throws FeatureStoreRuntimeException {
-            return wrap(getOriginalFeatureCollection().iterator(hints), order);
+            //iterator hints override the hints given when the collection was created
+            Hints merged = hints;
+            if(sortHints != null){
+                merged = new Hints(sortHints);
+                if(hints != null) merged.putAll(hints);
+            }
+            return wrap(getOriginalFeatureCollection().iterator(hints), order, maxFeatures, merged);
         }
 
         @Override
@@ -166,21 +489,58 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
 
     }
 
+    /**
+     * @return buffer size defined in hints, or default one.
+     */
+    private static int getBufferSize(final Hints hints){
+        if(hints != null){
+            final Object size = hints.get(HintsPending.FEATURE_SORT_BUFFER_SIZE);
+            if(size instanceof Integer) return (Integer) size;
+        }
+        return DEFAULT_BUFFER_SIZE;
+    }
+
     /**
      * Wrap a FeatureReader will a sort by order.
      */
     public static FeatureReader wrap(final FeatureReader reader, final SortBy[] orders){
-        return new GenericSortByFeatureReader(reader, orders);
+        return wrap(reader, orders, null, null);
+    }
+
+    /**
+     * Wrap a FeatureReader will a sort by order.
+     *
+     * @param reader reader to sort
+     * @param orders sorting orders
+     * @param maxFeatures maximum number of features which will be read from returned reader,
+     *        can be null. When set, the reader may end after this number of features.
+     * @param hints can be null, used to get {@link HintsPending#FEATURE_SORT_BUFFER_SIZE}
+     */
+    public static FeatureReader wrap(final FeatureReader reader, final SortBy[] orders,
+            final Integer maxFeatures, final Hints hints){
+        return new GenericSortByFeatureReader(reader, orders,
+                maxFeatures == null ? -1 : maxFeatures, getBufferSize(hints));
     }
 
     /**
      * Wrap a FeatureIterator will a sort by order.
      */
     public static FeatureIterator wrap(final FeatureIterator reader, final SortBy[] orders){
+        return wrap(reader, orders, null, null);
+    }
+
+    /**
+     * Wrap a FeatureIterator will a sort by order.
+     *
+     * @see #wrap(org.geotoolkit.data.FeatureReader, org.opengis.filter.sort.SortBy[], java.lang.Integer, org.geotoolkit.factory.Hints)
+     */
+    public static FeatureIterator wrap(final FeatureIterator reader, final SortBy[] orders,
+            final Integer maxFeatures, final Hints hints){
         if(reader instanceof FeatureReader){
-            return wrap((FeatureReader)reader,orders);
+            return wrap((FeatureReader)reader,orders,maxFeatures,hints);
         }else{
-            return new GenericSortByFeatureIterator(reader, orders);
+            return new GenericSortByFeatureIterator(reader, orders,
+                    maxFeatures == null ? -1 : maxFeatures, getBufferSize(hints));
         }
     }
 
@@ -188,7 +548,30 @@ public class GenericSortByFeatureIterator<R extends FeatureIterator> implements
      * Wrap a FeatureCollection will a sort by order.
      */
     public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders){
-        return new GenericSortByFeatureCollection(original,orders);
+        return wrap(original, orders, null, null);
+    }
+
+    /**
+     * Wrap a FeatureCollection will a sort by order.
+     *
+     * @param maxFeatures maximum number of features which will be read from collection iterators,
+     *        can be null.
+     */
+    public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders, final Integer maxFeatures){
+        return wrap(original, orders, maxFeatures, null);
+    }
+
+    /**
+     * Wrap a FeatureCollection will a sort by order.
+     *
+     * @param maxFeatures maximum number of features which will be read from collection iterators,
+     *        can be null.
+     * @param hints can be null, used to get {@link HintsPending#FEATURE_SORT_BUFFER_SIZE}
+     *        when not given to the collection iterator.
+     */
+    public static FeatureCollection wrap(final FeatureCollection original, final SortBy[] orders,
+            final Integer maxFeatures, final Hints hints){
+        return new GenericSortByFeatureCollection(original,orders,maxFeatures,hints);
     }
 
 }
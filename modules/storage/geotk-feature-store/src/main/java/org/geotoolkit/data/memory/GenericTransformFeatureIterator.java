@@ -25,6 +25,7 @@ import java.util.List;
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureIterator;
 import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.SplittableFeatureReader;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.factory.Hints;
 import org.geotoolkit.factory.HintsPending;
@@ -32,6 +33,7 @@ import org.geotoolkit.feature.AbstractFeature;
 import org.geotoolkit.feature.DefaultFeature;
 import org.geotoolkit.feature.FeatureUtilities;
 import org.geotoolkit.feature.simple.DefaultSimpleFeature;
+import org.geotoolkit.geometry.jts.transform.GeometryScaleTransformer;
 import org.geotoolkit.geometry.jts.transform.GeometryTransformer;
 import org.apache.sis.util.Classes;
 import org.geotoolkit.feature.Feature;
@@ -243,25 +245,44 @@ public abstract class GenericTransformFeatureIterator<R extends FeatureIterator>
 
     /**
      * Wrap a FeatureReader with a reprojection.
+     * If the reader is a {@link SplittableFeatureReader} and the transformer a
+     * {@link GeometryScaleTransformer}, the transformed reader is splittable too and
+     * the transformer is shared by the readers. Other transformers may keep state
+     * between geometries, like clipping buffers, the transformed reader is then
+     * not splittable.
      */
     public static FeatureReader wrap(final FeatureReader reader, final GeometryTransformer transformer, final Hints hints) {
         final GeometryDescriptor desc = reader.getFeatureType().getGeometryDescriptor();
         if (desc != null) {
 
             final Boolean detached = (hints == null) ? null : (Boolean) hints.get(HintsPending.FEATURE_DETACHED);
-            if(detached == null || detached){
-                //default behavior, make separate features
-                return new GenericTransformFeatureReader(reader,transformer);
-            }else{
-                //re-use same feature
-                return new GenericReuseTransformFeatureReader(reader, transformer);
+            final boolean separate = detached == null || detached;
+            if (!(transformer instanceof GeometryScaleTransformer)) {
+                return create(reader, transformer, separate);
             }
+            return SplittableWrapFeatureReader.wrap(reader, create(reader, transformer, separate),
+                    new SplittableWrapFeatureReader.Wrapper() {
+                @Override
+                public FeatureReader wrap(FeatureReader split) {
+                    return create(split, transformer, separate);
+                }
+            });
 
         } else {
             return reader;
         }
     }
 
+    private static FeatureReader create(final FeatureReader reader, final GeometryTransformer transformer, final boolean separate) {
+        if(separate){
+            //default behavior, make separate features
+            return new GenericTransformFeatureReader(reader,transformer);
+        }else{
+            //re-use same feature
+            return new GenericReuseTransformFeatureReader(reader, transformer);
+        }
+    }
+
     /**
      * Create a reproject FeatureCollection wrapping the given collection.
      */
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -34,6 +35,7 @@ import org.geotoolkit.data.FeatureStoreFactory;
 import org.geotoolkit.data.FeatureStoreRuntimeException;
 import org.geotoolkit.data.FeatureReader;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.SplittableFeatureReader;
 import org.geotoolkit.data.query.DefaultQueryCapabilities;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
@@ -429,25 +431,125 @@ public class MemoryFeatureStore extends AbstractFeatureStore{
         final Filter filter = query.getFilter();
         final QueryBuilder remaining = new QueryBuilder(query);
 
-        final Iterator<? extends Feature> ite;
+        Iterator<? extends Feature> ite = null;
         if(filter instanceof Id){
             ite = grp.createIterator((Id)filter);
             if(ite != null){
                 remaining.setFilter(Filter.INCLUDE);
             }
-        }else{
-            ite = grp.createIterator(null);
         }
 
         final FeatureReader reader;
-        
-        reader = GenericWrapFeatureIterator.wrapToReader(ite, grp.getFeatureType()); 
+        if(ite != null){
+            reader = GenericWrapFeatureIterator.wrapToReader(ite, grp.getFeatureType());
+        }else{
+            //full scan, can be split for parallel reading
+            reader = new GroupFeatureReader(grp.getFeatureType(), grp.features.values());
+        }
 
         //fall back on generic parameter handling.
         //todo we should handle at least spatial filter here by using a quadtree.
         return handleRemaining(reader, remaining.buildQuery());
     }
 
+    /**
+     * Reader on all features of a group, split by slices.
+     * Features are copied in an array only when the reader is split, until then
+     * the reader iterates directly on the group features and supports remove.
+     */
+    private static final class GroupFeatureReader implements SplittableFeatureReader{
+
+        private final FeatureType type;
+        private Collection<Feature> source;
+        private Iterator<Feature> iterator;
+        private Feature[] features;
+        private int index;
+        private int end;
+
+        private GroupFeatureReader(final FeatureType type, final Collection<Feature> source){
+            this.type = type;
+            this.source = source;
+        }
+
+        private GroupFeatureReader(final FeatureType type, final Feature[] features, final int start, final int end){
+            this.type = type;
+            this.features = features;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public SplittableFeatureReader trySplit() {
+            if(features == null){
+                if(iterator != null || source.size() < 2){
+                    //iteration already started or nothing to split,
+                    //keep iterating on the source so remove stays supported
+                    return null;
+                }
+                features = source.toArray(new Feature[0]);
+                end = features.length;
+                source = null;
+            }
+            final int half = (end - index) / 2;
+            if(half == 0){
+                return null;
+            }
+            final GroupFeatureReader split = new GroupFeatureReader(type, features, index, index + half);
+            index += half;
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (features == null) ? source.size() : end - index;
+        }
+
+        @Override
+        public FeatureType getFeatureType() {
+            return type;
+        }
+
+        @Override
+        public Feature next() throws FeatureStoreRuntimeException {
+            if(features != null){
+                if(index >= end){
+                    throw new NoSuchElementException("No more features.");
+                }
+                return features[index++];
+            }
+            if(iterator == null){
+                iterator = source.iterator();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasNext() throws FeatureStoreRuntimeException {
+            if(features != null){
+                return index < end;
+            }
+            if(iterator == null){
+                iterator = source.iterator();
+            }
+            return iterator.hasNext();
+        }
+
+        @Override
+        public void remove() {
+            if(features != null){
+                throw new UnsupportedOperationException("Remove is not supported once reader is split.");
+            }else if(iterator == null){
+                throw new IllegalStateException("Next has not been called.");
+            }
+            iterator.remove();
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
     /**
      * {@inheritDoc }
      */
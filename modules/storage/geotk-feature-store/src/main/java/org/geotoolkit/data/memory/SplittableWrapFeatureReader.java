@@ -0,0 +1,117 @@
+/*
+ *    Geotoolkit - An Open Source Java GIS Toolkit
+ *    http://www.geotoolkit.org
+ *
+ *    (C) 2016, Geomatys
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotoolkit.data.memory;
+
+import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreRuntimeException;
+import org.geotoolkit.data.SplittableFeatureReader;
+import org.geotoolkit.feature.Feature;
+import org.geotoolkit.feature.type.FeatureType;
+
+/**
+ * Keep a per-feature wrapper splittable : when split, the same wrapping is applied
+ * on the split of the source reader.
+ * Only wrappers which process each feature independently can be used this way,
+ * not sort, start index or max features wrappers.
+ *
+ * @module pending
+ */
+final class SplittableWrapFeatureReader implements SplittableFeatureReader {
+
+    /**
+     * Apply a wrapper on a reader.
+     */
+    interface Wrapper {
+        FeatureReader wrap(FeatureReader reader) throws FeatureStoreRuntimeException;
+    }
+
+    private final SplittableFeatureReader source;
+    private final FeatureReader reader;
+    private final Wrapper wrapper;
+
+    private SplittableWrapFeatureReader(final SplittableFeatureReader source, final FeatureReader reader,
+            final Wrapper wrapper) {
+        this.source = source;
+        this.reader = reader;
+        this.wrapper = wrapper;
+    }
+
+    /**
+     * Make wrapped reader splittable if source reader is.
+     *
+     * @param source reader before wrapping
+     * @param wrapped source reader wrapped
+     * @param wrapper used to wrap the splits of source reader
+     * @return splittable reader or given wrapped reader
+     */
+    static FeatureReader wrap(final FeatureReader source, final FeatureReader wrapped, final Wrapper wrapper) {
+        if (wrapped != source && source instanceof SplittableFeatureReader) {
+            return new SplittableWrapFeatureReader((SplittableFeatureReader) source, wrapped, wrapper);
+        }
+        return wrapped;
+    }
+
+    @Override
+    public SplittableFeatureReader trySplit() throws FeatureStoreRuntimeException {
+        final SplittableFeatureReader split = source.trySplit();
+        if (split == null) return null;
+        final FeatureReader wrapped;
+        try {
+            wrapped = wrapper.wrap(split);
+        } catch (FeatureStoreRuntimeException ex) {
+            split.close();
+            throw ex;
+        }
+        return new SplittableWrapFeatureReader(split, wrapped, wrapper);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public FeatureType getFeatureType() {
+        return reader.getFeatureType();
+    }
+
+    @Override
+    public Feature next() throws FeatureStoreRuntimeException {
+        return reader.next();
+    }
+
+    @Override
+    public boolean hasNext() throws FeatureStoreRuntimeException {
+        return reader.hasNext();
+    }
+
+    @Override
+    public void close() throws FeatureStoreRuntimeException {
+        reader.close();
+    }
+
+    @Override
+    public void remove() {
+        reader.remove();
+    }
+
+    @Override
+    public String toString() {
+        return reader.toString();
+    }
+
+}
@@ -65,6 +65,7 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.util.FactoryException;
 import org.opengis.util.GenericName;
 
+import java.math.BigDecimal;
 import java.util.*;
 
 import static junit.framework.Assert.*;
@@ -557,6 +558,109 @@ public class GenericIteratorTest extends org.geotoolkit.test.TestBase {
         assertTrue(checkIte.isClosed());
     }
 
+    /**
+     * Sort with a single feature in memory, others are written on disk and merged.
+     */
+    @Test
+    public void testSortByIteratorOnDisk(){
+        SortBy[] sorts = new SortBy[]{
+            FF.sort("att_string", SortOrder.ASCENDING)
+        };
+        final Hints hints = new Hints(HintsPending.FEATURE_SORT_BUFFER_SIZE, 1);
+
+        FeatureCollection collection = buildSimpleFeatureCollection();
+        FeatureIterator ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, null, hints);
+        Feature f = ite.next();
+        assertEquals(id3,f.getIdentifier().getID());
+        assertEquals("aaa",f.getPropertyValue("att_string"));
+        assertEquals(2d,(Double)f.getPropertyValue("att_double"),DELTA);
+        assertEquals(GF.createPoint(new Coordinate(2, 0)),f.getPropertyValue("att_geom"));
+        assertEquals(id1,ite.next().getIdentifier().getID());
+        assertEquals(id2,ite.next().getIdentifier().getID());
+        assertFalse(ite.hasNext());
+        ite.close();
+
+        //check has next do not iterate
+        ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, null, hints);
+        testIterationOnNext(ite, 3);
+    }
+
+    /**
+     * Sort on disk of values which have no dedicated encoding,
+     * values which can not be serialized are sorted in memory.
+     */
+    @Test
+    public void testSortByIteratorOnDiskTypedValues() throws DataStoreException{
+        SortBy[] sorts = new SortBy[]{
+            FF.sort("att_string", SortOrder.ASCENDING)
+        };
+        final Hints hints = new Hints(HintsPending.FEATURE_SORT_BUFFER_SIZE, 1);
+
+        final UUID uuid = UUID.randomUUID();
+        FeatureCollection collection = buildTypedFeatureCollection(uuid, null);
+
+        FeatureIterator ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, null, hints);
+        for(int i=1; i<=3; i++){
+            final Feature f = ite.next();
+            assertEquals("typed."+i, f.getIdentifier().getID());
+            assertEquals(new BigDecimal("12345678901234567890.0"+i), f.getPropertyValue("att_decimal"));
+            assertEquals(uuid, f.getPropertyValue("att_uuid"));
+            assertTrue(Arrays.equals(new byte[]{1,2,(byte)i}, (byte[])f.getPropertyValue("att_bytes")));
+            assertTrue(Arrays.equals(new int[]{i,i}, (int[])f.getPropertyValue("att_array")));
+            assertEquals(new Date(i), f.getPropertyValue("att_object"));
+        }
+        assertFalse(ite.hasNext());
+        ite.close();
+
+        //the same sort requested with query hints
+        final QueryBuilder qb = new QueryBuilder(collection.getFeatureType().getName());
+        qb.setSortBy(sorts);
+        qb.setHints(hints);
+        ite = collection.subCollection(qb.buildQuery()).iterator();
+        assertEquals("typed.1", ite.next().getIdentifier().getID());
+        ite.close();
+
+        //values which can not be serialized
+        final Object value = new Object();
+        collection = buildTypedFeatureCollection(uuid, value);
+        ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, null, hints);
+        for(int i=1; i<=3; i++){
+            final Feature f = ite.next();
+            assertEquals("typed."+i, f.getIdentifier().getID());
+            assertSame(value, f.getPropertyValue("att_object"));
+        }
+        assertFalse(ite.hasNext());
+        ite.close();
+    }
+
+    /**
+     * Sort when only the first features are needed.
+     */
+    @Test
+    public void testSortByIteratorMaxFeatures() throws DataStoreException{
+        SortBy[] sorts = new SortBy[]{
+            FF.sort("att_double", SortOrder.DESCENDING)
+        };
+
+        FeatureCollection collection = buildSimpleFeatureCollection();
+        FeatureIterator ite = GenericSortByFeatureIterator.wrap(collection.iterator(), sorts, 2, null);
+        assertEquals(id1,ite.next().getIdentifier().getID());
+        assertEquals(id3,ite.next().getIdentifier().getID());
+        assertFalse(ite.hasNext());
+        ite.close();
+
+        //in a query, start index and max features are applied after the sort
+        final QueryBuilder qb = new QueryBuilder(collection.getFeatureType().getName());
+        qb.setSortBy(sorts);
+        qb.setStartIndex(1);
+        qb.setMaxFeatures(1);
+        collection = collection.subCollection(qb.buildQuery());
+        ite = collection.iterator();
+        assertEquals(id3,ite.next().getIdentifier().getID());
+        assertFalse(ite.hasNext());
+        ite.close();
+    }
+
     @Test
     public void testSortByIteratorOnComplex(){
 
@@ -766,6 +870,33 @@ public class GenericIteratorTest extends org.geotoolkit.test.TestBase {
         return collection;
     }
 
+    /**
+     * @param value value of the object attribute, if null each feature has a different date.
+     */
+    private FeatureCollection buildTypedFeatureCollection(final UUID uuid, final Object value) {
+        builder.reset();
+        builder.setName(NAME);
+        builder.add("att_string", String.class);
+        builder.add("att_decimal", BigDecimal.class);
+        builder.add("att_uuid", UUID.class);
+        builder.add("att_bytes", byte[].class);
+        builder.add("att_array", int[].class);
+        builder.add("att_object", Object.class);
+        final FeatureType type = builder.buildSimpleFeatureType();
+        final FeatureCollection collection = FeatureStoreUtilities.collection("id", type);
+        for(int i=3; i>0; i--){
+            final Feature f = FeatureUtilities.defaultFeature(type, "typed."+i);
+            f.setPropertyValue("att_string", "v"+i);
+            f.setPropertyValue("att_decimal", new BigDecimal("12345678901234567890.0"+i));
+            f.setPropertyValue("att_uuid", uuid);
+            f.setPropertyValue("att_bytes", new byte[]{1,2,(byte)i});
+            f.setPropertyValue("att_array", new int[]{i,i});
+            f.setPropertyValue("att_object", (value != null) ? value : new Date(i));
+            collection.add(f);
+        }
+        return collection;
+    }
+
     private FeatureType buildOriginalFT() {
         builder.reset();
         builder.setName(NAME);
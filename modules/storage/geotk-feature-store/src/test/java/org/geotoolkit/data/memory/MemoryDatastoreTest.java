@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,7 +34,9 @@ import junit.framework.TestCase;
 
 import org.geotoolkit.data.FeatureCollection;
 import org.geotoolkit.data.FeatureReader;
+import org.geotoolkit.data.FeatureStoreUtilities;
 import org.geotoolkit.data.FeatureWriter;
+import org.geotoolkit.data.SplittableFeatureReader;
 import org.geotoolkit.data.query.Query;
 import org.geotoolkit.data.query.QueryBuilder;
 import org.geotoolkit.data.session.Session;
@@ -786,6 +789,80 @@ public class MemoryDatastoreTest extends TestCase{
 
     }
 
+    @Test
+    public void testSplitReader() throws Exception{
+        final FeatureTypeBuilder builder = new FeatureTypeBuilder();
+        final MemoryFeatureStore store = new MemoryFeatureStore();
+
+        final GenericName name = NamesExt.create("http://test.com", "TestSchema1");
+        builder.setName(name);
+        builder.add("att1", String.class);
+        store.createFeatureType(name,builder.buildFeatureType());
+
+        final FeatureWriter writer = store.getFeatureWriterAppend(name);
+        try{
+            for(int i=0;i<10;i++){
+                Feature f = writer.next();
+                f.setPropertyValue("att1", "hop"+i);
+                writer.write();
+            }
+        }finally{
+            writer.close();
+        }
+
+        //full scan
+        FeatureReader reader = store.getFeatureReader(QueryBuilder.all(name));
+        assertTrue(reader instanceof SplittableFeatureReader);
+        assertEquals(10, ((SplittableFeatureReader)reader).estimateSize());
+        List<FeatureReader> readers = FeatureStoreUtilities.split(reader, 4);
+        assertEquals(4, readers.size());
+        Set<Object> values = new HashSet<>();
+        for(FeatureReader part : readers){
+            try{
+                while(part.hasNext()){
+                    assertTrue(values.add(part.next().getPropertyValue("att1")));
+                }
+            }finally{
+                part.close();
+            }
+        }
+        assertEquals(10, values.size());
+
+        //filtered scan, splits must keep the filter
+        final QueryBuilder qb = new QueryBuilder(name);
+        qb.setFilter(FF.notEqual(FF.property("att1"), FF.literal("hop3")));
+        reader = store.getFeatureReader(qb.buildQuery());
+        assertTrue(reader instanceof SplittableFeatureReader);
+        readers = FeatureStoreUtilities.split(reader, 3);
+        assertEquals(3, readers.size());
+        values = new HashSet<>();
+        for(FeatureReader part : readers){
+            try{
+                while(part.hasNext()){
+                    assertTrue(values.add(part.next().getPropertyValue("att1")));
+                }
+            }finally{
+                part.close();
+            }
+        }
+        assertEquals(9, values.size());
+        assertFalse(values.contains("hop3"));
+
+        //started reader can not be split anymore
+        reader = store.getFeatureReader(QueryBuilder.all(name));
+        try{
+            reader.next();
+            assertEquals(1, FeatureStoreUtilities.split(reader, 4).size());
+            //reader which has not been split still supports remove
+            reader.remove();
+        }finally{
+            reader.close();
+        }
+        reader = store.getFeatureReader(QueryBuilder.all(name));
+        assertEquals(9, ((SplittableFeatureReader)reader).estimateSize());
+        reader.close();
+    }
+
     @Test
     public void testNoIteratorUnclosed() throws Exception{
         final FeatureTypeBuilder builder = new FeatureTypeBuilder();
@@ -115,6 +115,14 @@ public final class HintsPending extends Hints {
      */
     public static final Key KEY_IGNORE_SMALL_FEATURES = new Key(double[].class);
 
+    /**
+     * Maximum number of features kept in memory when features must be sorted
+     * without featurestore support. Additional features are written in temporary files.
+     *
+     * Default value is 100000.
+     */
+    public static final Key FEATURE_SORT_BUFFER_SIZE = new Key(Integer.class);
+
     private HintsPending(){}
 
 }
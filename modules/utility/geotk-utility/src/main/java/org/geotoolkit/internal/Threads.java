@@ -17,11 +17,15 @@
  */
 package org.geotoolkit.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
@@ -112,6 +116,23 @@ public final class Threads extends AtomicInteger implements ThreadFactory, Rejec
         WORK_EXECUTOR = ex;
     }
 
+    /**
+     * The executor for tasks split in parts executed in parallel by {@link #invokeAll(List)}.
+     * There is one daemon thread per processor, stopped after one minute of inactivity.
+     * <p>
+     * This executor is shared by every parallel algorithm, so nested parallel calls
+     * (e.g. a process resampling tiles decoded in parallel) do not oversubscribe the
+     * processors. The queue is unbounded since the caller thread also executes the
+     * tasks not yet started, so enqueued tasks never block the caller.
+     */
+    private static final ThreadPoolExecutor PARALLEL_EXECUTOR;
+    static {
+        final int n = Runtime.getRuntime().availableProcessors();
+        PARALLEL_EXECUTOR = new ThreadPoolExecutor(n, n, 1L, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<Runnable>(), (ThreadFactory) new Threads(false, true, "Parallel thread #"));
+        PARALLEL_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     /**
      * The executor for disposal tasks. The tasks submitted to this executor should be only
      * house-keeping works. The threads in this executor have a priority slightly higher than
@@ -189,6 +210,75 @@ public final class Threads extends AtomicInteger implements ThreadFactory, Rejec
         return WORK_EXECUTOR.submit(task);
     }
 
+    /**
+     * Returns the number of threads used by {@link #invokeAll(List)}. Callers splitting
+     * a work in parts can use this value as the number of parts.
+     *
+     * @return Number of parallel threads, at least 1.
+     *
+     * @since 4.0.0
+     */
+    public static int getParallelism() {
+        return PARALLEL_EXECUTOR.getMaximumPoolSize();
+    }
+
+    /**
+     * Executes the given task in a thread of the executor used by {@link #invokeAll(List)}.
+     * This method is for callers scheduling their own tasks. Since the threads are shared,
+     * a caller waiting for the task shall run it itself if it is not yet started, typically
+     * by invoking {@link FutureTask#run()} which does nothing on a started task.
+     *
+     * @param task The work to execute.
+     *
+     * @since 4.0.0
+     */
+    public static void executeParallel(final Runnable task) {
+        PARALLEL_EXECUTOR.execute(task);
+    }
+
+    /**
+     * Executes the given tasks in parallel and waits for their completion. The tasks are
+     * shared out between the threads of an executor common to the library and the calling
+     * thread, which executes every task not yet started by the executor. Consequently this
+     * method never waits for a free thread, even when invoked from an executor thread.
+     * <p>
+     * If a task fails, the tasks not yet started are cancelled and the failure is thrown.
+     *
+     * @param <T>   The type of task results.
+     * @param tasks The tasks to execute.
+     * @return The task results, in the same order than the tasks.
+     * @throws ExecutionException If a task failed. The cause is the task exception.
+     * @throws InterruptedException If interrupted while waiting for a task executed by another thread.
+     *
+     * @since 4.0.0
+     */
+    public static <T> List<T> invokeAll(final List<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException
+    {
+        final int n = tasks.size();
+        final List<FutureTask<T>> futures = new ArrayList<>(n);
+        for (final Callable<T> task : tasks) {
+            futures.add(new FutureTask<>(task));
+        }
+        // The first task is executed by the caller, no need to enqueue it.
+        for (int i=1; i<n; i++) {
+            PARALLEL_EXECUTOR.execute(futures.get(i));
+        }
+        final List<T> results = new ArrayList<>(n);
+        try {
+            for (final FutureTask<T> future : futures) {
+                // Does nothing if the task is already started by an executor thread.
+                future.run();
+                results.add(future.get());
+            }
+        } finally {
+            for (final FutureTask<T> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return results;
+    }
+
     /**
      * Executes the given task in a disposer thread after the given delay. The task
      * is executed in a thread from the {@link #RESOURCE_DISPOSERS} group. They have
@@ -270,6 +360,7 @@ public final class Threads extends AtomicInteger implements ThreadFactory, Rejec
          * delay were honored.
          */
         WORK_EXECUTOR.shutdown();
+        PARALLEL_EXECUTOR.shutdown();
         DISPOSAL_EXECUTOR.shutdown();
         final ThreadPoolExecutor ex = (ThreadPoolExecutor) DISPOSAL_EXECUTOR;
         for (final Runnable task : ex.getQueue()) {